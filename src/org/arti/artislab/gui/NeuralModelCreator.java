@@ -1,18 +1,110 @@
 package org.arti.artislab.gui;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.arti.neural.model.ModelLibrary;
+import org.arti.neural.node.equation.EquationArray;
+import org.arti.neural.node.equation.EquationCompiler;
+import org.arti.neural.node.equation.EquationModel;
+
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
 import javafx.stage.Stage;
 
 /**
- * <p>public class <b>NeuralModelCreator</b><br>
+ * <p>public final class <b>NeuralModelCreator</b><br>
  * extends {@link Stage}</p>
  * 
- * <p>NeuralModelCreator class creates and controls the neural model creator window where a user can create a new neural model in the Arti's Lab app.</p>
+ * <p>NeuralModelCreator class creates and controls the neural model creator window where a user can create a new neural model in the Arti's Lab app.
+ * The user enters the model as equations, see {@link EquationModel}, which are compiled into a neural node array with scalar, multi-threaded and
+ * SIMD kernels.</p>
  * 
  * @author Monroe Gordon
  * @version 1.0.0
  * @since JDK 23
  */
-public class NeuralModelCreator extends DialogWindow {
+public final class NeuralModelCreator extends DialogWindow {
+	/**
+	 * Directory the equation sources are saved to.
+	 */
+	public static final Path EQUATION_DIRECTORY = Path.of("models", "equations");
+	/**
+	 * File extension of a saved equation source.
+	 */
+	public static final String EQUATION_EXTENSION = ".eqn";
+	/**
+	 * Equation template of the general form dendrite and soma models.
+	 */
+	private static final String GENERAL_TEMPLATE = """
+			# General form Izhikevich (2007) model
+			C = 100
+			k = 0.7
+			vr = -60
+			vt = -40
+			vp = 35
+			a = 0.03
+			b = -2
+			c = -50
+			d = 100
+			substeps = 2
+			
+			v(0) = vr
+			u(0) = 0
+			
+			dv/dt = (k*(v - vr)*(v - vt) - u + I) / C
+			du/dt = a*(b*(v - vr) - u)
+			when v >= vp: v = c; u += d
+			""";
+	/**
+	 * Equation template of the simple form spiking models.
+	 */
+	private static final String SPIKING_TEMPLATE = """
+			# Simple form Izhikevich (2003) model
+			a = 0.02
+			b = 0.2
+			c = -65
+			d = 6
+			vp = 30
+			substeps = 2
+			
+			v(0) = -70
+			u(0) = b*v
+			
+			dv/dt = 0.04*v*v + 5*v + 140 - u + I
+			du/dt = a*(b*v - u)
+			when v >= vp: v = c; u += d
+			""";
+	
+	// The equation compiler shared by all creator windows.
+	private static EquationCompiler compiler;
+	
+	// Compile button.
+	private Button compileButton;
+	// Equation source text area.
+	private TextArea equationText;
+	// The library of preset models the new model is based on.
+	private ModelLibrary library;
+	// The neural model type value.
+	private int modelType;
+	// Model name text field.
+	private TextField nameText;
+	// Save button.
+	private Button saveButton;
+	// Compile and save status label.
+	private Label statusLabel;
 	
 	/**
 	 * Default constructor. Creates the new model creator window with the selected neural model type initialized to the specified model type.
@@ -21,5 +113,149 @@ public class NeuralModelCreator extends DialogWindow {
 	public NeuralModelCreator(int modelType) {
 		// Call parent constructor
 		super("Neural Model Creator", 800.0, 600.0);
+		
+		// Initialize variables
+		library = ModelLibrary.shared();
+		this.modelType = modelType;
+		
+		// Create name text field
+		Label nameLabel = new Label("Model Name");
+		nameLabel.setFont(new Font(nameLabel.getFont().getName(), 12.0));
+		nameLabel.setMinWidth(100.0);
+		nameLabel.setMaxWidth(100.0);
+		
+		nameText = new TextField("Custom " + library.model(ModelLibrary.Type.values()[modelType], 0).name());
+		nameText.setFont(new Font(nameText.getFont().getName(), 12.0));
+		nameText.setMinWidth(300.0);
+		nameText.setMaxWidth(300.0);
+		
+		HBox nameBox = new HBox(nameLabel, nameText);
+		nameBox.setAlignment(Pos.CENTER_LEFT);
+		nameBox.setPadding(new Insets(4.0, 4.0, 4.0, 4.0));
+		
+		// Create equation text area
+		equationText = new TextArea(ModelLibrary.Type.values()[modelType] == ModelLibrary.Type.SPIKING ? SPIKING_TEMPLATE : GENERAL_TEMPLATE);
+		equationText.setFont(Font.font("Monospaced", 13.0));
+		equationText.setMinHeight(420.0);
+		equationText.setMaxHeight(420.0);
+		equationText.setMinWidth(790.0);
+		equationText.setMaxWidth(790.0);
+		
+		// Create compile button
+		compileButton = new Button("Compile");
+		compileButton.setId("glass-grey");
+		compileButton.setMinHeight(30.0);
+		compileButton.setMaxHeight(30.0);
+		compileButton.setMinWidth(90.0);
+		compileButton.setMaxWidth(90.0);
+		compileButton.setOnAction(new EventHandler<ActionEvent>() {
+			@Override
+			public void handle(ActionEvent arg0) {
+				compileModel();
+			}
+		});
+		
+		// Create save button
+		saveButton = new Button("Save");
+		saveButton.setId("glass-grey");
+		saveButton.setMinHeight(30.0);
+		saveButton.setMaxHeight(30.0);
+		saveButton.setMinWidth(90.0);
+		saveButton.setMaxWidth(90.0);
+		saveButton.setOnAction(new EventHandler<ActionEvent>() {
+			@Override
+			public void handle(ActionEvent arg0) {
+				saveModel();
+			}
+		});
+		
+		// Create status label
+		statusLabel = new Label();
+		statusLabel.setFont(new Font(statusLabel.getFont().getName(), 12.0));
+		statusLabel.setMinWidth(580.0);
+		statusLabel.setMaxWidth(580.0);
+		statusLabel.setWrapText(true);
+		
+		HBox buttonBox = new HBox(4.0, compileButton, saveButton, statusLabel);
+		buttonBox.setAlignment(Pos.CENTER_LEFT);
+		buttonBox.setPadding(new Insets(4.0, 4.0, 4.0, 4.0));
+		
+		VBox layout = new VBox(nameBox, equationText, buttonBox);
+		layout.setPadding(new Insets(0.0, 5.0, 5.0, 5.0));
+		
+		getContentPane().getChildren().add(layout);
+	}
+	
+	/**
+	 * Returns the equation compiler shared by all creator windows, creating it the first time it is needed.
+	 * @return The shared equation compiler.
+	 */
+	private static synchronized EquationCompiler compiler() {
+		if (compiler == null)
+			compiler = new EquationCompiler();
+		
+		return compiler;
+	}
+	
+	/**
+	 * Parses the entered equations and compiles them into a neural node array on a background thread, reporting the result in the status
+	 * label.
+	 */
+	private void compileModel() {
+		EquationModel model;
+		
+		try {
+			model = EquationModel.parse(nameText.getText().strip(), equationText.getText());
+		} catch (IllegalArgumentException e) {
+			statusLabel.setText(e.getMessage());
+			return;
+		}
+		
+		compileButton.setDisable(true);
+		statusLabel.setText("Compiling " + model.name() + "...");
+		
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				String status;
+				
+				try {
+					long start = System.nanoTime();
+					EquationArray array = compiler().newArray(model);
+					status = "Compiled " + array.getClass().getSimpleName() + " in " + (System.nanoTime() - start) / 1000000L + " ms.";
+				} catch (IllegalArgumentException | IllegalStateException e) {
+					status = e.getMessage();
+				}
+				
+				String result = status;
+				
+				Platform.runLater(new Runnable() {
+					@Override
+					public void run() {
+						statusLabel.setText(result);
+						compileButton.setDisable(false);
+					}
+				});
+			}
+		}, "Equation Compiler");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Parses the entered equations and saves the source to the equation directory under the model name.
+	 */
+	private void saveModel() {
+		try {
+			EquationModel model = EquationModel.parse(nameText.getText().strip(), equationText.getText());
+			Path file = EQUATION_DIRECTORY.resolve(EquationCompiler.className(model) + EQUATION_EXTENSION);
+			Files.createDirectories(EQUATION_DIRECTORY);
+			Files.writeString(file, model.source(), StandardCharsets.UTF_8);
+			statusLabel.setText("Saved " + file + ".");
+		} catch (IllegalArgumentException e) {
+			statusLabel.setText(e.getMessage());
+		} catch (IOException e) {
+			statusLabel.setText("Error: Failed to save the model. " + e.getMessage());
+		}
 	}
 }
@@ -1,11 +1,15 @@
 package org.arti.artislab.gui;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
 
 import org.arti.artislab.gui.events.AppSizeEvent;
 import org.arti.artislab.gui.events.AppSizeListener;
@@ -13,7 +17,27 @@ import org.arti.artislab.gui.events.NeuralModelLabEvent;
 import org.arti.artislab.gui.events.NeuralModelLabListener;
 import org.arti.artislab.gui.events.TopToolBarEvent;
 import org.arti.artislab.gui.events.TopToolBarListener;
+import org.arti.neural.analysis.FIAnalysis;
+import org.arti.neural.analysis.FICurve;
+import org.arti.neural.analysis.FiringPattern;
+import org.arti.neural.analysis.PatternMap;
+import org.arti.neural.analysis.PhasePlane;
+import org.arti.neural.analysis.PhasePlaneAnalyzer;
+import org.arti.neural.model.InputProtocol;
+import org.arti.neural.model.IzhikevichModel;
+import org.arti.neural.model.ModelLibrary;
+import org.arti.neural.model.ModelStore;
+import org.arti.neural.model.ModelParameter;
+import org.arti.neural.model.ModelPreviewer;
+import org.arti.neural.model.ModelSimulator;
+import org.arti.neural.model.ResponseCache;
+import org.arti.neural.record.RunHistory;
+import org.arti.neural.record.StepRecordExporter;
+import org.arti.neural.record.TraceReader;
+import org.arti.neural.record.TraceStore;
+import org.arti.neural.record.TraceWriter;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -22,12 +46,13 @@ import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
-import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.MenuButton;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
@@ -66,11 +91,6 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	// Reset icon location.
 	private static final String RESET_ICON = "icons8-reset";
 	
-	// Soma model file location.
-	private static final String SOMA_MDL = "models/soma.mdl";
-	// Spiking model file location.
-	private static final String SPIKING_MDL = "models/spiking.mdl";
-	
 	// Dendrite neural model type.
 	private static final int DENDRITE_TYPE = 0;
 	// Soma neural model type.
@@ -83,8 +103,107 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	// Number of spiking models.
 	private static final int SPIKING_MODELS = 25;
 	
-	// Graph timespan.
+	// Width of the graph time window.
 	private static final int TIMESPAN = 1000;
+	// Trace channel of the membrane potential.
+	private static final int TRACE_V = 0;
+	// Trace channel of the membrane recovery.
+	private static final int TRACE_U = 1;
+	// Trace channel of the input current.
+	private static final int TRACE_I = 2;
+	// Trace channel of the child input current.
+	private static final int TRACE_GC = 3;
+	// Trace channel of the parent input current.
+	private static final int TRACE_GP = 4;
+	// Number of trace channels.
+	private static final int TRACE_CHANNELS = 5;
+	// Trace file channel names, indexed by trace channel.
+	private static final String[] TRACE_NAMES = { "v", "u", "I", "Igc", "Igp" };
+	// Number of past runs kept in the run history.
+	private static final int HISTORY_RUNS = 8;
+	// Maximum number of processing cycles kept per past run.
+	private static final int HISTORY_SAMPLES = 100 * TIMESPAN;
+	// Delay between the last parameter change and the preview simulation in milliseconds.
+	private static final long PREVIEW_DELAY = 30;
+	// Color of the preview traces.
+	private static final Color PREVIEW_COLOR = Color.rgb(255, 255, 255, 0.35);
+	// Journal file of the user created models.
+	private static final Path CUSTOM_JOURNAL = Path.of("models", "custom.jnl");
+	// Directory of the preview response cache.
+	private static final Path RESPONSE_CACHE_DIR = Path.of("cache", "responses");
+	// Maximum compressed size of the preview responses kept in memory in bytes.
+	private static final long RESPONSE_CACHE_BYTES = 16L << 20;
+	// Maximum size of the preview response cache directory in bytes.
+	private static final long RESPONSE_CACHE_DISK_BYTES = 64L << 20;
+	// Number of points per phase portrait nullcline.
+	private static final int NULLCLINE_POINTS = 161;
+	// Number of phase portrait flow field columns.
+	private static final int FIELD_COLUMNS = 32;
+	// Number of phase portrait flow field rows.
+	private static final int FIELD_ROWS = 24;
+	// Lowest membrane potential of the phase portrait.
+	private static final float PHASE_V_MIN = -100.0f;
+	// Highest membrane potential of the phase portrait.
+	private static final float PHASE_V_MAX = 60.0f;
+	// Lowest membrane recovery of the phase portrait.
+	private static final float PHASE_U_MIN = -50.0f;
+	// Highest membrane recovery of the phase portrait.
+	private static final float PHASE_U_MAX = 100.0f;
+	// Delay between the last parameter change and the phase plane analysis in milliseconds.
+	private static final long PHASE_PLANE_DELAY = 10;
+	// Number of points per F-I curve.
+	private static final int FI_POINTS = 101;
+	// Number of settling cycles before each F-I stimulus.
+	private static final int FI_ONSET = 200;
+	// Highest F-I input current of the spiking models.
+	private static final float FI_SPIKING_CURRENT = 100.0f;
+	// Highest F-I input current of the soma models.
+	private static final float FI_SOMA_CURRENT = 1000.0f;
+	// Color of the F-I curves of the other preset models.
+	private static final Color FI_OTHER_COLOR = Color.rgb(255, 255, 255, 0.2);
+	// Side graph names.
+	private static final String[] SIDE_GRAPH_NAMES = { "Phase Portrait", "F-I Curves", "Parameter Map" };
+	// Number of parameter map cells along each axis.
+	private static final int MAP_CELLS = 128;
+	// Parameter map axis parameters of the spiking models.
+	private static final ModelParameter[] SPIKING_MAP_PARAMETERS = { ModelParameter.A, ModelParameter.B, ModelParameter.C, ModelParameter.D,
+			ModelParameter.I };
+	// Parameter map axis ranges of the spiking models.
+	private static final float[][] SPIKING_MAP_RANGES = { { 0.0f, 0.12f }, { 0.0f, 0.3f }, { -70.0f, -40.0f }, { 0.0f, 10.0f },
+			{ 0.0f, 20.0f } };
+	// Parameter map axis parameters of the soma models.
+	private static final ModelParameter[] SOMA_MAP_PARAMETERS = { ModelParameter.A, ModelParameter.B, ModelParameter.C, ModelParameter.D,
+			ModelParameter.K, ModelParameter.CAPACITANCE, ModelParameter.VR, ModelParameter.VT, ModelParameter.I };
+	// Parameter map axis ranges of the soma models.
+	private static final float[][] SOMA_MAP_RANGES = { { 0.0f, 0.2f }, { -5.0f, 20.0f }, { -70.0f, -40.0f }, { 0.0f, 200.0f }, { 0.0f, 3.0f },
+			{ 20.0f, 200.0f }, { -80.0f, -50.0f }, { -60.0f, -30.0f }, { 0.0f, 500.0f } };
+	// Default parameter map x axis index, c.
+	private static final int DEF_MAP_X = 2;
+	// Default parameter map y axis index, d.
+	private static final int DEF_MAP_Y = 3;
+	// Number of settling cycles before each parameter map stimulus.
+	private static final int MAP_ONSET = 200;
+	// Parameter map legend names of the firing patterns, in FiringPattern order.
+	private static final String[] PATTERN_NAMES = { "Silent", "Phasic", "Tonic", "Adapting", "Bursting", "Irregular" };
+	// Parameter map colors of the firing patterns, in FiringPattern order.
+	private static final Color[] PATTERN_COLORS = {
+			Color.web("#333333"),
+			Color.web("#fba71b"),
+			Color.web("#57b757"),
+			Color.web("#41a9c9"),
+			Color.web("#f3622d"),
+			Color.web("#9a42c8") };
+	// Maximum number of lines shown in the output log.
+	private static final int OUTPUT_LINES = 500;
+	
+	// Simulation speed names.
+	private static final String[] SPEED_NAMES = { "0.02x", "0.1x", "0.25x", "0.5x", "1x", "2x", "5x", "10x", "Max" };
+	// Simulation speeds in simulated milliseconds per real millisecond, 0 runs as fast as possible.
+	private static final float[] SPEEDS = { 0.02f, 0.1f, 0.25f, 0.5f, 1.0f, 2.0f, 5.0f, 10.0f, 0.0f };
+	// Default simulation speed index.
+	private static final int DEF_SPEED = 4;
+	// Largest lag behind the selected speed before the simulation stops catching up, in nanoseconds.
+	private static final long MAX_LAG = 100000000L;
 	
 	// Default increment/decrement value.
 	private static final float DEF_INC_DEC = 10.0f;
@@ -110,9 +229,9 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 		 */
 		STANDARD_MODEL,
 		/**
-		 * Neural model has processed its full timespan.
+		 * Neural model run is paused.
 		 */
-		TIMESPAN_REACHED
+		RUN_PAUSED
 	}
 	
 	// List of NeuralModelLabEvent listeners
@@ -121,99 +240,79 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	private int modelType;
 	// The number of preset models
 	private int presetModels;
+	// The library of preset models.
+	private ModelLibrary library;
+	// The store of user created models, or null if its journal cannot be opened.
+	private ModelStore modelStore;
 	// The processing thread.
 	private Thread processThread;
+	// The number of processing cycles completed.
+	private long cycle;
+	// The number of processing cycles completed by the processing thread.
+	private volatile long processed;
+	// The number of processing cycles drawn on the graphs.
+	private long rendered;
+	// Timer drawing the completed processing cycles once per frame.
+	private AnimationTimer renderTimer;
+	// The simulation speed in simulated milliseconds per real millisecond, or 0 to run as fast as possible.
+	private volatile float speed;
 	
 	// Time scale of recovery variable u.
 	private float a;
-	// List of a values.
-	private ArrayList<Float> aList;
 	// Default a value.
 	private float aDef;
 	// Sensitivity of u to the fluctuations in v.
 	private float b;
-	// List of b values.
-	private ArrayList<Float> bList;
 	// Default b value.
 	private float bDef;
 	// Second, voltage-dependent value of b.
 	private float b2;
-	// List of b2 values.
-	private ArrayList<Float> b2List;
 	// Default b2 value.
 	private float b2Def;
 	// Alternate, voltage-dependent value of b.
 	private float ba;
-	// List of ba values.
-	private ArrayList<Float> baList;
 	// Default ba value.
 	private float baDef;
 	// Voltage threshold for alternate, voltage-dependent value of b.
 	private float bv;
-	// List of bv values.
-	private ArrayList<Float> bvList;
 	// Default bv value.
 	private float bvDef;
 	// After-spike reset value of v.
 	private float c;
-	// List of c values.
-	private ArrayList<Float> cList;
 	// Default c value.
 	private float cDef;
 	// Membrane capacitance.
 	private float C;
-	// List of membrane capacitance values.
-	private ArrayList<Float> CList;
 	// Default membrane capacitance value.
 	private float CDef;
 	// The coefficient for u in the membrean reset equation.
 	private float cu;
-	// List of u coefficient values.
-	private ArrayList<Float> cuList;
 	// Default u coefficient value.
 	private float cuDef;
 	// After-spike reset value of u.
 	private float d;
-	// List of d values.
-	private ArrayList<Float> dList;
 	// Default d value.
 	private float dDef;
 	// Child conductance.
 	private float gc;
-	// List of child conductance values.
-	private ArrayList<Float> gcList;
 	// Default child conductance value.
 	private float gcDef;
 	// Parent conductance.
 	private float gp;
-	// List of parent conductance values.
-	private ArrayList<Float> gpList;
 	// Default parent conductance value.
 	private float gpDef;
-	// Has history flag.
-	private boolean hasHistory;
+	// The past runs shown as graph overlays.
+	private RunHistory history;
+	// The number of runs saved to the history.
+	private int historyRuns;
 	// Input current.
 	private float I;
-	// Input current array.
-	private float[] IArr;
-	// Input current history array.
-	private float[] IHistArr;
 	// Child neural node input current.
 	private float vgc;
-	// Child neural node membrane potential array.
-	private float[] vgcArr;
-	// Child neural node membrane potential history array.
-	private float[] vgcHistArr;
 	// Parent neural node membrane potential.
 	private float vgp;
-	// Parent neural node membrane potential array.
-	private float[] vgpArr;
-	// Parent neural node membrane potential history array.
-	private float[] vgpHistArr;
 	// Square polynomial coefficient value.
 	private float k;
-	// List of square polynomial coefficient values.
-	private ArrayList<Float> kList;
 	// Default square polynomial coefficient value.
 	private float kDef;
 	// Spike flag.
@@ -221,75 +320,47 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	// Spike count.
 	private float spikes;
 	// Started processing flag.
-	private boolean started;
+	private volatile boolean started;
 	// Time
 	private float t;
 	// Recovery variable.
 	private float u;
-	// Recovery variable array.
-	private float[] uArr;
-	// Recovery variable history array.
-	private float[] uHistArr;
 	// Initial membrane recovery
 	private float uinit;
-	// List of initial membrane recovery values.
-	private ArrayList<Float> uinitList;
 	// Maximal u value.
 	private float umax;
-	// List of maximal u values.
-	private ArrayList<Float> umaxList;
 	// Default maximal u value.
 	private float umaxDef;
 	// The exponential power used in the u equation.
 	private float upow;
-	// List of u power values.
-	private ArrayList<Float> upowList;
 	// Default u power value.
 	private float upowDef;
 	// The membrane potential added to the current membrane potential in the u equation.
 	private float uv;
-	// List of u equation membrane potential values.
-	private ArrayList<Float> uvList;
 	// Default u equation membrane potential value.
 	private float uvDef;
 	// The minimum membrane potential difference value in the u equation.
 	private float uvmin;
-	// List of minimum u equation membrane potential values.
-	private ArrayList<Float> uvminList;
 	// Default minimum u equation membrane potential value.
 	private float uvminDef;
 	// Membrane potential.
 	private float v;
-	// Membrane potential array.
-	private float[] vArr;
-	// Membrane potential history array.
-	private float[] vHistArr;
 	// Initial membrane potential
 	private float vinit;
-	// List of initial membrane potential values.
-	private ArrayList<Float> vinitList;
 	// Spike peak membrane potential.
 	private float vp;
-	// List of spike peak membrane potential values.
-	private ArrayList<Float> vpList;
 	// Default spike peak membrane potential value.
 	private float vpDef;
 	// The coeffiecient for u in the spike cutoff equation.
 	private float vpu;
-	// List of u spike cutoff coefficient values.
-	private ArrayList<Float> vpuList;
 	// Default u spike cutoff coefficient value.
 	private float vpuDef;
 	// Resting membrane potential.
 	private float vr;
-	// List of resting membrane potential values.
-	private ArrayList<Float> vrList;
 	// Default resting membrane potential value.
 	private float vrDef;
 	// Instantaneous threshold potential.
 	private float vt;
-	// List of instantaneous threshold potential values.
-	private ArrayList<Float> vtList;
 	// Default instantaneous threshold potential value.
 	private float vtDef;
 	
@@ -526,72 +597,143 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	private TextField pulseValText;
 	// Pulse value.
 	private float pulse;
+	// Simulation speed label.
+	private Label speedLabel;
+	// Simulation speed list.
+	private ComboBox<String> speedList;
 	
 	// Phase portrait graph.
-	private LineChart<Number, Number> pGraph;
-	// Phase portrait c series.
-	private XYChart.Series<Number, Number> pcSeries;
-	// Phase portrait u nullcline series.
-	private XYChart.Series<Number, Number> puNullSeries;
-	// Phase portrait v nullcline series.
-	private XYChart.Series<Number, Number> pvNullSeries;
-	// Phase portrait v, u series.
-	private XYChart.Series<Number, Number> pvuSeries;
-	// Phase portrait graph x axis.
-	private NumberAxis pxAxis;
-	// Phase portrait graph y axis.
-	private NumberAxis pyAxis;
+	private TraceChart pGraph;
+	// Phase portrait c trace.
+	private int pcTrace;
+	// Phase portrait u nullcline trace.
+	private int puNullTrace;
+	// Phase portrait v nullcline trace.
+	private int pvNullTrace;
+	// Phase portrait v, u trace.
+	private int pvuTrace;
+	// F-I curve graph, shown in place of the phase portrait.
+	private TraceChart fiGraph;
+	// F-I curve traces of the preset models.
+	private int[] fiTrace;
+	// F-I curve trace of the selected model.
+	private int fiSelectedTrace;
+	// Rheobase marker trace of the selected model.
+	private int fiRheobaseTrace;
+	// F-I curves of the soma preset models, or null until computed.
+	private FICurve[] somaCurves;
+	// F-I curves of the spiking preset models, or null until computed.
+	private FICurve[] spikingCurves;
+	// True while the F-I curves are computed.
+	private boolean fiComputing;
+	// Graph row holding the membrane graphs and the side graph.
+	private HBox graphBox;
+	// Side graph label.
+	private Label sideGraphLabel;
+	// Side graph list.
+	private ComboBox<String> sideGraphList;
+	// Parameter map chart, shown in place of the phase portrait.
+	private ParameterMapChart mapChart;
+	// Parameter map axis row, shown with the parameter map.
+	private HBox mapAxisBox;
+	// Parameter map axis label.
+	private Label mapAxisLabel;
+	// Parameter map x axis list.
+	private ComboBox<String> mapXList;
+	// Parameter map y axis list.
+	private ComboBox<String> mapYList;
+	// Parameter map axis parameters listed in the axis lists, or null.
+	private ModelParameter[] mapParameters;
+	// Base parameters of the current parameter map, with its axis parameters zeroed.
+	private float[] mapBase;
+	// Current parameter map, or null.
+	private PatternMap patternMap;
 	// Membrane recovery graph.
-	private LineChart<Number, Number> uGraph;
-	// Membrane recovery series.
-	private XYChart.Series<Number, Number> uSeries;
-	// Membrane recovery history series.
-	private XYChart.Series<Number, Number> uHistSeries;
-	// Membrane recovery graph x axis.
-	private NumberAxis uxAxis;
-	// Membrane recovery graph y axis.
-	private NumberAxis uyAxis;
+	private TraceChart uGraph;
+	// Membrane recovery trace.
+	private int uTrace;
+	// Membrane recovery history traces, one per history slot.
+	private int[] uHistTrace;
 	// Membrane potential graph.
-	private LineChart<Number, Number> vGraph;
-	// Membrane potential series.
-	private XYChart.Series<Number, Number> vSeries;
-	// Membrane potential history series.
-	private XYChart.Series<Number, Number> vHistSeries;
-	// Membrane potential graph x axis.
-	private NumberAxis vxAxis;
-	// Membrane potential graph y axis.
-	private NumberAxis vyAxis;
+	private TraceChart vGraph;
+	// Membrane potential trace.
+	private int vTrace;
+	// Membrane potential history traces, one per history slot.
+	private int[] vHistTrace;
 	// Input current graph.
-	private LineChart<Number, Number> IGraph;
-	// Input current series.
-	private XYChart.Series<Number, Number> ISeries;
-	// Input current history series.
-	private XYChart.Series<Number, Number> IHistSeries;
-	// Input current graph x axis.
-	private NumberAxis IxAxis;
-	// Input current graph y axis.
-	private NumberAxis IyAxis;
+	private TraceChart IGraph;
+	// Input current trace.
+	private int ITrace;
+	// Input current history traces, one per history slot.
+	private int[] IHistTrace;
 	// Connected neural node input current graph.
-	private LineChart<Number, Number> gGraph;
-	// Connected child neural node input current series.
-	private XYChart.Series<Number, Number> gcSeries;
-	// Connected parent neural node input current series.
-	private XYChart.Series<Number, Number> gpSeries;
-	// Connected child neural node input current history series.
-	private XYChart.Series<Number, Number> gcHistSeries;
-	// Connected parent neural node input current history series.
-	private XYChart.Series<Number, Number> gpHistSeries;
-	// Connected neural node input current graph x axis.
-	private NumberAxis gxAxis;
-	// Connected neural node input current graph y axis.
-	private NumberAxis gyAxis;
+	private TraceChart gGraph;
+	// Connected child neural node input current trace.
+	private int gcTrace;
+	// Connected parent neural node input current trace.
+	private int gpTrace;
+	// Connected child neural node input current history traces, one per history slot.
+	private int[] gcHistTrace;
+	// Connected parent neural node input current history traces, one per history slot.
+	private int[] gpHistTrace;
+	// Run history overlay label.
+	private Label historyLabel;
+	// Run history overlay menu.
+	private MenuButton historyButton;
+	// Run history overlay menu items, one per history slot.
+	private CheckMenuItem[] historyItems;
+	// The history overlay points of one trace.
+	private float[] historyTime;
+	// The history overlay values of one trace.
+	private float[] historyValue;
+	// Membrane potential preview trace.
+	private int vPreviewTrace;
+	// Membrane recovery preview trace.
+	private int uPreviewTrace;
+	// The processing cycle of each preview point.
+	private float[] previewTime;
+	// Background simulator of the response to the current parameters.
+	private ModelPreviewer previewer;
+	// Cache of the simulated preview and run responses.
+	private ResponseCache responseCache;
+	// The cached response replayed at the start of the current run, or null.
+	private ResponseCache.Response replay;
+	// The input current of the replayed response.
+	private float replayI;
+	// The membrane recovery of the replayed response.
+	private float[] replayU;
+	// The membrane potential of the replayed response.
+	private float[] replayV;
+	// Background analyzer of the phase plane of the current parameters.
+	private PhasePlaneAnalyzer phasePlaneAnalyzer;
+	// Scroll bar moving the graph time window.
+	private ScrollBar timeBar;
+	// True while the time bar is moved by the graphs rather than the user.
+	private boolean timeBarUpdating;
+	
+	// The trace of the current run, holding the v, u, I, Igc and Igp values of every processing cycle.
+	private TraceStore trace;
+	// The trace values of the last processing cycle.
+	private float[] sample;
+	// The trace values read for the graphs, one array per trace channel.
+	private float[][] window;
+	// The times of the trace values read for the graphs.
+	private float[] windowTime;
+	// True if the graph time window follows the last processing cycle.
+	private boolean following;
+	// The first processing cycle of the graph time window, or -1 if the window must be redrawn.
+	private long windowStart;
 	
 	// Output log label.
 	private Label outputLabel;
 	// Output log text area.
 	private TextArea outputArea;
-	// Output log text.
-	private String outputLog;
+	// Output log exporter streaming the step records of the current run to the log file.
+	private StepRecordExporter logExporter;
+	// Temporary binary log file of the current run.
+	private Path logFile;
+	// Lengths of the lines shown in the output log.
+	private ArrayDeque<Integer> outputLines;
 	// Output vertical layout box.
 	private VBox outputBox;
 	
@@ -606,48 +748,50 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 		listener = new ArrayList<NeuralModelLabListener>();
 		modelType = DENDRITE_TYPE;
 		presetModels = 0;
+		library = ModelLibrary.shared();
+		
+		try {
+			modelStore = new ModelStore(CUSTOM_JOURNAL);
+		} catch (IOException e) {
+			modelStore = null;
+			App.alertError("I/O Error", "Could not open file " + CUSTOM_JOURNAL + "! User created models will not be saved.");
+		}
+		
 		processThread = null;
+		cycle = 0;
+		processed = 0;
+		rendered = 0;
+		speed = SPEEDS[DEF_SPEED];
 		
 		a = 0.0f;
-		aList = new ArrayList<Float>();
 		aDef = 0.0f;
 		b = 0.0f;
-		bList = new ArrayList<Float>();
 		bDef = 0.0f;
 		b2 = 0.0f;
-		b2List = new ArrayList<Float>();
 		b2Def = 0.0f;
 		ba = 0.0f;
-		baList = new ArrayList<Float>();
 		baDef = 0.0f;
 		bv = 0.0f;
-		bvList = new ArrayList<Float>();
 		bvDef = 0.0f;
 		c = 0.0f;
-		cList = new ArrayList<Float>();
 		cDef = 0.0f;
 		C = 0.0f;
-		CList = new ArrayList<Float>();
 		CDef = 0.0f;
 		cu = 0.0f;
-		cuList = new ArrayList<Float>();
 		cuDef = 0.0f;
 		d = 0.0f;
-		dList = new ArrayList<Float>();
 		dDef = 0.0f;
 		gc = 0.0f;
-		gcList = new ArrayList<Float>();
 		gcDef = 0.0f;
 		gp = 0.0f;
-		gpList = new ArrayList<Float>();
 		gpDef = 0.0f;
-		hasHistory = false;
+		history = new RunHistory(TRACE_CHANNELS, HISTORY_RUNS, HISTORY_SAMPLES);
+		historyRuns = 0;
+		historyTime = new float[TIMESPAN];
+		historyValue = new float[TIMESPAN];
 		I = 0.0f;
-		IArr = new float[TIMESPAN];
-		IHistArr = new float[TIMESPAN];
 		incDec = DEF_INC_DEC;
 		k = 0.0f;
-		kList = new ArrayList<Float>();
 		kDef = 0.0f;
 		pulse = DEF_PULSE;
 		spike = false;
@@ -655,59 +799,77 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 		started = false;
 		t = 0.0f;
 		u = 0.0f;
-		uArr = new float[TIMESPAN];
-		uHistArr = new float[TIMESPAN];
 		uinit = 0.0f;
-		uinitList = new ArrayList<Float>();
 		umax = 0.0f;
-		umaxList = new ArrayList<Float>();
 		umaxDef = 0.0f;
 		upow = 0.0f;
-		upowList = new ArrayList<Float>();
 		upowDef = 0.0f;
 		uv = 0.0f;
-		uvList = new ArrayList<Float>();
 		uvDef = 0.0f;
 		uvmin = 0.0f;
-		uvminList = new ArrayList<Float>();
 		uvminDef = 0.0f;
 		v = vr;
-		vArr = new float[TIMESPAN];
-		vHistArr = new float[TIMESPAN];
 		vgc = 0.0f;
-		vgcArr = new float[TIMESPAN];
-		vgcHistArr = new float[TIMESPAN];
 		vgp = 0.0f;
-		vgpArr = new float[TIMESPAN];
-		vgpHistArr = new float[TIMESPAN];
 		vinit = 0.0f;
-		vinitList = new ArrayList<Float>();
 		vp = 0.0f;
-		vpList = new ArrayList<Float>();
 		vpDef = 0.0f;
 		vpu = 0.0f;
-		vpuList = new ArrayList<Float>();
 		vpuDef = 0.0f;
 		vr = 0.0f;
-		vrList = new ArrayList<Float>();
 		vrDef = 0.0f;
 		vt = 0.0f;
-		vtList = new ArrayList<Float>();
 		vtDef = 0.0f;
 		
-		for (int i = 0; i < TIMESPAN; ++i) {
-			IArr[i] = 0.0f;
-			IHistArr[i] = 0.0f;
-			vgcArr[i] = 0.0f;
-			vgcHistArr[i] = 0.0f;
-			vgpArr[i] = 0.0f;
-			vgpHistArr[i] = 0.0f;
-			uArr[i] = u;
-			uHistArr[i] = 0.0f;
-			vArr[i] = c;
-			vHistArr[i] = 0.0f;
+		trace = new TraceStore(TRACE_CHANNELS);
+		sample = new float[TRACE_CHANNELS];
+		window = new float[TRACE_CHANNELS][TIMESPAN];
+		windowTime = new float[TIMESPAN];
+		following = true;
+		windowStart = 0;
+		previewTime = new float[TIMESPAN];
+		
+		for (int i = 0; i < TIMESPAN; ++i)
+			previewTime[i] = i;
+		
+		replay = null;
+		replayI = 0.0f;
+		replayU = new float[TIMESPAN];
+		replayV = new float[TIMESPAN];
+		
+		try {
+			responseCache = new ResponseCache(RESPONSE_CACHE_BYTES, RESPONSE_CACHE_DIR, RESPONSE_CACHE_DISK_BYTES);
+		} catch (IOException e) {
+			// Keep the preview responses in memory only
+			responseCache = new ResponseCache(RESPONSE_CACHE_BYTES);
 		}
 		
+		previewer = new ModelPreviewer(TIMESPAN, PREVIEW_DELAY, new ModelPreviewer.Listener() {
+			@Override
+			public void previewReady(IzhikevichModel model, InputProtocol input, float[] v, float[] u, int spikes) {
+				Platform.runLater(new Runnable() {
+					@Override
+					public void run() {
+						vGraph.set(vPreviewTrace, previewTime, v, v.length);
+						uGraph.set(uPreviewTrace, previewTime, u, u.length);
+					}
+				});
+			}
+		}, responseCache);
+		
+		phasePlaneAnalyzer = new PhasePlaneAnalyzer(PHASE_V_MIN, PHASE_V_MAX, PHASE_U_MIN, PHASE_U_MAX, NULLCLINE_POINTS, FIELD_COLUMNS,
+				FIELD_ROWS, PHASE_PLANE_DELAY, new PhasePlaneAnalyzer.Listener() {
+			@Override
+			public void phasePlaneReady(IzhikevichModel.Form form, float[] parameters, PhasePlane plane) {
+				Platform.runLater(new Runnable() {
+					@Override
+					public void run() {
+						drawPhasePlane(plane);
+					}
+				});
+			}
+		});
+		
 		// Setup layout
 		setMinHeight(DEF_HEIGHT);
 		setMaxHeight(DEF_HEIGHT);
@@ -747,137 +909,68 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 					// Load dendrite models file
 					modelNames = FXCollections.observableArrayList();
 					
-					modelNameList.setItems(modelNames);
-					modelNameList.getSelectionModel().select(0);
-					
 					modelType = DENDRITE_TYPE;
 					presetModels = 0;
-					sendEvent(Action.STANDARD_MODEL);
 					
-					pvNullSeries.getData().clear();
-					puNullSeries.getData().clear();
+					modelNameList.setItems(modelNames);
+					modelNameList.getSelectionModel().select(0);
+					computePatternMap();
+					sendEvent(Action.STANDARD_MODEL);
 					
-					for (int i = 0; i <= 160; ++i) {
-						puNullSeries.getData().add(new XYChart.Data<Number, Number>(-100.0f + (float)i, b * ((-100.0f + (float)i) - vr)));
-						pvNullSeries.getData().add(new XYChart.Data<Number, Number>(-100.0f + (float)i, 
-								k * ((-100.0f + (float)i) - vr) * ((-100.0f + (float)i) - vt) + I));
-					}
+					// Update the phase portrait of the new model type
+					requestPhasePlane();
 				}
 				// If Soma Models is selected
 				else if (arg0.getValue().intValue() == 1) {
-					// Load soma models file
-					modelNames = FXCollections.observableArrayList();
+					// Set the model type first, so the name list listener reads models of the new type
+					modelType = SOMA_TYPE;
 					
+					// Get soma model names from the model library
 					try {
-						Scanner scanner = new Scanner(new File(SOMA_MDL));
-						
-						while (scanner.hasNextLine()) {
-							String line = scanner.nextLine();
-							String[] part = line.split(",");
-							
-							modelNames.add(part[0]);
-							aList.add(Float.parseFloat(part[1]));
-							bList.add(Float.parseFloat(part[2]));
-							b2List.add(Float.parseFloat(part[3]));
-							baList.add(Float.parseFloat(part[4]));
-							bvList.add(Float.parseFloat(part[5]));
-							cList.add(Float.parseFloat(part[6]));
-							CList.add(Float.parseFloat(part[7]));
-							cuList.add(Float.parseFloat(part[8]));
-							dList.add(Float.parseFloat(part[9]));
-							gcList.add(Float.parseFloat(part[10]));
-							gpList.add(Float.parseFloat(part[11]));
-							kList.add(Float.parseFloat(part[12]));
-							uinitList.add(Float.parseFloat(part[13]));
-							umaxList.add(Float.parseFloat(part[14]));
-							upowList.add(Float.parseFloat(part[15]));
-							uvList.add(Float.parseFloat(part[16]));
-							uvminList.add(Float.parseFloat(part[17]));
-							vinitList.add(Float.parseFloat(part[18]));
-							vpList.add(Float.parseFloat(part[19]));
-							vpuList.add(Float.parseFloat(part[20]));
-							vrList.add(Float.parseFloat(part[21]));
-							vtList.add(Float.parseFloat(part[22]));
-						}
-						
-						scanner.close();
-					} catch (FileNotFoundException e) {
-						App.alertError("File not found!", "Could not find file: " + SOMA_MDL);
+						modelNames = FXCollections.observableArrayList(library.names(ModelLibrary.Type.SOMA));
+					} catch (UncheckedIOException e) {
+						modelNames = FXCollections.observableArrayList();
+						App.alertError("File not found!", "Could not load file: " + ModelLibrary.Type.SOMA.file());
 					}
 					
+					// Follow the preset models with the user created models
+					presetModels = modelNames.size();
+					
+					if (modelStore != null)
+						modelNames.addAll(modelStore.names(ModelLibrary.Type.SOMA));
+					
 					modelNameList.setItems(modelNames);
 					modelNameList.getSelectionModel().select(0);
-					
-					modelType = SOMA_TYPE;
-					presetModels = SOMA_MODELS;
 					sendEvent(Action.STANDARD_MODEL);
 					
-					pvNullSeries.getData().clear();
-					puNullSeries.getData().clear();
-					
-					for (int i = 0; i <= 160; ++i) {
-						puNullSeries.getData().add(new XYChart.Data<Number, Number>(-100.0f + (float)i, b * ((-100.0f + (float)i) - vr)));
-						pvNullSeries.getData().add(new XYChart.Data<Number, Number>(-100.0f + (float)i, 
-								k * ((-100.0f + (float)i) - vr) * ((-100.0f + (float)i) - vt) + I));
-					}
+					// Update the phase portrait of the new model type
+					requestPhasePlane();
 				}
 				// If Spiking Models is selected
 				else if (arg0.getValue().intValue() == 2) {
-					// Load spiking models file
-					modelNames = FXCollections.observableArrayList();
+					// Set the model type first, so the name list listener reads models of the new type
+					modelType = SPIKING_TYPE;
 					
+					// Get spiking model names from the model library
 					try {
-						Scanner scanner = new Scanner(new File(SPIKING_MDL));
-						
-						while (scanner.hasNextLine()) {
-							String line = scanner.nextLine();
-							String[] part = line.split(",");
-							
-							modelNames.add(part[0]);
-							aList.add(Float.parseFloat(part[1]));
-							bList.add(Float.parseFloat(part[2]));
-							b2List.add(Float.parseFloat(part[3]));
-							baList.add(Float.parseFloat(part[4]));
-							bvList.add(Float.parseFloat(part[5]));
-							cList.add(Float.parseFloat(part[6]));
-							CList.add(Float.parseFloat(part[7]));
-							cuList.add(Float.parseFloat(part[8]));
-							dList.add(Float.parseFloat(part[9]));
-							gcList.add(Float.parseFloat(part[10]));
-							gpList.add(Float.parseFloat(part[11]));
-							kList.add(Float.parseFloat(part[12]));
-							uinitList.add(Float.parseFloat(part[13]));
-							umaxList.add(Float.parseFloat(part[14]));
-							upowList.add(Float.parseFloat(part[15]));
-							uvList.add(Float.parseFloat(part[16]));
-							uvminList.add(Float.parseFloat(part[17]));
-							vinitList.add(Float.parseFloat(part[18]));
-							vpList.add(Float.parseFloat(part[19]));
-							vpuList.add(Float.parseFloat(part[20]));
-							vrList.add(Float.parseFloat(part[21]));
-							vtList.add(Float.parseFloat(part[22]));
-						}
-						
-						scanner.close();
-					} catch (FileNotFoundException e) {
-						App.alertError("File not found!", "Could not find file: " + SPIKING_MDL);
+						modelNames = FXCollections.observableArrayList(library.names(ModelLibrary.Type.SPIKING));
+					} catch (UncheckedIOException e) {
+						modelNames = FXCollections.observableArrayList();
+						App.alertError("File not found!", "Could not load file: " + ModelLibrary.Type.SPIKING.file());
 					}
 					
+					// Follow the preset models with the user created models
+					presetModels = modelNames.size();
+					
+					if (modelStore != null)
+						modelNames.addAll(modelStore.names(ModelLibrary.Type.SPIKING));
+					
 					modelNameList.setItems(modelNames);
 					modelNameList.getSelectionModel().select(0);
-					
-					modelType = SPIKING_TYPE;
-					presetModels = SPIKING_MODELS;
 					sendEvent(Action.STANDARD_MODEL);
 					
-					pvNullSeries.getData().clear();
-					puNullSeries.getData().clear();
-					
-					for (int i = 0; i <= 160; ++i) {
-						puNullSeries.getData().add(new XYChart.Data<Number, Number>(-100.0f + (float)i, b * (-100.0f + (float)i)));
-						pvNullSeries.getData().add(new XYChart.Data<Number, Number>(-100.0f + (float)i, 
-								0.04 * ((-100.0f + (float)i) * (-100.0f + (float)i)) + 5.0f * (-100.0f + (float)i) + 140.0 + I));
-					}
+					// Update the phase portrait of the new model type
+					requestPhasePlane();
 				}
 			}
 		});
@@ -906,27 +999,33 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 				// Set selected index
 				selectedIndex = arg0.getValue().intValue();
 				
+				// No model is selected while the name list is replaced
+				if (selectedIndex < 0 || selectedIndex >= modelNames.size())
+					return;
+				
 				// Update values
-				a = aList.get(selectedIndex);
-				b = bList.get(selectedIndex);
-				b2 = b2List.get(selectedIndex);
-				ba = baList.get(selectedIndex);
-				bv = bvList.get(selectedIndex);
-				c = cList.get(selectedIndex);
-				d = dList.get(selectedIndex);
-				C = CList.get(selectedIndex);
-				k = kList.get(selectedIndex);
-				vinit = vinitList.get(selectedIndex);
-				vr = vrList.get(selectedIndex);
-				vt = vtList.get(selectedIndex);
-				vp = vpList.get(selectedIndex);
-				cu = cuList.get(selectedIndex);
-				vpu = vpuList.get(selectedIndex);
-				uinit = uinitList.get(selectedIndex);
-				umax = umaxList.get(selectedIndex);
-				upow = upowList.get(selectedIndex);
-				uv = uvList.get(selectedIndex);
-				uvmin = uvminList.get(selectedIndex);
+				ModelLibrary.Model model = (selectedIndex < presetModels) ? library.model(libraryType(), selectedIndex) :
+						modelStore.find(libraryType(), modelNames.get(selectedIndex));
+				a = model.get(ModelParameter.A);
+				b = model.get(ModelParameter.B);
+				b2 = model.get(ModelParameter.B2);
+				ba = model.get(ModelParameter.BA);
+				bv = model.get(ModelParameter.BV);
+				c = model.get(ModelParameter.C);
+				d = model.get(ModelParameter.D);
+				C = model.get(ModelParameter.CAPACITANCE);
+				k = model.get(ModelParameter.K);
+				vinit = model.get(ModelParameter.VINIT);
+				vr = model.get(ModelParameter.VR);
+				vt = model.get(ModelParameter.VT);
+				vp = model.get(ModelParameter.VP);
+				cu = model.get(ModelParameter.CU);
+				vpu = model.get(ModelParameter.VPU);
+				uinit = model.get(ModelParameter.UINIT);
+				umax = model.get(ModelParameter.UMAX);
+				upow = model.get(ModelParameter.UPOW);
+				uv = model.get(ModelParameter.UV);
+				uvmin = model.get(ModelParameter.UVMIN);
 				aDef = a;
 				bDef = b;
 				baDef = ba;
@@ -964,6 +1063,8 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 				upowSlider.setValue(upow);
 				uvSlider.setValue(uv);
 				uvminSlider.setValue(uvmin);
+				requestPreview();
+				drawFICurves();
 				
 				if (selectedIndex < presetModels) 
 					sendEvent(Action.STANDARD_MODEL);
@@ -991,6 +1092,7 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		a = (float)aSlider.getValue();
         		aValText.setText(String.format("%2.3f", a));
+        		requestPreview();
         	}
         });
 		
@@ -1050,6 +1152,7 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		b = (float)bSlider.getValue();
         		bValText.setText(String.format("%2.3f", b));
+        		requestPreview();
         	}
         });
 		
@@ -1286,10 +1389,11 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		c = (float)cSlider.getValue();
         		cValText.setText(String.format("%3.3f", c));
+        		requestPreview();
         		
-        		pcSeries.getData().clear();
-        		pcSeries.getData().add(new XYChart.Data<Number, Number>(c, 200.0f));
-        		pcSeries.getData().add(new XYChart.Data<Number, Number>(c, -200.0f));
+        		pGraph.clear(pcTrace);
+        		pGraph.add(pcTrace, c, 200.0f);
+        		pGraph.add(pcTrace, c, -200.0f);
         	}
         });
 		
@@ -1349,6 +1453,7 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		d = (float)dSlider.getValue();
         		dValText.setText(String.format("%3.3f", d));
+        		requestPreview();
         	}
         });
 		
@@ -1408,6 +1513,7 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		C = (float)CSlider.getValue();
         		CValText.setText(String.format("%3.3f", C));
+        		requestPreview();
         	}
         });
 		
@@ -1467,6 +1573,7 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		k = (float)kSlider.getValue();
         		kValText.setText(String.format("%3.3f", k));
+        		requestPreview();
         	}
         });
 		
@@ -1526,6 +1633,7 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		vr = (float)vrSlider.getValue();
         		vrValText.setText(String.format("%3.3f", vr));
+        		requestPreview();
         	}
         });
 		
@@ -1585,6 +1693,7 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		vt = (float)vtSlider.getValue();
         		vtValText.setText(String.format("%3.3f", vt));
+        		requestPreview();
         	}
         });
 		
@@ -1644,6 +1753,7 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		vp = (float)vpSlider.getValue();
         		vpValText.setText(String.format("%3.3f", vp));
+        		requestPreview();
         	}
         });
 		
@@ -2184,6 +2294,7 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         	public void changed(ObservableValue <? extends Number> observable, Number oldValue, Number newValue) {
         		I = (float)ISlider.getValue();
         		IValText.setText(String.format("%4.3f", I));
+        		requestPreview();
         	}
         });
 		
@@ -2528,113 +2639,240 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
         idpBox.setPadding(new Insets(5.0, 0.0, 5.0, 0.0));
         idpBox.setAlignment(Pos.CENTER);
 		
+		// Create simulation speed controls
+		speedLabel = new Label("Simulation Speed:");
+		speedLabel.setTextFill(Color.WHITE);
+		speedLabel.setFont(new Font(speedLabel.getFont().getName(), 12.0));
+		speedLabel.setAlignment(Pos.CENTER);
+		
+		speedList = new ComboBox<String>(FXCollections.observableArrayList(SPEED_NAMES));
+		speedList.setTooltip(new Tooltip("Simulated Time Per Real Time"));
+		speedList.setMinWidth(100.0);
+		speedList.setMaxWidth(100.0);
+		speedList.getSelectionModel().select(DEF_SPEED);
+		speedList.getSelectionModel().selectedIndexProperty().addListener(new ChangeListener<Number>() {
+			@Override
+			public void changed(ObservableValue<? extends Number> arg0, Number arg1, Number arg2) {
+				if (arg2.intValue() >= 0)
+					speed = SPEEDS[arg2.intValue()];
+			}
+		});
+		
+		HBox speedBox = new HBox(speedLabel, speedList);
+		speedBox.setSpacing(5.0);
+		speedBox.setPadding(new Insets(5.0, 0.0, 5.0, 0.0));
+		speedBox.setAlignment(Pos.CENTER);
+		
+		// Create run history overlay controls
+		historyLabel = new Label("Run History:");
+		historyLabel.setTextFill(Color.WHITE);
+		historyLabel.setFont(new Font(historyLabel.getFont().getName(), 12.0));
+		historyLabel.setAlignment(Pos.CENTER);
+		
+		historyButton = new MenuButton("Overlays");
+		historyButton.setTooltip(new Tooltip("Past Runs Shown On The Graphs"));
+		historyButton.setMinWidth(100.0);
+		historyButton.setMaxWidth(100.0);
+		historyItems = new CheckMenuItem[HISTORY_RUNS];
+		
+		for (int i = 0; i < HISTORY_RUNS; ++i) {
+			historyItems[i] = new CheckMenuItem();
+			historyItems[i].setVisible(false);
+			historyItems[i].selectedProperty().addListener(new ChangeListener<Boolean>() {
+				@Override
+				public void changed(ObservableValue<? extends Boolean> arg0, Boolean arg1, Boolean arg2) {
+					drawHistory();
+				}
+			});
+			historyButton.getItems().add(historyItems[i]);
+		}
+		
+		HBox historyBox = new HBox(historyLabel, historyButton);
+		historyBox.setSpacing(5.0);
+		historyBox.setPadding(new Insets(5.0, 0.0, 5.0, 0.0));
+		historyBox.setAlignment(Pos.CENTER);
+		
+		// Create side graph controls
+		sideGraphLabel = new Label("Side Graph:");
+		sideGraphLabel.setTextFill(Color.WHITE);
+		sideGraphLabel.setFont(new Font(sideGraphLabel.getFont().getName(), 12.0));
+		sideGraphLabel.setAlignment(Pos.CENTER);
+		
+		sideGraphList = new ComboBox<String>(FXCollections.observableArrayList(SIDE_GRAPH_NAMES));
+		sideGraphList.setTooltip(new Tooltip("Graph Shown Beside The Membrane Graphs"));
+		sideGraphList.setMinWidth(130.0);
+		sideGraphList.setMaxWidth(130.0);
+		sideGraphList.getSelectionModel().select(0);
+		sideGraphList.getSelectionModel().selectedIndexProperty().addListener(new ChangeListener<Number>() {
+			@Override
+			public void changed(ObservableValue<? extends Number> arg0, Number arg1, Number arg2) {
+				boolean map = arg2.intValue() == 2;
+				mapAxisBox.setVisible(map);
+				mapAxisBox.setManaged(map);
+				
+				if (arg2.intValue() == 1) {
+					graphBox.getChildren().set(1, fiGraph);
+					computeFICurves();
+					drawFICurves();
+				}
+				else if (map) {
+					graphBox.getChildren().set(1, mapChart);
+					computePatternMap();
+				}
+				else {
+					graphBox.getChildren().set(1, pGraph);
+				}
+				
+				// Stop computing a parameter map that is no longer shown
+				if (!map && patternMap != null) {
+					patternMap.cancel();
+					patternMap = null;
+				}
+			}
+		});
+		
+		HBox sideGraphBox = new HBox(sideGraphLabel, sideGraphList);
+		sideGraphBox.setSpacing(5.0);
+		sideGraphBox.setPadding(new Insets(5.0, 0.0, 5.0, 0.0));
+		sideGraphBox.setAlignment(Pos.CENTER);
+		
+		// Create parameter map axis controls, listing the axes of the current model type once the map is shown
+		mapAxisLabel = new Label("Map Axes:");
+		mapAxisLabel.setTextFill(Color.WHITE);
+		mapAxisLabel.setFont(new Font(mapAxisLabel.getFont().getName(), 12.0));
+		mapAxisLabel.setAlignment(Pos.CENTER);
+		
+		ChangeListener<Number> mapAxisListener = new ChangeListener<Number>() {
+			@Override
+			public void changed(ObservableValue<? extends Number> arg0, Number arg1, Number arg2) {
+				computePatternMap();
+			}
+		};
+		
+		mapXList = new ComboBox<String>();
+		mapXList.setTooltip(new Tooltip("Parameter Map X Axis"));
+		mapXList.setMinWidth(62.0);
+		mapXList.setMaxWidth(62.0);
+		mapXList.getSelectionModel().selectedIndexProperty().addListener(mapAxisListener);
+		
+		mapYList = new ComboBox<String>();
+		mapYList.setTooltip(new Tooltip("Parameter Map Y Axis"));
+		mapYList.setMinWidth(62.0);
+		mapYList.setMaxWidth(62.0);
+		mapYList.getSelectionModel().selectedIndexProperty().addListener(mapAxisListener);
+		
+		mapAxisBox = new HBox(mapAxisLabel, mapXList, mapYList);
+		mapAxisBox.setSpacing(5.0);
+		mapAxisBox.setPadding(new Insets(5.0, 0.0, 5.0, 0.0));
+		mapAxisBox.setAlignment(Pos.CENTER);
+		mapAxisBox.setVisible(false);
+		mapAxisBox.setManaged(false);
+		mapParameters = null;
+		mapBase = null;
+		patternMap = null;
+		
+		// Create graph render timer
+		renderTimer = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				updateGraphs();
+			}
+		};
+		
 		// Create phase portrait graph
-		pxAxis = new NumberAxis(-100.0f, 60.0f, 10.0f);
-		pxAxis.setLabel("Membrane Potential (v)");
-		pyAxis = new NumberAxis(-50.0f, 100.0f, 10.0f);
-		pyAxis.setLabel("Membrane Recovery (u)");
-		pGraph = new LineChart<Number, Number>(pxAxis, pyAxis);
-		pcSeries = new XYChart.Series<Number, Number>();
-		pcSeries.setName("membrane reset");
-		pcSeries.getData().add(new XYChart.Data<Number, Number>(c, 200.0f));
-		pcSeries.getData().add(new XYChart.Data<Number, Number>(c, -200.0f));
-		puNullSeries = new XYChart.Series<Number, Number>();
-		puNullSeries.setName("u nullcline");
-		pvNullSeries = new XYChart.Series<Number, Number>();
-		pvNullSeries.setName("v nullcline");
-		pvuSeries = new XYChart.Series<Number, Number>();
-		pvuSeries.setName("v/u trace");
-		pGraph.setTitle("Phase Portrait");
-		pGraph.setHorizontalGridLinesVisible(true);
-		pGraph.setVerticalGridLinesVisible(true);
-		pGraph.setCreateSymbols(false);
-		pGraph.setAnimated(false);
-		pGraph.getData().add(pcSeries);
-		pGraph.getData().add(pvNullSeries);
-		pGraph.getData().add(puNullSeries);
-		pGraph.getData().add(pvuSeries);
+		pGraph = new TraceChart("Phase Portrait", "Membrane Potential (v)", PHASE_V_MIN, PHASE_V_MAX, 10.0, "Membrane Recovery (u)", PHASE_U_MIN,
+				PHASE_U_MAX, 10.0);
+		pcTrace = pGraph.addTrace("membrane reset", 2, false);
+		pvNullTrace = pGraph.addTrace("v nullcline", NULLCLINE_POINTS, false);
+		puNullTrace = pGraph.addTrace("u nullcline", NULLCLINE_POINTS, false);
+		pvuTrace = pGraph.addTrace("v/u trace", TIMESPAN, false);
+		pGraph.add(pcTrace, c, 200.0f);
+		pGraph.add(pcTrace, c, -200.0f);
+		
+		// Create F-I curve graph, the preset curves are computed when it is first shown
+		fiGraph = new TraceChart("F-I Curves", "Input Current (I)", 0.0, FI_SPIKING_CURRENT, 10.0, "Firing Rate (Hz)", 0.0, 500.0, 50.0);
+		fiTrace = new int[Math.max(SOMA_MODELS, SPIKING_MODELS)];
+		
+		for (int i = 0; i < fiTrace.length; ++i) {
+			fiTrace[i] = fiGraph.addTrace(null, FI_POINTS, false);
+			fiGraph.setTraceColor(fiTrace[i], FI_OTHER_COLOR);
+			fiGraph.setTraceVisible(fiTrace[i], false);
+		}
+		
+		fiSelectedTrace = fiGraph.addTrace("Selected Model", FI_POINTS, false);
+		fiRheobaseTrace = fiGraph.addTrace("Rheobase", 2, false);
+		somaCurves = null;
+		spikingCurves = null;
+		fiComputing = false;
+		
+		// Create parameter map chart
+		mapChart = new ParameterMapChart("Parameter Map", PATTERN_NAMES, PATTERN_COLORS);
 		
 		// Create membrane recovery graph
-		uxAxis = new NumberAxis(0.0, 1000.0, 100.0);
-		uxAxis.setLabel("Time");
-		uyAxis = new NumberAxis(-50.0f, 100.0f, 10.0f);
-		uyAxis.setLabel("Membrane Recovery (u)");
-		uGraph = new LineChart<Number, Number>(uxAxis, uyAxis);
-		uSeries = new XYChart.Series<Number, Number>();
-		uSeries.setName("Membrane Recovery (u)");
-		uHistSeries = new XYChart.Series<Number, Number>();
-		uHistSeries.setName("Membrane Recovery History (u)");
-		uGraph.setTitle("Membrane Recovery");
+		uGraph = new TraceChart("Membrane Recovery", "Time", 0.0, 1000.0, 100.0, "Membrane Recovery (u)", -50.0, 100.0, 10.0);
 		uGraph.setId("ugraph");
-		uGraph.setHorizontalGridLinesVisible(true);
-		uGraph.setVerticalGridLinesVisible(true);
-		uGraph.setCreateSymbols(false);
-		uGraph.setAnimated(false);
-		uGraph.getData().add(uSeries);
-		uGraph.getData().add(uHistSeries);
+		uTrace = uGraph.addTrace("Membrane Recovery (u)", TIMESPAN, true);
+		uPreviewTrace = uGraph.addTrace("Preview (u)", TIMESPAN, true);
+		uGraph.setTraceColor(uPreviewTrace, PREVIEW_COLOR);
 		
 		// Create membrane potential graph
-		vxAxis = new NumberAxis(0.0, 1000.0, 100.0);
-		vxAxis.setLabel("Time");
-		vyAxis = new NumberAxis(-100.0f, 40.0f, 10.0f);
-		vyAxis.setLabel("Membrane Potential (v)");
-		vGraph = new LineChart<Number, Number>(vxAxis, vyAxis);
-		vSeries = new XYChart.Series<Number, Number>();
-		vSeries.setName("Membrane Potential (v)");
-		vHistSeries = new XYChart.Series<Number, Number>();
-		vHistSeries.setName("Membrane Potential History (v)");
-		vGraph.setTitle("Membrane Potential");
+		vGraph = new TraceChart("Membrane Potential", "Time", 0.0, 1000.0, 100.0, "Membrane Potential (v)", -100.0, 40.0, 10.0);
 		vGraph.setId("vgraph");
-		vGraph.setHorizontalGridLinesVisible(true);
-		vGraph.setVerticalGridLinesVisible(true);
-		vGraph.setCreateSymbols(false);
-		vGraph.setAnimated(false);
-		vGraph.getData().add(vSeries);
-		vGraph.getData().add(vHistSeries);
+		vTrace = vGraph.addTrace("Membrane Potential (v)", TIMESPAN, true);
+		vPreviewTrace = vGraph.addTrace("Preview (v)", TIMESPAN, true);
+		vGraph.setTraceColor(vPreviewTrace, PREVIEW_COLOR);
 		
 		// Create input current graph
-		IxAxis = new NumberAxis(0.0, 1000.0, 100.0);
-		IxAxis.setLabel("Time");
-		IyAxis = new NumberAxis(-40.0f, 40.0f, 10.0f);
-		IyAxis.setLabel("Input Current (I)");
-		IGraph = new LineChart<Number, Number>(IxAxis, IyAxis);
-		ISeries = new XYChart.Series<Number, Number>();
-		ISeries.setName("Input Current (I)");
-		IHistSeries = new XYChart.Series<Number, Number>();
-		IHistSeries.setName("Input Current History (I)");
-		IGraph.setTitle("Input Current");
+		IGraph = new TraceChart("Input Current", "Time", 0.0, 1000.0, 100.0, "Input Current (I)", -40.0, 40.0, 10.0);
 		IGraph.setId("Igraph");
-		IGraph.setHorizontalGridLinesVisible(true);
-		IGraph.setVerticalGridLinesVisible(true);
-		IGraph.setCreateSymbols(false);
-		IGraph.setAnimated(false);
-		IGraph.getData().add(ISeries);
-		IGraph.getData().add(IHistSeries);
+		ITrace = IGraph.addTrace("Input Current (I)", TIMESPAN, true);
 		
 		// Create neural node input current graph
-		gxAxis = new NumberAxis(0.0, 1000.0, 100.0);
-		gxAxis.setLabel("Time");
-		gyAxis = new NumberAxis(-40.0f, 40.0f, 10.0f);
-		gyAxis.setLabel("Input Current (Igc/Igp)");
-		gGraph = new LineChart<Number, Number>(gxAxis, gyAxis);
-		gcSeries = new XYChart.Series<Number, Number>();
-		gcSeries.setName("Child Input Current (Igc)");
-		gpSeries = new XYChart.Series<Number, Number>();
-		gpSeries.setName("Parent Input Current (Igc)");
-		gcHistSeries = new XYChart.Series<Number, Number>();
-		gcHistSeries.setName("Child Input Current History (Igc)");
-		gpHistSeries = new XYChart.Series<Number, Number>();
-		gpHistSeries.setName("Parent Input Current History (Igp)");
-		gGraph.setTitle("Neural Node Input Current");
+		gGraph = new TraceChart("Neural Node Input Current", "Time", 0.0, 1000.0, 100.0, "Input Current (Igc/Igp)", -40.0, 40.0, 10.0);
 		gGraph.setId("ggraph");
-		gGraph.setHorizontalGridLinesVisible(true);
-		gGraph.setVerticalGridLinesVisible(true);
-		gGraph.setCreateSymbols(false);
-		gGraph.setAnimated(false);
-		gGraph.getData().add(gcSeries);
-		gGraph.getData().add(gpSeries);
-		gGraph.getData().add(gcHistSeries);
-		gGraph.getData().add(gpHistSeries);
+		gcTrace = gGraph.addTrace("Child Input Current (Igc)", TIMESPAN, true);
+		gpTrace = gGraph.addTrace("Parent Input Current (Igp)", TIMESPAN, true);
+		
+		// Create run history traces, hidden until a run is saved to their slot
+		uHistTrace = new int[HISTORY_RUNS];
+		vHistTrace = new int[HISTORY_RUNS];
+		IHistTrace = new int[HISTORY_RUNS];
+		gcHistTrace = new int[HISTORY_RUNS];
+		gpHistTrace = new int[HISTORY_RUNS];
+		
+		for (int i = 0; i < HISTORY_RUNS; ++i) {
+			uHistTrace[i] = uGraph.addTrace(null, TIMESPAN, true);
+			vHistTrace[i] = vGraph.addTrace(null, TIMESPAN, true);
+			IHistTrace[i] = IGraph.addTrace(null, TIMESPAN, true);
+			gcHistTrace[i] = gGraph.addTrace(null, TIMESPAN, true);
+			gpHistTrace[i] = gGraph.addTrace(null, TIMESPAN, true);
+			uGraph.setTraceVisible(uHistTrace[i], false);
+			vGraph.setTraceVisible(vHistTrace[i], false);
+			IGraph.setTraceVisible(IHistTrace[i], false);
+			gGraph.setTraceVisible(gcHistTrace[i], false);
+			gGraph.setTraceVisible(gpHistTrace[i], false);
+		}
+		
+		// Create graph time window scroll bar
+		timeBar = new ScrollBar();
+		timeBar.setOrientation(Orientation.HORIZONTAL);
+		timeBar.setTooltip(new Tooltip("Scroll Graph Time Window"));
+		timeBar.setMin(0.0);
+		timeBar.setMax(0.0);
+		timeBar.setVisibleAmount(TIMESPAN);
+		timeBar.setUnitIncrement(TIMESPAN / 10);
+		timeBar.setBlockIncrement(TIMESPAN);
+		timeBar.valueProperty().addListener(new ChangeListener<Number>() {
+			@Override
+			public void changed(ObservableValue<? extends Number> arg0, Number arg1, Number arg2) {
+				if (!timeBarUpdating) {
+					long start = Math.round(arg2.doubleValue());
+					following = start >= timeBar.getMax();
+					showWindow(start);
+				}
+			}
+		});
+		timeBarUpdating = false;
 		
 		/*
 		// Create new/save controls
@@ -2759,7 +2997,9 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 			}
 		});
 		
-		outputLog = "";
+		logExporter = null;
+		logFile = null;
+		outputLines = new ArrayDeque<Integer>();
 		
 		// Add components
 		modelBox = new VBox();
@@ -2791,7 +3031,11 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 				IBox,
 				vgcBox,
 				vgpBox,
-				idpBox);
+				idpBox,
+				speedBox,
+				historyBox,
+				sideGraphBox,
+				mapAxisBox);
 		modelBox.setPadding(new Insets(0.0, 5.0, 0.0, 5.0));
 		modelBox.setMinWidth(App.DEF_WORKSPACE_WIDTH * 0.2);
 		modelBox.setMaxWidth(App.DEF_WORKSPACE_WIDTH * 0.2);
@@ -2799,14 +3043,14 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 		VBox vuGraphBox = new VBox();
 		vuGraphBox.getChildren().addAll(vGraph, uGraph);
 		
-		HBox graphBox = new HBox();
+		graphBox = new HBox();
 		graphBox.getChildren().addAll(vuGraphBox, pGraph);
 		
 		HBox igGraphBox = new HBox();
 		igGraphBox.getChildren().addAll(IGraph, gGraph);
 		
 		VBox centerBox = new VBox();
-		centerBox.getChildren().addAll(graphBox, igGraphBox);
+		centerBox.getChildren().addAll(graphBox, igGraphBox, timeBar);
 		
 		outputBox = new VBox();
 		outputBox.getChildren().addAll(outputLabel, outputArea);
@@ -2837,6 +3081,36 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 			this.listener.add(listener);
 	}
 	
+	/**
+	 * Appends lines to the output log text area. Only the last OUTPUT_LINES lines are kept in the text area, the full output log of the
+	 * run is streamed to the log file.
+	 * @param line - The lines of text, each ending with a newline.
+	 */
+	private void appendOutputLog(String line) {
+		outputArea.appendText(line);
+		
+		// Record the length of each appended line
+		for (int start = 0, end; start < line.length(); start = end + 1) {
+			end = line.indexOf('\n', start);
+			
+			if (end < 0)
+				end = line.length() - 1;
+			
+			outputLines.addLast(end - start + 1);
+		}
+		
+		// Remove the oldest lines
+		int removed = 0;
+		
+		while (outputLines.size() > OUTPUT_LINES)
+			removed += outputLines.removeFirst();
+		
+		if (removed > 0)
+			outputArea.deleteText(0, removed);
+		
+		outputArea.setScrollTop(Double.MAX_VALUE);
+	}
+	
 	/**
 	 * Returns the value of b.
 	 * @return b.
@@ -2849,6 +3123,32 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	 */
 	public float c() { return c; }
 	
+	/**
+	 * Saves a copy of the current neural model parameters as a new user created model of the current model type, named after the selected
+	 * model, and selects it.
+	 */
+	public void copyModel() {
+		if (modelStore == null || selectedIndex < 0 || modelType == DENDRITE_TYPE)
+			return;
+		
+		// Find an unused name for the copy
+		String base = modelNames.get(selectedIndex) + " Copy";
+		String name = base;
+		
+		for (int i = 2; modelNames.contains(name); ++i)
+			name = base + " " + i;
+		
+		try {
+			modelStore.save(libraryType(), name, modelParameters());
+		} catch (IOException e) {
+			App.alertError("I/O Error", "Failed to write to file " + CUSTOM_JOURNAL + "!");
+			return;
+		}
+		
+		modelNames.add(name);
+		modelNameList.getSelectionModel().select(modelNames.size() - 1);
+	}
+	
 	/**
 	 * Returns the value of d.
 	 * @return d.
@@ -2860,6 +3160,78 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	 * @return I.
 	 */
 	public float I() { return I; }
+	
+	/**
+	 * Imports a trace file saved by {@link #saveOutputLog()} as the current run. The neural model is reset and the trace file is streamed
+	 * chunk by chunk into the trace of the run, so the graphs show its last time window, the run can be scrolled through and saved to the run
+	 * history, and running continues from its last processing cycle. Channels missing from the trace file read as zero. The step records of
+	 * the imported processing cycles are not added to the output log.
+	 */
+	public void importOutputLog() {
+		FileChooser.ExtensionFilter traceFilter = new FileChooser.ExtensionFilter("Trace Files", "*.trace");
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setInitialDirectory(new File("models"));
+		fileChooser.getExtensionFilters().add(traceFilter);
+		File file = fileChooser.showOpenDialog(null);
+		
+		if (file == null)
+			return;
+		
+		reset();
+		
+		try (TraceReader reader = new TraceReader(file.toPath())) {
+			// Match the channels of the trace file to the trace channels by name
+			int[] source = new int[TRACE_CHANNELS];
+			int[] target = new int[TRACE_CHANNELS];
+			int matched = 0;
+			
+			for (int i = 0; i < TRACE_CHANNELS; ++i) {
+				int index = reader.indexOf(TRACE_NAMES[i]);
+				
+				if (index >= 0) {
+					source[matched] = index;
+					target[matched++] = i;
+				}
+			}
+			
+			if (matched == 0)
+				throw new IOException("Error: " + file.getName() + " holds no neural model trace channels.");
+			
+			int[] channels = Arrays.copyOf(source, matched);
+			int[] sampleChannels = Arrays.copyOf(target, matched);
+			Arrays.fill(sample, 0.0f);
+			
+			reader.stream(channels, 0, reader.samples(), (first, offset, length, values) -> {
+				try {
+					for (int i = offset; i < offset + length; ++i) {
+						for (int j = 0; j < sampleChannels.length; ++j)
+							sample[sampleChannels[j]] = values[j][i];
+						
+						trace.append(sample);
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (IOException | UncheckedIOException e) {
+			reset();
+			App.alertError("Failed to open file.", "Could not open " + file.getName() + "!");
+			return;
+		}
+		
+		// Continue from the last processing cycle of the trace
+		cycle = trace.samples();
+		t = cycle;
+		
+		if (cycle > 0) {
+			v = (sample[TRACE_V] >= vp) ? c : sample[TRACE_V];
+			u = sample[TRACE_U];
+		}
+		
+		processed = cycle;
+		updateGraphs();
+		sendEvent(Action.RUN_PAUSED);
+	}
 
 	@Override
 	public void itemSelected(TopToolBarEvent e) {
@@ -2873,12 +3245,387 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	 */
 	public float k() { return k; }
 	
+	/**
+	 * Returns the model library type of the current model type.
+	 * @return The model type.
+	 */
+	private ModelLibrary.Type libraryType() {
+		if (modelType == SOMA_TYPE)
+			return ModelLibrary.Type.SOMA;
+		else if (modelType == SPIKING_TYPE)
+			return ModelLibrary.Type.SPIKING;
+		
+		return ModelLibrary.Type.DENDRITE;
+	}
+	
+	/**
+	 * Appends a line of text, such as the spike count of the run, to the output log and the log file.
+	 * @param text - The line of text, without a newline.
+	 */
+	private void logNote(String text) {
+		appendOutputLog(text + "\n");
+		
+		try {
+			if (logExporter != null)
+				logExporter.note(text);
+		} catch (IOException e) {
+			App.alertError("Output Log Error", "Could not write the output log file!");
+		}
+	}
+	
+	/**
+	 * Streams the record of the last processing cycle to the log file of the current run. This is called by the thread processing the
+	 * neural model.
+	 */
+	private void logStep() {
+		if (logExporter == null)
+			return;
+		
+		try {
+			logExporter.record(t, sample[TRACE_V], sample[TRACE_U], sample[TRACE_I], spike);
+		} catch (IOException e) {
+			// Stop logging the run
+			try {
+				if (logExporter != null)
+					logExporter.close();
+			} catch (IOException e2) {
+				// The log file is already failing
+			}
+			
+			logExporter = null;
+			
+			Platform.runLater(new Runnable() {
+				@Override
+				public void run() {
+					App.alertError("Output Log Error", "Could not write the output log file!");
+				}
+			});
+		}
+	}
+	
 	/**
 	 * Returns the value of C.
 	 * @return C.
 	 */
 	public float C() { return C; }
 	
+	/**
+	 * Clears the output log text area and discards the log file of the current run.
+	 */
+	private void clearOutputLog() {
+		// Wait for the processing thread to finish its last cycle
+		if (processThread != null && processThread != Thread.currentThread()) {
+			try {
+				processThread.join();
+			} catch (InterruptedException e) {
+				App.alertError("Thread Interrupted", "Neural model processing thread was interrupted.");
+			}
+		}
+		
+		if (logExporter != null) {
+			try {
+				logExporter.close();
+			} catch (IOException e) {
+				// The log file is discarded anyway
+			}
+		}
+		
+		if (logFile != null) {
+			try {
+				Files.deleteIfExists(logFile);
+			} catch (IOException e) {
+				// The log file is deleted on exit
+			}
+		}
+		
+		logExporter = null;
+		logFile = null;
+		outputLines.clear();
+		outputArea.clear();
+	}
+	
+	/**
+	 * Computes the F-I curves and rheobases of every spiking and soma preset model on a background thread, unless they are computed already.
+	 * The curves are drawn and the rheobases logged once they are ready.
+	 */
+	private void computeFICurves() {
+		if (fiComputing || spikingCurves != null)
+			return;
+		
+		fiComputing = true;
+		
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				long start = System.nanoTime();
+				FIAnalysis analysis = new FIAnalysis(FI_POINTS, FI_ONSET, TIMESPAN);
+				int spikingModels = 0;
+				
+				try {
+					for (ModelLibrary.Model model : library.models(ModelLibrary.Type.SPIKING)) {
+						analysis.add(model.name(), IzhikevichModel.Form.SIMPLE, model.parameters(), 0.0f, FI_SPIKING_CURRENT);
+						spikingModels++;
+					}
+					
+					for (ModelLibrary.Model model : library.models(ModelLibrary.Type.SOMA))
+						analysis.add(model.name(), IzhikevichModel.Form.GENERAL, model.parameters(), 0.0f, FI_SOMA_CURRENT);
+					
+					FICurve[] curves = analysis.run();
+					long time = System.nanoTime() - start;
+					FICurve[] spiking = Arrays.copyOfRange(curves, 0, spikingModels);
+					FICurve[] soma = Arrays.copyOfRange(curves, spikingModels, curves.length);
+					
+					Platform.runLater(new Runnable() {
+						@Override
+						public void run() {
+							spikingCurves = spiking;
+							somaCurves = soma;
+							fiComputing = false;
+							StringBuilder log = new StringBuilder(String.format("F-I curves of %d preset models in %.0f ms%n",
+									curves.length, time / 1.0e6));
+							
+							for (FICurve curve : curves)
+								log.append(String.format("  %-32.32s %8.2f%n", curve.name(), curve.rheobase()));
+							
+							appendOutputLog(log.toString());
+							drawFICurves();
+						}
+					});
+				} catch (RuntimeException | InterruptedException e) {
+					Platform.runLater(new Runnable() {
+						@Override
+						public void run() {
+							fiComputing = false;
+							App.alertError("F-I Curve Error", "Could not compute the F-I curves of the preset models!");
+						}
+					});
+				}
+			}
+		}, "F-I Curves");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Computes the firing pattern map of the current model over the selected axis parameters in the background, if the map is shown. The map
+	 * is simulated by a fork/join task on the common pool, coarse samples first, and each tile is drawn as soon as it is classified. If only
+	 * the axis parameters changed since the current map was started, the map is kept and just its marker is moved.
+	 */
+	private void computePatternMap() {
+		if (mapChart == null || graphBox == null || !graphBox.getChildren().contains(mapChart))
+			return;
+		
+		ModelParameter[] parameters = (modelType == SPIKING_TYPE) ? SPIKING_MAP_PARAMETERS : (modelType == SOMA_TYPE) ? SOMA_MAP_PARAMETERS : null;
+		float[][] ranges = (modelType == SPIKING_TYPE) ? SPIKING_MAP_RANGES : SOMA_MAP_RANGES;
+		
+		// List the axes of the current model type
+		if (parameters != mapParameters) {
+			mapParameters = parameters;
+			ObservableList<String> symbols = FXCollections.observableArrayList();
+			
+			for (int i = 0; parameters != null && i < parameters.length; ++i)
+				symbols.add(parameters[i].symbol());
+			
+			mapXList.setItems(symbols);
+			mapYList.setItems(FXCollections.observableArrayList(symbols));
+			
+			if (parameters != null) {
+				mapXList.getSelectionModel().select(DEF_MAP_X);
+				mapYList.getSelectionModel().select(DEF_MAP_Y);
+			}
+		}
+		
+		int xIndex = mapXList.getSelectionModel().getSelectedIndex();
+		int yIndex = mapYList.getSelectionModel().getSelectedIndex();
+		
+		if (parameters == null || xIndex < 0 || yIndex < 0 || xIndex == yIndex) {
+			if (patternMap != null)
+				patternMap.cancel();
+			
+			patternMap = null;
+			mapChart.clear();
+			return;
+		}
+		
+		ModelParameter xParameter = parameters[xIndex];
+		ModelParameter yParameter = parameters[yIndex];
+		float[] base = modelParameters();
+		float[] key = base.clone();
+		key[xParameter.ordinal()] = 0.0f;
+		key[yParameter.ordinal()] = 0.0f;
+		
+		if (patternMap != null && patternMap.xParameter() == xParameter && patternMap.yParameter() == yParameter && Arrays.equals(key, mapBase)) {
+			mapChart.setMarker(base[xParameter.ordinal()], base[yParameter.ordinal()]);
+			return;
+		}
+		
+		if (patternMap != null)
+			patternMap.cancel();
+		
+		IzhikevichModel.Form form = (modelType == SPIKING_TYPE) ? IzhikevichModel.Form.SIMPLE : IzhikevichModel.Form.GENERAL;
+		PatternMap map = new PatternMap(form, base, xParameter, ranges[xIndex][0], ranges[xIndex][1], MAP_CELLS, yParameter, ranges[yIndex][0],
+				ranges[yIndex][1], MAP_CELLS);
+		patternMap = map;
+		mapBase = key;
+		mapChart.setGrid(xParameter.symbol(), ranges[xIndex][0], ranges[xIndex][1], MAP_CELLS, yParameter.symbol(), ranges[yIndex][0],
+				ranges[yIndex][1], MAP_CELLS);
+		mapChart.setMarker(base[xParameter.ordinal()], base[yParameter.ordinal()]);
+		
+		map.start(ForkJoinPool.commonPool(), MAP_ONSET, TIMESPAN, new PatternMap.Listener() {
+			@Override
+			public void tileReady(PatternMap source, int x, int y, int width, int height) {
+				Platform.runLater(new Runnable() {
+					@Override
+					public void run() {
+						// Drop tiles of a map that was replaced in the meantime
+						if (map != patternMap)
+							return;
+						
+						for (int row = y; row < y + height; ++row) {
+							for (int column = x; column < x + width; ++column) {
+								FiringPattern pattern = map.pattern(column, row);
+								mapChart.setCell(column, row, (pattern == null) ? -1 : pattern.ordinal());
+							}
+						}
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Draws the F-I curves of the preset models of the current model type, highlighting the curve and rheobase of the selected model.
+	 */
+	private void drawFICurves() {
+		if (fiGraph == null || graphBox == null || !graphBox.getChildren().contains(fiGraph))
+			return;
+		
+		FICurve[] curves = (modelType == SPIKING_TYPE) ? spikingCurves : (modelType == SOMA_TYPE) ? somaCurves : null;
+		float maxCurrent = (modelType == SPIKING_TYPE) ? FI_SPIKING_CURRENT : FI_SOMA_CURRENT;
+		float maxRate = 0.0f;
+		float[] current = new float[FI_POINTS];
+		float[] rate = new float[FI_POINTS];
+		fiGraph.clear(fiSelectedTrace);
+		fiGraph.clear(fiRheobaseTrace);
+		fiGraph.setTraceName(fiSelectedTrace, "Selected Model");
+		
+		for (int i = 0; i < fiTrace.length; ++i) {
+			boolean shown = curves != null && i < curves.length;
+			fiGraph.setTraceVisible(fiTrace[i], shown);
+			
+			if (shown) {
+				curves[i].currents(current);
+				curves[i].rates(rate);
+				fiGraph.set(fiTrace[i], current, rate, FI_POINTS);
+				maxRate = Math.max(maxRate, curves[i].maxRate());
+			}
+		}
+		
+		if (curves != null && selectedIndex >= 0 && selectedIndex < curves.length) {
+			FICurve curve = curves[selectedIndex];
+			curve.currents(current);
+			curve.rates(rate);
+			fiGraph.set(fiSelectedTrace, current, rate, FI_POINTS);
+			fiGraph.setTraceName(fiSelectedTrace, curve.name());
+			
+			if (!Float.isNaN(curve.rheobase())) {
+				fiGraph.add(fiRheobaseTrace, curve.rheobase(), 0.0f);
+				fiGraph.add(fiRheobaseTrace, curve.rheobase(), Math.max(1.0f, curve.maxRate()));
+			}
+		}
+		
+		double rateTick = Math.max(10.0, Math.ceil(maxRate / 100.0) * 10.0);
+		fiGraph.setXRange(0.0, maxCurrent, maxCurrent / 10.0);
+		fiGraph.setYRange(0.0, Math.max(rateTick * 10.0, 100.0), rateTick);
+	}
+	
+	/**
+	 * Draws the nullclines, flow field and fixed points of a phase plane on the phase portrait. Stable fixed points are drawn filled and
+	 * unstable ones hollow.
+	 * @param plane - The phase plane.
+	 */
+	private void drawPhasePlane(PhasePlane plane) {
+		int points = plane.nullclinePoints();
+		float[] v = new float[points];
+		float[] vu = new float[points];
+		float[] uu = new float[points];
+		
+		for (int i = 0; i < points; ++i)
+			v[i] = plane.nullclineV(i);
+		
+		plane.vNullcline(vu);
+		plane.uNullcline(uu);
+		pGraph.set(pvNullTrace, v, vu, points);
+		pGraph.set(puNullTrace, v, uu, points);
+		
+		// Flow field arrows at the center of each field cell
+		int columns = plane.fieldColumns();
+		float[] fieldV = new float[plane.fieldPoints()];
+		float[] fieldU = new float[plane.fieldPoints()];
+		float[] dv = new float[plane.fieldPoints()];
+		float[] du = new float[plane.fieldPoints()];
+		plane.dv(dv);
+		plane.du(du);
+		
+		for (int i = 0; i < fieldV.length; ++i) {
+			fieldV[i] = plane.fieldV(i % columns);
+			fieldU[i] = plane.fieldU(i / columns);
+		}
+		
+		pGraph.setField(fieldV, fieldU, dv, du, fieldV.length, (PHASE_V_MAX - PHASE_V_MIN) / columns,
+				(PHASE_U_MAX - PHASE_U_MIN) / plane.fieldRows());
+		
+		// Fixed points
+		int fixedPoints = plane.fixedPoints();
+		float[] fixedV = new float[fixedPoints];
+		float[] fixedU = new float[fixedPoints];
+		boolean[] stable = new boolean[fixedPoints];
+		
+		for (int i = 0; i < fixedPoints; ++i) {
+			fixedV[i] = plane.fixedPoint(i).v();
+			fixedU[i] = plane.fixedPoint(i).u();
+			stable[i] = plane.fixedPoint(i).stability().isStable();
+		}
+		
+		pGraph.setMarkers(fixedV, fixedU, stable, fixedPoints);
+	}
+	
+	/**
+	 * Draws the selected past runs of the run history over the graph time window. The overlays are built from the precomputed envelopes of
+	 * the run history into reused arrays, so redrawing them does not allocate.
+	 */
+	private void drawHistory() {
+		int maxPoints = (vGraph.getWidth() > 0.0) ? Math.min(TIMESPAN, 2 * (int)vGraph.getWidth()) : TIMESPAN;
+		
+		for (int i = 0; i < HISTORY_RUNS; ++i) {
+			boolean shown = historyItems[i].isSelected() && history.run(i) != null;
+			drawHistoryTrace(vGraph, vHistTrace[i], i, TRACE_V, shown, maxPoints);
+			drawHistoryTrace(uGraph, uHistTrace[i], i, TRACE_U, shown, maxPoints);
+			drawHistoryTrace(IGraph, IHistTrace[i], i, TRACE_I, shown, maxPoints);
+			drawHistoryTrace(gGraph, gcHistTrace[i], i, TRACE_GC, shown, maxPoints);
+			drawHistoryTrace(gGraph, gpHistTrace[i], i, TRACE_GP, shown, maxPoints);
+		}
+	}
+	
+	/**
+	 * Draws a trace channel of a past run over the graph time window of the specified graph.
+	 * @param graph - The graph.
+	 * @param trace - The history trace of the graph.
+	 * @param slot - The history slot of the past run.
+	 * @param channel - The trace channel.
+	 * @param shown - True if the past run is shown.
+	 * @param maxPoints - The maximum number of points of the overlay.
+	 */
+	private void drawHistoryTrace(TraceChart graph, int trace, int slot, int channel, boolean shown, int maxPoints) {
+		if (shown) {
+			long start = Math.max(0, windowStart);
+			int count = history.envelope(slot, channel, start, start + TIMESPAN, maxPoints, historyTime, historyValue);
+			graph.set(trace, historyTime, historyValue, count);
+		}
+		
+		graph.setTraceVisible(trace, shown);
+	}
+	
 	/**
 	 * Launches the new dendrite model wizard to create a new dendrite neural model.
 	 */
@@ -2915,38 +3662,97 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 		} catch (InterruptedException e) {
 			App.alertError("Thread Interrupted", "Neural model processing thread was interrupted.");
 		}
+		
+		// Draw the remaining processing cycles
+		renderTimer.stop();
+		updateGraphs();
+		
+		// Log spike count
+		logNote(String.format("Spikes: %6.1f", spikes));
+		sendEvent(Action.RUN_PAUSED);
 	}
 	
 	/**
-	 * Processes a single processing cycle of the Izhikevich neuron.
+	 * Processes a single processing cycle of the Izhikevich neuron. The first time window of a run is replayed from the response cache while
+	 * the parameters and input current are unchanged. The cached responses use the same arithmetic, so the run continues seamlessly.
 	 */
 	public void process() {
-		if (modelType == SPIKING_TYPE) {
-			v += 0.5f * (0.04f * (v * v) + 5.0f * v + 140.0 - u + I);
-			v += 0.5f * (0.04f * (v * v) + 5.0f * v + 140.0 - u + I);
-			u += a * (b * v - u);
+		if (replaying()) {
+			int i = (int)cycle;
+			spike = replayV[i] >= vp;
+			v = spike ? c : replayV[i];
+			u = replayU[i];
+			sample[TRACE_V] = replayV[i];
+			sample[TRACE_U] = replayU[i];
 		}
 		else {
-			v += (k * (v - vr) * (v - vt) - u + I) / C;
-			u += a * (b * (v - vr) - u);
+			// The step methods of ModelSimulator, so a run matches the cached responses and the analysis charts
+			if (modelType == SPIKING_TYPE) {
+				v = ModelSimulator.simpleV(v, u, I, vp);
+				u = ModelSimulator.simpleU(v, u, a, b);
+			}
+			else {
+				v = ModelSimulator.generalV(v, u, I, C, k, vr, vt);
+				u = ModelSimulator.generalU(v, u, a, b, vr);
+			}
+			
+			sample[TRACE_V] = (v >= vp) ? vp : v;
+			sample[TRACE_U] = (v >= vp) ? u + d : u;
+			
+			if (v >= vp) {
+				v = c;
+				u += d;
+				spike = true;
+			}
+			else {
+				spike = false;
+			}
 		}
 		
-		IArr[(int)t] = I;
-		vgcArr[(int)t] = vgc;
-		vgpArr[(int)t] = vgp;
-		uArr[(int)t] = (v >= vp) ? u + d : u;
-		vArr[(int)t] = (v >= vp) ? vp : v;
+		sample[TRACE_I] = I;
+		sample[TRACE_GC] = vgc;
+		sample[TRACE_GP] = vgp;
 		
-		if (v >= vp) {
-			v = c;
-			u += d;
-			spike = true;
-		}
-		else {
-			spike = false;
+		// Count cycles in a long, a float time stops advancing after 2^24 cycles
+		cycle++;
+		t = cycle;
+	}
+	
+	/**
+	 * Reads the specified processing cycles of every trace channel into the start of the window arrays.
+	 * @param from - The first processing cycle.
+	 * @param count - The number of processing cycles, at most TIMESPAN.
+	 * @return True if the processing cycles were read, false if the trace could not be read.
+	 */
+	private boolean readWindow(long from, int count) {
+		try {
+			for (int i = 0; i < TRACE_CHANNELS; ++i)
+				trace.read(i, from, window[i], 0, count);
+		} catch (IOException e) {
+			App.alertError("Trace Error", "Could not read the neural model trace file!");
+			return false;
 		}
 		
-		t += 1.0f;
+		return true;
+	}
+	
+	/**
+	 * Appends the trace values of the last processing cycle to the trace of the current run. The processing thread is stopped if the trace
+	 * cannot be written.
+	 */
+	private void recordStep() {
+		try {
+			trace.append(sample);
+		} catch (IOException e) {
+			started = false;
+			
+			Platform.runLater(new Runnable() {
+				@Override
+				public void run() {
+					App.alertError("Trace Error", "Could not write the neural model trace file!");
+				}
+			});
+		}
 	}
 	
 	/**
@@ -2958,10 +3764,39 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	}
 	
 	/**
-	 * Removes the current neural model from the list of neural models.
+	 * Creates the log file of the current run if it does not exist yet.
+	 */
+	private void openOutputLog() {
+		if (logFile != null)
+			return;
+		
+		try {
+			logFile = Files.createTempFile("artislab", ".log");
+			logFile.toFile().deleteOnExit();
+			logExporter = StepRecordExporter.open(logFile, StepRecordExporter.Format.BINARY);
+		} catch (IOException e) {
+			App.alertError("Output Log Error", "Could not create the output log file!");
+		}
+	}
+	
+	/**
+	 * Removes the current neural model from the list of neural models. Only user created models are removed.
 	 */
 	public void removeModel() {
+		if (modelStore == null || selectedIndex < presetModels)
+			return;
+		
+		String name = modelNames.get(selectedIndex);
 		
+		try {
+			modelStore.remove(libraryType(), name);
+		} catch (IOException e) {
+			App.alertError("I/O Error", "Failed to write to file " + CUSTOM_JOURNAL + "!");
+			return;
+		}
+		
+		modelNameList.getSelectionModel().select(0);
+		modelNames.remove(name);
 	}
 	
 	/**
@@ -2970,6 +3805,16 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	public void reset() {
 		// Stop thread
 		started = false;
+		renderTimer.stop();
+		
+		if (processThread != null) {
+			try {
+				processThread.join();
+				processThread = null;
+			} catch (InterruptedException e) {
+				App.alertError("Thread Interrupted", "Neural model processing thread was interrupted.");
+			}
+		}
 		
 		// Reset values
 		a = aDef;
@@ -2990,50 +3835,33 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 		uvmin = uvminDef;
 		gc = gcDef;
 		gp = gpDef;
+		cycle = 0;
+		processed = 0;
+		rendered = 0;
+		spikes = 0.0f;
 		t = 0.0f;
 		u = uinit;
 		v = vinit;
 		vgc = 0.0f;
 		vgp = 0.0f;
 		
-		for (int i = 0; i < TIMESPAN; ++i) {
-			IArr[i] = I;
-			vgcArr[i] = vgc;
-			vgpArr[i] = vgp;
-			uArr[i] = u;
-			vArr[i] = c;
+		try {
+			trace.clear();
+		} catch (IOException e) {
+			App.alertError("Trace Error", "Could not clear the neural model trace file!");
 		}
 		
 		// Reset graphs
-		vSeries.getData().clear();
-		uSeries.getData().clear();
-		pvuSeries.getData().clear();
-		ISeries.getData().clear();
-		gcSeries.getData().clear();
-		gpSeries.getData().clear();
-		
-		if (!hasHistory) {
-			vHistSeries.getData().clear();
-			uHistSeries.getData().clear();
-			IHistSeries.getData().clear();
-			gcHistSeries.getData().clear();
-			gpHistSeries.getData().clear();
-		}
-		else {
-			for (int i = 0; i < TIMESPAN; ++i) {
-				vHistSeries.getData().add(new XYChart.Data<Number, Number>((float)i, vHistArr[i]));
-				uHistSeries.getData().add(new XYChart.Data<Number, Number>((float)i, uHistArr[i]));
-				IHistSeries.getData().add(new XYChart.Data<Number, Number>((float)i, IHistArr[i]));
-				gcHistSeries.getData().add(new XYChart.Data<Number, Number>((float)i, vgcHistArr[i]));
-				gpHistSeries.getData().add(new XYChart.Data<Number, Number>((float)i, vgpHistArr[i]));
-			}
-		}
-		
-		vGraph.getData().set(1, vHistSeries);
-		uGraph.getData().set(1, uHistSeries);
-		IGraph.getData().set(1, IHistSeries);
-		gGraph.getData().set(2, gcHistSeries);
-		gGraph.getData().set(3, gpHistSeries);
+		following = true;
+		windowStart = -1;
+		setTimeWindow(0);
+		updateTimeBar(0);
+		vGraph.clear(vTrace);
+		uGraph.clear(uTrace);
+		pGraph.clear(pvuTrace);
+		IGraph.clear(ITrace);
+		gGraph.clear(gcTrace);
+		gGraph.clear(gpTrace);
 		
 		// Update controls
 		aSlider.setValue(a);
@@ -3054,100 +3882,267 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 		uvminSlider.setValue(uvmin);
 		gcSlider.setValue(gc);
 		gpSlider.setValue(gp);
-		outputLog = "";
-		outputArea.setText(outputLog);
+		clearOutputLog();
+		requestPreview();
 	}
 	
 	@Override
 	public void run() {
-		// While started
-		while (started && t < TIMESPAN) {
+		float paceSpeed = speed;
+		long paceCycle = cycle;
+		long paceTime = System.nanoTime();
+		
+		// While started, the run continues until it is paused or stopped
+		while (started) {
 			// Process neuron
 			process();
+			recordStep();
+			logStep();
 			
-			Platform.runLater(new Runnable() {
-				@Override
-				public void run() {
-					if (t > 0.0) {
-						// Update spike count
-						if (spike) spikes += 1.0f;
-						
-						// Update graphs
-						updateGraphs();
-						
-						// Update controls
-						outputLog += String.format("t: %6s - v: %7s; u: %7s; I: %8s", 
-								String.format("%6.1f", t), 
-								String.format("%7.3f", vArr[(int)(t - 1.0f)]), 
-								String.format("%7.3f", uArr[(int)(t - 1.0f)]),
-								String.format("%8.3f", IArr[(int)(t - 1.0f)])) +
-								((vArr[(int)(t - 1.0f)] >= vp) ? "*\n" : "\n");
-						outputArea.setText(outputLog);
-						outputArea.setScrollTop(Double.MAX_VALUE);
-					}
+			// Update spike count and publish the processing cycle to the render timer
+			if (spike) spikes += 1.0f;
+			processed = cycle;
+			
+			// Restart pacing when the speed changes
+			if (speed != paceSpeed) {
+				paceSpeed = speed;
+				paceCycle = cycle;
+				paceTime = System.nanoTime();
+			}
+			
+			// Wait until the selected speed catches up with the simulation
+			if (paceSpeed > 0.0f) {
+				long wait = paceTime + (long)((cycle - paceCycle) * 1000000.0 / paceSpeed) - System.nanoTime();
+				
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
 				}
-			});
+				else if (wait < -MAX_LAG) {
+					paceCycle = cycle;
+					paceTime = System.nanoTime();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the current model parameters and input current, indexed by parameter ordinal.
+	 * @return The parameter values.
+	 */
+	private float[] modelParameters() {
+		float[] parameters = new float[ModelParameter.values().length];
+		parameters[ModelParameter.A.ordinal()] = a;
+		parameters[ModelParameter.B.ordinal()] = b;
+		parameters[ModelParameter.B2.ordinal()] = b2;
+		parameters[ModelParameter.BA.ordinal()] = ba;
+		parameters[ModelParameter.BV.ordinal()] = bv;
+		parameters[ModelParameter.C.ordinal()] = c;
+		parameters[ModelParameter.CAPACITANCE.ordinal()] = C;
+		parameters[ModelParameter.CU.ordinal()] = cu;
+		parameters[ModelParameter.D.ordinal()] = d;
+		parameters[ModelParameter.GC.ordinal()] = gc;
+		parameters[ModelParameter.GP.ordinal()] = gp;
+		parameters[ModelParameter.K.ordinal()] = k;
+		parameters[ModelParameter.UINIT.ordinal()] = uinit;
+		parameters[ModelParameter.UMAX.ordinal()] = umax;
+		parameters[ModelParameter.UPOW.ordinal()] = upow;
+		parameters[ModelParameter.UV.ordinal()] = uv;
+		parameters[ModelParameter.UVMIN.ordinal()] = uvmin;
+		parameters[ModelParameter.VINIT.ordinal()] = vinit;
+		parameters[ModelParameter.VP.ordinal()] = vp;
+		parameters[ModelParameter.VPU.ordinal()] = vpu;
+		parameters[ModelParameter.VR.ordinal()] = vr;
+		parameters[ModelParameter.VT.ordinal()] = vt;
+		parameters[ModelParameter.I.ordinal()] = I;
+		return parameters;
+	}
+	
+	/**
+	 * Returns the model of the current parameters.
+	 * @return The model.
+	 */
+	private IzhikevichModel model() {
+		return new IzhikevichModel(modelForm(), a, b, c, d, C, k, vp, vr, vt, vinit, uinit);
+	}
+	
+	/**
+	 * Returns the membrane equation form of the current model type.
+	 * @return The form.
+	 */
+	private IzhikevichModel.Form modelForm() {
+		return (modelType == SPIKING_TYPE) ? IzhikevichModel.Form.SIMPLE : IzhikevichModel.Form.GENERAL;
+	}
+	
+	/**
+	 * Returns true if the current processing cycle is replayed from the response cache. A run starting from the initial state looks up the
+	 * time window response of the current parameters in memory, where the previews put it, and the replay stops at the end of the time
+	 * window or as soon as a parameter or the input current changes. The lookup never reads the disk or simulates, as it runs on the
+	 * processing thread or, when stepping, the application thread. A missed run is simulated live with the same arithmetic instead, and the
+	 * response is read from the cache directory or simulated and cached in the background for the next run. Later cycles compare the current
+	 * parameters with the replayed ones without creating objects.
+	 * @return True if the processing cycle is replayed.
+	 */
+	private boolean replaying() {
+		if (cycle == 0) {
+			replay = null;
 			
-			try {
-				Thread.sleep(50);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+			if (v == vinit && u == uinit) {
+				IzhikevichModel model = model();
+				InputProtocol input = InputProtocol.constant(I);
+				replay = responseCache.cached(model, input, TIMESPAN);
+				replayI = I;
+				
+				if (replay != null)
+					replay.decode(replayV, replayU);
+				
+				ForkJoinPool.commonPool().execute(new Runnable() {
+					@Override
+					public void run() {
+						responseCache.response(model, input, TIMESPAN);
+					}
+				});
 			}
 		}
 		
-		// Reset started
-		started = false;
+		if (replay != null && (cycle >= replay.cycles() || Float.floatToIntBits(I) != Float.floatToIntBits(replayI) ||
+				!replay.model().matches(modelForm(), a, b, c, d, C, k, vp, vr, vt, vinit, uinit)))
+			replay = null;
 		
-		// Disable buttons when timespan is reached
-		if (t == TIMESPAN) {
-			Platform.runLater(new Runnable() {
-				@Override
-				public void run() {
-					// Log spike count
-					outputLog += String.format("Spikes: %6.1f\n", spikes);
-					outputArea.setText(outputLog);
-					outputArea.setScrollTop(Double.MAX_VALUE);
-					
-					hasHistory = false;
-					sendEvent(Action.TIMESPAN_REACHED);
-				}
-			});
-		}
+		return replay != null;
+	}
+	
+	/**
+	 * Requests a preview of the full time window response of the current parameters to the current input current, starting from the initial
+	 * state. The response is simulated on the preview thread once the parameters stop changing and drawn as a ghost trace on the membrane
+	 * potential and recovery graphs. The phase portrait and the parameter map, if it is shown, are refreshed as well.
+	 */
+	private void requestPreview() {
+		previewer.request(model(), InputProtocol.constant(I));
+		requestPhasePlane();
+		computePatternMap();
 	}
 	
 	/**
-	 * Saves the history of the current neural model.
+	 * Requests the phase plane of the current parameters and input current. The nullclines, flow field and fixed points are computed on the
+	 * phase plane thread, or taken from its cache, and drawn on the phase portrait once the parameters stop changing.
+	 */
+	private void requestPhasePlane() {
+		IzhikevichModel.Form form = (modelType == SPIKING_TYPE) ? IzhikevichModel.Form.SIMPLE : IzhikevichModel.Form.GENERAL;
+		phasePlaneAnalyzer.request(form, modelParameters());
+	}
+	
+	/**
+	 * Saves the current run of the neural model, with its parameters, to the run history and shows it as a graph overlay. The oldest run is
+	 * replaced once the history is full.
 	 */
 	public void saveHistory() {
-		// Set history flag
-		hasHistory = true;
-		
-		// Store past values
-		for (int i = 0; i < TIMESPAN; ++i) {
-			IHistArr[i] = IArr[i];
-			vgcHistArr[i] = vgcArr[i];
-			vgpHistArr[i] = vgpArr[i];
-			uHistArr[i] = uArr[i];
-			vHistArr[i] = vArr[i];
+		String name = "Run " + (++historyRuns);
+		float[] parameters = { a, b, c, d, C, k, vp, vr, vt, cu, vpu, umax, upow, uv, uvmin, gc, gp };
+		int slot;
+		
+		try {
+			slot = history.add(name, parameters, trace);
+		} catch (IOException e) {
+			App.alertError("Trace Error", "Could not read the neural model trace file!");
+			return;
 		}
+		
+		// Name the overlay of the slot after the new run and show it
+		vGraph.setTraceName(vHistTrace[slot], name + " (v)");
+		uGraph.setTraceName(uHistTrace[slot], name + " (u)");
+		IGraph.setTraceName(IHistTrace[slot], name + " (I)");
+		gGraph.setTraceName(gcHistTrace[slot], name + " (Igc)");
+		gGraph.setTraceName(gpHistTrace[slot], name + " (Igp)");
+		historyItems[slot].setText(name + ": " + modelNameList.getSelectionModel().getSelectedItem());
+		historyItems[slot].setVisible(true);
+		
+		if (historyItems[slot].isSelected())
+			drawHistory();
+		else
+			historyItems[slot].setSelected(true);
 	}
 	
 	/**
-	 * Saves the output log of the current neural model.
+	 * Saves the output log of the current neural model. The step records of the run are converted from the log file to the format of the
+	 * selected file type on a background thread, so saving a long run does not block the user interface. The trace file type saves the
+	 * trace of the run as a compressed trace file instead, which {@link #importOutputLog()} opens again.
 	 */
 	public void saveOutputLog() {
+		FileChooser.ExtensionFilter textFilter = new FileChooser.ExtensionFilter("Text Files", "*.txt");
+		FileChooser.ExtensionFilter csvFilter = new FileChooser.ExtensionFilter("CSV Files", "*.csv");
+		FileChooser.ExtensionFilter binaryFilter = new FileChooser.ExtensionFilter("Binary Files", "*.bin");
+		FileChooser.ExtensionFilter traceFilter = new FileChooser.ExtensionFilter("Trace Files", "*.trace");
 		FileChooser fileChooser = new FileChooser();
 		fileChooser.setInitialDirectory(new File("models"));
-		fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+		fileChooser.getExtensionFilters().addAll(textFilter, csvFilter, binaryFilter, traceFilter);
 		File file = fileChooser.showSaveDialog(null);
 		
 		if (file != null) {
+			StepRecordExporter.Format format = StepRecordExporter.Format.TEXT;
+			
+			if (fileChooser.getSelectedExtensionFilter() == csvFilter)
+				format = StepRecordExporter.Format.CSV;
+			else if (fileChooser.getSelectedExtensionFilter() == binaryFilter)
+				format = StepRecordExporter.Format.BINARY;
+			
 			try {
-				FileWriter fileWriter = new FileWriter(file);
-				fileWriter.write(outputLog);
-				fileWriter.close();
+				// Write queued step records to the log file
+				if (logExporter != null)
+					logExporter.flush();
 			} catch (IOException e) {
 				App.alertError("Failed to save file.", "Could not save " + file.getName() + "!");
+				return;
+			}
+			
+			Path source = logFile;
+			StepRecordExporter.Format target = format;
+			boolean saveTrace = fileChooser.getSelectedExtensionFilter() == traceFilter;
+			long cycles = processed;
+			
+			Thread exportThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if (saveTrace)
+							saveTrace(file.toPath(), cycles);
+						else if (source != null)
+							StepRecordExporter.convert(source, file.toPath(), target);
+						else
+							StepRecordExporter.open(file.toPath(), target).close();
+					} catch (IOException e) {
+						Platform.runLater(new Runnable() {
+							@Override
+							public void run() {
+								App.alertError("Failed to save file.", "Could not save " + file.getName() + "!");
+							}
+						});
+					}
+				}
+			}, "Output Log Export");
+			exportThread.setDaemon(true);
+			exportThread.start();
+		}
+	}
+	
+	/**
+	 * Writes the specified number of processing cycles of the trace of the current run to a compressed trace file, one time window at a
+	 * time.
+	 * @param file - The path of the trace file.
+	 * @param cycles - The number of processing cycles.
+	 * @throws IOException Thrown if the trace cannot be read or the trace file cannot be written.
+	 */
+	private void saveTrace(Path file, long cycles) throws IOException {
+		float[] block = new float[TRACE_CHANNELS * TIMESPAN];
+		
+		try (TraceWriter writer = new TraceWriter(file, TRACE_NAMES, 1.0f)) {
+			for (long from = 0; from < cycles; from += TIMESPAN) {
+				int count = (int)Math.min(TIMESPAN, cycles - from);
+				
+				for (int i = 0; i < TRACE_CHANNELS; ++i)
+					trace.read(i, from, block, i * TIMESPAN, count);
+				
+				for (int i = 0; i < count; ++i)
+					writer.append(block, i, TIMESPAN);
 			}
 		}
 	}
@@ -3163,10 +4158,70 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 			listener.get(i).actionTriggered(event);
 	}
 	
+	/**
+	 * Sets the x axis range of the time graphs to the time window starting at the specified processing cycle.
+	 * @param start - The first processing cycle of the time window.
+	 */
+	private void setTimeWindow(long start) {
+		if (start == windowStart)
+			return;
+		
+		windowStart = start;
+		vGraph.setXRange(start, start + TIMESPAN, TIMESPAN / 10);
+		uGraph.setXRange(start, start + TIMESPAN, TIMESPAN / 10);
+		IGraph.setXRange(start, start + TIMESPAN, TIMESPAN / 10);
+		gGraph.setXRange(start, start + TIMESPAN, TIMESPAN / 10);
+		drawHistory();
+	}
+	
+	/**
+	 * Redraws the graphs with the time window starting at the specified processing cycle, reading the window from the trace of the current
+	 * run. Old time windows are read back from the trace file.
+	 * @param start - The first processing cycle of the time window.
+	 */
+	private void showWindow(long start) {
+		int count = 0;
+		
+		try {
+			for (int i = 0; i < TRACE_CHANNELS; ++i)
+				count = trace.read(i, start, window[i], 0, TIMESPAN);
+		} catch (IOException e) {
+			App.alertError("Trace Error", "Could not read the neural model trace file!");
+			return;
+		}
+		
+		for (int i = 0; i < count; ++i)
+			windowTime[i] = start + i;
+		
+		vGraph.set(vTrace, windowTime, window[TRACE_V], count);
+		uGraph.set(uTrace, windowTime, window[TRACE_U], count);
+		pGraph.set(pvuTrace, window[TRACE_V], window[TRACE_U], count);
+		IGraph.set(ITrace, windowTime, window[TRACE_I], count);
+		gGraph.set(gcTrace, windowTime, window[TRACE_GC], count);
+		gGraph.set(gpTrace, windowTime, window[TRACE_GP], count);
+		setTimeWindow(start);
+	}
+	
 	/**
 	 * Shuts down the Izhikevich lab. This saves the model file so that all new models are saved.
 	 */
 	public void shutdown() {
+		previewer.close();
+		phasePlaneAnalyzer.close();
+		
+		try {
+			if (modelStore != null)
+				modelStore.close();
+		} catch (IOException e) {
+			// Every saved model is already on disk
+		}
+		
+		try {
+			trace.close();
+		} catch (IOException e) {
+			// The trace file is deleted on exit
+		}
+		
 		/*
 		try {
 			FileWriter fileWriter = new FileWriter("models\\izhikevich.mdl", false);
@@ -3189,8 +4244,11 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	 * Starts a thread that runs the current neural model.
 	 */
 	public void start() {
+		openOutputLog();
 		started = true;
-		processThread = new Thread(this);
+		renderTimer.start();
+		processThread = new Thread(this, "Neural Model Processing");
+		processThread.setDaemon(true);
 		processThread.start();
 	}
 	
@@ -3198,45 +4256,20 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	 * Processes a single cycle of the neural model.
 	 */
 	public void step() {
+		openOutputLog();
+		
 		// Process neuron
 		process();
+		recordStep();
+		logStep();
 		
-		Platform.runLater(new Runnable() {
-			@Override
-			public void run() {
-				// Update spike count
-				if (spike) spikes += 1.0f;
-				
-				// Update graphs
-				updateGraphs();
-				
-				// Update controls
-				outputLog += String.format("t: %6s - v: %7s; u: %7s; I: %8s", 
-						String.format("%6.1f", t), 
-						String.format("%7.3f", vArr[(int)(t - 1.0f)]), 
-						String.format("%7.3f", uArr[(int)(t - 1.0f)]),
-						String.format("%8.3f", IArr[(int)(t - 1.0f)])) +
-						((vArr[(int)(t - 1.0f)] >= vp) ? "*\n" : "\n");
-				outputArea.setText(outputLog);
-				outputArea.setScrollTop(Double.MAX_VALUE);
-			}
-		});
+		// Update spike count
+		if (spike) spikes += 1.0f;
+		processed = cycle;
 		
-		// Disable buttons when timespan is reached
-		if (t == TIMESPAN) {
-			Platform.runLater(new Runnable() {
-				@Override
-				public void run() {
-					// Log spike count
-					outputLog += String.format("Spikes: %6.1f\n", spikes);
-					outputArea.setText(outputLog);
-					outputArea.setScrollTop(Double.MAX_VALUE);
-					
-					hasHistory = false;
-					sendEvent(Action.TIMESPAN_REACHED);
-				}
-			});
-		}
+		// Update graphs
+		updateGraphs();
+		sendEvent(Action.RUN_PAUSED);
 	}
 	
 	@Override
@@ -3259,6 +4292,14 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 		pGraph.setMaxHeight(e.getWorkspaceHeight() * 0.66);
 		pGraph.setMinWidth(e.getWorkspaceWidth() * 0.3);
 		pGraph.setMaxWidth(e.getWorkspaceWidth() * 0.3);
+		fiGraph.setMinHeight(e.getWorkspaceHeight() * 0.66);
+		fiGraph.setMaxHeight(e.getWorkspaceHeight() * 0.66);
+		fiGraph.setMinWidth(e.getWorkspaceWidth() * 0.3);
+		fiGraph.setMaxWidth(e.getWorkspaceWidth() * 0.3);
+		mapChart.setMinHeight(e.getWorkspaceHeight() * 0.66);
+		mapChart.setMaxHeight(e.getWorkspaceHeight() * 0.66);
+		mapChart.setMinWidth(e.getWorkspaceWidth() * 0.3);
+		mapChart.setMaxWidth(e.getWorkspaceWidth() * 0.3);
 		uGraph.setMinHeight(e.getWorkspaceHeight() * 0.33);
 		uGraph.setMaxHeight(e.getWorkspaceHeight() * 0.33);
 		uGraph.setMinWidth(e.getWorkspaceWidth() * 0.3);
@@ -3302,22 +4343,106 @@ public class NeuralModelLab extends BorderPane implements TopToolBarListener, Ap
 	public float u() { return u; }
 	
 	/**
-	 * Updates the input current graph.
+	 * Updates the graphs and the output log with all processing cycles completed since the last update. This is called once per frame by the
+	 * render timer while the neural model runs, so the graphs are redrawn at most once per frame however many cycles were processed.
 	 */
 	public void updateGraphs() {
-		vSeries.getData().add(new XYChart.Data<Number, Number>((float)t - 1, vArr[(int)t - 1]));
-		uSeries.getData().add(new XYChart.Data<Number, Number>((float)t - 1, uArr[(int)t - 1]));
-		pvuSeries.getData().add(new XYChart.Data<Number, Number>(vArr[(int)t - 1], uArr[(int)t - 1]));
-		ISeries.getData().add(new XYChart.Data<Number, Number>((float)t - 1, IArr[(int)t - 1]));
-		gcSeries.getData().add(new XYChart.Data<Number, Number>((float)t - 1, vgcArr[(int)t - 1]));
-		gpSeries.getData().add(new XYChart.Data<Number, Number>((float)t - 1, vgpArr[(int)t - 1]));
-		
-		vGraph.getData().set(0, vSeries);
-		uGraph.getData().set(0, uSeries);
-		pGraph.getData().set(3, pvuSeries);
-		IGraph.getData().set(0, ISeries);
-		gGraph.getData().set(0, gcSeries);
-		gGraph.getData().set(1, gpSeries);
+		long end = processed;
+		
+		if (end <= rendered)
+			return;
+		
+		// Move the time window to the new points, unless the user scrolled back
+		if (following) {
+			long start = Math.max(0, end - TIMESPAN);
+			
+			if (rendered <= start) {
+				// The whole time window is new
+				showWindow(start);
+			}
+			else if (readWindow(rendered, (int)(end - rendered))) {
+				// Append the new points, the graphs redraw once on the next pulse
+				for (int i = 0; i < end - rendered; ++i) {
+					vGraph.add(vTrace, rendered + i, window[TRACE_V][i]);
+					uGraph.add(uTrace, rendered + i, window[TRACE_U][i]);
+					pGraph.add(pvuTrace, window[TRACE_V][i], window[TRACE_U][i]);
+					IGraph.add(ITrace, rendered + i, window[TRACE_I][i]);
+					gGraph.add(gcTrace, rendered + i, window[TRACE_GC][i]);
+					gGraph.add(gpTrace, rendered + i, window[TRACE_GP][i]);
+				}
+				
+				setTimeWindow(start);
+			}
+		}
+		
+		updateTimeBar(end);
+		
+		// Log the new processing cycles, only the last OUTPUT_LINES lines are shown
+		StringBuilder lines = new StringBuilder();
+		long first = Math.max(rendered, end - OUTPUT_LINES);
+		
+		if (readWindow(first, (int)(end - first))) {
+			for (int i = 0; i < end - first; ++i) {
+				lines.append(String.format("t: %6s - v: %7s; u: %7s; I: %8s", 
+						String.format("%6.1f", (float)(first + i + 1)), 
+						String.format("%7.3f", window[TRACE_V][i]), 
+						String.format("%7.3f", window[TRACE_U][i]),
+						String.format("%8.3f", window[TRACE_I][i])));
+				lines.append((window[TRACE_V][i] >= vp) ? "*\n" : "\n");
+			}
+		}
+		
+		rendered = end;
+		appendOutputLog(lines.toString());
+	}
+	
+	/**
+	 * Updates the range of the time bar to the specified number of processing cycles. The time bar follows the last time window if the
+	 * graphs follow the last processing cycle.
+	 * @param end - The number of processing cycles.
+	 */
+	private void updateTimeBar(long end) {
+		timeBarUpdating = true;
+		timeBar.setMax(Math.max(0, end - TIMESPAN));
+		
+		if (following)
+			timeBar.setValue(timeBar.getMax());
+		
+		timeBarUpdating = false;
+	}
+	
+	/**
+	 * Saves the current neural model parameters to the selected user created model. Preset models are not changed.
+	 */
+	public void updateModel() {
+		if (modelStore == null || selectedIndex < presetModels)
+			return;
+		
+		try {
+			modelStore.save(libraryType(), modelNames.get(selectedIndex), modelParameters());
+		} catch (IOException e) {
+			App.alertError("I/O Error", "Failed to write to file " + CUSTOM_JOURNAL + "!");
+			return;
+		}
+		
+		// The saved values become the defaults of the model
+		aDef = a;
+		bDef = b;
+		baDef = ba;
+		bvDef = bv;
+		cDef = c;
+		dDef = d;
+		kDef = k;
+		CDef = C;
+		vpDef = vp;
+		vrDef = vr;
+		vtDef = vt;
+		cuDef = cu;
+		vpuDef = vpu;
+		umaxDef = umax;
+		upowDef = upow;
+		uvDef = uv;
+		uvminDef = uvmin;
 	}
 	
 	/**
@@ -0,0 +1,327 @@
+package org.arti.artislab.gui;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * <p>public final class <b>ParameterMapChart</b><br>
+ * extends {@link Region}</p>
+ * 
+ * <p>ParameterMapChart class draws a grid of categorized cells over two parameter axes on a single Canvas, such as the firing pattern of a
+ * neuron model over a parameter plane. The cells are held in an image with one pixel per cell, so setting a cell is a single pixel write and
+ * the grid is drawn scaled to the plot area in one image draw. Each category has a color and a legend entry, and a marker can show the
+ * current parameter values. Changes are coalesced and the chart is redrawn at most once per layout pulse.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 23
+ */
+public final class ParameterMapChart extends Region {
+	// Grid line color.
+	private static final Color GRID_COLOR = Color.rgb(130, 38, 89, 0.5);
+	// Marker color.
+	private static final Color MARKER_COLOR = Color.WHITE;
+	// Height of the title area.
+	private static final double TITLE_HEIGHT = 26.0;
+	// Height of the x axis area.
+	private static final double X_AXIS_HEIGHT = 36.0;
+	// Width of the y axis area.
+	private static final double Y_AXIS_WIDTH = 56.0;
+	// Height of the legend area.
+	private static final double LEGEND_HEIGHT = 20.0;
+	// Right margin.
+	private static final double RIGHT_MARGIN = 12.0;
+	// Approximate number of ticks along each axis.
+	private static final int TICKS = 6;
+	// Title font.
+	private static final Font TITLE_FONT = new Font(16.0);
+	// Label font.
+	private static final Font LABEL_FONT = new Font(11.0);
+	
+	// The canvas the chart is drawn on.
+	private Canvas canvas;
+	// The color of each category.
+	private Color[] colors;
+	// Redraw needed flag.
+	private boolean dirty;
+	// The cell image, one pixel per cell with the first row at the bottom, or null.
+	private WritableImage image;
+	// The marker x value, or NaN if no marker is shown.
+	private double markerX;
+	// The marker y value, or NaN if no marker is shown.
+	private double markerY;
+	// The legend name of each category.
+	private String[] names;
+	// Chart title.
+	private String title;
+	// X axis label.
+	private String xLabel;
+	// X axis maximum.
+	private double xMax;
+	// X axis minimum.
+	private double xMin;
+	// Y axis label.
+	private String yLabel;
+	// Y axis maximum.
+	private double yMax;
+	// Y axis minimum.
+	private double yMin;
+	
+	/**
+	 * Creates an empty ParameterMapChart with the specified title and cell categories.
+	 * @param title - The chart title.
+	 * @param names - The legend name of each category.
+	 * @param colors - The color of each category.
+	 * @throws IllegalArgumentException Thrown if names and colors differ in length.
+	 */
+	public ParameterMapChart(String title, String[] names, Color[] colors) {
+		// Call parent constructor
+		super();
+		
+		// Check parameters
+		if (names.length != colors.length)
+			throw new IllegalArgumentException("Error: ParameterMapChart needs a color for every category.");
+		
+		// Initialize variables
+		this.title = title;
+		this.names = names.clone();
+		this.colors = colors.clone();
+		canvas = new Canvas();
+		dirty = true;
+		image = null;
+		markerX = Double.NaN;
+		markerY = Double.NaN;
+		xLabel = "";
+		xMin = 0.0;
+		xMax = 1.0;
+		yLabel = "";
+		yMin = 0.0;
+		yMax = 1.0;
+		
+		getChildren().add(canvas);
+		setMinSize(0.0, 0.0);
+	}
+	
+	/**
+	 * Removes the grid of cells, leaving an empty plot area.
+	 */
+	public void clear() {
+		image = null;
+		markerX = Double.NaN;
+		markerY = Double.NaN;
+		invalidate();
+	}
+	
+	/**
+	 * Sets the category of the specified cell.
+	 * @param x - The cell column.
+	 * @param y - The cell row, row 0 being at the bottom of the plot.
+	 * @param category - The category, or -1 to leave the cell empty.
+	 * @throws IllegalStateException Thrown if there is no grid of cells.
+	 * @throws IndexOutOfBoundsException Thrown if the cell or category is out of bounds.
+	 */
+	public void setCell(int x, int y, int category) {
+		if (image == null)
+			throw new IllegalStateException("Error: ParameterMapChart has no grid of cells.");
+		
+		int rows = (int)image.getHeight();
+		
+		if (x < 0 || x >= image.getWidth() || y < 0 || y >= rows)
+			throw new IndexOutOfBoundsException("Error: ParameterMapChart cell " + x + ", " + y + " is out of bounds.");
+		
+		image.getPixelWriter().setColor(x, rows - 1 - y, (category < 0) ? Color.TRANSPARENT : colors[category]);
+		invalidate();
+	}
+	
+	/**
+	 * Replaces the grid of cells with a new grid of empty cells spanning the specified axis ranges. The cell centers lie evenly spaced from
+	 * the minimum to the maximum of each axis, and the marker is hidden.
+	 * @param xLabel - The x axis label.
+	 * @param xMin - The x value of the first cell column.
+	 * @param xMax - The x value of the last cell column.
+	 * @param columns - The number of cell columns.
+	 * @param yLabel - The y axis label.
+	 * @param yMin - The y value of the first cell row.
+	 * @param yMax - The y value of the last cell row.
+	 * @param rows - The number of cell rows.
+	 * @throws IllegalArgumentException Thrown if an axis maximum is not greater than its minimum or there are fewer than 2 columns or rows.
+	 */
+	public void setGrid(String xLabel, double xMin, double xMax, int columns, String yLabel, double yMin, double yMax, int rows) {
+		if (!(xMax > xMin) || !(yMax > yMin))
+			throw new IllegalArgumentException("Error: ParameterMapChart's axis ranges must be positive.");
+		
+		if (columns < 2 || rows < 2)
+			throw new IllegalArgumentException("Error: ParameterMapChart needs at least two cell columns and rows.");
+		
+		// Widen the axes by half a cell so cells are centered on their values
+		double xHalf = (xMax - xMin) / (columns - 1) * 0.5;
+		double yHalf = (yMax - yMin) / (rows - 1) * 0.5;
+		this.xLabel = xLabel;
+		this.xMin = xMin - xHalf;
+		this.xMax = xMax + xHalf;
+		this.yLabel = yLabel;
+		this.yMin = yMin - yHalf;
+		this.yMax = yMax + yHalf;
+		image = new WritableImage(columns, rows);
+		markerX = Double.NaN;
+		markerY = Double.NaN;
+		invalidate();
+	}
+	
+	/**
+	 * Sets the marker position. The marker is hidden if either value is NaN.
+	 * @param x - The marker x value.
+	 * @param y - The marker y value.
+	 */
+	public void setMarker(double x, double y) {
+		markerX = x;
+		markerY = y;
+		invalidate();
+	}
+	
+	@Override
+	protected void layoutChildren() {
+		double width = Math.floor(getWidth());
+		double height = Math.floor(getHeight());
+		
+		if (canvas.getWidth() != width || canvas.getHeight() != height) {
+			canvas.setWidth(width);
+			canvas.setHeight(height);
+			dirty = true;
+		}
+		
+		if (dirty) {
+			dirty = false;
+			draw();
+		}
+	}
+	
+	/**
+	 * Draws the whole chart.
+	 */
+	private void draw() {
+		GraphicsContext g = canvas.getGraphicsContext2D();
+		double width = canvas.getWidth();
+		double height = canvas.getHeight();
+		g.setFill(Color.BLACK);
+		g.fillRect(0.0, 0.0, width, height);
+		
+		// Plot area
+		double left = Y_AXIS_WIDTH;
+		double top = TITLE_HEIGHT;
+		double plotWidth = Math.floor(width - Y_AXIS_WIDTH - RIGHT_MARGIN);
+		double plotHeight = Math.floor(height - TITLE_HEIGHT - X_AXIS_HEIGHT - LEGEND_HEIGHT);
+		
+		if (plotWidth < 2.0 || plotHeight < 2.0)
+			return;
+		
+		double xScale = plotWidth / (xMax - xMin);
+		double yScale = plotHeight / (yMax - yMin);
+		
+		// Draw title
+		g.setFill(Color.WHITE);
+		g.setFont(TITLE_FONT);
+		g.setTextAlign(TextAlignment.CENTER);
+		g.setTextBaseline(VPos.CENTER);
+		g.fillText(title, left + plotWidth * 0.5, TITLE_HEIGHT * 0.5);
+		
+		// Draw cells without smoothing, so each cell stays a sharp block
+		if (image != null) {
+			g.setImageSmoothing(false);
+			g.drawImage(image, left, top, plotWidth, plotHeight);
+			g.setImageSmoothing(true);
+		}
+		
+		// Draw grid lines and tick labels
+		double xTick = tick(xMax - xMin);
+		double yTick = tick(yMax - yMin);
+		g.setFill(Color.WHITE);
+		g.setFont(LABEL_FONT);
+		g.setLineWidth(1.0);
+		g.setStroke(GRID_COLOR);
+		g.setTextBaseline(VPos.TOP);
+		
+		for (double v = Math.ceil(xMin / xTick) * xTick; v <= xMax + xTick * 1e-6; v += xTick) {
+			double sx = Math.floor(left + (v - xMin) * xScale) + 0.5;
+			g.strokeLine(sx, top, sx, top + plotHeight);
+			g.fillText(TraceChart.label(v, xTick), sx, top + plotHeight + 3.0);
+		}
+		
+		g.setTextAlign(TextAlignment.RIGHT);
+		g.setTextBaseline(VPos.CENTER);
+		
+		for (double v = Math.ceil(yMin / yTick) * yTick; v <= yMax + yTick * 1e-6; v += yTick) {
+			double sy = Math.floor(top + (yMax - v) * yScale) + 0.5;
+			g.strokeLine(left, sy, left + plotWidth, sy);
+			g.fillText(TraceChart.label(v, yTick), left - 4.0, sy);
+		}
+		
+		// Draw axis labels
+		g.setTextAlign(TextAlignment.CENTER);
+		g.setTextBaseline(VPos.BOTTOM);
+		g.fillText(xLabel, left + plotWidth * 0.5, top + plotHeight + X_AXIS_HEIGHT);
+		g.save();
+		g.translate(12.0, top + plotHeight * 0.5);
+		g.rotate(-90.0);
+		g.setTextBaseline(VPos.CENTER);
+		g.fillText(yLabel, 0.0, 0.0);
+		g.restore();
+		
+		// Draw marker
+		if (!Double.isNaN(markerX) && !Double.isNaN(markerY) && markerX >= xMin && markerX <= xMax && markerY >= yMin && markerY <= yMax) {
+			double sx = left + (markerX - xMin) * xScale;
+			double sy = top + (yMax - markerY) * yScale;
+			g.setStroke(MARKER_COLOR);
+			g.setLineWidth(2.0);
+			g.strokeOval(sx - 5.0, sy - 5.0, 10.0, 10.0);
+			g.setLineWidth(1.0);
+		}
+		
+		// Draw legend
+		double x = left;
+		double y = height - LEGEND_HEIGHT * 0.5;
+		g.setTextAlign(TextAlignment.LEFT);
+		g.setTextBaseline(VPos.CENTER);
+		
+		for (int i = 0; i < names.length; ++i) {
+			g.setFill(colors[i]);
+			g.fillRect(x, y - 4.0, 8.0, 8.0);
+			g.setFill(Color.WHITE);
+			g.fillText(names[i], x + 12.0, y);
+			x += 24.0 + names[i].length() * 6.0;
+		}
+	}
+	
+	/**
+	 * Marks the chart for redrawing on the next layout pulse.
+	 */
+	private void invalidate() {
+		if (!dirty) {
+			dirty = true;
+			requestLayout();
+		}
+	}
+	
+	/**
+	 * Returns a tick spacing of 1, 2 or 5 times a power of ten giving about {@value #TICKS} ticks over the specified range.
+	 * @param range - The axis range.
+	 * @return The tick spacing.
+	 */
+	private static double tick(double range) {
+		double step = Math.pow(10.0, Math.floor(Math.log10(range / TICKS)));
+		double ratio = range / TICKS / step;
+		
+		if (ratio >= 5.0)
+			return step * 5.0;
+		else if (ratio >= 2.0)
+			return step * 2.0;
+		
+		return step;
+	}
+}
@@ -295,20 +295,21 @@ public class TopToolBar extends ToolBar implements NeuralModelLabListener, AppSi
 			
 			switch (action) {
 			case CUSTOM_MODEL:
+				copyModelButton.setDisable(false);
 				removeModelButton.setDisable(false);
 				updateModelButton.setDisable(false);
 				break;
 			case STANDARD_MODEL:
+				copyModelButton.setDisable(false);
 				removeModelButton.setDisable(true);
 				updateModelButton.setDisable(true);
 				break;
-			case TIMESPAN_REACHED:
+			case RUN_PAUSED:
 				saveModelHistButton.setDisable(false);
 				exportModelLogButton.setDisable(false);
-				stepModelButton.setDisable(true);
-				runModelButton.setDisable(true);
+				stepModelButton.setDisable(false);
+				runModelButton.setDisable(false);
 				pauseModelButton.setDisable(true);
-				stopModelButton.setDisable(true);
 				resetModelButton.setDisable(false);
 			default:
 				break;
@@ -383,7 +384,8 @@ public class TopToolBar extends ToolBar implements NeuralModelLabListener, AppSi
 		copyModelButton.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				
+				// Save the current parameters as a new model
+				neuralModelLab.copyModel();
 			}
 		});
 		copyModelButton.setDisable(true);
@@ -396,6 +398,9 @@ public class TopToolBar extends ToolBar implements NeuralModelLabListener, AppSi
 			public void handle(ActionEvent arg0) {
 				// Reset everything
 				neuralModelLab.reset();
+				
+				// Remove the selected model
+				neuralModelLab.removeModel();
 			}
 		});
 		removeModelButton.setDisable(true);
@@ -406,7 +411,8 @@ public class TopToolBar extends ToolBar implements NeuralModelLabListener, AppSi
 		updateModelButton.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				
+				// Save the current parameters to the selected model
+				neuralModelLab.updateModel();
 			}
 		});
 		updateModelButton.setDisable(true);
@@ -417,7 +423,7 @@ public class TopToolBar extends ToolBar implements NeuralModelLabListener, AppSi
 		importModelLogButton.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				
+				neuralModelLab.importOutputLog();
 			}
 		});
 		
@@ -459,6 +465,8 @@ public class TopToolBar extends ToolBar implements NeuralModelLabListener, AppSi
 		runModelButton.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
+				saveModelHistButton.setDisable(true);
+				exportModelLogButton.setDisable(true);
 				stepModelButton.setDisable(true);
 				runModelButton.setDisable(true);
 				pauseModelButton.setDisable(false);
@@ -474,8 +482,6 @@ public class TopToolBar extends ToolBar implements NeuralModelLabListener, AppSi
 		pauseModelButton.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				stepModelButton.setDisable(false);
-				runModelButton.setDisable(false);
 				neuralModelLab.pause();
 			}
 		});
@@ -0,0 +1,856 @@
+package org.arti.artislab.gui;
+
+import java.util.ArrayList;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * <p>public final class <b>TraceChart</b><br>
+ * extends {@link Region}</p>
+ * 
+ * <p>TraceChart class is a lightweight oscilloscope style chart drawn on a single Canvas. Each trace keeps its points in a circular
+ * buffer, so appending a point never allocates and the oldest points are dropped once the buffer is full. Time series traces are decimated
+ * to the minimum and maximum value of each pixel column, and x/y traces skip points that fall on the same pixel as the previous point, so
+ * drawing cost depends on the chart size rather than the number of points. A flow field of arrows can be drawn beneath the traces on a
+ * separate canvas layer, which is only redrawn when the field, the axes or the chart size change, and markers can be drawn above them.
+ * Changes are coalesced and the chart is redrawn at most once per layout pulse.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 23
+ */
+public final class TraceChart extends Region {
+	// Trace colors, matching the default chart series colors.
+	private static final Color[] COLORS = {
+			Color.web("#f3622d"),
+			Color.web("#fba71b"),
+			Color.web("#57b757"),
+			Color.web("#41a9c9"),
+			Color.web("#4258c9"),
+			Color.web("#9a42c8"),
+			Color.web("#c84164"),
+			Color.web("#888888") };
+	// Grid line color.
+	private static final Color GRID_COLOR = Color.rgb(130, 38, 89, 0.5);
+	// Zero line color.
+	private static final Color ZERO_COLOR = Color.rgb(179, 65, 128, 0.5);
+	// Flow field arrow color.
+	private static final Color FIELD_COLOR = Color.rgb(255, 255, 255, 0.3);
+	// Marker color.
+	private static final Color MARKER_COLOR = Color.WHITE;
+	// Marker radius.
+	private static final double MARKER_RADIUS = 4.5;
+	// Height of the title area.
+	private static final double TITLE_HEIGHT = 26.0;
+	// Height of the x axis area.
+	private static final double X_AXIS_HEIGHT = 36.0;
+	// Width of the y axis area.
+	private static final double Y_AXIS_WIDTH = 56.0;
+	// Height of the legend area.
+	private static final double LEGEND_HEIGHT = 20.0;
+	// Right margin.
+	private static final double RIGHT_MARGIN = 12.0;
+	// Title font.
+	private static final Font TITLE_FONT = new Font(16.0);
+	// Label font.
+	private static final Font LABEL_FONT = new Font(11.0);
+	
+	/**
+	 * <p>private static final class <b>Trace</b><br>
+	 * extends {@link Object}</p>
+	 * 
+	 * <p>Trace class holds the points of a single trace in a circular buffer.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 23
+	 */
+	private static final class Trace {
+		// Trace color.
+		private Color color;
+		// Index of the next point to write.
+		private int head;
+		// Trace name shown in the legend.
+		private String name;
+		// Number of points held.
+		private int size;
+		// Time series flag. Time series traces have non-decreasing x values.
+		private boolean timeSeries;
+		// Visible flag.
+		private boolean visible;
+		// Point x values.
+		private float[] x;
+		// Point y values.
+		private float[] y;
+		
+		/**
+		 * Creates an empty Trace.
+		 * @param name - The trace name.
+		 * @param color - The trace color.
+		 * @param capacity - The maximum number of points.
+		 * @param timeSeries - True if the x values never decrease.
+		 */
+		private Trace(String name, Color color, int capacity, boolean timeSeries) {
+			this.color = color;
+			this.name = name;
+			this.timeSeries = timeSeries;
+			head = 0;
+			size = 0;
+			visible = true;
+			x = new float[capacity];
+			y = new float[capacity];
+		}
+	}
+	
+	// The canvas the chart is drawn on.
+	private Canvas canvas;
+	// Redraw needed flag.
+	private boolean dirty;
+	// The x derivative of each flow field arrow.
+	private float[] fieldDx;
+	// The y derivative of each flow field arrow.
+	private float[] fieldDy;
+	// The canvas layer the background and flow field are drawn on, beneath the chart canvas.
+	private Canvas fieldCanvas;
+	// Flow field redraw needed flag.
+	private boolean fieldDirty;
+	// Arrow spacing of the flow field in x units.
+	private float fieldSpacingX;
+	// Arrow spacing of the flow field in y units.
+	private float fieldSpacingY;
+	// Number of flow field arrows.
+	private int fieldLength;
+	// The x value of each flow field arrow.
+	private float[] fieldX;
+	// The y value of each flow field arrow.
+	private float[] fieldY;
+	// The filled flag of each marker.
+	private boolean[] markerFilled;
+	// Number of markers.
+	private int markerLength;
+	// The x value of each marker.
+	private float[] markerX;
+	// The y value of each marker.
+	private float[] markerY;
+	// Chart title.
+	private String title;
+	// The traces of the chart.
+	private ArrayList<Trace> traces;
+	// X axis label.
+	private String xLabel;
+	// X axis maximum.
+	private double xMax;
+	// X axis minimum.
+	private double xMin;
+	// X axis tick spacing.
+	private double xTick;
+	// Y axis label.
+	private String yLabel;
+	// Y axis maximum.
+	private double yMax;
+	// Y axis minimum.
+	private double yMin;
+	// Y axis tick spacing.
+	private double yTick;
+	
+	/**
+	 * Creates an empty TraceChart with the specified title, axis labels and axis ranges.
+	 * @param title - The chart title.
+	 * @param xLabel - The x axis label.
+	 * @param xMin - The x axis minimum.
+	 * @param xMax - The x axis maximum.
+	 * @param xTick - The x axis tick spacing.
+	 * @param yLabel - The y axis label.
+	 * @param yMin - The y axis minimum.
+	 * @param yMax - The y axis maximum.
+	 * @param yTick - The y axis tick spacing.
+	 * @throws IllegalArgumentException Thrown if an axis maximum is not greater than its minimum or a tick spacing is not positive.
+	 */
+	public TraceChart(String title, String xLabel, double xMin, double xMax, double xTick, String yLabel, double yMin, double yMax,
+			double yTick) {
+		// Call parent constructor
+		super();
+		
+		// Check parameters
+		if (!(xMax > xMin) || !(yMax > yMin) || !(xTick > 0.0) || !(yTick > 0.0))
+			throw new IllegalArgumentException("Error: TraceChart's axis ranges and tick spacings must be positive.");
+		
+		// Initialize variables
+		this.title = title;
+		this.xLabel = xLabel;
+		this.xMax = xMax;
+		this.xMin = xMin;
+		this.xTick = xTick;
+		this.yLabel = yLabel;
+		this.yMax = yMax;
+		this.yMin = yMin;
+		this.yTick = yTick;
+		canvas = new Canvas();
+		dirty = true;
+		fieldCanvas = new Canvas();
+		fieldDirty = true;
+		fieldLength = 0;
+		fieldX = new float[0];
+		fieldY = new float[0];
+		fieldDx = new float[0];
+		fieldDy = new float[0];
+		markerLength = 0;
+		markerX = new float[0];
+		markerY = new float[0];
+		markerFilled = new boolean[0];
+		traces = new ArrayList<Trace>();
+		
+		getChildren().addAll(fieldCanvas, canvas);
+		setMinSize(0.0, 0.0);
+	}
+	
+	/**
+	 * Appends a point to the specified trace. If the trace is full, its oldest point is dropped.
+	 * @param trace - The index of the trace.
+	 * @param x - The x value.
+	 * @param y - The y value.
+	 * @throws IndexOutOfBoundsException Thrown if trace is out of bounds.
+	 */
+	public void add(int trace, double x, double y) {
+		Trace t = trace(trace);
+		t.x[t.head] = (float)x;
+		t.y[t.head] = (float)y;
+		t.head = (t.head + 1 == t.x.length) ? 0 : t.head + 1;
+		
+		if (t.size < t.x.length)
+			t.size++;
+		
+		invalidate();
+	}
+	
+	/**
+	 * Adds a new empty trace to the chart. Traces are drawn in the order they are added.
+	 * @param name - The trace name shown in the legend.
+	 * @param capacity - The maximum number of points the trace holds.
+	 * @param timeSeries - True if the x values of the trace never decrease, such as a value plotted against time.
+	 * @return The index of the new trace.
+	 * @throws IllegalArgumentException Thrown if capacity is less than 1.
+	 */
+	public int addTrace(String name, int capacity, boolean timeSeries) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Error: TraceChart trace must hold at least one point.");
+		
+		traces.add(new Trace(name, COLORS[traces.size() % COLORS.length], capacity, timeSeries));
+		invalidate();
+		return traces.size() - 1;
+	}
+	
+	/**
+	 * Removes all points from the specified trace.
+	 * @param trace - The index of the trace.
+	 * @throws IndexOutOfBoundsException Thrown if trace is out of bounds.
+	 */
+	public void clear(int trace) {
+		Trace t = trace(trace);
+		t.head = 0;
+		t.size = 0;
+		invalidate();
+	}
+	
+	/**
+	 * Replaces the points of the specified trace with the specified points. Only the last points are kept if there are more points than the
+	 * trace holds.
+	 * @param trace - The index of the trace.
+	 * @param x - The x values.
+	 * @param y - The y values.
+	 * @param length - The number of points.
+	 * @throws IndexOutOfBoundsException Thrown if trace is out of bounds.
+	 */
+	public void set(int trace, float[] x, float[] y, int length) {
+		Trace t = trace(trace);
+		int count = Math.min(length, t.x.length);
+		System.arraycopy(x, length - count, t.x, 0, count);
+		System.arraycopy(y, length - count, t.y, 0, count);
+		t.head = (count == t.x.length) ? 0 : count;
+		t.size = count;
+		invalidate();
+	}
+	
+	/**
+	 * Replaces the flow field drawn beneath the traces. Each arrow starts at its point and points along its derivative, its length growing
+	 * with the logarithm of its speed up to the arrow spacing, so the field stays readable when speeds span several orders of magnitude.
+	 * Arrows with a non-finite derivative are skipped.
+	 * @param x - The x value of each arrow.
+	 * @param y - The y value of each arrow.
+	 * @param dx - The x derivative of each arrow.
+	 * @param dy - The y derivative of each arrow.
+	 * @param length - The number of arrows.
+	 * @param spacingX - The arrow spacing in x units.
+	 * @param spacingY - The arrow spacing in y units.
+	 */
+	public void setField(float[] x, float[] y, float[] dx, float[] dy, int length, float spacingX, float spacingY) {
+		if (fieldX.length < length) {
+			fieldX = new float[length];
+			fieldY = new float[length];
+			fieldDx = new float[length];
+			fieldDy = new float[length];
+		}
+		
+		System.arraycopy(x, 0, fieldX, 0, length);
+		System.arraycopy(y, 0, fieldY, 0, length);
+		System.arraycopy(dx, 0, fieldDx, 0, length);
+		System.arraycopy(dy, 0, fieldDy, 0, length);
+		fieldLength = length;
+		fieldSpacingX = spacingX;
+		fieldSpacingY = spacingY;
+		invalidateField();
+	}
+	
+	/**
+	 * Replaces the markers drawn above the traces, such as the fixed points of a phase portrait.
+	 * @param x - The x value of each marker.
+	 * @param y - The y value of each marker.
+	 * @param filled - True for each marker drawn as a filled circle, false for a hollow circle.
+	 * @param length - The number of markers.
+	 */
+	public void setMarkers(float[] x, float[] y, boolean[] filled, int length) {
+		if (markerX.length < length) {
+			markerX = new float[length];
+			markerY = new float[length];
+			markerFilled = new boolean[length];
+		}
+		
+		System.arraycopy(x, 0, markerX, 0, length);
+		System.arraycopy(y, 0, markerY, 0, length);
+		System.arraycopy(filled, 0, markerFilled, 0, length);
+		markerLength = length;
+		invalidate();
+	}
+	
+	/**
+	 * Sets the color of the specified trace.
+	 * @param trace - The index of the trace.
+	 * @param color - The trace color.
+	 * @throws IndexOutOfBoundsException Thrown if trace is out of bounds.
+	 */
+	public void setTraceColor(int trace, Color color) {
+		trace(trace).color = color;
+		invalidate();
+	}
+	
+	/**
+	 * Sets the name of the specified trace shown in the legend.
+	 * @param trace - The index of the trace.
+	 * @param name - The trace name.
+	 * @throws IndexOutOfBoundsException Thrown if trace is out of bounds.
+	 */
+	public void setTraceName(int trace, String name) {
+		trace(trace).name = name;
+		invalidate();
+	}
+	
+	/**
+	 * Sets whether the specified trace is drawn.
+	 * @param trace - The index of the trace.
+	 * @param visible - True to draw the trace.
+	 * @throws IndexOutOfBoundsException Thrown if trace is out of bounds.
+	 */
+	public void setTraceVisible(int trace, boolean visible) {
+		trace(trace).visible = visible;
+		invalidate();
+	}
+	
+	/**
+	 * Sets the x axis range.
+	 * @param min - The x axis minimum.
+	 * @param max - The x axis maximum.
+	 * @param tick - The x axis tick spacing.
+	 * @throws IllegalArgumentException Thrown if max is not greater than min or tick is not positive.
+	 */
+	public void setXRange(double min, double max, double tick) {
+		if (!(max > min) || !(tick > 0.0))
+			throw new IllegalArgumentException("Error: TraceChart's axis range and tick spacing must be positive.");
+		
+		xMin = min;
+		xMax = max;
+		xTick = tick;
+		invalidate();
+		invalidateField();
+	}
+	
+	/**
+	 * Sets the y axis range.
+	 * @param min - The y axis minimum.
+	 * @param max - The y axis maximum.
+	 * @param tick - The y axis tick spacing.
+	 * @throws IllegalArgumentException Thrown if max is not greater than min or tick is not positive.
+	 */
+	public void setYRange(double min, double max, double tick) {
+		if (!(max > min) || !(tick > 0.0))
+			throw new IllegalArgumentException("Error: TraceChart's axis range and tick spacing must be positive.");
+		
+		yMin = min;
+		yMax = max;
+		yTick = tick;
+		invalidate();
+		invalidateField();
+	}
+	
+	/**
+	 * Returns the number of points held by the specified trace.
+	 * @param trace - The index of the trace.
+	 * @return The number of points.
+	 * @throws IndexOutOfBoundsException Thrown if trace is out of bounds.
+	 */
+	public int size(int trace) {
+		return trace(trace).size;
+	}
+	
+	/**
+	 * Returns the x axis maximum.
+	 * @return The x axis maximum.
+	 */
+	public double xMax() { return xMax; }
+	
+	/**
+	 * Returns the x axis minimum.
+	 * @return The x axis minimum.
+	 */
+	public double xMin() { return xMin; }
+	
+	@Override
+	protected void layoutChildren() {
+		double width = Math.floor(getWidth());
+		double height = Math.floor(getHeight());
+		
+		if (canvas.getWidth() != width || canvas.getHeight() != height) {
+			canvas.setWidth(width);
+			canvas.setHeight(height);
+			fieldCanvas.setWidth(width);
+			fieldCanvas.setHeight(height);
+			dirty = true;
+			fieldDirty = true;
+		}
+		
+		if (fieldDirty) {
+			fieldDirty = false;
+			drawField();
+		}
+		
+		if (dirty) {
+			dirty = false;
+			draw();
+		}
+	}
+	
+	/**
+	 * Draws the whole chart above the field layer.
+	 */
+	private void draw() {
+		GraphicsContext g = canvas.getGraphicsContext2D();
+		double width = canvas.getWidth();
+		double height = canvas.getHeight();
+		g.clearRect(0.0, 0.0, width, height);
+		
+		// Plot area
+		double left = Y_AXIS_WIDTH;
+		double top = TITLE_HEIGHT;
+		double plotWidth = Math.floor(width - Y_AXIS_WIDTH - RIGHT_MARGIN);
+		double plotHeight = Math.floor(height - TITLE_HEIGHT - X_AXIS_HEIGHT - LEGEND_HEIGHT);
+		
+		if (plotWidth < 2.0 || plotHeight < 2.0)
+			return;
+		
+		double xScale = plotWidth / (xMax - xMin);
+		double yScale = plotHeight / (yMax - yMin);
+		
+		// Draw title
+		g.setFill(Color.WHITE);
+		g.setFont(TITLE_FONT);
+		g.setTextAlign(TextAlignment.CENTER);
+		g.setTextBaseline(VPos.CENTER);
+		g.fillText(title, left + plotWidth * 0.5, TITLE_HEIGHT * 0.5);
+		
+		// Draw grid lines and tick labels
+		g.setFont(LABEL_FONT);
+		g.setLineWidth(1.0);
+		g.setStroke(GRID_COLOR);
+		g.setTextBaseline(VPos.TOP);
+		
+		for (double v = Math.ceil(xMin / xTick) * xTick; v <= xMax + xTick * 1e-6; v += xTick) {
+			double sx = Math.floor(left + (v - xMin) * xScale) + 0.5;
+			g.strokeLine(sx, top, sx, top + plotHeight);
+			g.fillText(label(v, xTick), sx, top + plotHeight + 3.0);
+		}
+		
+		g.setTextAlign(TextAlignment.RIGHT);
+		g.setTextBaseline(VPos.CENTER);
+		
+		for (double v = Math.ceil(yMin / yTick) * yTick; v <= yMax + yTick * 1e-6; v += yTick) {
+			double sy = Math.floor(top + (yMax - v) * yScale) + 0.5;
+			g.strokeLine(left, sy, left + plotWidth, sy);
+			g.fillText(label(v, yTick), left - 4.0, sy);
+		}
+		
+		// Draw zero lines
+		g.setStroke(ZERO_COLOR);
+		
+		if (xMin < 0.0 && xMax > 0.0) {
+			double sx = Math.floor(left - xMin * xScale) + 0.5;
+			g.strokeLine(sx, top, sx, top + plotHeight);
+		}
+		
+		if (yMin < 0.0 && yMax > 0.0) {
+			double sy = Math.floor(top + yMax * yScale) + 0.5;
+			g.strokeLine(left, sy, left + plotWidth, sy);
+		}
+		
+		// Draw axis labels
+		g.setTextAlign(TextAlignment.CENTER);
+		g.setTextBaseline(VPos.BOTTOM);
+		g.fillText(xLabel, left + plotWidth * 0.5, top + plotHeight + X_AXIS_HEIGHT);
+		g.save();
+		g.translate(12.0, top + plotHeight * 0.5);
+		g.rotate(-90.0);
+		g.setTextBaseline(VPos.CENTER);
+		g.fillText(yLabel, 0.0, 0.0);
+		g.restore();
+		
+		// Draw traces clipped to the plot area
+		g.save();
+		g.beginPath();
+		g.rect(left, top, plotWidth, plotHeight);
+		g.clip();
+		
+		for (Trace trace : traces) {
+			if (!trace.visible || trace.size == 0)
+				continue;
+			
+			g.setStroke(trace.color);
+			g.beginPath();
+			
+			if (trace.timeSeries)
+				drawTimeSeries(g, trace, left, top, xScale, yScale);
+			else
+				drawPoints(g, trace, left, top, xScale, yScale);
+			
+			g.stroke();
+		}
+		
+		// Draw markers
+		g.setLineWidth(2.0);
+		g.setFill(MARKER_COLOR);
+		g.setStroke(MARKER_COLOR);
+		
+		for (int i = 0; i < markerLength; ++i) {
+			double sx = left + (markerX[i] - xMin) * xScale - MARKER_RADIUS;
+			double sy = top + (yMax - markerY[i]) * yScale - MARKER_RADIUS;
+			
+			if (markerFilled[i])
+				g.fillOval(sx, sy, MARKER_RADIUS * 2.0, MARKER_RADIUS * 2.0);
+			else
+				g.strokeOval(sx, sy, MARKER_RADIUS * 2.0, MARKER_RADIUS * 2.0);
+		}
+		
+		g.setLineWidth(1.0);
+		g.restore();
+		
+		// Draw legend
+		double x = left;
+		double y = height - LEGEND_HEIGHT * 0.5;
+		g.setTextAlign(TextAlignment.LEFT);
+		g.setTextBaseline(VPos.CENTER);
+		
+		for (Trace trace : traces) {
+			if (!trace.visible || trace.name == null || trace.name.isEmpty())
+				continue;
+			
+			g.setFill(trace.color);
+			g.fillRect(x, y - 4.0, 8.0, 8.0);
+			g.setFill(Color.WHITE);
+			g.fillText(trace.name, x + 12.0, y);
+			x += 24.0 + trace.name.length() * 6.0;
+		}
+	}
+	
+	/**
+	 * Draws the background and the flow field on the field layer.
+	 */
+	private void drawField() {
+		GraphicsContext g = fieldCanvas.getGraphicsContext2D();
+		double width = fieldCanvas.getWidth();
+		double height = fieldCanvas.getHeight();
+		g.setFill(Color.BLACK);
+		g.fillRect(0.0, 0.0, width, height);
+		
+		double left = Y_AXIS_WIDTH;
+		double top = TITLE_HEIGHT;
+		double plotWidth = Math.floor(width - Y_AXIS_WIDTH - RIGHT_MARGIN);
+		double plotHeight = Math.floor(height - TITLE_HEIGHT - X_AXIS_HEIGHT - LEGEND_HEIGHT);
+		
+		if (plotWidth < 2.0 || plotHeight < 2.0 || fieldLength == 0)
+			return;
+		
+		double xScale = plotWidth / (xMax - xMin);
+		double yScale = plotHeight / (yMax - yMin);
+		double spacing = Math.min(fieldSpacingX * xScale, fieldSpacingY * yScale);
+		
+		// Scale arrow lengths by the logarithm of their speed in pixels, relative to the fastest arrow
+		double maxSpeed = 0.0;
+		
+		for (int i = 0; i < fieldLength; ++i) {
+			double speed = Math.hypot(fieldDx[i] * xScale, fieldDy[i] * yScale);
+			
+			if (Double.isFinite(speed))
+				maxSpeed = Math.max(maxSpeed, speed);
+		}
+		
+		if (maxSpeed == 0.0)
+			return;
+		
+		double logMax = Math.log1p(maxSpeed);
+		g.save();
+		g.beginPath();
+		g.rect(left, top, plotWidth, plotHeight);
+		g.clip();
+		g.setStroke(FIELD_COLOR);
+		g.setLineWidth(1.0);
+		g.beginPath();
+		
+		for (int i = 0; i < fieldLength; ++i) {
+			double dx = fieldDx[i] * xScale;
+			double dy = -fieldDy[i] * yScale;
+			double speed = Math.hypot(dx, dy);
+			
+			if (!Double.isFinite(speed) || speed == 0.0)
+				continue;
+			
+			double length = spacing * (0.25 + 0.6 * Math.log1p(speed) / logMax);
+			double ux = dx / speed;
+			double uy = dy / speed;
+			double x0 = left + (fieldX[i] - xMin) * xScale - ux * length * 0.5;
+			double y0 = top + (yMax - fieldY[i]) * yScale - uy * length * 0.5;
+			double x1 = x0 + ux * length;
+			double y1 = y0 + uy * length;
+			double head = Math.min(4.0, length * 0.4);
+			g.moveTo(x0, y0);
+			g.lineTo(x1, y1);
+			g.moveTo(x1 - head * (ux - uy * 0.5), y1 - head * (uy + ux * 0.5));
+			g.lineTo(x1, y1);
+			g.lineTo(x1 - head * (ux + uy * 0.5), y1 - head * (uy - ux * 0.5));
+		}
+		
+		g.stroke();
+		g.restore();
+	}
+	
+	/**
+	 * Adds the path of an x/y trace to the current path, skipping points that fall on the same pixel as the previous point.
+	 * @param g - The graphics context.
+	 * @param trace - The trace.
+	 * @param left - The left edge of the plot area.
+	 * @param top - The top edge of the plot area.
+	 * @param xScale - Pixels per x unit.
+	 * @param yScale - Pixels per y unit.
+	 */
+	private void drawPoints(GraphicsContext g, Trace trace, double left, double top, double xScale, double yScale) {
+		int capacity = trace.x.length;
+		int p = trace.head - trace.size;
+		boolean open = false;
+		int lastX = 0;
+		int lastY = 0;
+		
+		if (p < 0)
+			p += capacity;
+		
+		for (int i = 0; i < trace.size; ++i, ++p) {
+			if (p == capacity)
+				p = 0;
+			
+			float xv = trace.x[p];
+			float yv = trace.y[p];
+			
+			// Break the line at missing values
+			if (Float.isNaN(xv) || Float.isNaN(yv)) {
+				open = false;
+				continue;
+			}
+			
+			double sx = left + (xv - xMin) * xScale;
+			double sy = top + (yMax - yv) * yScale;
+			int px = (int)sx;
+			int py = (int)sy;
+			
+			if (!open) {
+				g.moveTo(sx, sy);
+				open = true;
+			}
+			else if (px != lastX || py != lastY) {
+				g.lineTo(sx, sy);
+			}
+			
+			lastX = px;
+			lastY = py;
+		}
+	}
+	
+	/**
+	 * Adds the path of a time series trace to the current path. Only the points in the visible x range are visited, and the points of each
+	 * pixel column are reduced to their first, minimum, maximum and last values.
+	 * @param g - The graphics context.
+	 * @param trace - The trace.
+	 * @param left - The left edge of the plot area.
+	 * @param top - The top edge of the plot area.
+	 * @param xScale - Pixels per x unit.
+	 * @param yScale - Pixels per y unit.
+	 */
+	private void drawTimeSeries(GraphicsContext g, Trace trace, double left, double top, double xScale, double yScale) {
+		int capacity = trace.x.length;
+		int start = trace.head - trace.size;
+		
+		if (start < 0)
+			start += capacity;
+		
+		// Find the last point before the visible range
+		int low = 0;
+		int high = trace.size;
+		
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			int p = start + mid;
+			
+			if (trace.x[(p >= capacity) ? p - capacity : p] < xMin)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		
+		boolean open = false;
+		int column = 0;
+		boolean empty = true;
+		double first = 0.0;
+		double last = 0.0;
+		double min = 0.0;
+		double max = 0.0;
+		
+		for (int i = Math.max(0, low - 1), p = start + i; i < trace.size; ++i, ++p) {
+			if (p >= capacity)
+				p -= capacity;
+			
+			float xv = trace.x[p];
+			float yv = trace.y[p];
+			
+			// Break the line at missing values
+			if (Float.isNaN(yv)) {
+				if (!empty)
+					open = lineColumn(g, open, column, first, min, max, last);
+				
+				open = false;
+				empty = true;
+				continue;
+			}
+			
+			int px = (int)Math.floor(left + (xv - xMin) * xScale);
+			double sy = top + (yMax - yv) * yScale;
+			
+			if (empty || px != column) {
+				if (!empty)
+					open = lineColumn(g, open, column, first, min, max, last);
+				
+				column = px;
+				first = last = min = max = sy;
+				empty = false;
+			}
+			else {
+				last = sy;
+				min = Math.min(min, sy);
+				max = Math.max(max, sy);
+			}
+			
+			// Stop after the first point past the visible range
+			if (xv > xMax)
+				break;
+		}
+		
+		if (!empty)
+			lineColumn(g, open, column, first, min, max, last);
+	}
+	
+	/**
+	 * Marks the chart for redrawing on the next layout pulse.
+	 */
+	private void invalidate() {
+		if (!dirty) {
+			dirty = true;
+			requestLayout();
+		}
+	}
+	
+	/**
+	 * Marks the field layer for redrawing on the next layout pulse.
+	 */
+	private void invalidateField() {
+		if (!fieldDirty) {
+			fieldDirty = true;
+			requestLayout();
+		}
+	}
+	
+	/**
+	 * Returns the tick label of the specified value.
+	 * @param value - The tick value.
+	 * @param tick - The tick spacing.
+	 * @return The tick label.
+	 */
+	static String label(double value, double tick) {
+		if (Math.abs(value) < tick * 1e-6)
+			value = 0.0;
+		
+		if (tick >= 1.0 && Math.abs(tick - Math.rint(tick)) < 1e-9)
+			return String.format("%.0f", value);
+		
+		return String.format("%.2f", value);
+	}
+	
+	/**
+	 * Adds the reduced points of a single pixel column to the current path.
+	 * @param g - The graphics context.
+	 * @param open - True if the path has already been started.
+	 * @param column - The pixel column.
+	 * @param first - The first y coordinate in the column.
+	 * @param min - The minimum y coordinate in the column.
+	 * @param max - The maximum y coordinate in the column.
+	 * @param last - The last y coordinate in the column.
+	 * @return True, the path is open after the column is added.
+	 */
+	private static boolean lineColumn(GraphicsContext g, boolean open, int column, double first, double min, double max, double last) {
+		double x = column + 0.5;
+		
+		if (open)
+			g.lineTo(x, first);
+		else
+			g.moveTo(x, first);
+		
+		if (min != max) {
+			g.lineTo(x, min);
+			g.lineTo(x, max);
+		}
+		
+		g.lineTo(x, last);
+		return true;
+	}
+	
+	/**
+	 * Returns the trace at the specified index.
+	 * @param trace - The index of the trace.
+	 * @return The trace.
+	 * @throws IndexOutOfBoundsException Thrown if trace is out of bounds.
+	 */
+	private Trace trace(int trace) {
+		if (trace < 0 || trace >= traces.size())
+			throw new IndexOutOfBoundsException("Error: TraceChart trace index " + trace + " is out of bounds.");
+		
+		return traces.get(trace);
+	}
+}
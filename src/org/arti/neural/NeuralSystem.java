@@ -25,6 +25,10 @@ import jdk.incubator.vector.VectorShape;
  * <p>NeuralSystem class represents the system controlling the processing of neural nodes and networks. This class controls settings for the
  * number of neural nodes processed per thread, which processing mode to use, and optimizing for near real-time processing.</p>
  * 
+ * <p>In deterministic mode, neural node arrays are processed in fixed blocks of {@link #DETERMINISTIC_BLOCK} neural nodes that threads
+ * claim in turn, and networks sum the input current of each neural node with {@link TreeSum} in the order of its synapses, so a run is
+ * bit-identical on any number of cores.</p>
+ * 
  * @author Monroe Gordon
  * @version 1.0.0
  * @since JDK 22
@@ -36,6 +40,12 @@ public class NeuralSystem {
 	// The neuralkernels.ptx file location.
 	private static final String NEURALKERNELS_PTX = "cuda/neuralkernels.ptx";
 	
+	/**
+	 * The number of neural nodes or values in a block of deterministic processing and of {@link TreeSum}. It is a multiple of every vector
+	 * length, so blocks split the same way on every CPU.
+	 */
+	public static final int DETERMINISTIC_BLOCK = 4096;
+	
 	/**
 	 * <p>private enum <b>ProcessingMode</b></p>
 	 * 
@@ -72,6 +82,8 @@ public class NeuralSystem {
 	private CUdevice cuDevice;
 	// A Cuda module for loading the PTX file.
 	private CUmodule cuModule;
+	// True if processing is split into fixed blocks independent of the number of cores.
+	private boolean deterministic;
 	// The number of Izhikevich 2003 spiking model neural nodes to run per thread.
 	private long i2003NodesPerThread;
 	// The next neural ID value.
@@ -90,6 +102,7 @@ public class NeuralSystem {
 		cuDevice = null;
 		cuContext = null;
 		cuModule = null;
+		deterministic = false;
 		i2003NodesPerThread = 100000;
 		nextID = 0;
 		node = new HashMap<Long, NodeData>();
@@ -252,6 +265,14 @@ public class NeuralSystem {
 		return Math.max(1, cpuCores / 2);
 	}
 	
+	/**
+	 * Returns whether processing is deterministic, split into fixed blocks and summed in a fixed order independent of the number of cores.
+	 * @return True if processing is deterministic.
+	 */
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+	
 	/**
 	 * Removes the neural node from the hash map that has the specified ID value.
 	 * @param id - The ID value of the neural node to remove.
@@ -269,6 +290,43 @@ public class NeuralSystem {
 		node.get(id).rename(name);;
 	}
 	
+	/**
+	 * Raises the next ID value to at least the specified value. This is used when restoring a checkpoint, so neural nodes added after it is
+	 * restored never take an ID value that was handed out before it was saved.
+	 * @param nextID - The next ID value saved with the checkpoint.
+	 */
+	public void restoreNextID(long nextID) {
+		this.nextID = Math.max(this.nextID, nextID);
+	}
+	
+	/**
+	 * Restores a neural node with the specified ID value to the hash map of neural nodes. This is used when restoring neural nodes from a
+	 * checkpoint. If the ID value is already in use by another neural node, a new ID value is created for the restored neural node instead.
+	 * @param id - The ID value the neural node had when it was saved.
+	 * @param array - The NeuralNodeArray the restored neural node belongs to.
+	 * @param index - The index in the NeuralNodeArray that the restored neural node belongs to.
+	 * @param name - The name of the restored neural node.
+	 * @return The ID value of the restored neural node.
+	 */
+	public long restoreNode(long id, NeuralNodeArray array, int index, String name) {
+		if (id < 0 || node.containsKey(id))
+			return addNode(array, index, name);
+		
+		node.put(id, new NodeData(array, index, name));
+		nextID = Math.max(nextID, id + 1);
+		return id;
+	}
+	
+	/**
+	 * Sets whether processing is deterministic. Deterministic processing splits neural node arrays into fixed blocks of
+	 * {@link #DETERMINISTIC_BLOCK} neural nodes instead of one batch per thread, and sums the synaptic input current of each neural node in
+	 * the order of its synapses with {@link TreeSum}, so results are bit-identical on any number of cores.
+	 * @param deterministic - True to process deterministically.
+	 */
+	public void setDeterministic(boolean deterministic) {
+		this.deterministic = deterministic;
+	}
+	
 	/**
 	 * Sets the index of the neural node with the specified ID value.
 	 * @param id - The ID value of the neural node.
@@ -0,0 +1,422 @@
+package org.arti.neural;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>public final class <b>Philox</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>Philox class is a counter-based random number generator, the Philox4x32-10 generator of Salmon et al. A random number is a pure
+ * function of the seed, the index of a neural node, the processing step and a stream number, so there is no state to share or lock and any
+ * range of neural nodes can be generated on any thread, in any order, with the same result. Each counter is encrypted by ten rounds of
+ * multiplications and exclusive ors into four 32-bit words.</p>
+ * 
+ * <p>Uniform numbers take one word per neural node, so each counter covers four neural nodes, and Gaussian numbers take two words per
+ * neural node by the Box-Muller transform. The bulk methods run the rounds on {@value #WIDTH} counters at a time in IntVector lanes and
+ * convert the words to floats in FloatVector lanes. The logarithm and cosine of the Box-Muller transform are polynomials of basic
+ * arithmetic, so the scalar and vector paths round the same way and a number is bit-identical on every CPU.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public final class Philox {
+	/**
+	 * The number of consecutive counters whose words cover a group of consecutive neural nodes.
+	 */
+	public static final int WIDTH = 16;
+	/**
+	 * The largest stream number.
+	 */
+	public static final int MAX_STREAM = Integer.MAX_VALUE >>> 1;
+	
+	// The multiplier of the first word.
+	private static final int M0 = 0xD2511F53;
+	// The multiplier of the third word.
+	private static final int M1 = 0xCD9E8D57;
+	// The key increment of the first key word.
+	private static final int W0 = 0x9E3779B9;
+	// The key increment of the second key word.
+	private static final int W1 = 0xBB67AE85;
+	// The number of rounds.
+	private static final int ROUNDS = 10;
+	// The number of neural nodes covered by WIDTH counters of uniform numbers.
+	private static final int UNIFORM_GROUP = 4 * WIDTH;
+	// The number of neural nodes covered by WIDTH counters of Gaussian numbers.
+	private static final int GAUSSIAN_GROUP = 2 * WIDTH;
+	// The number of neural nodes generated at a time by the bulk methods, a whole number of groups.
+	private static final int TILE = 1024;
+	// The natural logarithm of 2.
+	private static final float LN2 = 0.6931472f;
+	// The vector species of the rounds, with at most WIDTH lanes.
+	private static final VectorSpecies<Integer> INT_SPECIES = (IntVector.SPECIES_PREFERRED.length() > WIDTH) ? IntVector.SPECIES_512
+			: IntVector.SPECIES_PREFERRED;
+	// The lane indexes of INT_SPECIES.
+	private static final IntVector IOTA = IntVector.fromArray(INT_SPECIES, new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 },
+			0);
+	
+	// The first key word.
+	private final int key0;
+	// The second key word.
+	private final int key1;
+	// The seed.
+	private final long seed;
+	
+	/**
+	 * Creates a Philox generator with the specified seed.
+	 * @param seed - The seed, used as the 64-bit key.
+	 */
+	public Philox(long seed) {
+		// Initialize variables
+		this.seed = seed;
+		key0 = (int)seed;
+		key1 = (int)(seed >>> 32);
+	}
+	
+	/**
+	 * Returns the random word of the neural node at the specified index for uniform numbers.
+	 * @param index - The index of the neural node, 0 or greater.
+	 * @param step - The processing step.
+	 * @param stream - The stream number.
+	 * @return The random word.
+	 * @throws IllegalArgumentException Thrown if index is negative or stream is out of range.
+	 */
+	public int bits(int index, long step, int stream) {
+		checkIndex(index, stream);
+		int counter = index / UNIFORM_GROUP * WIDTH + index % WIDTH;
+		return word(counter, step, stream << 1, index / WIDTH % 4);
+	}
+	
+	/**
+	 * Checks the index of a neural node and a stream number.
+	 * @param index - The index of the neural node.
+	 * @param stream - The stream number.
+	 * @throws IllegalArgumentException Thrown if index is negative or stream is out of range.
+	 */
+	private static void checkIndex(int index, int stream) {
+		if (index < 0)
+			throw new IllegalArgumentException("Error: Philox index cannot be negative.");
+		if (stream < 0 || stream > MAX_STREAM)
+			throw new IllegalArgumentException("Error: Philox stream must be from 0 to " + MAX_STREAM + ".");
+	}
+	
+	/**
+	 * Returns cos(2 pi t) of a uniform number, by a Taylor polynomial on a quarter turn.
+	 * @param t - The uniform number, from 0 to 1.
+	 * @return The cosine.
+	 */
+	private static float cos2Pi(float t) {
+		float a = Math.abs(t - 0.5f);
+		boolean flip = a > 0.25f;
+		
+		if (flip)
+			a = 0.5f - a;
+		
+		float x = 6.2831855f * a;
+		float x2 = x * x;
+		float c = 1.0f + x2 * (-0.5f + x2 * (4.1666668e-2f + x2 * (-1.3888889e-3f + x2 * (2.4801588e-5f + x2 * (-2.7557319e-7f + x2
+				* 2.0876757e-9f)))));
+		
+		// cos(2 pi t) = -cos(2 pi a), and the quarter turn was flipped with the sign
+		return flip ? c : -c;
+	}
+	
+	/**
+	 * Runs the rounds on {@value #WIDTH} consecutive counters and stores their words, word by word, so that word w of counter c is stored at
+	 * offset + w * {@value #WIDTH} + c.
+	 * @param bits - The array of words.
+	 * @param offset - The index in bits of the first word.
+	 * @param counter - The first counter.
+	 * @param step - The processing step.
+	 * @param stream - The stream word of the counters.
+	 */
+	private void encrypt(int[] bits, int offset, int counter, long step, int stream) {
+		for (int s = 0; s < WIDTH; s += INT_SPECIES.length()) {
+			IntVector x0 = IOTA.add(counter + s);
+			IntVector x1 = IntVector.broadcast(INT_SPECIES, (int)step);
+			IntVector x2 = IntVector.broadcast(INT_SPECIES, (int)(step >>> 32));
+			IntVector x3 = IntVector.broadcast(INT_SPECIES, stream);
+			int k0 = key0;
+			int k1 = key1;
+			
+			for (int r = 0; r < ROUNDS; ++r) {
+				IntVector hi0 = mulhi(x0, M0);
+				IntVector lo0 = x0.mul(M0);
+				IntVector hi1 = mulhi(x2, M1);
+				IntVector lo1 = x2.mul(M1);
+				x0 = hi1.lanewise(VectorOperators.XOR, x1).lanewise(VectorOperators.XOR, k0);
+				x1 = lo1;
+				x2 = hi0.lanewise(VectorOperators.XOR, x3).lanewise(VectorOperators.XOR, k1);
+				x3 = lo0;
+				k0 += W0;
+				k1 += W1;
+			}
+			
+			x0.intoArray(bits, offset + s);
+			x1.intoArray(bits, offset + WIDTH + s);
+			x2.intoArray(bits, offset + 2 * WIDTH + s);
+			x3.intoArray(bits, offset + 3 * WIDTH + s);
+		}
+	}
+	
+	/**
+	 * Returns a Gaussian number with mean 0 and standard deviation 1 for the neural node at the specified index.
+	 * @param index - The index of the neural node, 0 or greater.
+	 * @param step - The processing step.
+	 * @param stream - The stream number.
+	 * @return The Gaussian number.
+	 * @throws IllegalArgumentException Thrown if index is negative or stream is out of range.
+	 */
+	public float gaussian(int index, long step, int stream) {
+		checkIndex(index, stream);
+		int counter = index / GAUSSIAN_GROUP * WIDTH + index % WIDTH;
+		int pair = 2 * (index / WIDTH % 2);
+		return gaussian(word(counter, step, (stream << 1) | 1, pair), word(counter, step, (stream << 1) | 1, pair + 1));
+	}
+	
+	/**
+	 * Stores the Gaussian numbers with mean 0 and standard deviation 1 of the neural nodes in the specified range.
+	 * @param step - The processing step.
+	 * @param stream - The stream number.
+	 * @param index - The index of the first neural node, 0 or greater.
+	 * @param out - The array the numbers are stored in.
+	 * @param offset - The index in out of the number of the first neural node.
+	 * @param length - The number of neural nodes.
+	 * @throws IllegalArgumentException Thrown if index is negative or stream is out of range.
+	 * @throws IndexOutOfBoundsException Thrown if the range of out is out of bounds.
+	 */
+	public void gaussian(long step, int stream, int index, float[] out, int offset, int length) {
+		checkIndex(index, stream);
+		
+		if (offset < 0 || length < 0 || offset + length > out.length)
+			throw new IndexOutOfBoundsException("Error: Cannot store " + length + " numbers at " + offset + ". Range out of bounds.");
+		
+		int to = index + length;
+		int head = Math.min(to, (index + GAUSSIAN_GROUP - 1) / GAUSSIAN_GROUP * GAUSSIAN_GROUP);
+		int tail = Math.max(head, to / GAUSSIAN_GROUP * GAUSSIAN_GROUP);
+		int[] bits = new int[Math.min(tail - head, TILE) * 2];
+		
+		for (int i = index; i < head; ++i)
+			out[offset + i - index] = gaussian(i, step, stream);
+		
+		for (int base = head; base < tail; base += TILE) {
+			int tileLength = Math.min(TILE, tail - base);
+			
+			for (int g = 0; g < tileLength; g += GAUSSIAN_GROUP)
+				encrypt(bits, 2 * g, (base + g) / GAUSSIAN_GROUP * WIDTH, step, (stream << 1) | 1);
+			
+			transform(bits, out, offset + base - index, tileLength);
+		}
+		
+		for (int i = tail; i < to; ++i)
+			out[offset + i - index] = gaussian(i, step, stream);
+	}
+	
+	/**
+	 * Returns the Gaussian number of a pair of random words by the Box-Muller transform.
+	 * @param b1 - The word of the radius.
+	 * @param b2 - The word of the angle.
+	 * @return The Gaussian number.
+	 */
+	private static float gaussian(int b1, int b2) {
+		float u1 = 2.0f - Float.intBitsToFloat((b1 >>> 9) | 0x3F800000);
+		return (float)Math.sqrt(-2.0f * log(u1)) * cos2Pi(uniform(b2));
+	}
+	
+	/**
+	 * Returns the natural logarithm of a positive normal float, by a series in (f - 1) / (f + 1) of its mantissa f.
+	 * @param x - The float.
+	 * @return The natural logarithm.
+	 */
+	private static float log(float x) {
+		int b = Float.floatToRawIntBits(x);
+		int mantissa = b & 0x7FFFFF;
+		int e = (b >>> 23) - 127;
+		
+		// Keep the mantissa from 1/sqrt(2) to sqrt(2), where the series converges fastest
+		if (mantissa > 0x3504F3) {
+			mantissa |= 0x3F000000;
+			e++;
+		}
+		else {
+			mantissa |= 0x3F800000;
+		}
+		
+		float f = Float.intBitsToFloat(mantissa);
+		float ef = Float.intBitsToFloat(0x4B000000 | (e + 1024)) - 8389632.0f;
+		float s = (f - 1.0f) / (f + 1.0f);
+		float s2 = s * s;
+		return 2.0f * s * (1.0f + s2 * (0.33333334f + s2 * (0.2f + s2 * (0.14285715f + s2 * 0.11111111f)))) + ef * LN2;
+	}
+	
+	/**
+	 * Returns the high 32 bits of the unsigned products of a vector of words with a multiplier, from the products of their 16-bit halves.
+	 * @param a - The words.
+	 * @param m - The multiplier.
+	 * @return The high words of the products.
+	 */
+	private static IntVector mulhi(IntVector a, int m) {
+		IntVector al = a.and(0xFFFF);
+		IntVector ah = a.lanewise(VectorOperators.LSHR, 16);
+		IntVector t = al.mul(m & 0xFFFF);
+		IntVector u = ah.mul(m & 0xFFFF).add(t.lanewise(VectorOperators.LSHR, 16));
+		IntVector v = al.mul(m >>> 16).add(u.and(0xFFFF));
+		return ah.mul(m >>> 16).add(u.lanewise(VectorOperators.LSHR, 16)).add(v.lanewise(VectorOperators.LSHR, 16));
+	}
+	
+	/**
+	 * Returns the seed.
+	 * @return The seed.
+	 */
+	public long seed() {
+		return seed;
+	}
+	
+	/**
+	 * Stores the Gaussian numbers of a tile of Gaussian groups of words by the Box-Muller transform, in FloatVector lanes that round as
+	 * {@link #gaussian(int, int)} does. Each group of words holds the word pairs of its first {@value #WIDTH} neural nodes, then of its next
+	 * {@value #WIDTH} neural nodes. The transform is one method, so the JIT compiler keeps all vectors in registers.
+	 * @param bits - The words, two per neural node.
+	 * @param out - The array the numbers are stored in.
+	 * @param offset - The index in out of the number of the first neural node.
+	 * @param length - The number of neural nodes, a whole number of groups.
+	 */
+	private static void transform(int[] bits, float[] out, int offset, int length) {
+		for (int k = 0; k < length; k += INT_SPECIES.length()) {
+			// Neural node k is lane s of half h of group g
+			int g = k / GAUSSIAN_GROUP * GAUSSIAN_GROUP;
+			int word = 2 * g + (k - g) / WIDTH * 2 * WIDTH + (k - g) % WIDTH;
+			IntVector b1 = IntVector.fromArray(INT_SPECIES, bits, word);
+			IntVector b2 = IntVector.fromArray(INT_SPECIES, bits, word + WIDTH);
+			
+			// The natural logarithm of the radius number, as log(float)
+			IntVector b = b1.lanewise(VectorOperators.LSHR, 9).or(0x3F800000).reinterpretAsFloats().neg().add(2.0f).reinterpretAsInts();
+			IntVector mantissa = b.and(0x7FFFFF);
+			IntVector e = b.lanewise(VectorOperators.LSHR, 23).add(1024 - 127);
+			VectorMask<Integer> high = mantissa.compare(VectorOperators.GT, 0x3504F3);
+			FloatVector f = mantissa.or(0x3F800000).blend(mantissa.or(0x3F000000), high).reinterpretAsFloats();
+			FloatVector ef = e.blend(e.add(1), high).or(0x4B000000).reinterpretAsFloats().sub(8389632.0f);
+			FloatVector s = f.sub(1.0f).div(f.add(1.0f));
+			FloatVector s2 = s.mul(s);
+			FloatVector series = s2.mul(0.11111111f).add(0.14285715f).mul(s2).add(0.2f).mul(s2).add(0.33333334f).mul(s2).add(1.0f);
+			FloatVector log = s.mul(2.0f).mul(series).add(ef.mul(LN2));
+			
+			// The cosine of the angle number, as cos2Pi(float)
+			FloatVector a = b2.lanewise(VectorOperators.LSHR, 9).or(0x3F800000).reinterpretAsFloats().sub(1.0f).sub(0.5f).abs();
+			VectorMask<Float> flip = a.compare(VectorOperators.GT, 0.25f);
+			a = a.blend(a.neg().add(0.5f), flip);
+			FloatVector x = a.mul(6.2831855f);
+			FloatVector x2 = x.mul(x);
+			FloatVector c = x2.mul(2.0876757e-9f).add(-2.7557319e-7f).mul(x2).add(2.4801588e-5f).mul(x2).add(-1.3888889e-3f).mul(x2)
+					.add(4.1666668e-2f).mul(x2).add(-0.5f).mul(x2).add(1.0f);
+			
+			log.mul(-2.0f).sqrt().mul(c.neg().blend(c, flip)).intoArray(out, offset + k);
+		}
+	}
+	
+	/**
+	 * Returns a uniform number from 0 inclusive to 1 exclusive for the neural node at the specified index.
+	 * @param index - The index of the neural node, 0 or greater.
+	 * @param step - The processing step.
+	 * @param stream - The stream number.
+	 * @return The uniform number, a multiple of 2^-23.
+	 * @throws IllegalArgumentException Thrown if index is negative or stream is out of range.
+	 */
+	public float uniform(int index, long step, int stream) {
+		return uniform(bits(index, step, stream));
+	}
+	
+	/**
+	 * Stores the uniform numbers from 0 inclusive to 1 exclusive of the neural nodes in the specified range.
+	 * @param step - The processing step.
+	 * @param stream - The stream number.
+	 * @param index - The index of the first neural node, 0 or greater.
+	 * @param out - The array the numbers are stored in.
+	 * @param offset - The index in out of the number of the first neural node.
+	 * @param length - The number of neural nodes.
+	 * @throws IllegalArgumentException Thrown if index is negative or stream is out of range.
+	 * @throws IndexOutOfBoundsException Thrown if the range of out is out of bounds.
+	 */
+	public void uniform(long step, int stream, int index, float[] out, int offset, int length) {
+		checkIndex(index, stream);
+		
+		if (offset < 0 || length < 0 || offset + length > out.length)
+			throw new IndexOutOfBoundsException("Error: Cannot store " + length + " numbers at " + offset + ". Range out of bounds.");
+		
+		int to = index + length;
+		int head = Math.min(to, (index + UNIFORM_GROUP - 1) / UNIFORM_GROUP * UNIFORM_GROUP);
+		int tail = Math.max(head, to / UNIFORM_GROUP * UNIFORM_GROUP);
+		int[] bits = new int[Math.min(tail - head, TILE)];
+		
+		for (int i = index; i < head; ++i)
+			out[offset + i - index] = uniform(i, step, stream);
+		
+		for (int base = head; base < tail; base += TILE) {
+			int tileLength = Math.min(TILE, tail - base);
+			
+			// The words of a group are stored in the order of its neural nodes
+			for (int g = 0; g < tileLength; g += UNIFORM_GROUP)
+				encrypt(bits, g, (base + g) / UNIFORM_GROUP * WIDTH, step, stream << 1);
+			
+			for (int k = 0; k < tileLength; k += INT_SPECIES.length()) {
+				IntVector b = IntVector.fromArray(INT_SPECIES, bits, k);
+				b.lanewise(VectorOperators.LSHR, 9).or(0x3F800000).reinterpretAsFloats().sub(1.0f).intoArray(out, offset + base - index + k);
+			}
+		}
+		
+		for (int i = tail; i < to; ++i)
+			out[offset + i - index] = uniform(i, step, stream);
+	}
+	
+	/**
+	 * Returns the uniform number of a random word, from its top 23 bits.
+	 * @param b - The word.
+	 * @return The uniform number from 0 inclusive to 1 exclusive.
+	 */
+	private static float uniform(int b) {
+		return Float.intBitsToFloat((b >>> 9) | 0x3F800000) - 1.0f;
+	}
+	
+	/**
+	 * Returns the specified word of a counter.
+	 * @param counter - The counter.
+	 * @param step - The processing step.
+	 * @param stream - The stream word of the counter.
+	 * @param word - The word, from 0 to 3.
+	 * @return The word.
+	 */
+	private int word(int counter, long step, int stream, int word) {
+		int x0 = counter;
+		int x1 = (int)step;
+		int x2 = (int)(step >>> 32);
+		int x3 = stream;
+		int k0 = key0;
+		int k1 = key1;
+		
+		for (int r = 0; r < ROUNDS; ++r) {
+			long p0 = Integer.toUnsignedLong(x0) * Integer.toUnsignedLong(M0);
+			long p1 = Integer.toUnsignedLong(x2) * Integer.toUnsignedLong(M1);
+			x0 = (int)(p1 >>> 32) ^ x1 ^ k0;
+			x1 = (int)p1;
+			x2 = (int)(p0 >>> 32) ^ x3 ^ k1;
+			x3 = (int)p0;
+			k0 += W0;
+			k1 += W1;
+		}
+		
+		switch (word) {
+		case 0:
+			return x0;
+		case 1:
+			return x1;
+		case 2:
+			return x2;
+		default:
+			return x3;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package org.arti.neural;
+
+/**
+ * <p>public final class <b>TreeSum</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>TreeSum class sums floats in a fixed order, so a sum is bit-identical however the values were produced and on any number of cores. The
+ * values are split into blocks of {@link NeuralSystem#DETERMINISTIC_BLOCK} counted from the first value. Each block is summed by
+ * {@value #LANES} interleaved accumulators combined in a fixed tree, and the block sums are combined pairwise. The result depends only on
+ * the values and their order, and pairwise combination keeps the rounding error growing with the logarithm of the number of values.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public final class TreeSum {
+	// The number of interleaved accumulators summing a block.
+	private static final int LANES = 8;
+	
+	/**
+	 * Default constructor. TreeSum only has static methods.
+	 */
+	private TreeSum() {
+	}
+	
+	/**
+	 * Returns the sum of the specified block of values, summed by {@value #LANES} interleaved accumulators combined in a fixed tree.
+	 * @param values - The values.
+	 * @param from - The index of the first value.
+	 * @param to - The index after the last value.
+	 * @return The sum.
+	 */
+	private static float block(float[] values, int from, int to) {
+		float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f, s4 = 0.0f, s5 = 0.0f, s6 = 0.0f, s7 = 0.0f;
+		int i = from;
+		
+		for (; i <= to - LANES; i += LANES) {
+			s0 += values[i];
+			s1 += values[i + 1];
+			s2 += values[i + 2];
+			s3 += values[i + 3];
+			s4 += values[i + 4];
+			s5 += values[i + 5];
+			s6 += values[i + 6];
+			s7 += values[i + 7];
+		}
+		
+		// Add the remainder to the accumulators in order
+		if (i < to)
+			s0 += values[i++];
+		if (i < to)
+			s1 += values[i++];
+		if (i < to)
+			s2 += values[i++];
+		if (i < to)
+			s3 += values[i++];
+		if (i < to)
+			s4 += values[i++];
+		if (i < to)
+			s5 += values[i++];
+		if (i < to)
+			s6 += values[i++];
+		
+		return ((s0 + s1) + (s2 + s3)) + ((s4 + s5) + (s6 + s7));
+	}
+	
+	/**
+	 * Combines the specified partial sums pairwise in place, adding neighbors level by level until one sum is left.
+	 * @param partial - The partial sums. The array is overwritten.
+	 * @param count - The number of partial sums.
+	 * @return The sum, or 0 if count is 0.
+	 */
+	public static float combine(float[] partial, int count) {
+		if (count == 0)
+			return 0.0f;
+		
+		for (; count > 1; count = (count + 1) / 2) {
+			for (int i = 0; i < count / 2; ++i)
+				partial[i] = partial[2 * i] + partial[2 * i + 1];
+			
+			// An odd partial sum is carried up to the next level unchanged
+			if (count % 2 != 0)
+				partial[count / 2] = partial[count - 1];
+		}
+		
+		return partial[0];
+	}
+	
+	/**
+	 * Returns the sum of the values in the specified range, in the fixed order of this class.
+	 * @param values - The values.
+	 * @param from - The index of the first value.
+	 * @param to - The index after the last value.
+	 * @return The sum.
+	 * @throws IndexOutOfBoundsException Thrown if the range is out of bounds.
+	 */
+	public static float sum(float[] values, int from, int to) {
+		if (from < 0 || to > values.length || from > to)
+			throw new IndexOutOfBoundsException("Error: Cannot sum values from " + from + " to " + to + ". Range out of bounds.");
+		
+		int blockSize = NeuralSystem.DETERMINISTIC_BLOCK;
+		int blocks = (to - from + blockSize - 1) / blockSize;
+		
+		if (blocks <= 1)
+			return block(values, from, to);
+		
+		float[] partial = new float[blocks];
+		
+		for (int b = 0; b < blocks; ++b)
+			partial[b] = block(values, from + b * blockSize, Math.min(to, from + (b + 1) * blockSize));
+		
+		return combine(partial, blocks);
+	}
+}
@@ -0,0 +1,292 @@
+package org.arti.neural.analysis;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.arti.neural.model.IzhikevichModel;
+import org.arti.neural.model.ModelParameter;
+import org.arti.neural.model.ModelPopulation;
+
+/**
+ * <p>public class <b>FIAnalysis</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>FIAnalysis class computes the firing rate versus input current curve ({@link FICurve}) and rheobase of a set of neuron models. All
+ * points of all curves of one membrane equation form are simulated as a single {@link ModelPopulation}, one neuron per model and current,
+ * split over worker threads on every core. The rheobase of every model is then found together by parallel bisection: each pass simulates
+ * {@value #PROBES} evenly spaced currents per model inside its bracket as one population, and the first current that spikes and the one
+ * before it become the new bracket, narrowing it {@value #PROBES} + 1 fold per pass. The populations use the model equation, so a curve
+ * describes the neuron the neural model lab runs with the same parameters; the extended parameters of soma models are ignored, as in the
+ * lab.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class FIAnalysis {
+	// The number of neurons per work chunk, a multiple of every vector length.
+	private static final int CHUNK = 512;
+	// The number of rheobase bisection passes.
+	private static final int PASSES = 4;
+	// The number of currents simulated per model in each bisection pass.
+	private static final int PROBES = 15;
+	
+	// The number of stimulus cycles.
+	private int cycles;
+	// The membrane equation form of each model.
+	private ArrayList<IzhikevichModel.Form> form;
+	// The highest input current of each model.
+	private ArrayList<Float> maxCurrent;
+	// The lowest input current of each model.
+	private ArrayList<Float> minCurrent;
+	// The name of each model.
+	private ArrayList<String> name;
+	// The number of settling cycles.
+	private int onset;
+	// The parameters of each model.
+	private ArrayList<float[]> parameters;
+	// The number of points per curve.
+	private int points;
+	// The number of worker threads.
+	private int threads;
+	
+	/**
+	 * Creates an FIAnalysis with no models.
+	 * @param points - The number of points per curve.
+	 * @param onset - The number of settling cycles without input current before each stimulus.
+	 * @param cycles - The number of stimulus cycles.
+	 * @throws IllegalArgumentException Thrown if points is less than 2, onset is negative or cycles is less than 1.
+	 */
+	public FIAnalysis(int points, int onset, int cycles) {
+		// Check parameters
+		if (points < 2)
+			throw new IllegalArgumentException("Error: FIAnalysis needs at least two points per curve.");
+		
+		if (onset < 0 || cycles < 1)
+			throw new IllegalArgumentException("Error: FIAnalysis needs a non-negative onset and at least one stimulus cycle.");
+		
+		// Initialize variables
+		this.points = points;
+		this.onset = onset;
+		this.cycles = cycles;
+		form = new ArrayList<IzhikevichModel.Form>();
+		maxCurrent = new ArrayList<Float>();
+		minCurrent = new ArrayList<Float>();
+		name = new ArrayList<String>();
+		parameters = new ArrayList<float[]>();
+		threads = Runtime.getRuntime().availableProcessors();
+	}
+	
+	/**
+	 * Adds a model whose curve spans the specified input currents.
+	 * @param name - The name of the model.
+	 * @param form - The membrane equation form.
+	 * @param parameters - The model parameters, indexed by parameter ordinal, as returned by {@link ModelParameter#parse}.
+	 * @param minCurrent - The lowest input current.
+	 * @param maxCurrent - The highest input current.
+	 * @throws IllegalArgumentException Thrown if parameters does not hold a value for every parameter or maxCurrent is not above minCurrent.
+	 * @throws NullPointerException Thrown if form or parameters is null.
+	 */
+	public void add(String name, IzhikevichModel.Form form, float[] parameters, float minCurrent, float maxCurrent) {
+		if (form == null || parameters == null)
+			throw new NullPointerException("Error: FIAnalysis model form and parameters cannot be null.");
+		
+		if (parameters.length != ModelParameter.values().length)
+			throw new IllegalArgumentException("Error: FIAnalysis model needs a value for every parameter.");
+		
+		if (!(maxCurrent > minCurrent))
+			throw new IllegalArgumentException("Error: FIAnalysis model's highest current must be above its lowest current.");
+		
+		this.name.add(name);
+		this.form.add(form);
+		this.parameters.add(parameters.clone());
+		this.minCurrent.add(minCurrent);
+		this.maxCurrent.add(maxCurrent);
+	}
+	
+	/**
+	 * Returns the number of models.
+	 * @return The number of models.
+	 */
+	public int models() {
+		return name.size();
+	}
+	
+	/**
+	 * Computes the curve and rheobase of every model.
+	 * @return The curves, in the order the models were added.
+	 * @throws InterruptedException Thrown if the calling thread is interrupted while waiting for the workers.
+	 */
+	public FICurve[] run() throws InterruptedException {
+		int models = name.size();
+		float[][] current = new float[models][points];
+		float[][] rate = new float[models][points];
+		float[] rheobase = new float[models];
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		
+		try {
+			for (IzhikevichModel.Form f : IzhikevichModel.Form.values()) {
+				ArrayList<Integer> model = new ArrayList<Integer>();
+				
+				for (int i = 0; i < models; ++i) {
+					if (form.get(i) == f)
+						model.add(i);
+				}
+				
+				if (!model.isEmpty())
+					run(executorService, f, model, current, rate, rheobase);
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+		
+		FICurve[] curve = new FICurve[models];
+		
+		for (int i = 0; i < models; ++i)
+			curve[i] = new FICurve(name.get(i), current[i], rate[i], rheobase[i]);
+		
+		return curve;
+	}
+	
+	/**
+	 * Sets the number of worker threads, by default the number of available cores.
+	 * @param threads - The number of worker threads.
+	 * @throws IllegalArgumentException Thrown if threads is less than 1.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Error: FIAnalysis needs at least one worker thread.");
+		
+		this.threads = threads;
+	}
+	
+	/**
+	 * Computes the curves and rheobases of the models of one membrane equation form.
+	 * @param executorService - The executor running the workers.
+	 * @param f - The membrane equation form.
+	 * @param model - The indices of the models.
+	 * @param current - The array receiving the currents of each curve.
+	 * @param rate - The array receiving the rates of each curve.
+	 * @param rheobase - The array receiving the rheobase of each model.
+	 * @throws InterruptedException Thrown if the calling thread is interrupted while waiting for the workers.
+	 */
+	private void run(ExecutorService executorService, IzhikevichModel.Form f, ArrayList<Integer> model, float[][] current, float[][] rate,
+			float[] rheobase) throws InterruptedException {
+		int n = model.size();
+		
+		// Simulate every point of every curve as one population
+		ModelPopulation population = new ModelPopulation(f, ModelPopulation.Equation.MODEL, n * points);
+		
+		for (int j = 0; j < n; ++j) {
+			int m = model.get(j);
+			float min = minCurrent.get(m);
+			float max = maxCurrent.get(m);
+			
+			for (int p = 0; p < points; ++p) {
+				current[m][p] = min + (max - min) * p / (points - 1);
+				population.setAll(j * points + p, parameters.get(m));
+				population.set(ModelParameter.I, j * points + p, current[m][p]);
+			}
+		}
+		
+		simulate(executorService, population);
+		
+		// Bracket each rheobase between the last silent and the first spiking point
+		float[] low = new float[n];
+		float[] high = new float[n];
+		ArrayList<Integer> open = new ArrayList<Integer>();
+		
+		for (int j = 0; j < n; ++j) {
+			int m = model.get(j);
+			int first = -1;
+			
+			for (int p = 0; p < points; ++p) {
+				rate[m][p] = population.spikes(j * points + p) * 1000.0f / cycles;
+				
+				if (first < 0 && population.spikes(j * points + p) > 0)
+					first = p;
+			}
+			
+			if (first < 0) {
+				rheobase[m] = Float.NaN;
+			}
+			else if (first == 0) {
+				rheobase[m] = current[m][0];
+			}
+			else {
+				low[j] = current[m][first - 1];
+				high[j] = current[m][first];
+				open.add(j);
+			}
+		}
+		
+		// Narrow every bracket together by parallel bisection
+		for (int pass = 0; pass < PASSES && !open.isEmpty(); ++pass) {
+			ModelPopulation probe = new ModelPopulation(f, ModelPopulation.Equation.MODEL, open.size() * PROBES);
+			
+			for (int i = 0; i < open.size(); ++i) {
+				int j = open.get(i);
+				
+				for (int q = 0; q < PROBES; ++q) {
+					probe.setAll(i * PROBES + q, parameters.get(model.get(j)));
+					probe.set(ModelParameter.I, i * PROBES + q, low[j] + (high[j] - low[j]) * (q + 1) / (PROBES + 1));
+				}
+			}
+			
+			simulate(executorService, probe);
+			
+			for (int i = 0; i < open.size(); ++i) {
+				int j = open.get(i);
+				int q = 0;
+				
+				while (q < PROBES && probe.spikes(i * PROBES + q) == 0)
+					q++;
+				
+				float probeLow = (q == 0) ? low[j] : probe.get(ModelParameter.I, i * PROBES + q - 1);
+				float probeHigh = (q == PROBES) ? high[j] : probe.get(ModelParameter.I, i * PROBES + q);
+				low[j] = probeLow;
+				high[j] = probeHigh;
+			}
+		}
+		
+		for (int i = 0; i < open.size(); ++i)
+			rheobase[model.get(open.get(i))] = high[open.get(i)];
+	}
+	
+	/**
+	 * Simulates a population on the worker threads, each claiming chunks of neurons until none are left.
+	 * @param executorService - The executor running the workers.
+	 * @param population - The population.
+	 * @throws InterruptedException Thrown if the calling thread is interrupted while waiting for the workers.
+	 */
+	private void simulate(ExecutorService executorService, ModelPopulation population) throws InterruptedException {
+		int size = population.size();
+		int chunks = (size + CHUNK - 1) / CHUNK;
+		AtomicInteger next = new AtomicInteger();
+		ArrayList<Callable<Void>> task = new ArrayList<Callable<Void>>();
+		
+		for (int i = 0; i < Math.min(threads, chunks); ++i) {
+			task.add(() -> {
+				for (int chunk = next.getAndIncrement(); chunk < chunks; chunk = next.getAndIncrement())
+					population.simulate(onset, cycles, chunk * CHUNK, Math.min(size, chunk * CHUNK + CHUNK));
+				
+				return null;
+			});
+		}
+		
+		try {
+			for (Future<Void> future : executorService.invokeAll(task))
+				future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			
+			throw new IllegalStateException("Error: FIAnalysis worker failed.", e.getCause());
+		}
+	}
+}
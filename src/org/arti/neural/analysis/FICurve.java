@@ -0,0 +1,115 @@
+package org.arti.neural.analysis;
+
+/**
+ * <p>public class <b>FICurve</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>FICurve class holds the firing rate versus input current curve of a neuron model and its rheobase, the least constant input current
+ * evoking a spike during the stimulus. FICurves are computed by {@link FIAnalysis}.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class FICurve {
+	// The input current of each point.
+	private float[] current;
+	// The name of the model.
+	private String name;
+	// The firing rate of each point in Hz.
+	private float[] rate;
+	// The rheobase current, or NaN.
+	private float rheobase;
+	
+	/**
+	 * Creates an FICurve.
+	 * @param name - The name of the model.
+	 * @param current - The input current of each point.
+	 * @param rate - The firing rate of each point in Hz.
+	 * @param rheobase - The rheobase current, or NaN.
+	 */
+	FICurve(String name, float[] current, float[] rate, float rheobase) {
+		// Initialize variables
+		this.name = name;
+		this.current = current;
+		this.rate = rate;
+		this.rheobase = rheobase;
+	}
+	
+	/**
+	 * Returns the input current of the specified point.
+	 * @param index - The index of the point.
+	 * @return The input current.
+	 */
+	public float current(int index) {
+		return current[index];
+	}
+	
+	/**
+	 * Copies the input currents of the curve into the specified array.
+	 * @param dest - The array receiving the currents.
+	 */
+	public void currents(float[] dest) {
+		System.arraycopy(current, 0, dest, 0, current.length);
+	}
+	
+	/**
+	 * Returns the highest firing rate of the curve in Hz.
+	 * @return The highest firing rate.
+	 */
+	public float maxRate() {
+		float max = 0.0f;
+		
+		for (int i = 0; i < rate.length; ++i)
+			max = Math.max(max, rate[i]);
+		
+		return max;
+	}
+	
+	/**
+	 * Returns the name of the model.
+	 * @return The name.
+	 */
+	public String name() {
+		return name;
+	}
+	
+	/**
+	 * Returns the number of points of the curve.
+	 * @return The number of points.
+	 */
+	public int points() {
+		return rate.length;
+	}
+	
+	/**
+	 * Returns the firing rate of the specified point in Hz, for a 1 ms processing cycle.
+	 * @param index - The index of the point.
+	 * @return The firing rate.
+	 */
+	public float rate(int index) {
+		return rate[index];
+	}
+	
+	/**
+	 * Copies the firing rates of the curve into the specified array.
+	 * @param dest - The array receiving the rates.
+	 */
+	public void rates(float[] dest) {
+		System.arraycopy(rate, 0, dest, 0, rate.length);
+	}
+	
+	/**
+	 * Returns the rheobase, the least input current evoking a spike during the stimulus. It is the first current of the curve if that current
+	 * already evokes spikes, and NaN if no current of the curve does.
+	 * @return The rheobase current.
+	 */
+	public float rheobase() {
+		return rheobase;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: rheobase %.3f, max rate %.1f Hz", name, rheobase, maxRate());
+	}
+}
@@ -0,0 +1,94 @@
+package org.arti.neural.analysis;
+
+import org.arti.neural.model.ModelPopulation;
+
+/**
+ * <p>public enum <b>FiringPattern</b></p>
+ * 
+ * <p>FiringPattern enum lists the firing patterns a neuron can show in response to a current step, classified from its spike times and
+ * inter-spike intervals (ISIs).</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public enum FiringPattern {
+	/**
+	 * No spike during the stimulus.
+	 */
+	SILENT,
+	/**
+	 * A single spike or burst at the stimulus onset, then silence.
+	 */
+	PHASIC,
+	/**
+	 * Spikes at a regular interval.
+	 */
+	TONIC,
+	/**
+	 * Spikes at an interval growing during the stimulus.
+	 */
+	ADAPTING,
+	/**
+	 * Groups of closely spaced spikes separated by long intervals.
+	 */
+	BURSTING,
+	/**
+	 * Spikes at irregular intervals.
+	 */
+	IRREGULAR;
+	
+	// Longest quiet tail of a sustained response, in longest ISIs.
+	private static final float PHASIC_TAIL = 2.0f;
+	// Minimum ratio of the longest to the shortest ISI of a bursting response.
+	private static final float BURST_RATIO = 3.0f;
+	// Minimum number of ISI drops of a bursting response, fewer are onset transients.
+	private static final int BURST_DROPS = 3;
+	// Minimum ratio of the last to the first ISI of an adapting response.
+	private static final float ADAPTATION_RATIO = 1.5f;
+	// Maximum ISI coefficient of variation of a tonic response.
+	private static final float TONIC_CV = 0.25f;
+	
+	/**
+	 * Classifies the response of the specified neuron of a simulated population.
+	 * @param population - The simulated population.
+	 * @param index - The index of the neuron.
+	 * @return The firing pattern.
+	 */
+	public static FiringPattern classify(ModelPopulation population, int index) {
+		return classify(population.spikes(index), population.lastSpike(index), population.stimulusCycles(), population.firstIsi(index),
+				population.lastIsi(index), population.minIsi(index), population.maxIsi(index), population.isiCv(index),
+				population.drops(index));
+	}
+	
+	/**
+	 * Classifies a response from its spike and ISI statistics.
+	 * @param spikes - The number of spikes.
+	 * @param lastSpike - The stimulus cycle of the last spike.
+	 * @param cycles - The number of stimulus cycles.
+	 * @param firstIsi - The first ISI.
+	 * @param lastIsi - The last ISI.
+	 * @param minIsi - The shortest ISI.
+	 * @param maxIsi - The longest ISI.
+	 * @param cv - The ISI coefficient of variation.
+	 * @param drops - The number of ISIs shorter than half the previous ISI.
+	 * @return The firing pattern.
+	 */
+	public static FiringPattern classify(int spikes, int lastSpike, int cycles, float firstIsi, float lastIsi, float minIsi, float maxIsi,
+			float cv, int drops) {
+		if (spikes == 0)
+			return SILENT;
+		
+		// Firing stopped long before the end of the stimulus
+		if (spikes == 1 || cycles - lastSpike > PHASIC_TAIL * Math.max(maxIsi, 1.0f) + 1.0f)
+			return PHASIC;
+		
+		if (drops >= BURST_DROPS && maxIsi >= BURST_RATIO * minIsi)
+			return BURSTING;
+		
+		if (lastIsi >= ADAPTATION_RATIO * firstIsi)
+			return ADAPTING;
+		
+		return (cv <= TONIC_CV) ? TONIC : IRREGULAR;
+	}
+}
@@ -0,0 +1,134 @@
+package org.arti.neural.analysis;
+
+/**
+ * <p>public class <b>FixedPoint</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>FixedPoint class holds an equilibrium of a neuron model's membrane equations, where its v and u nullclines cross, and its stability
+ * as classified from the trace and determinant of the Jacobian of the equations at the point. FixedPoints are found by
+ * {@link PhasePlaneAnalyzer}.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class FixedPoint {
+	/**
+	 * <p>public enum <b>Stability</b></p>
+	 * 
+	 * <p>Stability enum lists the kinds of equilibrium of a two dimensional system.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public enum Stability {
+		/**
+		 * Nearby trajectories approach the point without turning around it.
+		 */
+		STABLE_NODE,
+		/**
+		 * Nearby trajectories spiral into the point.
+		 */
+		STABLE_FOCUS,
+		/**
+		 * Nearby trajectories leave the point without turning around it.
+		 */
+		UNSTABLE_NODE,
+		/**
+		 * Nearby trajectories spiral out of the point.
+		 */
+		UNSTABLE_FOCUS,
+		/**
+		 * Nearby trajectories approach the point along one direction and leave it along another.
+		 */
+		SADDLE,
+		/**
+		 * Nearby trajectories circle the point.
+		 */
+		CENTER;
+		
+		/**
+		 * Returns whether nearby trajectories approach the point.
+		 * @return True for a stable node or focus.
+		 */
+		public boolean isStable() {
+			return this == STABLE_NODE || this == STABLE_FOCUS;
+		}
+	}
+	
+	// The stability of the point.
+	private Stability stability;
+	// The membrane recovery of the point.
+	private float u;
+	// The membrane potential of the point.
+	private float v;
+	
+	/**
+	 * Creates a FixedPoint.
+	 * @param v - The membrane potential of the point.
+	 * @param u - The membrane recovery of the point.
+	 * @param stability - The stability of the point.
+	 */
+	FixedPoint(float v, float u, Stability stability) {
+		// Initialize variables
+		this.v = v;
+		this.u = u;
+		this.stability = stability;
+	}
+	
+	/**
+	 * Classifies an equilibrium from the Jacobian of the system at the point.
+	 * @param dvdv - The derivative of dv/dt with respect to v.
+	 * @param dvdu - The derivative of dv/dt with respect to u.
+	 * @param dudv - The derivative of du/dt with respect to v.
+	 * @param dudu - The derivative of du/dt with respect to u.
+	 * @return The stability.
+	 */
+	static Stability classify(double dvdv, double dvdu, double dudv, double dudu) {
+		double trace = dvdv + dudu;
+		double determinant = dvdv * dudu - dvdu * dudv;
+		
+		if (determinant < 0.0)
+			return Stability.SADDLE;
+		
+		if (trace == 0.0)
+			return Stability.CENTER;
+		
+		boolean node = trace * trace >= 4.0 * determinant;
+		
+		if (trace < 0.0)
+			return node ? Stability.STABLE_NODE : Stability.STABLE_FOCUS;
+		
+		return node ? Stability.UNSTABLE_NODE : Stability.UNSTABLE_FOCUS;
+	}
+	
+	/**
+	 * Returns the stability of the point.
+	 * @return The stability.
+	 */
+	public Stability stability() {
+		return stability;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s at v %.2f, u %.2f", stability, v, u);
+	}
+	
+	/**
+	 * Returns the membrane recovery of the point.
+	 * @return The membrane recovery.
+	 */
+	public float u() {
+		return u;
+	}
+	
+	/**
+	 * Returns the membrane potential of the point.
+	 * @return The membrane potential.
+	 */
+	public float v() {
+		return v;
+	}
+}
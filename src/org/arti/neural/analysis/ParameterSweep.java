@@ -0,0 +1,230 @@
+package org.arti.neural.analysis;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.arti.neural.model.IzhikevichModel;
+import org.arti.neural.model.ModelParameter;
+import org.arti.neural.model.ModelPopulation;
+
+/**
+ * <p>public class <b>ParameterSweep</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>ParameterSweep class simulates every combination of values of a set of swept {@link ModelParameter}s, the other parameters keeping
+ * their base values, and collects the spike count, spike latency and {@link FiringPattern} of each combination. Each combination is one
+ * neuron of a {@link ModelPopulation} using the engine equation, so every .mdl parameter takes effect; the combinations are split into
+ * blocks of neurons that worker threads on every core claim and simulate with SIMD vectors, so a block's parameters and statistics stay in
+ * cache.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class ParameterSweep {
+	// The number of neurons simulated per block.
+	private static final int BLOCK = 4096;
+	
+	// The swept parameters.
+	private ArrayList<ModelParameter> axis;
+	// The base parameter values.
+	private float[] base;
+	// The membrane equation form.
+	private IzhikevichModel.Form form;
+	// The number of worker threads.
+	private int threads;
+	// The values of each swept parameter.
+	private ArrayList<float[]> values;
+	
+	/**
+	 * Creates a ParameterSweep with no swept parameters.
+	 * @param form - The membrane equation form.
+	 * @param base - The base parameter values, indexed by parameter ordinal, as returned by {@link ModelParameter#parse}.
+	 * @throws IllegalArgumentException Thrown if base does not hold a value for every parameter.
+	 * @throws NullPointerException Thrown if form or base is null.
+	 */
+	public ParameterSweep(IzhikevichModel.Form form, float[] base) {
+		// Check parameters
+		if (form == null || base == null)
+			throw new NullPointerException("Error: ParameterSweep's form and base parameters cannot be null.");
+		
+		if (base.length != ModelParameter.values().length)
+			throw new IllegalArgumentException("Error: ParameterSweep needs a base value for every parameter.");
+		
+		// Initialize variables
+		this.form = form;
+		this.base = base.clone();
+		axis = new ArrayList<ModelParameter>();
+		values = new ArrayList<float[]>();
+		threads = Runtime.getRuntime().availableProcessors();
+	}
+	
+	/**
+	 * Returns the number of parameter combinations.
+	 * @return The number of combinations.
+	 */
+	public long combinations() {
+		long combinations = 1;
+		
+		for (int i = 0; i < values.size(); ++i)
+			combinations *= values.get(i).length;
+		
+		return combinations;
+	}
+	
+	/**
+	 * Simulates every parameter combination for onset settling cycles without input current, followed by the specified number of stimulus
+	 * cycles with input current I.
+	 * @param onset - The number of settling cycles.
+	 * @param cycles - The number of stimulus cycles.
+	 * @return The response of every combination.
+	 * @throws IllegalArgumentException Thrown if onset or cycles is negative, the total exceeds 2^24 cycles, or there are more than
+	 * Integer.MAX_VALUE combinations.
+	 * @throws InterruptedException Thrown if the calling thread is interrupted while waiting for the workers.
+	 */
+	public SweepResult run(int onset, int cycles) throws InterruptedException {
+		long combinations = combinations();
+		
+		if (combinations > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Error: ParameterSweep cannot simulate more than " + Integer.MAX_VALUE + " combinations.");
+		
+		int tuples = (int)combinations;
+		ModelParameter[] axis = this.axis.toArray(new ModelParameter[0]);
+		float[][] values = this.values.toArray(new float[0][]);
+		SweepResult result = new SweepResult(axis, values, tuples, cycles);
+		int blocks = (tuples + BLOCK - 1) / BLOCK;
+		int workers = Math.max(1, Math.min(threads, blocks));
+		AtomicInteger next = new AtomicInteger();
+		ArrayList<Callable<Void>> task = new ArrayList<Callable<Void>>();
+		
+		for (int i = 0; i < workers; ++i) {
+			task.add(() -> {
+				ModelPopulation population = new ModelPopulation(form, ModelPopulation.Equation.ENGINE, Math.min(BLOCK, tuples));
+				int[] index = new int[axis.length];
+				
+				for (int block = next.getAndIncrement(); block < blocks; block = next.getAndIncrement())
+					simulate(population, result, axis, values, index, block * BLOCK, Math.min(tuples, block * BLOCK + BLOCK), onset, cycles);
+				
+				return null;
+			});
+		}
+		
+		ExecutorService executorService = Executors.newFixedThreadPool(workers);
+		
+		try {
+			for (Future<Void> future : executorService.invokeAll(task))
+				future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			
+			throw new IllegalStateException("Error: ParameterSweep worker failed.", e.getCause());
+		} finally {
+			executorService.shutdownNow();
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Sweeps the specified parameter over the specified number of evenly spaced values from first to last, replacing any earlier values of
+	 * the parameter. A new parameter becomes the last, fastest varying sweep axis.
+	 * @param parameter - The parameter.
+	 * @param first - The first value.
+	 * @param last - The last value.
+	 * @param steps - The number of values.
+	 * @throws IllegalArgumentException Thrown if steps is less than 1.
+	 */
+	public void setRange(ModelParameter parameter, float first, float last, int steps) {
+		if (steps < 1)
+			throw new IllegalArgumentException("Error: ParameterSweep range must have at least one step.");
+		
+		float[] range = new float[steps];
+		
+		for (int i = 0; i < steps; ++i)
+			range[i] = (steps == 1) ? first : first + (last - first) * i / (steps - 1);
+		
+		setValues(parameter, range);
+	}
+	
+	/**
+	 * Sets the number of worker threads, by default the number of available cores.
+	 * @param threads - The number of worker threads.
+	 * @throws IllegalArgumentException Thrown if threads is less than 1.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Error: ParameterSweep needs at least one worker thread.");
+		
+		this.threads = threads;
+	}
+	
+	/**
+	 * Sweeps the specified parameter over the specified values, replacing any earlier values of the parameter. A new parameter becomes the
+	 * last, fastest varying sweep axis.
+	 * @param parameter - The parameter.
+	 * @param values - The values.
+	 * @throws IllegalArgumentException Thrown if values is empty.
+	 * @throws NullPointerException Thrown if parameter is null.
+	 */
+	public void setValues(ModelParameter parameter, float... values) {
+		if (parameter == null)
+			throw new NullPointerException("Error: ParameterSweep's parameter cannot be null.");
+		
+		if (values.length == 0)
+			throw new IllegalArgumentException("Error: ParameterSweep needs at least one value per parameter.");
+		
+		int index = axis.indexOf(parameter);
+		
+		if (index >= 0) {
+			this.values.set(index, values.clone());
+		}
+		else {
+			axis.add(parameter);
+			this.values.add(values.clone());
+		}
+	}
+	
+	/**
+	 * Simulates a block of parameter combinations and stores their responses.
+	 * @param population - The population of the worker.
+	 * @param result - The sweep result.
+	 * @param axis - The swept parameters.
+	 * @param values - The values of each swept parameter.
+	 * @param index - The index along each axis, reused between blocks.
+	 * @param from - The first combination.
+	 * @param to - The combination after the last.
+	 * @param onset - The number of settling cycles.
+	 * @param cycles - The number of stimulus cycles.
+	 */
+	private void simulate(ModelPopulation population, SweepResult result, ModelParameter[] axis, float[][] values, int[] index, int from,
+			int to, int onset, int cycles) {
+		int n = to - from;
+		
+		// Decode the first combination, then count through the following ones
+		for (int i = axis.length - 1, tuple = from; i >= 0; --i) {
+			index[i] = tuple % values[i].length;
+			tuple /= values[i].length;
+		}
+		
+		for (int j = 0; j < n; ++j) {
+			population.setAll(j, base);
+			
+			for (int i = 0; i < axis.length; ++i)
+				population.set(axis[i], j, values[i][index[i]]);
+			
+			for (int i = axis.length - 1; i >= 0 && ++index[i] == values[i].length; --i)
+				index[i] = 0;
+		}
+		
+		population.simulate(onset, cycles, 0, n);
+		
+		for (int j = 0; j < n; ++j)
+			result.set(from + j, population.spikes(j), population.firstSpike(j), FiringPattern.classify(population, j));
+	}
+}
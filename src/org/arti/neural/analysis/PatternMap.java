@@ -0,0 +1,381 @@
+package org.arti.neural.analysis;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.arti.neural.model.IzhikevichModel;
+import org.arti.neural.model.ModelParameter;
+import org.arti.neural.model.ModelPopulation;
+
+/**
+ * <p>public class <b>PatternMap</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>PatternMap class classifies the {@link FiringPattern} of a neuron model over a grid of cells spanning two {@link ModelParameter}s,
+ * the other parameters keeping their base values. The map is computed by a fork/join task in passes of decreasing sample stride: the first
+ * pass simulates every {@value #COARSEST_STRIDE}th cell along each axis and fills the block of cells around it, and every later pass halves
+ * the stride, simulating only the cells not sampled before, until every cell is classified. Each pass is split into tiles of up to
+ * {@value #TILE} by {@value #TILE} samples, and each tile is simulated as a single {@link ModelPopulation} with SIMD vectors, so a coarse
+ * image of the whole map is ready after a small fraction of the work and is refined tile by tile. The populations use the model equation,
+ * so a cell shows the pattern the neural model lab runs with the same parameters, and a parameter the model equation does not use has no
+ * effect on the map.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class PatternMap {
+	// The sample stride of the first pass, a power of two.
+	private static final int COARSEST_STRIDE = 8;
+	// The number of samples along each side of a tile.
+	private static final int TILE = 32;
+	
+	/**
+	 * <p>public interface <b>Listener</b></p>
+	 * 
+	 * <p>Listener interface is notified each time a tile of a {@link PatternMap} is classified. It is called on a fork/join worker thread.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public interface Listener {
+		/**
+		 * Called when the cells of a tile have been classified or refined.
+		 * @param map - The pattern map.
+		 * @param x - The first cell column of the tile.
+		 * @param y - The first cell row of the tile.
+		 * @param width - The number of cell columns of the tile.
+		 * @param height - The number of cell rows of the tile.
+		 */
+		public void tileReady(PatternMap map, int x, int y, int width, int height);
+	}
+	
+	/**
+	 * <p>private class <b>PassTask</b><br>
+	 * extends {@link RecursiveAction}</p>
+	 * 
+	 * <p>PassTask class classifies a range of tiles of one pass, splitting the range in half until a single tile is left.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	private class PassTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		// The tile after the last.
+		private int end;
+		// The first tile.
+		private int start;
+		// The sample stride of the pass.
+		private int stride;
+		
+		/**
+		 * Creates a PassTask.
+		 * @param stride - The sample stride of the pass.
+		 * @param start - The first tile.
+		 * @param end - The tile after the last.
+		 */
+		private PassTask(int stride, int start, int end) {
+			this.stride = stride;
+			this.start = start;
+			this.end = end;
+		}
+		
+		@Override
+		protected void compute() {
+			if (cancelled)
+				return;
+			
+			if (end - start > 1) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new PassTask(stride, start, middle), new PassTask(stride, middle, end));
+			}
+			else {
+				tile(stride, start);
+			}
+		}
+	}
+	
+	// The base parameter values.
+	private float[] base;
+	// Cancelled flag.
+	private volatile boolean cancelled;
+	// The number of stimulus cycles.
+	private int cycles;
+	// The membrane equation form.
+	private IzhikevichModel.Form form;
+	// The number of cell rows.
+	private int height;
+	// The tile listener, or null.
+	private Listener listener;
+	// The number of settling cycles.
+	private int onset;
+	// The firing pattern ordinal of each cell, or -1 if it is not classified yet.
+	private byte[] pattern;
+	// Started flag.
+	private boolean started;
+	// The number of cell columns.
+	private int width;
+	// The parameter of the x axis.
+	private ModelParameter xParameter;
+	// The parameter value of the last cell column.
+	private float xMax;
+	// The parameter value of the first cell column.
+	private float xMin;
+	// The parameter of the y axis.
+	private ModelParameter yParameter;
+	// The parameter value of the last cell row.
+	private float yMax;
+	// The parameter value of the first cell row.
+	private float yMin;
+	
+	/**
+	 * Creates a PatternMap with no classified cells.
+	 * @param form - The membrane equation form.
+	 * @param base - The base parameter values, indexed by parameter ordinal, as returned by {@link ModelParameter#parse}.
+	 * @param xParameter - The parameter of the x axis.
+	 * @param xMin - The parameter value of the first cell column.
+	 * @param xMax - The parameter value of the last cell column.
+	 * @param width - The number of cell columns.
+	 * @param yParameter - The parameter of the y axis.
+	 * @param yMin - The parameter value of the first cell row.
+	 * @param yMax - The parameter value of the last cell row.
+	 * @param height - The number of cell rows.
+	 * @throws IllegalArgumentException Thrown if base does not hold a value for every parameter, width or height is less than 1, or both axes
+	 * have the same parameter.
+	 * @throws NullPointerException Thrown if form, base or a parameter is null.
+	 */
+	public PatternMap(IzhikevichModel.Form form, float[] base, ModelParameter xParameter, float xMin, float xMax, int width,
+			ModelParameter yParameter, float yMin, float yMax, int height) {
+		// Check parameters
+		if (form == null || base == null || xParameter == null || yParameter == null)
+			throw new NullPointerException("Error: PatternMap's form, base parameters and axis parameters cannot be null.");
+		
+		if (base.length != ModelParameter.values().length)
+			throw new IllegalArgumentException("Error: PatternMap needs a base value for every parameter.");
+		
+		if (width < 1 || height < 1)
+			throw new IllegalArgumentException("Error: PatternMap needs at least one cell along each axis.");
+		
+		if (xParameter == yParameter)
+			throw new IllegalArgumentException("Error: PatternMap axes must have different parameters.");
+		
+		// Initialize variables
+		this.form = form;
+		this.base = base.clone();
+		this.xParameter = xParameter;
+		this.xMin = xMin;
+		this.xMax = xMax;
+		this.width = width;
+		this.yParameter = yParameter;
+		this.yMin = yMin;
+		this.yMax = yMax;
+		this.height = height;
+		cancelled = false;
+		listener = null;
+		started = false;
+		pattern = new byte[width * height];
+		Arrays.fill(pattern, (byte)-1);
+	}
+	
+	/**
+	 * Stops the computation of the map. Tiles being simulated are finished, but no further tiles are started.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * Returns the number of cell rows.
+	 * @return The number of rows.
+	 */
+	public int height() {
+		return height;
+	}
+	
+	/**
+	 * Returns whether the computation of the map was cancelled.
+	 * @return True if the map was cancelled.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * Returns the firing pattern of the specified cell, which may still be the pattern of a coarser sample covering the cell.
+	 * @param x - The cell column.
+	 * @param y - The cell row.
+	 * @return The firing pattern, or null if the cell is not classified yet.
+	 */
+	public FiringPattern pattern(int x, int y) {
+		byte p = pattern[y * width + x];
+		return (p < 0) ? null : FiringPattern.values()[p];
+	}
+	
+	/**
+	 * Starts computing the map on the specified fork/join pool. The listener is notified on a worker thread as each tile is classified.
+	 * @param pool - The fork/join pool.
+	 * @param onset - The number of settling cycles without input current before the stimulus.
+	 * @param cycles - The number of stimulus cycles with input current I.
+	 * @param listener - The tile listener, or null.
+	 * @return The task computing the map, done once every cell is classified or the map is cancelled.
+	 * @throws IllegalArgumentException Thrown if onset or cycles is negative or the total exceeds 2^24 cycles.
+	 * @throws IllegalStateException Thrown if the map was started already.
+	 */
+	public ForkJoinTask<Void> start(ForkJoinPool pool, int onset, int cycles, Listener listener) {
+		if (onset < 0 || cycles < 0 || (long)onset + cycles > (1 << 24))
+			throw new IllegalArgumentException("Error: PatternMap can simulate 0 to 2^24 cycles.");
+		
+		if (started)
+			throw new IllegalStateException("Error: PatternMap was started already.");
+		
+		this.onset = onset;
+		this.cycles = cycles;
+		this.listener = listener;
+		started = true;
+		
+		return pool.submit(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected void compute() {
+				for (int stride = COARSEST_STRIDE; stride >= 1 && !cancelled; stride >>= 1)
+					new PassTask(stride, 0, tiles(stride)).invoke();
+			}
+		});
+	}
+	
+	/**
+	 * Returns the number of cell columns.
+	 * @return The number of columns.
+	 */
+	public int width() {
+		return width;
+	}
+	
+	/**
+	 * Returns the parameter of the x axis.
+	 * @return The parameter.
+	 */
+	public ModelParameter xParameter() {
+		return xParameter;
+	}
+	
+	/**
+	 * Returns the parameter value of the specified cell column.
+	 * @param x - The cell column.
+	 * @return The parameter value.
+	 */
+	public float xValue(int x) {
+		return (width == 1) ? xMin : xMin + (xMax - xMin) * x / (width - 1);
+	}
+	
+	/**
+	 * Returns the parameter of the y axis.
+	 * @return The parameter.
+	 */
+	public ModelParameter yParameter() {
+		return yParameter;
+	}
+	
+	/**
+	 * Returns the parameter value of the specified cell row.
+	 * @param y - The cell row.
+	 * @return The parameter value.
+	 */
+	public float yValue(int y) {
+		return (height == 1) ? yMin : yMin + (yMax - yMin) * y / (height - 1);
+	}
+	
+	/**
+	 * Returns whether the specified sample of a pass was simulated by a coarser pass.
+	 * @param stride - The sample stride of the pass.
+	 * @param x - The cell column of the sample.
+	 * @param y - The cell row of the sample.
+	 * @return True if the sample was simulated before.
+	 */
+	private boolean sampled(int stride, int x, int y) {
+		return stride < COARSEST_STRIDE && x % (stride << 1) == 0 && y % (stride << 1) == 0;
+	}
+	
+	/**
+	 * Simulates the new samples of a tile of a pass, fills the block of cells of each sample with its firing pattern and notifies the listener.
+	 * @param stride - The sample stride of the pass.
+	 * @param tile - The tile.
+	 */
+	private void tile(int stride, int tile) {
+		int columns = (width + stride - 1) / stride;
+		int rows = (height + stride - 1) / stride;
+		int tileColumns = (columns + TILE - 1) / TILE;
+		int column0 = (tile % tileColumns) * TILE;
+		int row0 = (tile / tileColumns) * TILE;
+		int column1 = Math.min(columns, column0 + TILE);
+		int row1 = Math.min(rows, row0 + TILE);
+		
+		// Gather the samples not simulated by a coarser pass into one population
+		int n = 0;
+		
+		for (int r = row0; r < row1; ++r) {
+			for (int c = column0; c < column1; ++c) {
+				if (!sampled(stride, c * stride, r * stride))
+					n++;
+			}
+		}
+		
+		if (n == 0)
+			return;
+		
+		ModelPopulation population = new ModelPopulation(form, ModelPopulation.Equation.MODEL, n);
+		n = 0;
+		
+		for (int r = row0; r < row1; ++r) {
+			for (int c = column0; c < column1; ++c) {
+				if (!sampled(stride, c * stride, r * stride)) {
+					population.setAll(n, base);
+					population.set(xParameter, n, xValue(c * stride));
+					population.set(yParameter, n, yValue(r * stride));
+					n++;
+				}
+			}
+		}
+		
+		population.simulate(onset, cycles);
+		
+		// Fill the block of cells of each sample
+		n = 0;
+		
+		for (int r = row0; r < row1; ++r) {
+			for (int c = column0; c < column1; ++c) {
+				if (!sampled(stride, c * stride, r * stride)) {
+					byte p = (byte)FiringPattern.classify(population, n++).ordinal();
+					int x0 = c * stride;
+					int y0 = r * stride;
+					
+					for (int y = y0; y < Math.min(height, y0 + stride); ++y)
+						Arrays.fill(pattern, y * width + x0, y * width + Math.min(width, x0 + stride), p);
+				}
+			}
+		}
+		
+		if (listener != null) {
+			int x = column0 * stride;
+			int y = row0 * stride;
+			listener.tileReady(this, x, y, Math.min(width, column1 * stride) - x, Math.min(height, row1 * stride) - y);
+		}
+	}
+	
+	/**
+	 * Returns the number of tiles of a pass.
+	 * @param stride - The sample stride of the pass.
+	 * @return The number of tiles.
+	 */
+	private int tiles(int stride) {
+		int columns = (width + stride - 1) / stride;
+		int rows = (height + stride - 1) / stride;
+		return ((columns + TILE - 1) / TILE) * ((rows + TILE - 1) / TILE);
+	}
+}
@@ -0,0 +1,176 @@
+package org.arti.neural.analysis;
+
+/**
+ * <p>public class <b>PhasePlane</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>PhasePlane class holds the (v, u) phase plane of a neuron model over a window of membrane potentials and recoveries: its v and u
+ * nullclines sampled at evenly spaced membrane potentials, its flow field, the time derivatives (dv/dt, du/dt) at the points of an evenly
+ * spaced grid, and its {@link FixedPoint}s. PhasePlanes are computed by {@link PhasePlaneAnalyzer}.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class PhasePlane {
+	// The du/dt of each field point, row by row.
+	private float[] du;
+	// The dv/dt of each field point, row by row.
+	private float[] dv;
+	// The number of field columns.
+	private int fieldColumns;
+	// The number of field rows.
+	private int fieldRows;
+	// The fixed points inside the window.
+	private FixedPoint[] fixedPoint;
+	// The membrane recovery of the u nullcline at each sampled potential.
+	private float[] uNullcline;
+	// The membrane recovery of the v nullcline at each sampled potential.
+	private float[] vNullcline;
+	// The highest membrane recovery of the window.
+	private float uMax;
+	// The lowest membrane recovery of the window.
+	private float uMin;
+	// The highest membrane potential of the window.
+	private float vMax;
+	// The lowest membrane potential of the window.
+	private float vMin;
+	
+	/**
+	 * Creates a PhasePlane.
+	 * @param vMin - The lowest membrane potential of the window.
+	 * @param vMax - The highest membrane potential of the window.
+	 * @param uMin - The lowest membrane recovery of the window.
+	 * @param uMax - The highest membrane recovery of the window.
+	 * @param vNullcline - The membrane recovery of the v nullcline at each sampled potential.
+	 * @param uNullcline - The membrane recovery of the u nullcline at each sampled potential.
+	 * @param fieldColumns - The number of field columns.
+	 * @param fieldRows - The number of field rows.
+	 * @param dv - The dv/dt of each field point, row by row.
+	 * @param du - The du/dt of each field point, row by row.
+	 * @param fixedPoint - The fixed points inside the window.
+	 */
+	PhasePlane(float vMin, float vMax, float uMin, float uMax, float[] vNullcline, float[] uNullcline, int fieldColumns, int fieldRows,
+			float[] dv, float[] du, FixedPoint[] fixedPoint) {
+		// Initialize variables
+		this.vMin = vMin;
+		this.vMax = vMax;
+		this.uMin = uMin;
+		this.uMax = uMax;
+		this.vNullcline = vNullcline;
+		this.uNullcline = uNullcline;
+		this.fieldColumns = fieldColumns;
+		this.fieldRows = fieldRows;
+		this.dv = dv;
+		this.du = du;
+		this.fixedPoint = fixedPoint;
+	}
+	
+	/**
+	 * Copies the du/dt of every field point, row by row from the lowest recovery, into the specified array.
+	 * @param dest - The array receiving the derivatives.
+	 */
+	public void du(float[] dest) {
+		System.arraycopy(du, 0, dest, 0, du.length);
+	}
+	
+	/**
+	 * Copies the dv/dt of every field point, row by row from the lowest recovery, into the specified array.
+	 * @param dest - The array receiving the derivatives.
+	 */
+	public void dv(float[] dest) {
+		System.arraycopy(dv, 0, dest, 0, dv.length);
+	}
+	
+	/**
+	 * Returns the number of field columns.
+	 * @return The number of columns.
+	 */
+	public int fieldColumns() {
+		return fieldColumns;
+	}
+	
+	/**
+	 * Returns the number of field points.
+	 * @return The number of points.
+	 */
+	public int fieldPoints() {
+		return dv.length;
+	}
+	
+	/**
+	 * Returns the number of field rows.
+	 * @return The number of rows.
+	 */
+	public int fieldRows() {
+		return fieldRows;
+	}
+	
+	/**
+	 * Returns the membrane recovery of the specified field row.
+	 * @param row - The field row.
+	 * @return The membrane recovery.
+	 */
+	public float fieldU(int row) {
+		return uMin + (uMax - uMin) * (row + 0.5f) / fieldRows;
+	}
+	
+	/**
+	 * Returns the membrane potential of the specified field column.
+	 * @param column - The field column.
+	 * @return The membrane potential.
+	 */
+	public float fieldV(int column) {
+		return vMin + (vMax - vMin) * (column + 0.5f) / fieldColumns;
+	}
+	
+	/**
+	 * Returns the specified fixed point.
+	 * @param index - The index of the fixed point, in order of increasing membrane potential.
+	 * @return The fixed point.
+	 */
+	public FixedPoint fixedPoint(int index) {
+		return fixedPoint[index];
+	}
+	
+	/**
+	 * Returns the number of fixed points inside the window.
+	 * @return The number of fixed points.
+	 */
+	public int fixedPoints() {
+		return fixedPoint.length;
+	}
+	
+	/**
+	 * Returns the membrane potential of the specified nullcline point.
+	 * @param index - The index of the point.
+	 * @return The membrane potential.
+	 */
+	public float nullclineV(int index) {
+		return vMin + (vMax - vMin) * index / (vNullcline.length - 1);
+	}
+	
+	/**
+	 * Returns the number of points of each nullcline.
+	 * @return The number of points.
+	 */
+	public int nullclinePoints() {
+		return vNullcline.length;
+	}
+	
+	/**
+	 * Copies the membrane recovery of the u nullcline at each sampled potential into the specified array.
+	 * @param dest - The array receiving the recoveries.
+	 */
+	public void uNullcline(float[] dest) {
+		System.arraycopy(uNullcline, 0, dest, 0, uNullcline.length);
+	}
+	
+	/**
+	 * Copies the membrane recovery of the v nullcline at each sampled potential into the specified array.
+	 * @param dest - The array receiving the recoveries.
+	 */
+	public void vNullcline(float[] dest) {
+		System.arraycopy(vNullcline, 0, dest, 0, vNullcline.length);
+	}
+}
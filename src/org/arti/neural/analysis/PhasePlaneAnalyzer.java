@@ -0,0 +1,406 @@
+package org.arti.neural.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.arti.neural.model.IzhikevichModel;
+import org.arti.neural.model.ModelParameter;
+
+/**
+ * <p>public class <b>PhasePlaneAnalyzer</b><br>
+ * extends {@link Object}<br>
+ * implements {@link AutoCloseable}</p>
+ * 
+ * <p>PhasePlaneAnalyzer class computes the {@link PhasePlane} of a neuron model, its nullclines, flow field and {@link FixedPoint}s, on a
+ * background thread while its parameters are being edited. Requests are debounced like the responses of a
+ * {@link org.arti.neural.model.ModelPreviewer}: a request is only analyzed once no newer request arrived for the debounce delay, and a phase
+ * plane is only published if no newer request arrived while it was computed. The last {@value #CACHE_SIZE} phase planes are cached by
+ * parameter set, so returning to earlier parameters, such as a preset model, publishes its phase plane without computing it again.</p>
+ * 
+ * <p>The phase plane follows the continuous form of the membrane equations the node arrays integrate: for the simple form
+ * dv/dt = 0.04v^2 + 5v + 140 - u + I and du/dt = a(bv - u), and for the general form C dv/dt = k(v - vr)(v - vt) - u + I and
+ * du/dt = a(b max((v - uv)^upow, uvmin) + b2 max(v - uv, uvmin) - u), with ba replacing b below bv. Fixed points are found by bisecting the
+ * sign changes of the difference of the nullclines.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class PhasePlaneAnalyzer implements AutoCloseable {
+	// The number of phase planes kept in the cache.
+	private static final int CACHE_SIZE = 64;
+	// The number of bisection steps per fixed point.
+	private static final int BISECTIONS = 48;
+	// The number of fixed point scan intervals per nullcline interval.
+	private static final int SCAN = 4;
+	
+	/**
+	 * <p>public interface <b>Listener</b></p>
+	 * 
+	 * <p>Listener interface receives the phase planes computed by a PhasePlaneAnalyzer.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public interface Listener {
+		/**
+		 * Called on the analyzer thread when the phase plane of the latest request is ready.
+		 * @param form - The membrane equation form.
+		 * @param parameters - The model parameters.
+		 * @param plane - The phase plane.
+		 */
+		void phasePlaneReady(IzhikevichModel.Form form, float[] parameters, PhasePlane plane);
+	}
+	
+	/**
+	 * <p>private static final class <b>Key</b><br>
+	 * extends {@link Object}</p>
+	 * 
+	 * <p>Key class identifies a cached phase plane by its membrane equation form and parameters.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	private static final class Key {
+		// The membrane equation form.
+		private IzhikevichModel.Form form;
+		// The hash code of the key.
+		private int hash;
+		// The model parameters.
+		private float[] parameters;
+		
+		/**
+		 * Creates a Key.
+		 * @param form - The membrane equation form.
+		 * @param parameters - The model parameters, which are copied.
+		 */
+		private Key(IzhikevichModel.Form form, float[] parameters) {
+			this.form = form;
+			this.parameters = parameters.clone();
+			hash = form.hashCode() * 31 + Arrays.hashCode(this.parameters);
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			
+			Key key = (Key)obj;
+			return form == key.form && Arrays.equals(parameters, key.parameters);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+	
+	// The phase plane cache, in access order.
+	private LinkedHashMap<Key, PhasePlane> cache;
+	// The debounce delay in milliseconds.
+	private long delay;
+	// The executor running the analyses.
+	private ScheduledExecutorService executor;
+	// The number of field columns.
+	private int fieldColumns;
+	// The number of field rows.
+	private int fieldRows;
+	// The number of the latest request.
+	private AtomicLong latest;
+	// The listener receiving the phase planes.
+	private Listener listener;
+	// The number of points of each nullcline.
+	private int nullclinePoints;
+	// The pending request, or null.
+	private ScheduledFuture<?> pending;
+	// The highest membrane recovery of the window.
+	private float uMax;
+	// The lowest membrane recovery of the window.
+	private float uMin;
+	// The highest membrane potential of the window.
+	private float vMax;
+	// The lowest membrane potential of the window.
+	private float vMin;
+	
+	/**
+	 * Creates a PhasePlaneAnalyzer for the specified window of the phase plane.
+	 * @param vMin - The lowest membrane potential of the window.
+	 * @param vMax - The highest membrane potential of the window.
+	 * @param uMin - The lowest membrane recovery of the window.
+	 * @param uMax - The highest membrane recovery of the window.
+	 * @param nullclinePoints - The number of points of each nullcline.
+	 * @param fieldColumns - The number of flow field columns.
+	 * @param fieldRows - The number of flow field rows.
+	 * @param delay - The debounce delay in milliseconds.
+	 * @param listener - The listener receiving the phase planes.
+	 * @throws IllegalArgumentException Thrown if a window maximum is not above its minimum, there are fewer than 2 nullcline points or no
+	 * field points, or delay is negative.
+	 * @throws NullPointerException Thrown if listener is null.
+	 */
+	public PhasePlaneAnalyzer(float vMin, float vMax, float uMin, float uMax, int nullclinePoints, int fieldColumns, int fieldRows, long delay,
+			Listener listener) {
+		// Check parameters
+		if (!(vMax > vMin) || !(uMax > uMin))
+			throw new IllegalArgumentException("Error: PhasePlaneAnalyzer's window must have a positive size.");
+		
+		if (nullclinePoints < 2 || fieldColumns < 1 || fieldRows < 1)
+			throw new IllegalArgumentException("Error: PhasePlaneAnalyzer needs at least two nullcline points and one field point.");
+		
+		if (delay < 0)
+			throw new IllegalArgumentException("Error: PhasePlaneAnalyzer's debounce delay cannot be negative.");
+		
+		if (listener == null)
+			throw new NullPointerException("Error: PhasePlaneAnalyzer's listener cannot be null.");
+		
+		// Initialize variables
+		this.vMin = vMin;
+		this.vMax = vMax;
+		this.uMin = uMin;
+		this.uMax = uMax;
+		this.nullclinePoints = nullclinePoints;
+		this.fieldColumns = fieldColumns;
+		this.fieldRows = fieldRows;
+		this.delay = delay;
+		this.listener = listener;
+		latest = new AtomicLong();
+		pending = null;
+		cache = new LinkedHashMap<Key, PhasePlane>(CACHE_SIZE, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, PhasePlane> eldest) {
+				return size() > CACHE_SIZE;
+			}
+		};
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Phase Plane");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Returns the phase plane of the specified model, computing it on the calling thread unless it is cached.
+	 * @param form - The membrane equation form.
+	 * @param parameters - The model parameters, indexed by parameter ordinal, as returned by {@link ModelParameter#parse}.
+	 * @return The phase plane.
+	 * @throws IllegalArgumentException Thrown if parameters does not hold a value for every parameter.
+	 * @throws NullPointerException Thrown if form or parameters is null.
+	 */
+	public PhasePlane analyze(IzhikevichModel.Form form, float[] parameters) {
+		check(form, parameters);
+		Key key = new Key(form, parameters);
+		PhasePlane plane;
+		
+		synchronized (cache) {
+			plane = cache.get(key);
+		}
+		
+		if (plane == null) {
+			plane = compute(form, key.parameters);
+			
+			synchronized (cache) {
+				cache.put(key, plane);
+			}
+		}
+		
+		return plane;
+	}
+	
+	/**
+	 * Cancels the pending request and stops the analyzer thread.
+	 */
+	@Override
+	public void close() {
+		latest.incrementAndGet();
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Requests the phase plane of the specified model, replacing any earlier request.
+	 * @param form - The membrane equation form.
+	 * @param parameters - The model parameters, indexed by parameter ordinal, as returned by {@link ModelParameter#parse}.
+	 * @throws IllegalArgumentException Thrown if parameters does not hold a value for every parameter.
+	 * @throws NullPointerException Thrown if form or parameters is null.
+	 */
+	public synchronized void request(IzhikevichModel.Form form, float[] parameters) {
+		check(form, parameters);
+		float[] values = parameters.clone();
+		long request = latest.incrementAndGet();
+		
+		if (pending != null)
+			pending.cancel(false);
+		
+		if (!executor.isShutdown()) {
+			pending = executor.schedule(() -> {
+				PhasePlane plane = analyze(form, values);
+				
+				if (latest.get() == request)
+					listener.phasePlaneReady(form, values, plane);
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Checks the parameters of a model.
+	 * @param form - The membrane equation form.
+	 * @param parameters - The model parameters.
+	 * @throws IllegalArgumentException Thrown if parameters does not hold a value for every parameter.
+	 * @throws NullPointerException Thrown if form or parameters is null.
+	 */
+	private static void check(IzhikevichModel.Form form, float[] parameters) {
+		if (form == null || parameters == null)
+			throw new NullPointerException("Error: PhasePlaneAnalyzer's model form and parameters cannot be null.");
+		
+		if (parameters.length != ModelParameter.values().length)
+			throw new IllegalArgumentException("Error: PhasePlaneAnalyzer needs a value for every model parameter.");
+	}
+	
+	/**
+	 * Computes the phase plane of a model.
+	 * @param form - The membrane equation form.
+	 * @param p - The model parameters.
+	 * @return The phase plane.
+	 */
+	private PhasePlane compute(IzhikevichModel.Form form, float[] p) {
+		boolean simple = form == IzhikevichModel.Form.SIMPLE;
+		double a = p[ModelParameter.A.ordinal()];
+		double C = simple ? 1.0 : p[ModelParameter.CAPACITANCE.ordinal()];
+		
+		// Sample both nullclines
+		float[] vNullcline = new float[nullclinePoints];
+		float[] uNullcline = new float[nullclinePoints];
+		
+		for (int i = 0; i < nullclinePoints; ++i) {
+			double v = vMin + (double)(vMax - vMin) * i / (nullclinePoints - 1);
+			vNullcline[i] = (float)vNullcline(simple, p, v);
+			uNullcline[i] = (float)uNullcline(simple, p, v);
+		}
+		
+		// Evaluate the flow field at the center of each grid cell
+		float[] dv = new float[fieldColumns * fieldRows];
+		float[] du = new float[fieldColumns * fieldRows];
+		
+		for (int column = 0; column < fieldColumns; ++column) {
+			double v = vMin + (double)(vMax - vMin) * (column + 0.5) / fieldColumns;
+			double vn = vNullcline(simple, p, v);
+			double un = uNullcline(simple, p, v);
+			
+			for (int row = 0; row < fieldRows; ++row) {
+				double u = uMin + (double)(uMax - uMin) * (row + 0.5) / fieldRows;
+				dv[row * fieldColumns + column] = (float)((vn - u) / C);
+				du[row * fieldColumns + column] = (float)(a * (un - u));
+			}
+		}
+		
+		// Bisect each sign change of the difference of the nullclines
+		ArrayList<FixedPoint> fixedPoints = new ArrayList<FixedPoint>();
+		int intervals = (nullclinePoints - 1) * SCAN;
+		double low = vMin;
+		double lowDifference = vNullcline(simple, p, low) - uNullcline(simple, p, low);
+		
+		for (int i = 1; i <= intervals; ++i) {
+			double high = vMin + (double)(vMax - vMin) * i / intervals;
+			double highDifference = vNullcline(simple, p, high) - uNullcline(simple, p, high);
+			
+			if (lowDifference == 0.0 || lowDifference * highDifference < 0.0) {
+				double l = low;
+				double h = high;
+				double lDifference = lowDifference;
+				
+				for (int j = 0; j < BISECTIONS && lDifference != 0.0; ++j) {
+					double m = (l + h) * 0.5;
+					double mDifference = vNullcline(simple, p, m) - uNullcline(simple, p, m);
+					
+					if (lDifference * mDifference <= 0.0) {
+						h = m;
+					}
+					else {
+						l = m;
+						lDifference = mDifference;
+					}
+				}
+				
+				double v = (lDifference == 0.0) ? l : (l + h) * 0.5;
+				fixedPoints.add(fixedPoint(simple, p, v));
+			}
+			
+			low = high;
+			lowDifference = highDifference;
+		}
+		
+		return new PhasePlane(vMin, vMax, uMin, uMax, vNullcline, uNullcline, fieldColumns, fieldRows, dv, du,
+				fixedPoints.toArray(new FixedPoint[0]));
+	}
+	
+	/**
+	 * Classifies the fixed point of a model at the specified membrane potential.
+	 * @param simple - True for the simple membrane equation form.
+	 * @param p - The model parameters.
+	 * @param v - The membrane potential of the fixed point.
+	 * @return The fixed point.
+	 */
+	private static FixedPoint fixedPoint(boolean simple, float[] p, double v) {
+		double a = p[ModelParameter.A.ordinal()];
+		double u = uNullcline(simple, p, v);
+		double C = simple ? 1.0 : p[ModelParameter.CAPACITANCE.ordinal()];
+		double dvdv;
+		
+		if (simple) {
+			dvdv = 0.08 * v + 5.0;
+		}
+		else {
+			double k = p[ModelParameter.K.ordinal()];
+			dvdv = k * (2.0 * v - p[ModelParameter.VR.ordinal()] - p[ModelParameter.VT.ordinal()]) / C;
+		}
+		
+		// The u nullcline may be piecewise, so its slope is taken numerically
+		double h = 1e-4 * Math.max(1.0, Math.abs(v));
+		double slope = (uNullcline(simple, p, v + h) - uNullcline(simple, p, v - h)) / (2.0 * h);
+		return new FixedPoint((float)v, (float)u, FixedPoint.classify(dvdv, -1.0 / C, a * slope, -a));
+	}
+	
+	/**
+	 * Returns the membrane recovery of the u nullcline, where du/dt is zero, at the specified membrane potential.
+	 * @param simple - True for the simple membrane equation form.
+	 * @param p - The model parameters.
+	 * @param v - The membrane potential.
+	 * @return The membrane recovery.
+	 */
+	private static double uNullcline(boolean simple, float[] p, double v) {
+		if (simple)
+			return p[ModelParameter.B.ordinal()] * v;
+		
+		double upow = p[ModelParameter.UPOW.ordinal()];
+		double uvmin = p[ModelParameter.UVMIN.ordinal()];
+		double w = v - p[ModelParameter.UV.ordinal()];
+		double power = (upow != 1.0) ? Math.pow(w, upow) : w;
+		double b = (v < p[ModelParameter.BV.ordinal()]) ? p[ModelParameter.BA.ordinal()] : p[ModelParameter.B.ordinal()];
+		return b * Math.max(power, uvmin) + p[ModelParameter.B2.ordinal()] * Math.max(w, uvmin);
+	}
+	
+	/**
+	 * Returns the membrane recovery of the v nullcline, where dv/dt is zero, at the specified membrane potential.
+	 * @param simple - True for the simple membrane equation form.
+	 * @param p - The model parameters.
+	 * @param v - The membrane potential.
+	 * @return The membrane recovery.
+	 */
+	private static double vNullcline(boolean simple, float[] p, double v) {
+		double I = p[ModelParameter.I.ordinal()];
+		
+		if (simple)
+			return 0.04 * v * v + 5.0 * v + 140.0 + I;
+		
+		return p[ModelParameter.K.ordinal()] * (v - p[ModelParameter.VR.ordinal()]) * (v - p[ModelParameter.VT.ordinal()]) + I;
+	}
+}
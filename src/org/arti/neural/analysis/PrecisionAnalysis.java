@@ -0,0 +1,212 @@
+package org.arti.neural.analysis;
+
+import java.util.ArrayList;
+
+import org.arti.neural.model.IzhikevichModel;
+import org.arti.neural.model.ModelSimulator;
+
+/**
+ * <p>public class <b>PrecisionAnalysis</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>PrecisionAnalysis class reports how closely neuron models storing v and u in half precision would follow the same models in single
+ * precision ({@link PrecisionReport}). Half precision storage is emulated: each neuron is simulated twice with the step methods of
+ * {@link ModelSimulator}, and one copy rounds v and u to IEEE 754 binary16 with Float.floatToFloat16 at the end of every cycle, which is
+ * what a half precision array would store, while the input current stays in single precision. After the onset cycles each neuron is driven
+ * by its own constant input current, evenly spaced from the lowest to the highest current of the model, so every firing regime of the
+ * model is covered.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class PrecisionAnalysis {
+	// The number of stimulus cycles.
+	private int cycles;
+	// The highest input current of each model.
+	private ArrayList<Float> maxCurrent;
+	// The lowest input current of each model.
+	private ArrayList<Float> minCurrent;
+	// Each model.
+	private ArrayList<IzhikevichModel> model;
+	// The name of each model.
+	private ArrayList<String> name;
+	// The number of neurons per model.
+	private int neurons;
+	// The number of settling cycles.
+	private int onset;
+	
+	/**
+	 * Creates a PrecisionAnalysis with no models.
+	 * @param neurons - The number of neurons per model, one per input current.
+	 * @param onset - The number of settling cycles without input current before the stimulus.
+	 * @param cycles - The number of stimulus cycles.
+	 * @throws IllegalArgumentException Thrown if neurons is less than 2, onset is negative or cycles is less than 1.
+	 */
+	public PrecisionAnalysis(int neurons, int onset, int cycles) {
+		// Check parameters
+		if (neurons < 2)
+			throw new IllegalArgumentException("Error: PrecisionAnalysis needs at least two neurons per model.");
+		
+		if (onset < 0 || cycles < 1)
+			throw new IllegalArgumentException("Error: PrecisionAnalysis needs a non-negative onset and at least one stimulus cycle.");
+		
+		// Initialize variables
+		this.neurons = neurons;
+		this.onset = onset;
+		this.cycles = cycles;
+		maxCurrent = new ArrayList<Float>();
+		minCurrent = new ArrayList<Float>();
+		model = new ArrayList<IzhikevichModel>();
+		name = new ArrayList<String>();
+	}
+	
+	/**
+	 * Adds a model whose neurons span the specified input currents.
+	 * @param name - The name of the model.
+	 * @param model - The model.
+	 * @param minCurrent - The lowest input current.
+	 * @param maxCurrent - The highest input current.
+	 * @throws IllegalArgumentException Thrown if maxCurrent is not above minCurrent.
+	 * @throws NullPointerException Thrown if model is null.
+	 */
+	public void add(String name, IzhikevichModel model, float minCurrent, float maxCurrent) {
+		if (model == null)
+			throw new NullPointerException("Error: PrecisionAnalysis model cannot be null.");
+		
+		if (!(maxCurrent > minCurrent))
+			throw new IllegalArgumentException("Error: PrecisionAnalysis model's highest current must be above its lowest current.");
+		
+		this.name.add(name);
+		this.model.add(model);
+		this.minCurrent.add(minCurrent);
+		this.maxCurrent.add(maxCurrent);
+	}
+	
+	/**
+	 * Returns the number of models.
+	 * @return The number of models.
+	 */
+	public int models() {
+		return name.size();
+	}
+	
+	/**
+	 * Rounds the specified value to the nearest IEEE 754 binary16 value.
+	 * @param value - The value.
+	 * @return The rounded value.
+	 */
+	private static float round(float value) {
+		return Float.float16ToFloat(Float.floatToFloat16(value));
+	}
+	
+	/**
+	 * Computes the report of every model.
+	 * @return The reports, in the order the models were added.
+	 */
+	public PrecisionReport[] run() {
+		PrecisionReport[] report = new PrecisionReport[name.size()];
+		
+		for (int i = 0; i < report.length; ++i)
+			report[i] = run(i);
+		
+		return report;
+	}
+	
+	/**
+	 * Computes the report of the specified model.
+	 * @param index - The index of the model.
+	 * @return The report.
+	 */
+	private PrecisionReport run(int index) {
+		IzhikevichModel model = this.model.get(index);
+		boolean simple = model.form() == IzhikevichModel.Form.SIMPLE;
+		float a = model.a();
+		float b = model.b();
+		float c = model.c();
+		float d = model.d();
+		float C = model.C();
+		float k = model.k();
+		float vp = model.vp();
+		float vr = model.vr();
+		float vt = model.vt();
+		long singleSpikes = 0L;
+		long halfSpikes = 0L;
+		long samples = 0L;
+		long shift = 0L;
+		int both = 0;
+		int mismatches = 0;
+		double squareError = 0.0;
+		float maxError = 0.0f;
+		
+		for (int i = 0; i < neurons; ++i) {
+			float current = minCurrent.get(index) + (maxCurrent.get(index) - minCurrent.get(index)) * i / (neurons - 1);
+			float singleV = model.vinit();
+			float singleU = model.uinit();
+			float halfV = round(singleV);
+			float halfU = round(singleU);
+			int singleFirst = -1;
+			int halfFirst = -1;
+			
+			for (int cycle = 0; cycle < onset + cycles; ++cycle) {
+				float I = (cycle < onset) ? 0.0f : current;
+				
+				if (simple) {
+					singleV = ModelSimulator.simpleV(singleV, singleU, I, vp);
+					singleU = ModelSimulator.simpleU(singleV, singleU, a, b);
+					halfV = ModelSimulator.simpleV(halfV, halfU, I, vp);
+					halfU = ModelSimulator.simpleU(halfV, halfU, a, b);
+				}
+				else {
+					singleV = ModelSimulator.generalV(singleV, singleU, I, C, k, vr, vt);
+					singleU = ModelSimulator.generalU(singleV, singleU, a, b, vr);
+					halfV = ModelSimulator.generalV(halfV, halfU, I, C, k, vr, vt);
+					halfU = ModelSimulator.generalU(halfV, halfU, a, b, vr);
+				}
+				
+				float error = Math.abs(Math.min(halfV, vp) - Math.min(singleV, vp));
+				
+				// Leave out the cycles of a model that diverged, where v is no longer a number
+				if (Float.isFinite(error)) {
+					squareError += error * error;
+					maxError = Math.max(maxError, error);
+					samples++;
+				}
+				
+				if (singleV >= vp) {
+					singleV = c;
+					singleU += d;
+					singleSpikes++;
+					
+					if (singleFirst < 0)
+						singleFirst = cycle;
+				}
+				
+				if (halfV >= vp) {
+					halfV = c;
+					halfU += d;
+					halfSpikes++;
+					
+					if (halfFirst < 0)
+						halfFirst = cycle;
+				}
+				
+				// Store the state as a half precision array would
+				halfV = round(halfV);
+				halfU = round(halfU);
+			}
+			
+			// Compare the first spike of the neurons that spiked in both precisions
+			if (singleFirst >= 0 && halfFirst >= 0) {
+				shift += Math.abs(halfFirst - singleFirst);
+				both++;
+			}
+			else if (singleFirst != halfFirst) {
+				mismatches++;
+			}
+		}
+		
+		return new PrecisionReport(name.get(index), singleSpikes, halfSpikes, (both == 0) ? 0.0f : (float)shift / both, mismatches,
+				(samples == 0L) ? 0.0f : (float)Math.sqrt(squareError / samples), maxError);
+	}
+}
@@ -0,0 +1,125 @@
+package org.arti.neural.analysis;
+
+/**
+ * <p>public class <b>PrecisionReport</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>PrecisionReport class holds how closely a neuron model storing v and u in half precision follows the same model in single precision:
+ * the spike counts of both, the shift of the first spike of each neuron, and the error of v. PrecisionReports are computed by
+ * {@link PrecisionAnalysis}.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class PrecisionReport {
+	// The number of spikes in half precision.
+	private long halfSpikes;
+	// The largest error of v in mV.
+	private float maxError;
+	// The mean shift of the first spike in ms, over the neurons that spiked in both precisions.
+	private float meanOnsetShift;
+	// The name of the model.
+	private String name;
+	// The number of neurons that spiked in only one precision.
+	private int onsetMismatches;
+	// The root mean square error of v in mV.
+	private float rmsError;
+	// The number of spikes in single precision.
+	private long singleSpikes;
+	
+	/**
+	 * Creates a PrecisionReport.
+	 * @param name - The name of the model.
+	 * @param singleSpikes - The number of spikes in single precision.
+	 * @param halfSpikes - The number of spikes in half precision.
+	 * @param meanOnsetShift - The mean shift of the first spike in ms.
+	 * @param onsetMismatches - The number of neurons that spiked in only one precision.
+	 * @param rmsError - The root mean square error of v in mV.
+	 * @param maxError - The largest error of v in mV.
+	 */
+	PrecisionReport(String name, long singleSpikes, long halfSpikes, float meanOnsetShift, int onsetMismatches, float rmsError,
+			float maxError) {
+		// Initialize variables
+		this.name = name;
+		this.singleSpikes = singleSpikes;
+		this.halfSpikes = halfSpikes;
+		this.meanOnsetShift = meanOnsetShift;
+		this.onsetMismatches = onsetMismatches;
+		this.rmsError = rmsError;
+		this.maxError = maxError;
+	}
+	
+	/**
+	 * Returns the number of spikes in half precision.
+	 * @return The number of spikes.
+	 */
+	public long halfSpikes() {
+		return halfSpikes;
+	}
+	
+	/**
+	 * Returns the largest error of v over all neurons and cycles. Once a spike shifts by a cycle this is about the height of a spike.
+	 * @return The largest error in mV.
+	 */
+	public float maxError() {
+		return maxError;
+	}
+	
+	/**
+	 * Returns the mean shift of the first spike, over the neurons that spiked in both precisions.
+	 * @return The mean shift in ms.
+	 */
+	public float meanOnsetShift() {
+		return meanOnsetShift;
+	}
+	
+	/**
+	 * Returns the name of the model.
+	 * @return The name.
+	 */
+	public String name() {
+		return name;
+	}
+	
+	/**
+	 * Returns the number of neurons that spiked in only one precision.
+	 * @return The number of neurons.
+	 */
+	public int onsetMismatches() {
+		return onsetMismatches;
+	}
+	
+	/**
+	 * Returns the root mean square error of v over all neurons and cycles.
+	 * @return The error in mV.
+	 */
+	public float rmsError() {
+		return rmsError;
+	}
+	
+	/**
+	 * Returns the number of spikes in single precision.
+	 * @return The number of spikes.
+	 */
+	public long singleSpikes() {
+		return singleSpikes;
+	}
+	
+	/**
+	 * Returns the relative difference of the half-precision spike count from the single-precision spike count.
+	 * @return The relative difference, or 0 if neither precision spiked.
+	 */
+	public float spikeDeviation() {
+		if (singleSpikes == 0L)
+			return (halfSpikes == 0L) ? 0.0f : Float.POSITIVE_INFINITY;
+		
+		return (float)(halfSpikes - singleSpikes) / singleSpikes;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: spikes %d, half precision %d (%+.2f%%), first spike shift %.2f ms, onset mismatches %d, v error rms %.3f mV "
+				+ "max %.1f mV", name, singleSpikes, halfSpikes, 100.0f * spikeDeviation(), meanOnsetShift, onsetMismatches, rmsError, maxError);
+	}
+}
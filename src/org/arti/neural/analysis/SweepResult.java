@@ -0,0 +1,165 @@
+package org.arti.neural.analysis;
+
+import org.arti.neural.model.ModelParameter;
+
+/**
+ * <p>public class <b>SweepResult</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>SweepResult class holds the response of every parameter tuple of a {@link ParameterSweep}: its spike count, spike latency and firing
+ * pattern. Tuples are numbered in row-major order over the sweep axes, the last axis varying fastest.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class SweepResult {
+	// The swept parameters.
+	private ModelParameter[] axis;
+	// The number of stimulus cycles.
+	private int cycles;
+	// The first spike cycle of each tuple, or -1.
+	private int[] latency;
+	// The firing pattern ordinal of each tuple.
+	private byte[] pattern;
+	// The number of spikes of each tuple.
+	private int[] spikes;
+	// The values of each swept parameter.
+	private float[][] values;
+	
+	/**
+	 * Creates an empty SweepResult.
+	 * @param axis - The swept parameters.
+	 * @param values - The values of each swept parameter.
+	 * @param tuples - The number of parameter tuples.
+	 * @param cycles - The number of stimulus cycles.
+	 */
+	SweepResult(ModelParameter[] axis, float[][] values, int tuples, int cycles) {
+		// Initialize variables
+		this.axis = axis;
+		this.values = values;
+		this.cycles = cycles;
+		latency = new int[tuples];
+		pattern = new byte[tuples];
+		spikes = new int[tuples];
+	}
+	
+	/**
+	 * Returns the swept parameter of the specified axis.
+	 * @param index - The index of the axis.
+	 * @return The parameter.
+	 */
+	public ModelParameter axis(int index) {
+		return axis[index];
+	}
+	
+	/**
+	 * Returns the number of sweep axes.
+	 * @return The number of axes.
+	 */
+	public int axes() {
+		return axis.length;
+	}
+	
+	/**
+	 * Returns the number of stimulus cycles each tuple was simulated for.
+	 * @return The number of stimulus cycles.
+	 */
+	public int cycles() {
+		return cycles;
+	}
+	
+	/**
+	 * Returns the index of the specified tuple along the specified axis.
+	 * @param tuple - The tuple.
+	 * @param axis - The index of the axis.
+	 * @return The index of the tuple's value along the axis.
+	 */
+	public int index(int tuple, int axis) {
+		for (int i = this.axis.length - 1; i > axis; --i)
+			tuple /= values[i].length;
+		
+		return tuple % values[axis].length;
+	}
+	
+	/**
+	 * Returns the spike latency of the specified tuple, the stimulus cycle of its first spike, or -1 if it did not spike.
+	 * @param tuple - The tuple.
+	 * @return The latency in cycles.
+	 */
+	public int latency(int tuple) {
+		return latency[tuple];
+	}
+	
+	/**
+	 * Returns the firing pattern of the specified tuple.
+	 * @param tuple - The tuple.
+	 * @return The firing pattern.
+	 */
+	public FiringPattern pattern(int tuple) {
+		return FiringPattern.values()[pattern[tuple]];
+	}
+	
+	/**
+	 * Returns the mean firing rate of the specified tuple during the stimulus in Hz, for a 1 ms processing cycle.
+	 * @param tuple - The tuple.
+	 * @return The firing rate.
+	 */
+	public float rate(int tuple) {
+		return (cycles == 0) ? 0.0f : spikes[tuple] * 1000.0f / cycles;
+	}
+	
+	/**
+	 * Returns the number of spikes of the specified tuple.
+	 * @param tuple - The tuple.
+	 * @return The number of spikes.
+	 */
+	public int spikes(int tuple) {
+		return spikes[tuple];
+	}
+	
+	/**
+	 * Returns the tuple at the specified indices along each axis.
+	 * @param index - The index along each axis.
+	 * @return The tuple.
+	 */
+	public int tuple(int... index) {
+		int tuple = 0;
+		
+		for (int i = 0; i < axis.length; ++i)
+			tuple = tuple * values[i].length + index[i];
+		
+		return tuple;
+	}
+	
+	/**
+	 * Returns the number of parameter tuples.
+	 * @return The number of tuples.
+	 */
+	public int tuples() {
+		return spikes.length;
+	}
+	
+	/**
+	 * Returns the value of the swept parameter of the specified axis in the specified tuple.
+	 * @param tuple - The tuple.
+	 * @param axis - The index of the axis.
+	 * @return The parameter value.
+	 */
+	public float value(int tuple, int axis) {
+		return values[axis][index(tuple, axis)];
+	}
+	
+	/**
+	 * Stores the response of the specified tuple.
+	 * @param tuple - The tuple.
+	 * @param spikes - The number of spikes.
+	 * @param latency - The first spike cycle, or -1.
+	 * @param pattern - The firing pattern.
+	 */
+	void set(int tuple, int spikes, int latency, FiringPattern pattern) {
+		this.spikes[tuple] = spikes;
+		this.latency[tuple] = latency;
+		this.pattern[tuple] = (byte)pattern.ordinal();
+	}
+}
@@ -0,0 +1,152 @@
+package org.arti.neural.model;
+
+/**
+ * <p>public final class <b>InputProtocol</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>InputProtocol class describes the input current applied to a neuron model at each processing cycle: a base current, changed to a step
+ * current from the onset cycle for the specified width. A constant current has no step, a current step lasts until the end of the run and a
+ * pulse lasts a limited number of cycles. InputProtocol is immutable and can be used as a key.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public final class InputProtocol {
+	// The current applied outside of the step.
+	private float base;
+	// The current applied during the step.
+	private float step;
+	// The first processing cycle of the step.
+	private int onset;
+	// The number of processing cycles of the step.
+	private int width;
+	
+	/**
+	 * Creates an InputProtocol.
+	 * @param base - The current applied outside of the step.
+	 * @param step - The current applied during the step.
+	 * @param onset - The first processing cycle of the step.
+	 * @param width - The number of processing cycles of the step.
+	 * @throws IllegalArgumentException Thrown if onset or width is negative.
+	 */
+	private InputProtocol(float base, float step, int onset, int width) {
+		// Check parameters
+		if (onset < 0 || width < 0)
+			throw new IllegalArgumentException("Error: InputProtocol's onset and width cannot be negative.");
+		
+		// Initialize variables
+		this.base = base;
+		this.step = step;
+		this.onset = onset;
+		this.width = width;
+	}
+	
+	/**
+	 * Returns the current applied outside of the step.
+	 * @return The base current.
+	 */
+	public float baseCurrent() { return base; }
+	
+	/**
+	 * Creates an InputProtocol applying the specified current at every processing cycle.
+	 * @param current - The input current.
+	 * @return The InputProtocol.
+	 */
+	public static InputProtocol constant(float current) {
+		return new InputProtocol(current, current, 0, 0);
+	}
+	
+	/**
+	 * Returns the input current at the specified processing cycle.
+	 * @param cycle - The processing cycle.
+	 * @return The input current.
+	 */
+	public float current(long cycle) {
+		return (cycle >= onset && cycle - onset < width) ? step : base;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		
+		if (!(obj instanceof InputProtocol))
+			return false;
+		
+		InputProtocol other = (InputProtocol)obj;
+		
+		return Float.floatToIntBits(base) == Float.floatToIntBits(other.base) && Float.floatToIntBits(step) == Float.floatToIntBits(other.step)
+				&& onset == other.onset && width == other.width;
+	}
+	
+	/**
+	 * Writes the input current of the specified number of processing cycles, starting at cycle 0, into the specified array.
+	 * @param current - The array receiving the input current.
+	 * @param cycles - The number of processing cycles.
+	 */
+	public void fill(float[] current, int cycles) {
+		for (int i = 0; i < cycles; ++i)
+			current[i] = current(i);
+	}
+	
+	@Override
+	public int hashCode() {
+		int hash = Float.floatToIntBits(base);
+		hash = 31 * hash + Float.floatToIntBits(step);
+		hash = 31 * hash + onset;
+		hash = 31 * hash + width;
+		return hash;
+	}
+	
+	/**
+	 * Returns the first processing cycle of the step.
+	 * @return The onset cycle.
+	 */
+	public int onset() { return onset; }
+	
+	/**
+	 * Creates an InputProtocol applying the base current, then the pulse current for the specified number of processing cycles.
+	 * @param base - The current applied outside of the pulse.
+	 * @param pulse - The current applied during the pulse.
+	 * @param onset - The first processing cycle of the pulse.
+	 * @param width - The number of processing cycles of the pulse.
+	 * @return The InputProtocol.
+	 * @throws IllegalArgumentException Thrown if onset or width is negative.
+	 */
+	public static InputProtocol pulse(float base, float pulse, int onset, int width) {
+		return new InputProtocol(base, pulse, onset, width);
+	}
+	
+	/**
+	 * Creates an InputProtocol applying the base current, then the step current from the onset cycle on.
+	 * @param base - The current applied before the step.
+	 * @param step - The current applied from the onset cycle on.
+	 * @param onset - The first processing cycle of the step.
+	 * @return The InputProtocol.
+	 * @throws IllegalArgumentException Thrown if onset is negative.
+	 */
+	public static InputProtocol step(float base, float step, int onset) {
+		return new InputProtocol(base, step, onset, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Returns the current applied during the step.
+	 * @return The step current.
+	 */
+	public float stepCurrent() { return step; }
+	
+	@Override
+	public String toString() {
+		if (width == 0 || Float.floatToIntBits(base) == Float.floatToIntBits(step))
+			return String.format("constant I=%g", base);
+		
+		return String.format("I=%g, %g from %d for %d", base, step, onset, width);
+	}
+	
+	/**
+	 * Returns the number of processing cycles of the step.
+	 * @return The step width.
+	 */
+	public int width() { return width; }
+}
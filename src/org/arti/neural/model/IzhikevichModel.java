@@ -0,0 +1,243 @@
+package org.arti.neural.model;
+
+/**
+ * <p>public final class <b>IzhikevichModel</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>IzhikevichModel class holds the parameters of a single Izhikevich neuron model: the recovery time scale a, the recovery sensitivity b,
+ * the reset potential c, the recovery reset increment d, the capacitance C, the quadratic coefficient k, the peak potential vp, the resting
+ * potential vr, the threshold potential vt and the initial state vinit and uinit. The simple form uses the original quadratic
+ * 0.04v^2 + 5v + 140 membrane equation integrated in two half steps, the general form uses C and k. IzhikevichModel is immutable and can be
+ * used as a key.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public final class IzhikevichModel {
+	/**
+	 * <p>public enum <b>Form</b></p>
+	 * 
+	 * <p>Form enum contains the membrane equations an IzhikevichModel can use.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public enum Form {
+		/**
+		 * General form, C dv/dt = k(v - vr)(v - vt) - u + I and du/dt = a(b(v - vr) - u).
+		 */
+		GENERAL,
+		/**
+		 * Simple form, dv/dt = 0.04v^2 + 5v + 140 - u + I and du/dt = a(bv - u).
+		 */
+		SIMPLE
+	}
+	
+	// Membrane equation form.
+	private Form form;
+	// Time scale of recovery variable u.
+	private float a;
+	// Sensitivity of recovery variable u.
+	private float b;
+	// After-spike reset value of membrane potential v.
+	private float c;
+	// After-spike reset increment of recovery variable u.
+	private float d;
+	// Membrane capacitance.
+	private float C;
+	// Square polynomial coefficient.
+	private float k;
+	// Spike peak membrane potential.
+	private float vp;
+	// Resting membrane potential.
+	private float vr;
+	// Threshold membrane potential.
+	private float vt;
+	// Initial membrane potential.
+	private float vinit;
+	// Initial membrane recovery.
+	private float uinit;
+	
+	/**
+	 * Creates an IzhikevichModel with the specified parameters.
+	 * @param form - The membrane equation form.
+	 * @param a - The time scale of recovery variable u.
+	 * @param b - The sensitivity of recovery variable u.
+	 * @param c - The after-spike reset value of membrane potential v.
+	 * @param d - The after-spike reset increment of recovery variable u.
+	 * @param C - The membrane capacitance, used by the general form.
+	 * @param k - The square polynomial coefficient, used by the general form.
+	 * @param vp - The spike peak membrane potential.
+	 * @param vr - The resting membrane potential, used by the general form.
+	 * @param vt - The threshold membrane potential, used by the general form.
+	 * @param vinit - The initial membrane potential.
+	 * @param uinit - The initial membrane recovery.
+	 * @throws NullPointerException Thrown if form is null.
+	 */
+	public IzhikevichModel(Form form, float a, float b, float c, float d, float C, float k, float vp, float vr, float vt, float vinit,
+			float uinit) {
+		// Check parameters
+		if (form == null)
+			throw new NullPointerException("Error: IzhikevichModel's form cannot be null.");
+		
+		// Initialize variables
+		this.form = form;
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+		this.C = C;
+		this.k = k;
+		this.vp = vp;
+		this.vr = vr;
+		this.vt = vt;
+		this.vinit = vinit;
+		this.uinit = uinit;
+	}
+	
+	/**
+	 * Returns the value of a.
+	 * @return a.
+	 */
+	public float a() { return a; }
+	
+	/**
+	 * Returns the value of b.
+	 * @return b.
+	 */
+	public float b() { return b; }
+	
+	/**
+	 * Returns the value of c.
+	 * @return c.
+	 */
+	public float c() { return c; }
+	
+	/**
+	 * Returns the value of C.
+	 * @return C.
+	 */
+	public float C() { return C; }
+	
+	/**
+	 * Returns the value of d.
+	 * @return d.
+	 */
+	public float d() { return d; }
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		
+		if (!(obj instanceof IzhikevichModel))
+			return false;
+		
+		IzhikevichModel other = (IzhikevichModel)obj;
+		
+		return form == other.form && same(a, other.a) && same(b, other.b) && same(c, other.c) && same(d, other.d) && same(C, other.C) &&
+				same(k, other.k) && same(vp, other.vp) && same(vr, other.vr) && same(vt, other.vt) && same(vinit, other.vinit) &&
+				same(uinit, other.uinit);
+	}
+	
+	/**
+	 * Returns the membrane equation form.
+	 * @return The form.
+	 */
+	public Form form() { return form; }
+	
+	@Override
+	public int hashCode() {
+		int hash = form.hashCode();
+		hash = 31 * hash + Float.floatToIntBits(a);
+		hash = 31 * hash + Float.floatToIntBits(b);
+		hash = 31 * hash + Float.floatToIntBits(c);
+		hash = 31 * hash + Float.floatToIntBits(d);
+		hash = 31 * hash + Float.floatToIntBits(C);
+		hash = 31 * hash + Float.floatToIntBits(k);
+		hash = 31 * hash + Float.floatToIntBits(vp);
+		hash = 31 * hash + Float.floatToIntBits(vr);
+		hash = 31 * hash + Float.floatToIntBits(vt);
+		hash = 31 * hash + Float.floatToIntBits(vinit);
+		hash = 31 * hash + Float.floatToIntBits(uinit);
+		return hash;
+	}
+	
+	/**
+	 * Returns the value of k.
+	 * @return k.
+	 */
+	public float k() { return k; }
+	
+	/**
+	 * Returns true if this model has the specified parameters, comparing them as {@link #equals} does, so a caller holding the parameters
+	 * can check a model without creating one.
+	 * @param form - The membrane equation form.
+	 * @param a - Time scale of recovery variable u.
+	 * @param b - Sensitivity of recovery variable u.
+	 * @param c - After-spike reset value of membrane potential v.
+	 * @param d - After-spike reset increment of recovery variable u.
+	 * @param C - Membrane capacitance.
+	 * @param k - Square polynomial coefficient.
+	 * @param vp - Spike peak membrane potential.
+	 * @param vr - Resting membrane potential.
+	 * @param vt - Threshold membrane potential.
+	 * @param vinit - Initial membrane potential.
+	 * @param uinit - Initial membrane recovery.
+	 * @return True if the parameters are the same.
+	 */
+	public boolean matches(Form form, float a, float b, float c, float d, float C, float k, float vp, float vr, float vt, float vinit,
+			float uinit) {
+		return this.form == form && same(this.a, a) && same(this.b, b) && same(this.c, c) && same(this.d, d) && same(this.C, C) &&
+				same(this.k, k) && same(this.vp, vp) && same(this.vr, vr) && same(this.vt, vt) && same(this.vinit, vinit) &&
+				same(this.uinit, uinit);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s a=%g b=%g c=%g d=%g C=%g k=%g vp=%g vr=%g vt=%g vinit=%g uinit=%g", form, a, b, c, d, C, k, vp, vr, vt,
+				vinit, uinit);
+	}
+	
+	/**
+	 * Returns the value of uinit.
+	 * @return uinit.
+	 */
+	public float uinit() { return uinit; }
+	
+	/**
+	 * Returns the value of vinit.
+	 * @return vinit.
+	 */
+	public float vinit() { return vinit; }
+	
+	/**
+	 * Returns the value of vp.
+	 * @return vp.
+	 */
+	public float vp() { return vp; }
+	
+	/**
+	 * Returns the value of vr.
+	 * @return vr.
+	 */
+	public float vr() { return vr; }
+	
+	/**
+	 * Returns the value of vt.
+	 * @return vt.
+	 */
+	public float vt() { return vt; }
+	
+	/**
+	 * Returns true if the specified values have the same bits, so equal models always have equal hash codes.
+	 * @param x - The first value.
+	 * @param y - The second value.
+	 * @return True if the values have the same bits.
+	 */
+	private static boolean same(float x, float y) {
+		return Float.floatToIntBits(x) == Float.floatToIntBits(y);
+	}
+}
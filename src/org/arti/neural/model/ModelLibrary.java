@@ -0,0 +1,386 @@
+package org.arti.neural.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>public class <b>ModelLibrary</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>ModelLibrary class holds the preset neural models of the .mdl model files of a directory, one file per model {@link Type}. Every file
+ * is parsed once, in parallel, when the library is first used or explicitly loaded, and each model is kept as an immutable {@link Model}
+ * holding its parameters as primitive floats, indexed by type and by name. The library of the default model directory is shared through
+ * {@link #shared()}, so the model lab and the model creator read the same parsed models. The simulation engine does not use the library:
+ * its neural node arrays, such as TonicSpikingArray, carry their preset parameters in code.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class ModelLibrary {
+	/**
+	 * The default model directory.
+	 */
+	public static final Path DEF_DIRECTORY = Path.of("models");
+	
+	/**
+	 * <p>public enum <b>Type</b></p>
+	 * 
+	 * <p>Type enum lists the neural model types, each stored in its own model file.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public enum Type {
+		/**
+		 * Dendrite models, using the general membrane equation.
+		 */
+		DENDRITE("dendrite.mdl", IzhikevichModel.Form.GENERAL),
+		/**
+		 * Soma models, using the general membrane equation.
+		 */
+		SOMA("soma.mdl", IzhikevichModel.Form.GENERAL),
+		/**
+		 * Spiking models, using the simple membrane equation.
+		 */
+		SPIKING("spiking.mdl", IzhikevichModel.Form.SIMPLE);
+		
+		// The name of the model file.
+		private String file;
+		// The membrane equation form.
+		private IzhikevichModel.Form form;
+		
+		/**
+		 * Creates a Type.
+		 * @param file - The name of the model file.
+		 * @param form - The membrane equation form.
+		 */
+		private Type(String file, IzhikevichModel.Form form) {
+			this.file = file;
+			this.form = form;
+		}
+		
+		/**
+		 * Returns the name of the model file of the type.
+		 * @return The file name.
+		 */
+		public String file() {
+			return file;
+		}
+		
+		/**
+		 * Returns the membrane equation form of the models of the type.
+		 * @return The membrane equation form.
+		 */
+		public IzhikevichModel.Form form() {
+			return form;
+		}
+	}
+	
+	/**
+	 * <p>public static final class <b>Model</b><br>
+	 * extends {@link Object}</p>
+	 * 
+	 * <p>Model class is an immutable neural model of a ModelLibrary or {@link ModelStore}: its name, type and the parameters of its model
+	 * file line.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public static final class Model {
+		// The model name.
+		private String name;
+		// The model parameters, indexed by parameter ordinal.
+		private float[] parameters;
+		// The model type.
+		private Type type;
+		
+		/**
+		 * Creates a Model.
+		 * @param name - The model name.
+		 * @param type - The model type.
+		 * @param parameters - The model parameters, which are not copied.
+		 */
+		Model(String name, Type type, float[] parameters) {
+			this.name = name;
+			this.type = type;
+			this.parameters = parameters;
+		}
+		
+		/**
+		 * Returns the value of the specified parameter. The input current I is always 0.
+		 * @param parameter - The parameter.
+		 * @return The parameter value.
+		 */
+		public float get(ModelParameter parameter) {
+			return parameters[parameter.ordinal()];
+		}
+		
+		/**
+		 * Returns the model name.
+		 * @return The name.
+		 */
+		public String name() {
+			return name;
+		}
+		
+		/**
+		 * Returns a copy of the model parameters, indexed by parameter ordinal as returned by {@link ModelParameter#parse}.
+		 * @return The parameter values.
+		 */
+		public float[] parameters() {
+			return parameters.clone();
+		}
+		
+		/**
+		 * Returns the model as an IzhikevichModel of the membrane equation form of its type.
+		 * @return The IzhikevichModel.
+		 */
+		public IzhikevichModel toIzhikevichModel() {
+			return new IzhikevichModel(type.form(), get(ModelParameter.A), get(ModelParameter.B), get(ModelParameter.C),
+					get(ModelParameter.D), get(ModelParameter.CAPACITANCE), get(ModelParameter.K), get(ModelParameter.VP),
+					get(ModelParameter.VR), get(ModelParameter.VT), get(ModelParameter.VINIT), get(ModelParameter.UINIT));
+		}
+		
+		@Override
+		public String toString() {
+			return name;
+		}
+		
+		/**
+		 * Returns the model type.
+		 * @return The type.
+		 */
+		public Type type() {
+			return type;
+		}
+	}
+	
+	// The library of the default model directory, or null until first used.
+	private static ModelLibrary shared = null;
+	
+	// The model directory.
+	private Path directory;
+	// The models of each type, indexed by name.
+	private EnumMap<Type, HashMap<String, Model>> index;
+	// Loaded flag.
+	private volatile boolean loaded;
+	// The models of each type, in file order.
+	private EnumMap<Type, List<Model>> models;
+	
+	/**
+	 * Creates an unloaded ModelLibrary of the model files of the specified directory.
+	 * @param directory - The model directory.
+	 * @throws NullPointerException Thrown if directory is null.
+	 */
+	public ModelLibrary(Path directory) {
+		// Check parameters
+		if (directory == null)
+			throw new NullPointerException("Error: ModelLibrary's directory cannot be null.");
+		
+		// Initialize variables
+		this.directory = directory;
+		index = new EnumMap<Type, HashMap<String, Model>>(Type.class);
+		loaded = false;
+		models = new EnumMap<Type, List<Model>>(Type.class);
+		
+		for (Type type : Type.values()) {
+			index.put(type, new HashMap<String, Model>());
+			models.put(type, Collections.emptyList());
+		}
+	}
+	
+	/**
+	 * Returns the library of the default model directory, creating it on first use. It is loaded when its models are first read.
+	 * @return The shared library.
+	 */
+	public static synchronized ModelLibrary shared() {
+		if (shared == null)
+			shared = new ModelLibrary(DEF_DIRECTORY);
+		
+		return shared;
+	}
+	
+	/**
+	 * Returns the model of the specified type with the specified name.
+	 * @param type - The model type.
+	 * @param name - The model name.
+	 * @return The model, or null if there is no such model.
+	 * @throws UncheckedIOException Thrown if the library is not loaded yet and a model file cannot be read or parsed.
+	 */
+	public Model find(Type type, String name) {
+		ensureLoaded();
+		return index.get(type).get(name);
+	}
+	
+	/**
+	 * Returns whether the model files have been loaded.
+	 * @return True if the library is loaded.
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+	
+	/**
+	 * Parses the model file of every type, one worker thread per file, replacing any models loaded before. A blank line is skipped. If a
+	 * file cannot be read or parsed, the models of the other files are still loaded, the type of the file is left without models, and the
+	 * first error is thrown once every file has been parsed.
+	 * @throws IOException Thrown if a model file cannot be read or one of its lines is not a valid model.
+	 */
+	public synchronized void load() throws IOException {
+		Type[] types = Type.values();
+		ArrayList<Callable<List<Model>>> task = new ArrayList<Callable<List<Model>>>();
+		
+		for (Type type : types)
+			task.add(() -> parse(type));
+		
+		ExecutorService executorService = Executors.newFixedThreadPool(types.length);
+		IOException error = null;
+		
+		try {
+			List<Future<List<Model>>> future = executorService.invokeAll(task);
+			
+			for (int i = 0; i < types.length; ++i) {
+				List<Model> list = Collections.emptyList();
+				
+				try {
+					list = future.get(i).get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException && error == null)
+						error = (IOException)e.getCause();
+					else if (error == null)
+						error = new IOException("Error: ModelLibrary could not parse " + types[i].file() + ".", e.getCause());
+				}
+				
+				HashMap<String, Model> names = new HashMap<String, Model>();
+				
+				for (Model model : list)
+					names.putIfAbsent(model.name(), model);
+				
+				models.put(types[i], list);
+				index.put(types[i], names);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Error: ModelLibrary was interrupted while loading.", e);
+		} finally {
+			executorService.shutdownNow();
+		}
+		
+		loaded = true;
+		
+		if (error != null)
+			throw error;
+	}
+	
+	/**
+	 * Returns the model of the specified type at the specified index.
+	 * @param type - The model type.
+	 * @param index - The index of the model in its model file.
+	 * @return The model.
+	 * @throws IndexOutOfBoundsException Thrown if index is out of bounds.
+	 * @throws UncheckedIOException Thrown if the library is not loaded yet and a model file cannot be read or parsed.
+	 */
+	public Model model(Type type, int index) {
+		ensureLoaded();
+		return models.get(type).get(index);
+	}
+	
+	/**
+	 * Returns the models of the specified type, in model file order.
+	 * @param type - The model type.
+	 * @return An unmodifiable list of the models.
+	 * @throws UncheckedIOException Thrown if the library is not loaded yet and a model file cannot be read or parsed.
+	 */
+	public List<Model> models(Type type) {
+		ensureLoaded();
+		return models.get(type);
+	}
+	
+	/**
+	 * Returns the names of the models of the specified type, in model file order.
+	 * @param type - The model type.
+	 * @return The model names.
+	 * @throws UncheckedIOException Thrown if the library is not loaded yet and a model file cannot be read or parsed.
+	 */
+	public String[] names(Type type) {
+		List<Model> list = models(type);
+		String[] names = new String[list.size()];
+		
+		for (int i = 0; i < names.length; ++i)
+			names[i] = list.get(i).name();
+		
+		return names;
+	}
+	
+	/**
+	 * Returns the number of models of the specified type.
+	 * @param type - The model type.
+	 * @return The number of models.
+	 * @throws UncheckedIOException Thrown if the library is not loaded yet and a model file cannot be read or parsed.
+	 */
+	public int size(Type type) {
+		return models(type).size();
+	}
+	
+	/**
+	 * Loads the library unless it is loaded already.
+	 * @throws UncheckedIOException Thrown if a model file cannot be read or parsed.
+	 */
+	private void ensureLoaded() {
+		if (loaded)
+			return;
+		
+		synchronized (this) {
+			if (loaded)
+				return;
+			
+			try {
+				load();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+	
+	/**
+	 * Parses the model file of the specified type.
+	 * @param type - The model type.
+	 * @return An unmodifiable list of the models of the file.
+	 * @throws IOException Thrown if the file cannot be read or one of its lines is not a valid model.
+	 */
+	private List<Model> parse(Type type) throws IOException {
+		Path file = directory.resolve(type.file());
+		List<String> lines = Files.readAllLines(file);
+		ArrayList<Model> list = new ArrayList<Model>(lines.size());
+		
+		for (int i = 0; i < lines.size(); ++i) {
+			String line = lines.get(i);
+			
+			if (line.isBlank())
+				continue;
+			
+			try {
+				list.add(new Model(line.substring(0, line.indexOf(',')).trim(), type, ModelParameter.parse(line)));
+			} catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+				throw new IOException("Error: ModelLibrary could not parse line " + (i + 1) + " of " + file + ".", e);
+			}
+		}
+		
+		return Collections.unmodifiableList(list);
+	}
+}
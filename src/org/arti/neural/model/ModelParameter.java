@@ -0,0 +1,151 @@
+package org.arti.neural.model;
+
+/**
+ * <p>public enum <b>ModelParameter</b></p>
+ * 
+ * <p>ModelParameter enum lists the parameters of a single neuron model: the 22 columns of a .mdl model file, in file order, followed by the
+ * input current I, which is not stored in model files. The ordinal of a parameter is its index in a parameter array.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public enum ModelParameter {
+	/**
+	 * The recovery time constant a.
+	 */
+	A("a"),
+	/**
+	 * The amplification/resonance control variable b.
+	 */
+	B("b"),
+	/**
+	 * The second voltage-dependent b value b2.
+	 */
+	B2("b2"),
+	/**
+	 * The alternate, voltage-dependent b value ba.
+	 */
+	BA("ba"),
+	/**
+	 * The voltage threshold for the alternate b value bv.
+	 */
+	BV("bv"),
+	/**
+	 * The membrane potential reset value c.
+	 */
+	C("c"),
+	/**
+	 * The membrane capacitance C.
+	 */
+	CAPACITANCE("C"),
+	/**
+	 * The coefficient for u in the membrane potential reset equation cu.
+	 */
+	CU("cu"),
+	/**
+	 * The after-spike recovery increment d.
+	 */
+	D("d"),
+	/**
+	 * The conductance from child neural nodes gc.
+	 */
+	GC("gc"),
+	/**
+	 * The conductance from parent neural nodes gp.
+	 */
+	GP("gp"),
+	/**
+	 * The coefficient of the square polynomial k.
+	 */
+	K("k"),
+	/**
+	 * The initial recovery uinit.
+	 */
+	UINIT("uinit"),
+	/**
+	 * The maximum recovery umax.
+	 */
+	UMAX("umax"),
+	/**
+	 * The exponential power used in the u equation upow.
+	 */
+	UPOW("upow"),
+	/**
+	 * The membrane potential subtracted in the u equation uv.
+	 */
+	UV("uv"),
+	/**
+	 * The minimum membrane potential difference in the u equation uvmin.
+	 */
+	UVMIN("uvmin"),
+	/**
+	 * The initial membrane potential vinit.
+	 */
+	VINIT("vinit"),
+	/**
+	 * The spike cutoff value vp.
+	 */
+	VP("vp"),
+	/**
+	 * The coefficient for u in the spike cutoff equation vpu.
+	 */
+	VPU("vpu"),
+	/**
+	 * The membrane resting potential vr.
+	 */
+	VR("vr"),
+	/**
+	 * The instantaneous threshold potential vt.
+	 */
+	VT("vt"),
+	/**
+	 * The input current I.
+	 */
+	I("I");
+	
+	/**
+	 * The number of parameters stored in a .mdl model file.
+	 */
+	public static final int MODEL_FILE_PARAMETERS = 22;
+	
+	// The symbol of the parameter.
+	private String symbol;
+	
+	/**
+	 * Creates a ModelParameter.
+	 * @param symbol - The symbol of the parameter.
+	 */
+	private ModelParameter(String symbol) {
+		this.symbol = symbol;
+	}
+	
+	/**
+	 * Parses a line of a .mdl model file into a parameter array indexed by ordinal, with the input current set to 0.
+	 * @param line - The model file line, the model name followed by the 22 parameter values. Extra values are ignored, as the model lab does.
+	 * @return The parameter array.
+	 * @throws IllegalArgumentException Thrown if the line holds fewer than 22 parameter values.
+	 * @throws NumberFormatException Thrown if a parameter value is not a number.
+	 */
+	public static float[] parse(String line) {
+		String[] part = line.split(",");
+		
+		if (part.length < MODEL_FILE_PARAMETERS + 1)
+			throw new IllegalArgumentException("Error: Model file line must hold a name and " + MODEL_FILE_PARAMETERS + " parameters.");
+		
+		float[] parameters = new float[values().length];
+		
+		for (int i = 0; i < MODEL_FILE_PARAMETERS; ++i)
+			parameters[i] = Float.parseFloat(part[i + 1].trim());
+		
+		return parameters;
+	}
+	
+	/**
+	 * Returns the symbol of the parameter, as used in the model lab.
+	 * @return The symbol.
+	 */
+	public String symbol() {
+		return symbol;
+	}
+}
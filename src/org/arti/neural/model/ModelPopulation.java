@@ -0,0 +1,618 @@
+package org.arti.neural.model;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>public class <b>ModelPopulation</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>ModelPopulation class simulates a population of independent, unconnected neurons, each with its own {@link ModelParameter} values.
+ * Neurons are processed as the lanes of SIMD vectors, and each vector of neurons is kept in registers for the whole simulation, so a large
+ * population is simulated at close to the arithmetic throughput of the core. The {@link Equation} selects the arithmetic: the model equation
+ * of {@link IzhikevichModel}, the neuron the neural model lab runs and {@link ModelSimulator} simulates, or the engine equation of the
+ * spiking and soma arrays, whose general form is the extended equation using a, b, b2, ba, bv, c, C, cu, d, k, upow, umax, uv, uvmin, vp,
+ * vpu, vr and vt. The conductances gc and gp only couple compartments and have no effect on a single neuron.</p>
+ * 
+ * <p>A simulation starts every neuron at its initial state, runs the onset cycles without input current to settle, then runs the stimulus
+ * cycles with its input current I, collecting the spike and inter-spike interval statistics of the stimulus. Neurons past the last full
+ * vector are simulated by a scalar loop performing the same float operations in the same order, so the result of a neuron does not depend
+ * on its lane.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class ModelPopulation {
+	/**
+	 * <p>public enum <b>Equation</b></p>
+	 * 
+	 * <p>Equation enum contains the membrane equations a ModelPopulation can simulate.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public enum Equation {
+		/**
+		 * The engine equation of the spiking and soma arrays. The simple form always takes both half steps, and the general form is the
+		 * extended equation.
+		 */
+		ENGINE,
+		/**
+		 * The model equation of {@link IzhikevichModel}, performing the same operations as the step methods of {@link ModelSimulator}, so a
+		 * neuron responds exactly as in the neural model lab.
+		 */
+		MODEL
+	}
+	
+	// The preferred vector species.
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+	
+	// The number of stimulus cycles of the last simulation.
+	private int cycles;
+	// The number of ISIs shorter than half the previous ISI of each neuron.
+	private float[] drops;
+	// The membrane equation.
+	private Equation equation;
+	// The cycle of the first spike of each neuron, or -1.
+	private float[] firstSpike;
+	// The first inter-spike interval of each neuron.
+	private float[] firstIsi;
+	// The membrane equation form.
+	private IzhikevichModel.Form form;
+	// The cycle of the last spike of each neuron, or -1.
+	private float[] lastSpike;
+	// The last inter-spike interval of each neuron.
+	private float[] lastIsi;
+	// The longest inter-spike interval of each neuron.
+	private float[] maxIsi;
+	// The shortest inter-spike interval of each neuron.
+	private float[] minIsi;
+	// The parameter values of each neuron, indexed by parameter ordinal.
+	private float[][] parameter;
+	// The number of neurons.
+	private int size;
+	// The number of spikes of each neuron.
+	private float[] spikes;
+	// The sum of the inter-spike intervals of each neuron.
+	private float[] sumIsi;
+	// The sum of the squared inter-spike intervals of each neuron.
+	private float[] sumSqIsi;
+	// The final membrane recovery of each neuron.
+	private float[] u;
+	// The final membrane potential of each neuron.
+	private float[] v;
+	
+	/**
+	 * Creates a ModelPopulation of the specified number of neurons using the model equation, with all parameters set to 0.
+	 * @param form - The membrane equation form.
+	 * @param size - The number of neurons.
+	 * @throws IllegalArgumentException Thrown if size is negative.
+	 * @throws NullPointerException Thrown if form is null.
+	 */
+	public ModelPopulation(IzhikevichModel.Form form, int size) {
+		this(form, Equation.MODEL, size);
+	}
+	
+	/**
+	 * Creates a ModelPopulation of the specified number of neurons with all parameters set to 0.
+	 * @param form - The membrane equation form.
+	 * @param equation - The membrane equation.
+	 * @param size - The number of neurons.
+	 * @throws IllegalArgumentException Thrown if size is negative.
+	 * @throws NullPointerException Thrown if form or equation is null.
+	 */
+	public ModelPopulation(IzhikevichModel.Form form, Equation equation, int size) {
+		// Check parameters
+		if (form == null || equation == null)
+			throw new NullPointerException("Error: ModelPopulation's form and equation cannot be null.");
+		
+		if (size < 0)
+			throw new IllegalArgumentException("Error: ModelPopulation's size cannot be negative.");
+		
+		// Initialize variables
+		this.form = form;
+		this.equation = equation;
+		this.size = size;
+		cycles = 0;
+		parameter = new float[ModelParameter.values().length][size];
+		drops = new float[size];
+		firstSpike = new float[size];
+		firstIsi = new float[size];
+		lastSpike = new float[size];
+		lastIsi = new float[size];
+		maxIsi = new float[size];
+		minIsi = new float[size];
+		spikes = new float[size];
+		sumIsi = new float[size];
+		sumSqIsi = new float[size];
+		u = new float[size];
+		v = new float[size];
+	}
+	
+	/**
+	 * Returns the number of inter-spike intervals of the specified neuron shorter than half the previous interval. A tonic or adapting
+	 * neuron has none, a bursting neuron has one per burst.
+	 * @param index - The index of the neuron.
+	 * @return The number of interval drops.
+	 */
+	public int drops(int index) {
+		return (int)drops[index];
+	}
+	
+	/**
+	 * Sets the specified parameter of every neuron to the specified value.
+	 * @param parameter - The parameter.
+	 * @param value - The value.
+	 */
+	public void fill(ModelParameter parameter, float value) {
+		Arrays.fill(this.parameter[parameter.ordinal()], value);
+	}
+	
+	/**
+	 * Returns the first inter-spike interval of the specified neuron in cycles, or 0 if it spiked less than twice.
+	 * @param index - The index of the neuron.
+	 * @return The first interval.
+	 */
+	public float firstIsi(int index) {
+		return firstIsi[index];
+	}
+	
+	/**
+	 * Returns the stimulus cycle of the first spike of the specified neuron, its spike latency, or -1 if it did not spike.
+	 * @param index - The index of the neuron.
+	 * @return The first spike cycle.
+	 */
+	public int firstSpike(int index) {
+		return (int)firstSpike[index];
+	}
+	
+	/**
+	 * Returns the membrane equation form.
+	 * @return The form.
+	 */
+	public IzhikevichModel.Form form() {
+		return form;
+	}
+	
+	/**
+	 * Returns the value of the specified parameter of the specified neuron.
+	 * @param parameter - The parameter.
+	 * @param index - The index of the neuron.
+	 * @return The value.
+	 */
+	public float get(ModelParameter parameter, int index) {
+		return this.parameter[parameter.ordinal()][index];
+	}
+	
+	/**
+	 * Returns the last inter-spike interval of the specified neuron in cycles, or 0 if it spiked less than twice.
+	 * @param index - The index of the neuron.
+	 * @return The last interval.
+	 */
+	public float lastIsi(int index) {
+		return lastIsi[index];
+	}
+	
+	/**
+	 * Returns the stimulus cycle of the last spike of the specified neuron, or -1 if it did not spike.
+	 * @param index - The index of the neuron.
+	 * @return The last spike cycle.
+	 */
+	public int lastSpike(int index) {
+		return (int)lastSpike[index];
+	}
+	
+	/**
+	 * Returns the longest inter-spike interval of the specified neuron in cycles, or 0 if it spiked less than twice.
+	 * @param index - The index of the neuron.
+	 * @return The longest interval.
+	 */
+	public float maxIsi(int index) {
+		return maxIsi[index];
+	}
+	
+	/**
+	 * Returns the mean inter-spike interval of the specified neuron in cycles, or 0 if it spiked less than twice.
+	 * @param index - The index of the neuron.
+	 * @return The mean interval.
+	 */
+	public float meanIsi(int index) {
+		return (spikes[index] < 2.0f) ? 0.0f : sumIsi[index] / (spikes[index] - 1.0f);
+	}
+	
+	/**
+	 * Returns the shortest inter-spike interval of the specified neuron in cycles, or 0 if it spiked less than twice.
+	 * @param index - The index of the neuron.
+	 * @return The shortest interval.
+	 */
+	public float minIsi(int index) {
+		return (spikes[index] < 2.0f) ? 0.0f : minIsi[index];
+	}
+	
+	/**
+	 * Returns the coefficient of variation of the inter-spike intervals of the specified neuron, or 0 if it spiked less than three times.
+	 * @param index - The index of the neuron.
+	 * @return The ISI coefficient of variation.
+	 */
+	public float isiCv(int index) {
+		float n = spikes[index] - 1.0f;
+		
+		if (n < 2.0f)
+			return 0.0f;
+		
+		double mean = sumIsi[index] / n;
+		double variance = Math.max(0.0, sumSqIsi[index] / n - mean * mean);
+		return (float)(Math.sqrt(variance) / mean);
+	}
+	
+	/**
+	 * Sets the specified parameter of the specified neuron.
+	 * @param parameter - The parameter.
+	 * @param index - The index of the neuron.
+	 * @param value - The value.
+	 */
+	public void set(ModelParameter parameter, int index, float value) {
+		this.parameter[parameter.ordinal()][index] = value;
+	}
+	
+	/**
+	 * Sets every parameter of the specified neuron.
+	 * @param index - The index of the neuron.
+	 * @param values - The parameter values, indexed by parameter ordinal.
+	 */
+	public void setAll(int index, float[] values) {
+		for (int i = 0; i < parameter.length; ++i)
+			parameter[i][index] = values[i];
+	}
+	
+	/**
+	 * Simulates every neuron: onset cycles without input current followed by the specified number of stimulus cycles with input current I.
+	 * @param onset - The number of settling cycles.
+	 * @param cycles - The number of stimulus cycles.
+	 * @throws IllegalArgumentException Thrown if onset or cycles is negative or the total exceeds 2^24 cycles.
+	 */
+	public void simulate(int onset, int cycles) {
+		simulate(onset, cycles, 0, size);
+	}
+	
+	/**
+	 * Simulates the specified range of neurons: onset cycles without input current followed by the specified number of stimulus cycles with
+	 * input current I. Disjoint ranges can be simulated by different threads.
+	 * @param onset - The number of settling cycles.
+	 * @param cycles - The number of stimulus cycles.
+	 * @param from - The index of the first neuron.
+	 * @param to - The index after the last neuron.
+	 * @throws IllegalArgumentException Thrown if onset or cycles is negative or the total exceeds 2^24 cycles.
+	 * @throws IndexOutOfBoundsException Thrown if the range is out of bounds.
+	 */
+	public void simulate(int onset, int cycles, int from, int to) {
+		// Cycles are counted in float lanes, which are exact up to 2^24
+		if (onset < 0 || cycles < 0 || (long)onset + cycles > (1 << 24))
+			throw new IllegalArgumentException("Error: ModelPopulation can simulate 0 to 2^24 cycles.");
+		
+		if (from < 0 || to > size || from > to)
+			throw new IndexOutOfBoundsException("Error: Cannot simulate neurons " + from + " to " + to + ". Index out of bounds.");
+		
+		this.cycles = cycles;
+		boolean pow = false;
+		
+		if (equation == Equation.ENGINE && form == IzhikevichModel.Form.GENERAL) {
+			float[] upow = parameter[ModelParameter.UPOW.ordinal()];
+			
+			for (int i = from; i < to && !pow; ++i)
+				pow = upow[i] != 1.0f;
+		}
+		
+		int i = from;
+		
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length())
+			simulateVector(i, onset, cycles, pow);
+		
+		for (; i < to; ++i)
+			simulateLane(i, onset, cycles, pow);
+	}
+	
+	/**
+	 * Returns the number of neurons.
+	 * @return The number of neurons.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the number of spikes of the specified neuron during the stimulus.
+	 * @param index - The index of the neuron.
+	 * @return The number of spikes.
+	 */
+	public int spikes(int index) {
+		return (int)spikes[index];
+	}
+	
+	/**
+	 * Returns the number of stimulus cycles of the last simulation.
+	 * @return The number of stimulus cycles.
+	 */
+	public int stimulusCycles() {
+		return cycles;
+	}
+	
+	/**
+	 * Returns the final membrane recovery of the specified neuron.
+	 * @param index - The index of the neuron.
+	 * @return u.
+	 */
+	public float u(int index) {
+		return u[index];
+	}
+	
+	/**
+	 * Returns the final membrane potential of the specified neuron.
+	 * @param index - The index of the neuron.
+	 * @return v.
+	 */
+	public float v(int index) {
+		return v[index];
+	}
+	
+	/**
+	 * Simulates a single neuron with scalar arithmetic, performing the same operations as {@link #simulateVector}.
+	 * @param i - The index of the neuron.
+	 * @param onset - The number of settling cycles.
+	 * @param cycles - The number of stimulus cycles.
+	 * @param pow - True if the u equation uses its exponential power.
+	 */
+	private void simulateLane(int i, int onset, int cycles, boolean pow) {
+		float a = parameter[ModelParameter.A.ordinal()][i];
+		float b = parameter[ModelParameter.B.ordinal()][i];
+		float b2 = parameter[ModelParameter.B2.ordinal()][i];
+		float ba = parameter[ModelParameter.BA.ordinal()][i];
+		float bv = parameter[ModelParameter.BV.ordinal()][i];
+		float c = parameter[ModelParameter.C.ordinal()][i];
+		float C = parameter[ModelParameter.CAPACITANCE.ordinal()][i];
+		float cu = parameter[ModelParameter.CU.ordinal()][i];
+		float d = parameter[ModelParameter.D.ordinal()][i];
+		float k = parameter[ModelParameter.K.ordinal()][i];
+		float umax = parameter[ModelParameter.UMAX.ordinal()][i];
+		float upow = parameter[ModelParameter.UPOW.ordinal()][i];
+		float uv = parameter[ModelParameter.UV.ordinal()][i];
+		float uvmin = parameter[ModelParameter.UVMIN.ordinal()][i];
+		float vp = parameter[ModelParameter.VP.ordinal()][i];
+		float vpu = parameter[ModelParameter.VPU.ordinal()][i];
+		float vr = parameter[ModelParameter.VR.ordinal()][i];
+		float vt = parameter[ModelParameter.VT.ordinal()][i];
+		float I = parameter[ModelParameter.I.ordinal()][i];
+		float v = parameter[ModelParameter.VINIT.ordinal()][i];
+		float u = parameter[ModelParameter.UINIT.ordinal()][i];
+		boolean model = equation == Equation.MODEL;
+		boolean simple = form == IzhikevichModel.Form.SIMPLE;
+		float count = 0.0f;
+		float first = -1.0f;
+		float last = -1.0f;
+		float firstIsi = 0.0f;
+		float lastIsi = 0.0f;
+		float minIsi = Float.POSITIVE_INFINITY;
+		float maxIsi = 0.0f;
+		float sumIsi = 0.0f;
+		float sumSqIsi = 0.0f;
+		float drops = 0.0f;
+		
+		for (int t = 0; t < onset + cycles; ++t) {
+			float in = (t < onset) ? 0.0f : I;
+			boolean spike;
+			
+			if (model) {
+				if (simple) {
+					v = ModelSimulator.simpleV(v, u, in, vp);
+					u = ModelSimulator.simpleU(v, u, a, b);
+				}
+				else {
+					v = ModelSimulator.generalV(v, u, in, C, k, vr, vt);
+					u = ModelSimulator.generalU(v, u, a, b, vr);
+				}
+				
+				spike = v >= vp;
+				
+				if (spike) {
+					v = c;
+					u = u + d;
+				}
+			}
+			else if (simple) {
+				v = v + (v * v * 0.04f + v * 5.0f + 140.0f - u + in) * 0.5f;
+				v = v + (v * v * 0.04f + v * 5.0f + 140.0f - u + in) * 0.5f;
+				u = u + (b * v - u) * a;
+				spike = v >= vp;
+				
+				if (spike) {
+					v = c;
+					u = u + d;
+				}
+			}
+			else {
+				v = v + (k * (v - vr) * (v - vt) - u + in) / C;
+				float w = v - uv;
+				float p = pow ? (float)Math.pow(w, upow) : w;
+				float bs = (v < bv) ? ba : b;
+				u = u + ((bs * Math.max(p, uvmin) + b2 * Math.max(w, uvmin)) - u) * a;
+				spike = v >= vp + vpu * u;
+				
+				if (spike) {
+					v = c + cu * u;
+					u = Math.min(u + d, umax);
+				}
+			}
+			
+			if (spike && t >= onset) {
+				float time = t - onset;
+				
+				if (count == 0.0f) {
+					first = time;
+				}
+				else {
+					float isi = time - last;
+					
+					if (count == 1.0f)
+						firstIsi = isi;
+					else if (isi < lastIsi * 0.5f)
+						drops = drops + 1.0f;
+					
+					lastIsi = isi;
+					minIsi = Math.min(minIsi, isi);
+					maxIsi = Math.max(maxIsi, isi);
+					sumIsi = sumIsi + isi;
+					sumSqIsi = sumSqIsi + isi * isi;
+				}
+				
+				last = time;
+				count = count + 1.0f;
+			}
+		}
+		
+		this.v[i] = v;
+		this.u[i] = u;
+		this.spikes[i] = count;
+		this.firstSpike[i] = first;
+		this.lastSpike[i] = last;
+		this.firstIsi[i] = firstIsi;
+		this.lastIsi[i] = lastIsi;
+		this.minIsi[i] = minIsi;
+		this.maxIsi[i] = maxIsi;
+		this.sumIsi[i] = sumIsi;
+		this.sumSqIsi[i] = sumSqIsi;
+		this.drops[i] = drops;
+	}
+	
+	/**
+	 * Simulates one vector of neurons, keeping their state and statistics in registers for the whole simulation.
+	 * @param i - The index of the first neuron.
+	 * @param onset - The number of settling cycles.
+	 * @param cycles - The number of stimulus cycles.
+	 * @param pow - True if the u equation uses its exponential power.
+	 */
+	private void simulateVector(int i, int onset, int cycles, boolean pow) {
+		FloatVector a = load(ModelParameter.A, i);
+		FloatVector b = load(ModelParameter.B, i);
+		FloatVector c = load(ModelParameter.C, i);
+		FloatVector d = load(ModelParameter.D, i);
+		FloatVector vp = load(ModelParameter.VP, i);
+		FloatVector I = load(ModelParameter.I, i);
+		FloatVector v = load(ModelParameter.VINIT, i);
+		FloatVector u = load(ModelParameter.UINIT, i);
+		FloatVector zero = FloatVector.zero(SPECIES);
+		FloatVector one = FloatVector.broadcast(SPECIES, 1.0f);
+		FloatVector count = zero;
+		FloatVector first = FloatVector.broadcast(SPECIES, -1.0f);
+		FloatVector last = first;
+		FloatVector firstIsi = zero;
+		FloatVector lastIsi = zero;
+		FloatVector minIsi = FloatVector.broadcast(SPECIES, Float.POSITIVE_INFINITY);
+		FloatVector maxIsi = zero;
+		FloatVector sumIsi = zero;
+		FloatVector sumSqIsi = zero;
+		FloatVector drops = zero;
+		boolean model = equation == Equation.MODEL;
+		boolean simple = form == IzhikevichModel.Form.SIMPLE;
+		boolean extended = !model && !simple;
+		FloatVector b2 = extended ? load(ModelParameter.B2, i) : zero;
+		FloatVector ba = extended ? load(ModelParameter.BA, i) : zero;
+		FloatVector bv = extended ? load(ModelParameter.BV, i) : zero;
+		FloatVector C = simple ? zero : load(ModelParameter.CAPACITANCE, i);
+		FloatVector cu = extended ? load(ModelParameter.CU, i) : zero;
+		FloatVector k = simple ? zero : load(ModelParameter.K, i);
+		FloatVector umax = extended ? load(ModelParameter.UMAX, i) : zero;
+		FloatVector upow = extended ? load(ModelParameter.UPOW, i) : zero;
+		FloatVector uv = extended ? load(ModelParameter.UV, i) : zero;
+		FloatVector uvmin = extended ? load(ModelParameter.UVMIN, i) : zero;
+		FloatVector vpu = extended ? load(ModelParameter.VPU, i) : zero;
+		FloatVector vr = simple ? zero : load(ModelParameter.VR, i);
+		FloatVector vt = simple ? zero : load(ModelParameter.VT, i);
+		
+		for (int t = 0; t < onset + cycles; ++t) {
+			FloatVector in = (t < onset) ? zero : I;
+			VectorMask<Float> spike;
+			
+			if (model) {
+				if (simple) {
+					// The second half step is skipped by lanes starting at or above the spike peak, as in ModelSimulator.simpleV
+					VectorMask<Float> below = v.compare(VectorOperators.LT, vp);
+					v = v.add(v.mul(0.04f).mul(v).add(v.mul(5.0f)).add(140.0f).sub(u).add(in).mul(0.5f));
+					v = v.blend(v.add(v.mul(0.04f).mul(v).add(v.mul(5.0f)).add(140.0f).sub(u).add(in).mul(0.5f)), below);
+					u = u.add(b.mul(v).sub(u).mul(a));
+				}
+				else {
+					v = v.add(k.mul(v.sub(vr)).mul(v.sub(vt)).sub(u).add(in).div(C));
+					u = u.add(b.mul(v.sub(vr)).sub(u).mul(a));
+				}
+				
+				spike = v.compare(VectorOperators.GE, vp);
+				v = v.blend(c, spike);
+				u = u.blend(u.add(d), spike);
+			}
+			else if (simple) {
+				v = v.add(v.mul(v).mul(0.04f).add(v.mul(5.0f)).add(140.0f).sub(u).add(in).mul(0.5f));
+				v = v.add(v.mul(v).mul(0.04f).add(v.mul(5.0f)).add(140.0f).sub(u).add(in).mul(0.5f));
+				u = u.add(b.mul(v).sub(u).mul(a));
+				spike = v.compare(VectorOperators.GE, vp);
+				v = v.blend(c, spike);
+				u = u.blend(u.add(d), spike);
+			}
+			else {
+				v = v.add(k.mul(v.sub(vr)).mul(v.sub(vt)).sub(u).add(in).div(C));
+				FloatVector w = v.sub(uv);
+				FloatVector p = pow ? w.lanewise(VectorOperators.POW, upow) : w;
+				FloatVector bs = b.blend(ba, v.compare(VectorOperators.LT, bv));
+				u = u.add(bs.mul(p.max(uvmin)).add(b2.mul(w.max(uvmin))).sub(u).mul(a));
+				spike = v.compare(VectorOperators.GE, vp.add(vpu.mul(u)));
+				v = v.blend(c.add(cu.mul(u)), spike);
+				u = u.blend(u.add(d).min(umax), spike);
+			}
+			
+			if (t >= onset && spike.anyTrue()) {
+				FloatVector time = FloatVector.broadcast(SPECIES, (float)(t - onset));
+				VectorMask<Float> started = count.compare(VectorOperators.GT, 0.0f);
+				VectorMask<Float> interval = spike.and(started);
+				FloatVector isi = time.sub(last);
+				first = first.blend(time, spike.andNot(started));
+				firstIsi = firstIsi.blend(isi, interval.and(count.compare(VectorOperators.EQ, 1.0f)));
+				drops = drops.add(one, interval.and(count.compare(VectorOperators.GT, 1.0f)).and(isi.compare(VectorOperators.LT, lastIsi.mul(0.5f))));
+				lastIsi = lastIsi.blend(isi, interval);
+				minIsi = minIsi.blend(minIsi.min(isi), interval);
+				maxIsi = maxIsi.blend(maxIsi.max(isi), interval);
+				sumIsi = sumIsi.add(isi, interval);
+				sumSqIsi = sumSqIsi.add(isi.mul(isi), interval);
+				last = last.blend(time, spike);
+				count = count.add(one, spike);
+			}
+		}
+		
+		v.intoArray(this.v, i);
+		u.intoArray(this.u, i);
+		count.intoArray(this.spikes, i);
+		first.intoArray(this.firstSpike, i);
+		last.intoArray(this.lastSpike, i);
+		firstIsi.intoArray(this.firstIsi, i);
+		lastIsi.intoArray(this.lastIsi, i);
+		minIsi.intoArray(this.minIsi, i);
+		maxIsi.intoArray(this.maxIsi, i);
+		sumIsi.intoArray(this.sumIsi, i);
+		sumSqIsi.intoArray(this.sumSqIsi, i);
+		drops.intoArray(this.drops, i);
+	}
+	
+	/**
+	 * Loads a vector of values of the specified parameter.
+	 * @param parameter - The parameter.
+	 * @param i - The index of the first neuron.
+	 * @return The vector.
+	 */
+	private FloatVector load(ModelParameter parameter, int i) {
+		return FloatVector.fromArray(SPECIES, this.parameter[parameter.ordinal()], i);
+	}
+}
@@ -0,0 +1,177 @@
+package org.arti.neural.model;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>public class <b>ModelPreviewer</b><br>
+ * extends {@link Object}<br>
+ * implements {@link AutoCloseable}</p>
+ * 
+ * <p>ModelPreviewer class simulates the response of a model on a background thread while its parameters are being edited. Requests are
+ * debounced: a request only starts simulating once no newer request arrived for the debounce delay, and each request cancels the pending
+ * one. A simulation that is already running is simulated in slices and abandoned as soon as a newer request arrives, so a stale response is
+ * never published. If a {@link ResponseCache} is given, cached responses are published without simulating and simulated responses are
+ * added to the cache. Previews are only kept in memory, a slider being dragged requests many responses that are never run.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class ModelPreviewer implements AutoCloseable {
+	// Number of processing cycles simulated between cancellation checks.
+	private static final int SLICE = 256;
+	
+	/**
+	 * <p>public interface <b>Listener</b></p>
+	 * 
+	 * <p>Listener interface receives the responses simulated by a ModelPreviewer.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public interface Listener {
+		/**
+		 * Called on the preview thread when the response of the latest request is simulated.
+		 * @param model - The simulated model.
+		 * @param input - The input protocol.
+		 * @param v - The membrane potential of each processing cycle.
+		 * @param u - The membrane recovery of each processing cycle.
+		 * @param spikes - The number of spikes.
+		 */
+		void previewReady(IzhikevichModel model, InputProtocol input, float[] v, float[] u, int spikes);
+	}
+	
+	// The number of processing cycles of a response.
+	private int cycles;
+	// The response cache, or null.
+	private ResponseCache cache;
+	// The debounce delay in milliseconds.
+	private long delay;
+	// The executor running the simulations.
+	private ScheduledExecutorService executor;
+	// The number of the latest request.
+	private AtomicLong latest;
+	// The listener receiving the responses.
+	private Listener listener;
+	// The pending request, or null.
+	private ScheduledFuture<?> pending;
+	
+	/**
+	 * Creates a ModelPreviewer.
+	 * @param cycles - The number of processing cycles of a response.
+	 * @param delay - The debounce delay in milliseconds.
+	 * @param listener - The listener receiving the responses.
+	 * @throws IllegalArgumentException Thrown if cycles is less than 1 or delay is negative.
+	 * @throws NullPointerException Thrown if listener is null.
+	 */
+	public ModelPreviewer(int cycles, long delay, Listener listener) {
+		this(cycles, delay, listener, null);
+	}
+	
+	/**
+	 * Creates a ModelPreviewer consulting the specified response cache before simulating.
+	 * @param cycles - The number of processing cycles of a response.
+	 * @param delay - The debounce delay in milliseconds.
+	 * @param listener - The listener receiving the responses.
+	 * @param cache - The response cache, or null.
+	 * @throws IllegalArgumentException Thrown if cycles is less than 1 or delay is negative.
+	 * @throws NullPointerException Thrown if listener is null.
+	 */
+	public ModelPreviewer(int cycles, long delay, Listener listener, ResponseCache cache) {
+		// Check parameters
+		if (cycles < 1)
+			throw new IllegalArgumentException("Error: ModelPreviewer must simulate at least one processing cycle.");
+		
+		if (delay < 0)
+			throw new IllegalArgumentException("Error: ModelPreviewer's debounce delay cannot be negative.");
+		
+		if (listener == null)
+			throw new NullPointerException("Error: ModelPreviewer's listener cannot be null.");
+		
+		// Initialize variables
+		this.cycles = cycles;
+		this.delay = delay;
+		this.listener = listener;
+		this.cache = cache;
+		latest = new AtomicLong();
+		pending = null;
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Model Preview");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Cancels the pending request and stops the preview thread.
+	 */
+	@Override
+	public void close() {
+		latest.incrementAndGet();
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Requests the response of the specified model to the specified input protocol, replacing any earlier request.
+	 * @param model - The model.
+	 * @param input - The input protocol.
+	 * @throws NullPointerException Thrown if model or input is null.
+	 */
+	public synchronized void request(IzhikevichModel model, InputProtocol input) {
+		if (model == null || input == null)
+			throw new NullPointerException("Error: ModelPreviewer's model and input protocol cannot be null.");
+		
+		long request = latest.incrementAndGet();
+		
+		if (pending != null)
+			pending.cancel(false);
+		
+		if (!executor.isShutdown())
+			pending = executor.schedule(() -> simulate(request, model, input), delay, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Simulates the response of a request unless a newer request arrives, then publishes it to the listener.
+	 * @param request - The number of the request.
+	 * @param model - The model.
+	 * @param input - The input protocol.
+	 */
+	private void simulate(long request, IzhikevichModel model, InputProtocol input) {
+		float[] v = new float[cycles];
+		float[] u = new float[cycles];
+		
+		if (cache != null) {
+			ResponseCache.Response response = cache.get(model, input, cycles);
+			
+			if (response != null) {
+				response.decode(v, u);
+				
+				if (latest.get() == request)
+					listener.previewReady(model, input, v, u, response.spikes());
+				
+				return;
+			}
+		}
+		
+		ModelSimulator simulator = new ModelSimulator(model);
+		int spikes = 0;
+		
+		for (int i = 0; i < cycles; i += SLICE) {
+			if (latest.get() != request)
+				return;
+			
+			spikes += simulator.run(input, Math.min(SLICE, cycles - i), v, u, i);
+		}
+		
+		if (cache != null)
+			cache.put(model, input, cycles, v, u, false);
+		
+		if (latest.get() == request)
+			listener.previewReady(model, input, v, u, spikes);
+	}
+}
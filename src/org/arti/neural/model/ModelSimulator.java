@@ -0,0 +1,207 @@
+package org.arti.neural.model;
+
+/**
+ * <p>public class <b>ModelSimulator</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>ModelSimulator class simulates a single {@link IzhikevichModel} neuron with a 1 ms processing cycle, using the same arithmetic as the
+ * neural model lab so a simulated response matches a lab run cycle for cycle. The arithmetic is held by the static step methods, which the
+ * lab and ModelSimulator call and the model equation of {@link ModelPopulation} repeats operation for operation. The recorded membrane
+ * potential is clipped to the spike peak and the recorded membrane recovery includes the after-spike increment on spike cycles, as the lab
+ * graphs show them. Simulating never allocates, so a 1000 cycle response takes a few microseconds.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class ModelSimulator {
+	// The simulated model.
+	private IzhikevichModel model;
+	// The number of processing cycles simulated.
+	private long cycle;
+	// Membrane recovery.
+	private float u;
+	// Membrane potential.
+	private float v;
+	
+	/**
+	 * Creates a ModelSimulator for the specified model, starting at the initial state of the model.
+	 * @param model - The model.
+	 * @throws NullPointerException Thrown if model is null.
+	 */
+	public ModelSimulator(IzhikevichModel model) {
+		// Check parameters
+		if (model == null)
+			throw new NullPointerException("Error: ModelSimulator's model cannot be null.");
+		
+		// Initialize variables
+		this.model = model;
+		cycle = 0;
+		u = model.uinit();
+		v = model.vinit();
+	}
+	
+	/**
+	 * Returns the number of processing cycles simulated since the last reset.
+	 * @return The number of processing cycles.
+	 */
+	public long cycle() { return cycle; }
+	
+	/**
+	 * Integrates the membrane recovery of the general form over one processing cycle.
+	 * @param v - The membrane potential, already integrated.
+	 * @param u - The membrane recovery.
+	 * @param a - The time scale of recovery.
+	 * @param b - The sensitivity of recovery.
+	 * @param vr - The resting membrane potential.
+	 * @return The new membrane recovery.
+	 */
+	public static float generalU(float v, float u, float a, float b, float vr) {
+		return u + a * (b * (v - vr) - u);
+	}
+	
+	/**
+	 * Integrates the membrane potential of the general form over one processing cycle.
+	 * @param v - The membrane potential.
+	 * @param u - The membrane recovery.
+	 * @param I - The input current.
+	 * @param C - The membrane capacitance.
+	 * @param k - The square polynomial coefficient.
+	 * @param vr - The resting membrane potential.
+	 * @param vt - The threshold membrane potential.
+	 * @return The new membrane potential.
+	 */
+	public static float generalV(float v, float u, float I, float C, float k, float vr, float vt) {
+		return v + (k * (v - vr) * (v - vt) - u + I) / C;
+	}
+	
+	/**
+	 * Returns the simulated model.
+	 * @return The model.
+	 */
+	public IzhikevichModel model() { return model; }
+	
+	/**
+	 * Resets the neuron to the initial state of the model.
+	 */
+	public void reset() {
+		cycle = 0;
+		u = model.uinit();
+		v = model.vinit();
+	}
+	
+	/**
+	 * Simulates the specified number of processing cycles with the specified input protocol, continuing from the current state. The recorded
+	 * membrane potential and recovery of each cycle are written to the specified arrays, either of which may be null.
+	 * @param input - The input protocol, indexed by the processing cycle since the last reset.
+	 * @param cycles - The number of processing cycles.
+	 * @param vOut - The array receiving the membrane potential, or null.
+	 * @param uOut - The array receiving the membrane recovery, or null.
+	 * @param offset - The index in vOut and uOut of the first cycle.
+	 * @return The number of spikes.
+	 */
+	public int run(InputProtocol input, int cycles, float[] vOut, float[] uOut, int offset) {
+		float a = model.a();
+		float b = model.b();
+		float c = model.c();
+		float d = model.d();
+		float C = model.C();
+		float k = model.k();
+		float vp = model.vp();
+		float vr = model.vr();
+		float vt = model.vt();
+		boolean simple = model.form() == IzhikevichModel.Form.SIMPLE;
+		float v = this.v;
+		float u = this.u;
+		int spikes = 0;
+		
+		for (int i = 0; i < cycles; ++i) {
+			float I = input.current(cycle + i);
+			
+			if (simple) {
+				v = simpleV(v, u, I, vp);
+				u = simpleU(v, u, a, b);
+			}
+			else {
+				v = generalV(v, u, I, C, k, vr, vt);
+				u = generalU(v, u, a, b, vr);
+			}
+			
+			if (vOut != null)
+				vOut[offset + i] = (v >= vp) ? vp : v;
+			
+			if (uOut != null)
+				uOut[offset + i] = (v >= vp) ? u + d : u;
+			
+			if (v >= vp) {
+				v = c;
+				u += d;
+				spikes++;
+			}
+		}
+		
+		this.v = v;
+		this.u = u;
+		cycle += cycles;
+		return spikes;
+	}
+	
+	/**
+	 * Integrates the membrane recovery of the simple form over one processing cycle.
+	 * @param v - The membrane potential, already integrated.
+	 * @param u - The membrane recovery.
+	 * @param a - The time scale of recovery.
+	 * @param b - The sensitivity of recovery.
+	 * @return The new membrane recovery.
+	 */
+	public static float simpleU(float v, float u, float a, float b) {
+		return u + a * (b * v - u);
+	}
+	
+	/**
+	 * Integrates the membrane potential of the simple form over one processing cycle in two half steps. The second half step is skipped if
+	 * the membrane potential starts at or above the spike peak.
+	 * @param v - The membrane potential.
+	 * @param u - The membrane recovery.
+	 * @param I - The input current.
+	 * @param vp - The spike peak membrane potential.
+	 * @return The new membrane potential.
+	 */
+	public static float simpleV(float v, float u, float I, float vp) {
+		boolean below = true;
+		
+		// Two half steps in the same order as the Euler kernel of SpikingArray, so the values match the lab's arrays
+		for (int s = 0; s < 2 && below; ++s) {
+			below = v < vp;
+			v += 0.5f * (0.04f * v * v + 5.0f * v + 140.0f - u + I);
+		}
+		
+		return v;
+	}
+	
+	/**
+	 * Simulates the specified number of processing cycles of the specified model from its initial state.
+	 * @param model - The model.
+	 * @param input - The input protocol.
+	 * @param cycles - The number of processing cycles.
+	 * @param v - The array receiving the membrane potential of each cycle, or null.
+	 * @param u - The array receiving the membrane recovery of each cycle, or null.
+	 * @return The number of spikes.
+	 * @throws NullPointerException Thrown if model is null.
+	 */
+	public static int simulate(IzhikevichModel model, InputProtocol input, int cycles, float[] v, float[] u) {
+		return new ModelSimulator(model).run(input, cycles, v, u, 0);
+	}
+	
+	/**
+	 * Returns the membrane recovery.
+	 * @return u.
+	 */
+	public float u() { return u; }
+	
+	/**
+	 * Returns the membrane potential.
+	 * @return v.
+	 */
+	public float v() { return v; }
+}
@@ -0,0 +1,497 @@
+package org.arti.neural.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * <p>public class <b>ModelStore</b><br>
+ * extends {@link Object}<br>
+ * implements {@link AutoCloseable}</p>
+ * 
+ * <p>ModelStore class persists user created neural models in an append-only journal file. Saving or removing a model appends a single
+ * checksummed record and forces it to disk, so each change costs one small write however many models are stored, and a crash can at most
+ * lose the record being written. A write or force that fails truncates the journal back to where the record started, so the partial record
+ * cannot cut off later saves when the journal is replayed. When the store is opened the journal is replayed, and a torn or corrupt record
+ * at its end is cut off. Once superseded records outnumber the live models, the journal is compacted: the live models are written to a
+ * temporary file which atomically replaces the journal. The directory is forced to disk after the rename where the platform allows opening
+ * it, so the journal on disk is either the old or the new one even after a power loss.</p>
+ * 
+ * <p>A record is a line of UTF-8 text ending with an asterisk and the CRC-32 of the text before it. A save record is
+ * <code>P,TYPE,</code> followed by a .mdl model file line, and a remove record is <code>D,TYPE,name</code>.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class ModelStore implements AutoCloseable {
+	/**
+	 * The smallest number of superseded records that triggers a compaction.
+	 */
+	public static final int COMPACT_MIN = 256;
+	
+	// Remove record tag.
+	private static final char REMOVE = 'D';
+	// Save record tag.
+	private static final char SAVE = 'P';
+	// Checksum separator.
+	private static final char CHECKSUM = '*';
+	
+	// The append failure that closed the journal, or null.
+	private IOException failure;
+	// The journal file.
+	private Path file;
+	// The journal channel, or null once closed.
+	private FileChannel journal;
+	// The models of each type, indexed by name in order of first save.
+	private EnumMap<ModelLibrary.Type, LinkedHashMap<String, ModelLibrary.Model>> models;
+	// The number of records in the journal.
+	private int records;
+	// The number of bytes cut off the end of the journal when it was opened.
+	private long truncated;
+	
+	/**
+	 * Opens the model store journaled in the specified file, creating the file if it does not exist, and replays the journal. A torn or
+	 * corrupt record and everything after it is cut off the journal.
+	 * @param file - The journal file.
+	 * @throws IOException Thrown if the journal cannot be read or written.
+	 * @throws NullPointerException Thrown if file is null.
+	 */
+	public ModelStore(Path file) throws IOException {
+		// Check parameters
+		if (file == null)
+			throw new NullPointerException("Error: ModelStore's file cannot be null.");
+		
+		// Initialize variables
+		this.file = file;
+		models = new EnumMap<ModelLibrary.Type, LinkedHashMap<String, ModelLibrary.Model>>(ModelLibrary.Type.class);
+		failure = null;
+		records = 0;
+		truncated = 0;
+		
+		for (ModelLibrary.Type type : ModelLibrary.Type.values())
+			models.put(type, new LinkedHashMap<String, ModelLibrary.Model>());
+		
+		// A temporary file left by a compaction interrupted before its rename is incomplete
+		Files.deleteIfExists(temporaryFile());
+		
+		if (file.getParent() != null)
+			Files.createDirectories(file.getParent());
+		
+		journal = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long valid = replay();
+		truncated = journal.size() - valid;
+		
+		if (truncated > 0) {
+			journal.truncate(valid);
+			journal.force(true);
+		}
+		
+		journal.position(valid);
+		
+		if (isCompactable())
+			rewrite();
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		if (journal != null) {
+			journal.close();
+			journal = null;
+		}
+	}
+	
+	/**
+	 * Rewrites the journal to hold only a save record of every stored model. The models are written to a temporary file, which is forced to
+	 * disk and then atomically renamed over the journal, and the directory is forced to disk where the platform allows it. If the rename
+	 * fails, the old journal is kept open and the store stays usable.
+	 * @throws IOException Thrown if the journal cannot be written.
+	 * @throws IllegalStateException Thrown if the store is closed or a failed write could not be undone.
+	 */
+	public synchronized void compact() throws IOException {
+		checkOpen();
+		rewrite();
+	}
+	
+	/**
+	 * Returns the stored model of the specified type with the specified name.
+	 * @param type - The model type.
+	 * @param name - The model name.
+	 * @return The model, or null if there is no such model.
+	 */
+	public synchronized ModelLibrary.Model find(ModelLibrary.Type type, String name) {
+		return models.get(type).get(name);
+	}
+	
+	/**
+	 * Returns the stored models of the specified type, in order of first save.
+	 * @param type - The model type.
+	 * @return An unmodifiable snapshot of the models.
+	 */
+	public synchronized List<ModelLibrary.Model> models(ModelLibrary.Type type) {
+		return Collections.unmodifiableList(new ArrayList<ModelLibrary.Model>(models.get(type).values()));
+	}
+	
+	/**
+	 * Returns the names of the stored models of the specified type, in order of first save.
+	 * @param type - The model type.
+	 * @return The model names.
+	 */
+	public synchronized String[] names(ModelLibrary.Type type) {
+		return models.get(type).keySet().toArray(new String[0]);
+	}
+	
+	/**
+	 * Returns the number of records in the journal, including superseded ones.
+	 * @return The number of records.
+	 */
+	public synchronized int records() {
+		return records;
+	}
+	
+	/**
+	 * Removes the stored model of the specified type with the specified name, appending a remove record to the journal.
+	 * @param type - The model type.
+	 * @param name - The model name.
+	 * @return True if the model was stored.
+	 * @throws IOException Thrown if the journal cannot be written.
+	 * @throws IllegalStateException Thrown if the store is closed or a failed write could not be undone.
+	 */
+	public synchronized boolean remove(ModelLibrary.Type type, String name) throws IOException {
+		checkOpen();
+		
+		if (!models.get(type).containsKey(name))
+			return false;
+		
+		append(REMOVE + "," + type.name() + "," + name);
+		models.get(type).remove(name);
+		
+		if (isCompactable())
+			compact();
+		
+		return true;
+	}
+	
+	/**
+	 * Saves a model of the specified type, replacing any stored model of the same type and name, by appending a save record to the journal.
+	 * The input current is not stored.
+	 * @param type - The model type.
+	 * @param name - The model name.
+	 * @param parameters - The model parameters, indexed by parameter ordinal.
+	 * @return The stored model.
+	 * @throws IllegalArgumentException Thrown if the name is blank or holds a comma, asterisk or line break, or a parameter is missing.
+	 * @throws IOException Thrown if the journal cannot be written.
+	 * @throws IllegalStateException Thrown if the store is closed or a failed write could not be undone.
+	 */
+	public synchronized ModelLibrary.Model save(ModelLibrary.Type type, String name, float[] parameters) throws IOException {
+		checkOpen();
+		
+		if (name.isBlank() || !name.equals(name.trim()) || name.indexOf(',') >= 0 || name.indexOf(CHECKSUM) >= 0 || name.indexOf('\n') >= 0 ||
+				name.indexOf('\r') >= 0)
+			throw new IllegalArgumentException("Error: ModelStore's model name \"" + name + "\" is not a valid model file name.");
+		
+		if (parameters.length < ModelParameter.MODEL_FILE_PARAMETERS)
+			throw new IllegalArgumentException("Error: ModelStore needs " + ModelParameter.MODEL_FILE_PARAMETERS + " model parameters.");
+		
+		float[] values = new float[ModelParameter.values().length];
+		System.arraycopy(parameters, 0, values, 0, ModelParameter.MODEL_FILE_PARAMETERS);
+		ModelLibrary.Model model = new ModelLibrary.Model(name, type, values);
+		append(saveRecord(model));
+		models.get(type).put(name, model);
+		
+		if (isCompactable())
+			compact();
+		
+		return model;
+	}
+	
+	/**
+	 * Returns the number of stored models of the specified type.
+	 * @param type - The model type.
+	 * @return The number of models.
+	 */
+	public synchronized int size(ModelLibrary.Type type) {
+		return models.get(type).size();
+	}
+	
+	/**
+	 * Returns the number of bytes of torn or corrupt records cut off the end of the journal when the store was opened.
+	 * @return The number of bytes, 0 if the journal was intact.
+	 */
+	public long truncated() {
+		return truncated;
+	}
+	
+	/**
+	 * Appends a record to the journal and forces it to disk. If the write or force fails, the journal is truncated back to its length before
+	 * the append, so a partial record cannot cut off the records saved after it when the journal is replayed. If even the truncation fails,
+	 * the journal is closed and the store refuses further changes.
+	 * @param record - The record text, without checksum.
+	 * @throws IOException Thrown if the journal cannot be written.
+	 */
+	private void append(String record) throws IOException {
+		StringBuilder text = new StringBuilder();
+		appendRecord(text, record);
+		long start = journal.position();
+		
+		try {
+			write(journal, text);
+			journal.force(false);
+		} catch (IOException e) {
+			try {
+				journal.truncate(start);
+				journal.position(start);
+				journal.force(false);
+			} catch (IOException f) {
+				e.addSuppressed(f);
+				failure = e;
+				
+				try {
+					journal.close();
+				} catch (IOException g) {
+					e.addSuppressed(g);
+				}
+				
+				journal = null;
+			}
+			
+			throw e;
+		}
+		
+		records++;
+	}
+	
+	/**
+	 * Appends a record and its checksum line ending to the specified text.
+	 * @param text - The text.
+	 * @param record - The record text, without checksum.
+	 */
+	private static void appendRecord(StringBuilder text, String record) {
+		CRC32 crc = new CRC32();
+		crc.update(record.getBytes(StandardCharsets.UTF_8));
+		text.append(record).append(CHECKSUM).append(String.format("%08x", crc.getValue())).append('\n');
+	}
+	
+	/**
+	 * Checks that the store is open.
+	 * @throws IllegalStateException Thrown if the store is closed or a failed write could not be undone.
+	 */
+	private void checkOpen() {
+		if (failure != null)
+			throw new IllegalStateException("Error: ModelStore's journal " + file + " could not be restored after a failed write.", failure);
+		
+		if (journal == null)
+			throw new IllegalStateException("Error: ModelStore is closed.");
+	}
+	
+	/**
+	 * Forces the directory of the journal to disk, so the rename of a compaction survives a power loss. Platforms that cannot open a
+	 * directory as a channel, such as Windows, are skipped.
+	 */
+	private void forceDirectory() {
+		Path directory = file.toAbsolutePath().getParent();
+		
+		if (directory == null)
+			return;
+		
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Directories cannot be forced on this platform
+		}
+	}
+	
+	/**
+	 * Returns whether superseded records outnumber the stored models and {@value #COMPACT_MIN}.
+	 * @return True if the journal should be compacted.
+	 */
+	private boolean isCompactable() {
+		int live = 0;
+		
+		for (LinkedHashMap<String, ModelLibrary.Model> map : models.values())
+			live += map.size();
+		
+		int superseded = records - live;
+		return superseded >= COMPACT_MIN && superseded > live;
+	}
+	
+	/**
+	 * Applies a journal record, without its checksum, to the stored models.
+	 * @param record - The record text.
+	 * @return True if the record is valid.
+	 */
+	private boolean apply(String record) {
+		String[] part = record.split(",", 3);
+		
+		if (part.length != 3 || part[0].length() != 1)
+			return false;
+		
+		ModelLibrary.Type type;
+		
+		try {
+			type = ModelLibrary.Type.valueOf(part[1]);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		
+		if (part[0].charAt(0) == REMOVE) {
+			models.get(type).remove(part[2]);
+			return true;
+		} else if (part[0].charAt(0) != SAVE) {
+			return false;
+		}
+		
+		int comma = part[2].indexOf(',');
+		
+		if (comma < 0)
+			return false;
+		
+		try {
+			String name = part[2].substring(0, comma);
+			models.get(type).put(name, new ModelLibrary.Model(name, type, ModelParameter.parse(part[2])));
+			return true;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Replays the journal from its start, stopping at the first torn or corrupt record.
+	 * @return The length of the valid records at the start of the journal, in bytes.
+	 * @throws IOException Thrown if the journal cannot be read.
+	 */
+	private long replay() throws IOException {
+		long size = journal.size();
+		
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("Error: ModelStore's journal " + file + " is too large.");
+		
+		ByteBuffer buffer = ByteBuffer.allocate((int)size);
+		
+		while (buffer.hasRemaining()) {
+			if (journal.read(buffer, buffer.position()) < 0)
+				break;
+		}
+		
+		byte[] bytes = buffer.array();
+		CRC32 crc = new CRC32();
+		int start = 0;
+		
+		for (int end = 0; end < buffer.position(); ++end) {
+			if (bytes[end] != '\n')
+				continue;
+			
+			// A record ends with the checksum separator and 8 hex digits
+			int separator = end - 9;
+			
+			if (separator < start || bytes[separator] != CHECKSUM)
+				return start;
+			
+			crc.reset();
+			crc.update(bytes, start, separator - start);
+			long checksum;
+			
+			try {
+				checksum = Long.parseLong(new String(bytes, separator + 1, 8, StandardCharsets.US_ASCII), 16);
+			} catch (NumberFormatException e) {
+				return start;
+			}
+			
+			if (checksum != crc.getValue() || !apply(new String(bytes, start, separator - start, StandardCharsets.UTF_8)))
+				return start;
+			
+			records++;
+			start = end + 1;
+		}
+		
+		return start;
+	}
+	
+	/**
+	 * Rewrites the journal to hold only a save record of every stored model, as described by {@link #compact()}. The journal must be open.
+	 * The constructor calls this directly, so no overridable method runs before the store is fully constructed.
+	 * @throws IOException Thrown if the journal cannot be written.
+	 */
+	private void rewrite() throws IOException {
+		Path temporary = temporaryFile();
+		int count = 0;
+		
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE)) {
+			StringBuilder text = new StringBuilder();
+			
+			for (ModelLibrary.Type type : ModelLibrary.Type.values()) {
+				for (ModelLibrary.Model model : models.get(type).values()) {
+					appendRecord(text, saveRecord(model));
+					count++;
+				}
+			}
+			
+			write(channel, text);
+			channel.force(true);
+		}
+		
+		// The journal is closed for the rename, as some platforms cannot replace an open file
+		journal.close();
+		journal = null;
+		
+		try {
+			Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			records = count;
+			forceDirectory();
+		}
+		finally {
+			// Reopen whichever journal is in place, so a failed rename leaves the store usable
+			Files.deleteIfExists(temporary);
+			journal = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			journal.position(journal.size());
+		}
+	}
+	
+	/**
+	 * Returns the save record of the specified model, a model file line prefixed with the record tag and model type.
+	 * @param model - The model.
+	 * @return The record text, without checksum.
+	 */
+	private static String saveRecord(ModelLibrary.Model model) {
+		StringBuilder record = new StringBuilder();
+		record.append(SAVE).append(',').append(model.type().name()).append(',').append(model.name());
+		
+		for (int i = 0; i < ModelParameter.MODEL_FILE_PARAMETERS; ++i)
+			record.append(',').append(model.get(ModelParameter.values()[i]));
+		
+		return record.toString();
+	}
+	
+	/**
+	 * Returns the temporary file a compaction writes before renaming it over the journal.
+	 * @return The temporary file.
+	 */
+	private Path temporaryFile() {
+		return file.resolveSibling(file.getFileName() + ".tmp");
+	}
+	
+	/**
+	 * Writes the specified text to a channel at its position.
+	 * @param channel - The channel.
+	 * @param text - The text.
+	 * @throws IOException Thrown if the text cannot be written.
+	 */
+	private static void write(FileChannel channel, StringBuilder text) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+		
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+}
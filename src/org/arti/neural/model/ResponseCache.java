@@ -0,0 +1,651 @@
+package org.arti.neural.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.arti.neural.record.XorFloatCodec;
+
+/**
+ * <p>public class <b>ResponseCache</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>ResponseCache class memoizes simulated model responses. Responses are keyed by the model parameters, the input protocol and the
+ * number of processing cycles, and hold the XOR compressed membrane potential and recovery traces and the spike times. The cache is
+ * consulted before simulating: {@link #response} returns a cached response or simulates, stores and returns a new one. The least recently
+ * used responses are evicted once the compressed size exceeds the memory limit.</p>
+ * 
+ * <p>If a cache directory is given, the responses returned by {@link #response} are also written to a file in the directory, named after
+ * the hash of its key, and responses missing from memory are read back from the directory, so a restarted application replays earlier
+ * responses without simulating them. Responses added with {@link #put} can be kept in memory only, so short lived responses such as the
+ * previews of a dragged slider do not fill the directory. The size of the directory is tracked in memory, and the directory is only scanned
+ * to delete the least recently used files once it exceeds its size limit. Files are written to a temporary file first and atomically
+ * renamed, so an interrupted write never leaves a corrupt entry. Files are read and written outside of the lock of the memory cache, so
+ * a slow disk never blocks lookups. ResponseCache is thread safe.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class ResponseCache {
+	// Cache file magic value ("ARTIRESP").
+	private static final long MAGIC = 0x5053455249545241L;
+	// Cache file format version.
+	private static final int VERSION = 1;
+	// Cache file extension.
+	private static final String EXTENSION = ".resp";
+	// Estimated memory used by a response besides its traces, in bytes.
+	private static final int ENTRY_OVERHEAD = 128;
+	
+	/**
+	 * <p>public static final class <b>Response</b><br>
+	 * extends {@link Object}</p>
+	 * 
+	 * <p>Response class holds a compressed simulated response.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public static final class Response {
+		// The number of processing cycles.
+		private int cycles;
+		// The simulated model.
+		private IzhikevichModel model;
+		// The input protocol.
+		private InputProtocol input;
+		// True if the response is written to the cache directory.
+		private boolean persisted;
+		// The spike cycles.
+		private int[] spikeTimes;
+		// The compressed membrane recovery.
+		private ByteBuffer u;
+		// The compressed membrane potential.
+		private ByteBuffer v;
+		
+		/**
+		 * Creates a Response.
+		 * @param model - The simulated model.
+		 * @param input - The input protocol.
+		 * @param cycles - The number of processing cycles.
+		 * @param spikeTimes - The spike cycles.
+		 * @param v - The compressed membrane potential.
+		 * @param u - The compressed membrane recovery.
+		 */
+		private Response(IzhikevichModel model, InputProtocol input, int cycles, int[] spikeTimes, ByteBuffer v, ByteBuffer u) {
+			this.model = model;
+			this.input = input;
+			this.cycles = cycles;
+			this.spikeTimes = spikeTimes;
+			this.v = v;
+			this.u = u;
+			persisted = false;
+		}
+		
+		/**
+		 * Returns the number of processing cycles.
+		 * @return The number of processing cycles.
+		 */
+		public int cycles() { return cycles; }
+		
+		/**
+		 * Decodes the membrane potential and recovery of every processing cycle into the specified arrays, either of which may be null.
+		 * @param vOut - The array receiving the membrane potential, or null.
+		 * @param uOut - The array receiving the membrane recovery, or null.
+		 */
+		public void decode(float[] vOut, float[] uOut) {
+			if (vOut != null)
+				XorFloatCodec.decode(v, 0, vOut, cycles);
+			
+			if (uOut != null)
+				XorFloatCodec.decode(u, 0, uOut, cycles);
+		}
+		
+		/**
+		 * Returns the input protocol.
+		 * @return The input protocol.
+		 */
+		public InputProtocol input() { return input; }
+		
+		/**
+		 * Returns the simulated model.
+		 * @return The model.
+		 */
+		public IzhikevichModel model() { return model; }
+		
+		/**
+		 * Returns the cycle of the specified spike.
+		 * @param index - The index of the spike.
+		 * @return The spike cycle.
+		 * @throws IndexOutOfBoundsException Thrown if index is out of bounds.
+		 */
+		public int spikeTime(int index) { return spikeTimes[index]; }
+		
+		/**
+		 * Returns the number of spikes.
+		 * @return The number of spikes.
+		 */
+		public int spikes() { return spikeTimes.length; }
+		
+		/**
+		 * Returns the estimated memory used by the response in bytes.
+		 * @return The size in bytes.
+		 */
+		private long bytes() {
+			return ENTRY_OVERHEAD + v.capacity() + u.capacity() + 4L * spikeTimes.length;
+		}
+	}
+	
+	/**
+	 * <p>private static final class <b>Key</b><br>
+	 * extends {@link Object}</p>
+	 * 
+	 * <p>Key class identifies a response by its model, input protocol and number of processing cycles.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	private static final class Key {
+		// The number of processing cycles.
+		private int cycles;
+		// The input protocol.
+		private InputProtocol input;
+		// The model.
+		private IzhikevichModel model;
+		
+		/**
+		 * Creates a Key.
+		 * @param model - The model.
+		 * @param input - The input protocol.
+		 * @param cycles - The number of processing cycles.
+		 */
+		private Key(IzhikevichModel model, InputProtocol input, int cycles) {
+			this.model = model;
+			this.input = input;
+			this.cycles = cycles;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			
+			Key other = (Key)obj;
+			return cycles == other.cycles && model.equals(other.model) && input.equals(other.input);
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * (31 * model.hashCode() + input.hashCode()) + cycles;
+		}
+	}
+	
+	// The compressed size of the responses in memory in bytes.
+	private long bytes;
+	// The cache directory, or null if responses are kept in memory only.
+	private Path directory;
+	// The size of the files in the cache directory in bytes.
+	private long diskBytes;
+	// The lock of the cache directory.
+	private Object diskLock;
+	// The number of lookups answered from the cache.
+	private long hits;
+	// The maximum compressed size of the responses in memory in bytes.
+	private long maxBytes;
+	// The maximum size of the cache directory in bytes.
+	private long maxDiskBytes;
+	// The number of lookups not answered from the cache.
+	private long misses;
+	// The responses in memory, least recently used first.
+	private LinkedHashMap<Key, Response> responses;
+	
+	/**
+	 * Creates a ResponseCache keeping responses in memory only.
+	 * @param maxBytes - The maximum compressed size of the responses in memory in bytes.
+	 * @throws IllegalArgumentException Thrown if maxBytes is not positive.
+	 */
+	public ResponseCache(long maxBytes) {
+		// Check parameters
+		if (maxBytes <= 0)
+			throw new IllegalArgumentException("Error: ResponseCache's memory limit must be positive.");
+		
+		// Initialize variables
+		this.maxBytes = maxBytes;
+		bytes = 0;
+		directory = null;
+		diskBytes = 0;
+		diskLock = new Object();
+		hits = 0;
+		maxDiskBytes = 0;
+		misses = 0;
+		responses = new LinkedHashMap<Key, Response>(16, 0.75f, true);
+	}
+	
+	/**
+	 * Creates a ResponseCache keeping responses in memory and in the specified cache directory, which is created if needed. The least
+	 * recently used files are deleted if the directory exceeds maxDiskBytes.
+	 * @param maxBytes - The maximum compressed size of the responses in memory in bytes.
+	 * @param directory - The cache directory.
+	 * @param maxDiskBytes - The maximum size of the cache directory in bytes.
+	 * @throws IllegalArgumentException Thrown if maxBytes or maxDiskBytes is not positive.
+	 * @throws IOException Thrown if the cache directory cannot be created or read.
+	 */
+	public ResponseCache(long maxBytes, Path directory, long maxDiskBytes) throws IOException {
+		this(maxBytes);
+		
+		// Check parameters
+		if (maxDiskBytes <= 0)
+			throw new IllegalArgumentException("Error: ResponseCache's directory size limit must be positive.");
+		
+		// Initialize variables
+		this.directory = directory;
+		this.maxDiskBytes = maxDiskBytes;
+		Files.createDirectories(directory);
+		trimDirectory();
+	}
+	
+	/**
+	 * Returns the compressed size of the responses in memory in bytes.
+	 * @return The size in bytes.
+	 */
+	public synchronized long bytes() {
+		return bytes;
+	}
+	
+	/**
+	 * Removes all responses from memory. Files in the cache directory are kept.
+	 */
+	public synchronized void clear() {
+		responses.clear();
+		bytes = 0;
+	}
+	
+	/**
+	 * Returns the cached response of the specified model to the specified input protocol if it is in memory. The cache directory is not
+	 * read, so the lookup never waits on the disk.
+	 * @param model - The model.
+	 * @param input - The input protocol.
+	 * @param cycles - The number of processing cycles.
+	 * @return The response, or null if it is not in memory.
+	 */
+	public synchronized Response cached(IzhikevichModel model, InputProtocol input, int cycles) {
+		Response response = responses.get(new Key(model, input, cycles));
+		
+		if (response != null)
+			hits++;
+		else
+			misses++;
+		
+		return response;
+	}
+	
+	/**
+	 * Returns the cached response of the specified model to the specified input protocol, reading it from the cache directory if it is not
+	 * in memory.
+	 * @param model - The model.
+	 * @param input - The input protocol.
+	 * @param cycles - The number of processing cycles.
+	 * @return The response, or null if it is not cached.
+	 */
+	public Response get(IzhikevichModel model, InputProtocol input, int cycles) {
+		Key key = new Key(model, input, cycles);
+		Response response;
+		
+		synchronized (this) {
+			response = responses.get(key);
+			
+			if (response != null) {
+				hits++;
+				return response;
+			}
+		}
+		
+		// Read the cache directory outside of the lock
+		if (directory != null) {
+			synchronized (diskLock) {
+				response = load(key);
+			}
+		}
+		
+		synchronized (this) {
+			if (response != null) {
+				store(key, response);
+				hits++;
+			}
+			else {
+				misses++;
+			}
+		}
+		
+		return response;
+	}
+	
+	/**
+	 * Returns the number of lookups answered from the cache.
+	 * @return The number of hits.
+	 */
+	public synchronized long hits() {
+		return hits;
+	}
+	
+	/**
+	 * Returns the number of lookups not answered from the cache.
+	 * @return The number of misses.
+	 */
+	public synchronized long misses() {
+		return misses;
+	}
+	
+	/**
+	 * Compresses and caches the specified response, writing it to the cache directory if there is one.
+	 * @param model - The model.
+	 * @param input - The input protocol.
+	 * @param cycles - The number of processing cycles.
+	 * @param v - The membrane potential of each processing cycle.
+	 * @param u - The membrane recovery of each processing cycle.
+	 * @return The cached response.
+	 * @throws IllegalArgumentException Thrown if cycles is less than 1 or v or u holds fewer values.
+	 */
+	public Response put(IzhikevichModel model, InputProtocol input, int cycles, float[] v, float[] u) {
+		return put(model, input, cycles, v, u, true);
+	}
+	
+	/**
+	 * Compresses and caches the specified response. The membrane potential is expected to be clipped to the spike peak on spike cycles, as
+	 * written by {@link ModelSimulator}, so the spike times are the cycles reaching the peak. A response kept in memory only is written to
+	 * the cache directory once it is returned by {@link #response}.
+	 * @param model - The model.
+	 * @param input - The input protocol.
+	 * @param cycles - The number of processing cycles.
+	 * @param v - The membrane potential of each processing cycle.
+	 * @param u - The membrane recovery of each processing cycle.
+	 * @param persist - True to write the response to the cache directory, false to keep it in memory only.
+	 * @return The cached response.
+	 * @throws IllegalArgumentException Thrown if cycles is less than 1 or v or u holds fewer values.
+	 */
+	public Response put(IzhikevichModel model, InputProtocol input, int cycles, float[] v, float[] u, boolean persist) {
+		if (cycles < 1 || v.length < cycles || u.length < cycles)
+			throw new IllegalArgumentException("Error: ResponseCache response must hold at least one processing cycle.");
+		
+		// Compress outside of the lock
+		int spikes = 0;
+		
+		for (int i = 0; i < cycles; ++i) {
+			if (v[i] >= model.vp())
+				spikes++;
+		}
+		
+		int[] spikeTimes = new int[spikes];
+		
+		for (int i = 0, j = 0; i < cycles; ++i) {
+			if (v[i] >= model.vp())
+				spikeTimes[j++] = i;
+		}
+		
+		XorFloatCodec codec = new XorFloatCodec();
+		ByteBuffer buffer = ByteBuffer.allocate(cycles * 9 + 8);
+		codec.encode(v, 0, cycles, buffer);
+		ByteBuffer vData = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.position()));
+		buffer.clear();
+		codec.encode(u, 0, cycles, buffer);
+		ByteBuffer uData = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.position()));
+		Response response = new Response(model, input, cycles, spikeTimes, vData, uData);
+		Key key = new Key(model, input, cycles);
+		
+		synchronized (this) {
+			store(key, response);
+		}
+		
+		if (persist)
+			persist(key, response);
+		
+		return response;
+	}
+	
+	/**
+	 * Returns the cached response of the specified model to the specified input protocol, simulating and caching it if it is not cached.
+	 * The response is written to the cache directory if it is not written yet.
+	 * @param model - The model.
+	 * @param input - The input protocol.
+	 * @param cycles - The number of processing cycles.
+	 * @return The response.
+	 * @throws IllegalArgumentException Thrown if cycles is less than 1.
+	 */
+	public Response response(IzhikevichModel model, InputProtocol input, int cycles) {
+		Response response = get(model, input, cycles);
+		
+		if (response == null) {
+			float[] v = new float[cycles];
+			float[] u = new float[cycles];
+			ModelSimulator.simulate(model, input, cycles, v, u);
+			response = put(model, input, cycles, v, u, true);
+		}
+		else {
+			persist(new Key(model, input, cycles), response);
+		}
+		
+		return response;
+	}
+	
+	/**
+	 * Returns the number of responses in memory.
+	 * @return The number of responses.
+	 */
+	public synchronized int size() {
+		return responses.size();
+	}
+	
+	/**
+	 * Returns the cache file of the specified key, named after a 64 bit hash of the key.
+	 * @param key - The key.
+	 * @return The cache file.
+	 */
+	private Path file(Key key) {
+		ByteBuffer bytes = keyBytes(key);
+		long hash = 0xCBF29CE484222325L;
+		
+		for (int i = 0; i < bytes.limit(); ++i)
+			hash = (hash ^ (bytes.get(i) & 0xFF)) * 0x100000001B3L;
+		
+		return directory.resolve(String.format("%016x", hash) + EXTENSION);
+	}
+	
+	/**
+	 * Returns the serialized form of the specified key.
+	 * @param key - The key.
+	 * @return The key bytes.
+	 */
+	private static ByteBuffer keyBytes(Key key) {
+		IzhikevichModel model = key.model;
+		InputProtocol input = key.input;
+		ByteBuffer bytes = ByteBuffer.allocate(72).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.putInt(model.form().ordinal());
+		bytes.putFloat(model.a()).putFloat(model.b()).putFloat(model.c()).putFloat(model.d());
+		bytes.putFloat(model.C()).putFloat(model.k()).putFloat(model.vp()).putFloat(model.vr()).putFloat(model.vt());
+		bytes.putFloat(model.vinit()).putFloat(model.uinit());
+		bytes.putFloat(input.baseCurrent()).putFloat(input.stepCurrent()).putInt(input.onset()).putInt(input.width());
+		bytes.putInt(key.cycles);
+		bytes.flip();
+		return bytes;
+	}
+	
+	/**
+	 * Reads the response of the specified key from the cache directory.
+	 * @param key - The key.
+	 * @return The response, or null if the file does not exist, is unreadable or belongs to another key.
+	 */
+	private Response load(Key key) {
+		Path path = file(key);
+		
+		try {
+			if (!Files.exists(path))
+				return null;
+			
+			ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+			
+			if (file.getLong() != MAGIC || file.getInt() != VERSION)
+				return null;
+			
+			// Check the key, files of colliding keys are ignored
+			ByteBuffer expected = keyBytes(key);
+			ByteBuffer stored = file.slice(file.position(), expected.limit());
+			
+			if (!stored.equals(expected))
+				return null;
+			
+			file.position(file.position() + expected.limit());
+			int[] spikeTimes = new int[file.getInt()];
+			
+			for (int i = 0; i < spikeTimes.length; ++i)
+				spikeTimes[i] = file.getInt();
+			
+			byte[] v = new byte[file.getInt()];
+			file.get(v);
+			byte[] u = new byte[file.getInt()];
+			file.get(u);
+			
+			// Mark the file as recently used
+			Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+			Response response = new Response(key.model, key.input, key.cycles, spikeTimes, ByteBuffer.wrap(v), ByteBuffer.wrap(u));
+			response.persisted = true;
+			return response;
+		} catch (IOException | RuntimeException e) {
+			// A damaged file is a cache miss
+			return null;
+		}
+	}
+	
+	/**
+	 * Writes the response of the specified key to the cache directory, unless there is no cache directory or the response is written
+	 * already.
+	 * @param key - The key.
+	 * @param response - The response.
+	 */
+	private void persist(Key key, Response response) {
+		if (directory == null)
+			return;
+		
+		synchronized (diskLock) {
+			if (!response.persisted)
+				save(key, response);
+		}
+	}
+	
+	/**
+	 * Writes the response of the specified key to the cache directory. Failures are ignored, the response stays cached in memory. The caller
+	 * holds the lock of the cache directory.
+	 * @param key - The key.
+	 * @param response - The response.
+	 */
+	private void save(Key key, Response response) {
+		ByteBuffer keyBytes = keyBytes(key);
+		ByteBuffer file = ByteBuffer.allocate(12 + keyBytes.limit() + 4 + 4 * response.spikeTimes.length + 4 + response.v.capacity() + 4 +
+				response.u.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+		file.putLong(MAGIC);
+		file.putInt(VERSION);
+		file.put(keyBytes);
+		file.putInt(response.spikeTimes.length);
+		
+		for (int i = 0; i < response.spikeTimes.length; ++i)
+			file.putInt(response.spikeTimes[i]);
+		
+		file.putInt(response.v.capacity());
+		file.put(response.v.duplicate().clear());
+		file.putInt(response.u.capacity());
+		file.put(response.u.duplicate().clear());
+		
+		Path path = file(key);
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		
+		try {
+			long replaced = Files.exists(path) ? Files.size(path) : 0;
+			Files.write(temp, file.array());
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			response.persisted = true;
+			diskBytes += file.capacity() - replaced;
+			
+			// Only scan the directory once it exceeds its size limit
+			if (diskBytes > maxDiskBytes)
+				trimDirectory();
+		} catch (IOException e) {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException e2) {
+				// Nothing left to clean up
+			}
+		}
+	}
+	
+	/**
+	 * Adds the specified response to memory and evicts the least recently used responses above the memory limit.
+	 * @param key - The key.
+	 * @param response - The response.
+	 */
+	private void store(Key key, Response response) {
+		Response old = responses.put(key, response);
+		
+		if (old != null)
+			bytes -= old.bytes();
+		
+		bytes += response.bytes();
+		Iterator<Map.Entry<Key, Response>> eldest = responses.entrySet().iterator();
+		
+		while (bytes > maxBytes && responses.size() > 1) {
+			bytes -= eldest.next().getValue().bytes();
+			eldest.remove();
+		}
+	}
+	
+	/**
+	 * Recounts the size of the cache directory and, if it exceeds its size limit, deletes the least recently used files until it is down to
+	 * three quarters of the limit, so the next scan is many responses away.
+	 * @throws IOException Thrown if the cache directory cannot be read.
+	 */
+	private void trimDirectory() throws IOException {
+		ArrayList<Path> files = new ArrayList<Path>();
+		long total = 0;
+		
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+			for (Path path : stream) {
+				files.add(path);
+				total += Files.size(path);
+			}
+		}
+		
+		diskBytes = total;
+		
+		if (total <= maxDiskBytes)
+			return;
+		
+		ArrayList<FileTime> times = new ArrayList<FileTime>();
+		
+		for (Path path : files)
+			times.add(Files.getLastModifiedTime(path));
+		
+		// Sort oldest first
+		Integer[] order = new Integer[files.size()];
+		
+		for (int i = 0; i < order.length; ++i)
+			order[i] = i;
+		
+		Arrays.sort(order, (x, y) -> times.get(x).compareTo(times.get(y)));
+		
+		for (int i = 0; i < order.length && total > maxDiskBytes - maxDiskBytes / 4; ++i) {
+			Path path = files.get(order[i]);
+			total -= Files.size(path);
+			Files.deleteIfExists(path);
+			diskBytes = total;
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package org.arti.neural.network;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>public class <b>CalendarQueue</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>CalendarQueue class is a priority queue of events ordered by processing step, using the calendar queue of Brown (1988). Events are
+ * hashed by step into a ring of buckets, each bucket one day wide, so adding an event costs O(1) amortized and polling the events of the
+ * next step only looks at the bucket of that step. The number of buckets is doubled or halved as the queue grows or shrinks, and the day
+ * width is chosen from a sample of the queued steps, so most queued events fall within one year of the ring. Events of the same step are
+ * polled in the order they were added. CalendarQueue is not thread safe.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class CalendarQueue {
+	// The smallest number of buckets.
+	private static final int MIN_BUCKETS = 16;
+	// The number of queued steps sampled to choose the day width.
+	private static final int SAMPLE_EVENTS = 64;
+	
+	// The number of events in each bucket.
+	private int[] bucketSize;
+	// The steps of the events in each bucket.
+	private long[][] bucketStep;
+	// The values of the events in each bucket.
+	private int[][] bucketValue;
+	// The number of buckets minus one. The number of buckets is a power of two.
+	private int mask;
+	// The step of the last polled events. Events cannot be added before this step.
+	private long now;
+	// The number of queued events.
+	private int size;
+	// The number of steps in one bucket.
+	private long width;
+	
+	/**
+	 * Default constructor. Creates an empty CalendarQueue starting at step 0.
+	 */
+	public CalendarQueue() {
+		// Initialize variables
+		now = 0L;
+		size = 0;
+		width = 1L;
+		allocate(MIN_BUCKETS);
+	}
+	
+	/**
+	 * Adds an event with the specified value on the specified step.
+	 * @param step - The processing step of the event.
+	 * @param value - The event value.
+	 * @throws IllegalArgumentException Thrown if step is before the step of the last polled events.
+	 */
+	public void add(long step, int value) {
+		if (step < now)
+			throw new IllegalArgumentException("Error: Cannot add an event at step " + step + " before step " + now + ".");
+		
+		insert(step, value);
+		size++;
+		
+		if (size > 2 * (mask + 1))
+			resize(2 * (mask + 1));
+	}
+	
+	/**
+	 * Removes all events and returns the queue to step 0.
+	 */
+	public void clear() {
+		now = 0L;
+		size = 0;
+		width = 1L;
+		allocate(MIN_BUCKETS);
+	}
+	
+	/**
+	 * Returns whether the queue has no events.
+	 * @return True if the queue is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Returns the step of the earliest queued event.
+	 * @return The step of the earliest event, or {@link Long#MAX_VALUE} if the queue is empty.
+	 */
+	public long nextStep() {
+		if (size == 0)
+			return Long.MAX_VALUE;
+		
+		// Search one year of buckets starting from the current day
+		long day = Math.floorDiv(now, width);
+		
+		for (int i = 0; i <= mask; ++i, ++day) {
+			int bucket = (int)day & mask;
+			long top = (day + 1) * width;
+			long next = Long.MAX_VALUE;
+			
+			for (int j = 0; j < bucketSize[bucket]; ++j) {
+				if (bucketStep[bucket][j] < top)
+					next = Math.min(next, bucketStep[bucket][j]);
+			}
+			
+			if (next != Long.MAX_VALUE)
+				return next;
+		}
+		
+		// All events are more than one year ahead, so search all buckets directly
+		long next = Long.MAX_VALUE;
+		
+		for (int bucket = 0; bucket <= mask; ++bucket) {
+			for (int j = 0; j < bucketSize[bucket]; ++j)
+				next = Math.min(next, bucketStep[bucket][j]);
+		}
+		
+		return next;
+	}
+	
+	/**
+	 * Returns the step of the last polled events. Events cannot be added before this step.
+	 * @return The current step.
+	 */
+	public long now() {
+		return now;
+	}
+	
+	/**
+	 * Removes all events on or before the specified step, passing their values to the specified action in order of step, and events of the
+	 * same step in the order they were added.
+	 * @param step - The processing step to poll up to.
+	 * @param action - The action receiving the event values.
+	 * @return The number of polled events.
+	 * @throws IllegalArgumentException Thrown if step is before the step of the last polled events.
+	 */
+	public int poll(long step, IntConsumer action) {
+		if (step < now)
+			throw new IllegalArgumentException("Error: Cannot poll step " + step + " before step " + now + ".");
+		
+		int polled = 0;
+		long next;
+		
+		while ((next = nextStep()) <= step) {
+			// Remove the events of the next step, keeping the order of the remaining events
+			int bucket = (int)Math.floorDiv(next, width) & mask;
+			long[] steps = bucketStep[bucket];
+			int[] values = bucketValue[bucket];
+			int kept = 0;
+			
+			for (int j = 0; j < bucketSize[bucket]; ++j) {
+				if (steps[j] == next) {
+					action.accept(values[j]);
+					polled++;
+				}
+				else {
+					steps[kept] = steps[j];
+					values[kept] = values[j];
+					kept++;
+				}
+			}
+			
+			size -= bucketSize[bucket] - kept;
+			bucketSize[bucket] = kept;
+			now = next;
+		}
+		
+		now = step;
+		
+		if (size < (mask + 1) / 2 && mask + 1 > MIN_BUCKETS)
+			resize((mask + 1) / 2);
+		
+		return polled;
+	}
+	
+	/**
+	 * Returns the number of queued events.
+	 * @return The number of events.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Allocates the specified number of empty buckets.
+	 * @param buckets - The number of buckets, a power of two.
+	 */
+	private void allocate(int buckets) {
+		bucketSize = new int[buckets];
+		bucketStep = new long[buckets][];
+		bucketValue = new int[buckets][];
+		mask = buckets - 1;
+		
+		for (int i = 0; i < buckets; ++i) {
+			bucketStep[i] = new long[2];
+			bucketValue[i] = new int[2];
+		}
+	}
+	
+	/**
+	 * Appends an event to the end of the bucket of its step.
+	 * @param step - The processing step of the event.
+	 * @param value - The event value.
+	 */
+	private void insert(long step, int value) {
+		int bucket = (int)Math.floorDiv(step, width) & mask;
+		int n = bucketSize[bucket];
+		
+		if (n == bucketStep[bucket].length) {
+			bucketStep[bucket] = Arrays.copyOf(bucketStep[bucket], 2 * n);
+			bucketValue[bucket] = Arrays.copyOf(bucketValue[bucket], 2 * n);
+		}
+		
+		bucketStep[bucket][n] = step;
+		bucketValue[bucket][n] = value;
+		bucketSize[bucket] = n + 1;
+	}
+	
+	/**
+	 * Rehashes all events into the specified number of buckets with a day width chosen from a sample of the queued steps. Events of the same
+	 * step share a bucket before and after, so their order is kept.
+	 * @param buckets - The new number of buckets, a power of two.
+	 */
+	private void resize(int buckets) {
+		int[] oldSize = bucketSize;
+		long[][] oldStep = bucketStep;
+		int[][] oldValue = bucketValue;
+		
+		// Sample the queued steps evenly
+		long[] sample = new long[Math.min(size, SAMPLE_EVENTS)];
+		int stride = Math.max(1, size / SAMPLE_EVENTS);
+		int n = 0;
+		int k = 0;
+		
+		for (int bucket = 0; bucket < oldSize.length && n < sample.length; ++bucket) {
+			for (int j = 0; j < oldSize[bucket] && n < sample.length; ++j, ++k) {
+				if (k % stride == 0)
+					sample[n++] = oldStep[bucket][j];
+			}
+		}
+		
+		// Make one year span the steps of all but the furthest tenth of the sample, ignoring far-off outliers
+		if (n > 1) {
+			Arrays.sort(sample, 0, n);
+			long span = sample[(n - 1) * 9 / 10] - sample[0] + 1;
+			width = Math.max(1L, (span + buckets - 1) / buckets);
+		}
+		
+		allocate(buckets);
+		
+		for (int bucket = 0; bucket < oldSize.length; ++bucket) {
+			for (int j = 0; j < oldSize[bucket]; ++j)
+				insert(oldStep[bucket][j], oldValue[bucket][j]);
+		}
+	}
+}
@@ -0,0 +1,720 @@
+package org.arti.neural.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.IntConsumer;
+
+import org.arti.neural.NeuralSystem;
+import org.arti.neural.TreeSum;
+import org.arti.neural.node.ActivityTracker;
+import org.arti.neural.node.NeuralNodeArray;
+import org.arti.neural.node.NodeData;
+import org.arti.neural.record.SpikeRecorder;
+
+/**
+ * <p>public class <b>NeuralNetwork</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>NeuralNetwork class connects populations of neural nodes, each a {@link NeuralNodeArray}, with delayed synapses and processes them
+ * together one 1 ms cycle at a time. A spike of a presynaptic neural node adds the synapse weight to the input current of the postsynaptic
+ * neural node on the cycle the synapse delay later. Spikes are delivered through a {@link CalendarQueue} of spike events.</p>
+ * 
+ * <p>In {@link ExecutionMode#CLOCK_DRIVEN} mode every neural node is processed on every cycle. In {@link ExecutionMode#EVENT_DRIVEN} mode each
+ * population is given an {@link ActivityTracker}, so only neural nodes that received input and have not yet settled back to rest are
+ * integrated, spikes and input currents are only visited for those neural nodes, and stretches of cycles in which every neural node is settled
+ * and no spike event is due are skipped entirely by {@link #process(long)}. A population that stays densely active in event-driven mode falls
+ * back to clock-driven processing, where it has no tracking overhead, and returns to event-driven processing once its activity becomes
+ * sparse again.</p>
+ * 
+ * <p>When the NeuralSystem is deterministic, the spike events due on a cycle are gathered per postsynaptic neural node before delivery, and
+ * the weights delivered to each neural node are summed by {@link TreeSum} in the order its synapses were connected, so the input current of
+ * a neural node does not depend on the order the spikes were queued in.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class NeuralNetwork {
+	/**
+	 * The default synapse delay in processing cycles.
+	 */
+	public static final int DEF_DELAY = 1;
+	/**
+	 * The fraction of awake neural nodes above which an event-driven population falls back to clock-driven processing.
+	 */
+	public static final float DENSE_FRACTION = 0.5f;
+	/**
+	 * The fraction of recently active neural nodes below which a clock-driven population returns to event-driven processing.
+	 */
+	public static final float SPARSE_FRACTION = 0.25f;
+	/**
+	 * The number of processing cycles between checks of population activity.
+	 */
+	public static final int CHECK_CYCLES = 100;
+	
+	/**
+	 * <p>public enum <b>ExecutionMode</b></p>
+	 * 
+	 * <p>ExecutionMode enum lists the ways a NeuralNetwork can advance its populations.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public enum ExecutionMode {
+		/**
+		 * Process every neural node on every cycle.
+		 */
+		CLOCK_DRIVEN,
+		/**
+		 * Process only neural nodes that received input and have not settled, skipping idle cycles, with clock-driven processing for densely
+		 * active populations.
+		 */
+		EVENT_DRIVEN
+	}
+	
+	/**
+	 * <p>private static final class <b>Population</b><br>
+	 * extends {@link Object}</p>
+	 * 
+	 * <p>Population class holds a neural node array of the network with its outgoing synapses and activity state.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	private static final class Population {
+		// The neural node array.
+		private NeuralNodeArray array;
+		// Clock-driven flag. Clock-driven populations process all neural nodes.
+		private boolean clocked;
+		// The last cycle each block of neural nodes received input or spiked, used while clock-driven.
+		private long[] lastActive;
+		// The number of neural nodes when the synapses were last indexed.
+		private int nodes;
+		// The outgoing synapses of each neural node, indexed by outStart.
+		private int[] out;
+		// The start of the outgoing synapses of each neural node in out.
+		private int[] outStart;
+		// The activity tracker used while event-driven.
+		private ActivityTracker tracker;
+		
+		/**
+		 * Creates a Population of the specified neural node array.
+		 * @param array - The neural node array.
+		 */
+		private Population(NeuralNodeArray array) {
+			this.array = array;
+			clocked = true;
+			lastActive = new long[0];
+			nodes = -1;
+			out = new int[0];
+			outStart = new int[1];
+			tracker = new ActivityTracker();
+		}
+	}
+	
+	// The number of processing cycles run or skipped.
+	private long cycle;
+	// The action delivering a polled spike event.
+	private IntConsumer deliver;
+	// Synapses need to be indexed flag.
+	private boolean dirty;
+	// The synapses due on this cycle, gathered in deterministic mode.
+	private int[] due;
+	// The number of synapses due on this cycle.
+	private int dueCount;
+	// The first gathered synapse of each neural node in due, or -1, with the neural nodes numbered by nodeOffset.
+	private int[] dueHead;
+	// The next gathered synapse in due of the same neural node, or -1.
+	private int[] dueNext;
+	// The number of processing cycles skipped because the network was idle.
+	private long idleCycles;
+	// The execution mode.
+	private ExecutionMode mode;
+	// The NeuralSystem controlling the processing of neural nodes and networks.
+	private NeuralSystem neuralSystem;
+	// The number of the first neural node of each population, or null if the NeuralSystem was not deterministic when indexed.
+	private int[] nodeOffset;
+	// The populations in the order they are processed.
+	private ArrayList<Population> populations;
+	// The index of each population's neural node array.
+	private HashMap<NeuralNodeArray, Integer> populationIndex;
+	// The queue of spike events, each the index of the synapse delivering it.
+	private CalendarQueue queue;
+	// The spike recorder, or null.
+	private SpikeRecorder recorder;
+	// The synapses delivering to one neural node on this cycle, sorted in deterministic mode.
+	private int[] sorted;
+	// The number of synapses.
+	private int synapses;
+	// The synapse delays in processing cycles.
+	private int[] synDelay;
+	// The postsynaptic neural IDs.
+	private long[] synPost;
+	// The postsynaptic neural node indexes, resolved when the synapses are indexed.
+	private int[] synPostIndex;
+	// The postsynaptic population indexes, resolved when the synapses are indexed, or -1 if a neural node was removed.
+	private int[] synPostPopulation;
+	// The presynaptic neural IDs.
+	private long[] synPre;
+	// The synapse weights added to the postsynaptic input current.
+	private float[] synWeight;
+	// The neural nodes with gathered synapses on this cycle.
+	private int[] touched;
+	// The number of neural nodes with gathered synapses on this cycle.
+	private int touchedCount;
+	// The weights delivered to one neural node on this cycle, summed in deterministic mode.
+	private float[] weights;
+	
+	/**
+	 * Default constructor. Creates an empty clock-driven NeuralNetwork.
+	 */
+	public NeuralNetwork() {
+		// Initialize variables
+		cycle = 0L;
+		dirty = false;
+		due = new int[16];
+		dueCount = 0;
+		dueHead = new int[0];
+		dueNext = new int[16];
+		idleCycles = 0L;
+		mode = ExecutionMode.CLOCK_DRIVEN;
+		neuralSystem = NeuralSystem.getInstance();
+		nodeOffset = null;
+		populations = new ArrayList<Population>();
+		populationIndex = new HashMap<NeuralNodeArray, Integer>();
+		queue = new CalendarQueue();
+		recorder = null;
+		sorted = new int[16];
+		synapses = 0;
+		synDelay = new int[16];
+		synPost = new long[16];
+		synPostIndex = new int[0];
+		synPostPopulation = new int[0];
+		synPre = new long[16];
+		synWeight = new float[16];
+		touched = new int[16];
+		touchedCount = 0;
+		weights = new float[16];
+		deliver = new IntConsumer() {
+			@Override
+			public void accept(int synapse) {
+				if (nodeOffset != null)
+					gather(synapse);
+				else
+					deliver(synapse);
+			}
+		};
+	}
+	
+	/**
+	 * Adds the specified neural node array to this NeuralNetwork as a population. Populations are processed in the order they are added.
+	 * @param array - The neural node array.
+	 * @throws IllegalArgumentException Thrown if array is already a population of this NeuralNetwork.
+	 * @throws NullPointerException Thrown if array is null.
+	 */
+	public void addPopulation(NeuralNodeArray array) {
+		if (array == null)
+			throw new NullPointerException("Error: Cannot add null NeuralNodeArray.");
+		if (populationIndex.containsKey(array))
+			throw new IllegalArgumentException("Error: NeuralNodeArray is already a population of this NeuralNetwork.");
+		
+		Population population = new Population(array);
+		populationIndex.put(array, populations.size());
+		populations.add(population);
+		setClocked(population, mode == ExecutionMode.CLOCK_DRIVEN);
+		dirty = true;
+	}
+	
+	/**
+	 * Connects the neural node with the specified presynaptic neural ID to the neural node with the specified postsynaptic neural ID with a
+	 * synapse of the specified weight and the default delay.
+	 * @param pre - The neural ID of the presynaptic neural node.
+	 * @param post - The neural ID of the postsynaptic neural node.
+	 * @param weight - The input current added to the postsynaptic neural node for each presynaptic spike.
+	 * @throws IllegalArgumentException Thrown if a neural node does not exist or is not in a population of this NeuralNetwork.
+	 */
+	public void connect(long pre, long post, float weight) {
+		connect(pre, post, weight, DEF_DELAY);
+	}
+	
+	/**
+	 * Connects the neural node with the specified presynaptic neural ID to the neural node with the specified postsynaptic neural ID with a
+	 * synapse of the specified weight and delay.
+	 * @param pre - The neural ID of the presynaptic neural node.
+	 * @param post - The neural ID of the postsynaptic neural node.
+	 * @param weight - The input current added to the postsynaptic neural node for each presynaptic spike.
+	 * @param delay - The number of processing cycles from a presynaptic spike to its delivery, 1 or greater.
+	 * @throws IllegalArgumentException Thrown if a neural node does not exist or is not in a population of this NeuralNetwork, or if delay is
+	 * less than 1.
+	 */
+	public void connect(long pre, long post, float weight, int delay) {
+		// Check parameters
+		if (delay < 1)
+			throw new IllegalArgumentException("Error: Synapse delay must be 1 or greater.");
+		if (!isMember(pre))
+			throw new IllegalArgumentException("Error: Neural node " + pre + " is not in a population of this NeuralNetwork.");
+		if (!isMember(post))
+			throw new IllegalArgumentException("Error: Neural node " + post + " is not in a population of this NeuralNetwork.");
+		
+		if (synapses == synPre.length) {
+			synDelay = Arrays.copyOf(synDelay, 2 * synapses);
+			synPost = Arrays.copyOf(synPost, 2 * synapses);
+			synPre = Arrays.copyOf(synPre, 2 * synapses);
+			synWeight = Arrays.copyOf(synWeight, 2 * synapses);
+		}
+		
+		synDelay[synapses] = delay;
+		synPost[synapses] = post;
+		synPre[synapses] = pre;
+		synWeight[synapses] = weight;
+		synapses++;
+		dirty = true;
+	}
+	
+	/**
+	 * Returns the number of processing cycles run or skipped.
+	 * @return The current processing cycle.
+	 */
+	public long cycle() {
+		return cycle;
+	}
+	
+	/**
+	 * Returns the execution mode of this NeuralNetwork.
+	 * @return The execution mode.
+	 */
+	public ExecutionMode executionMode() {
+		return mode;
+	}
+	
+	/**
+	 * Returns the number of processing cycles skipped because every neural node was settled and no spike event was due.
+	 * @return The number of idle cycles.
+	 */
+	public long idleCycles() {
+		return idleCycles;
+	}
+	
+	/**
+	 * Returns whether the specified population currently processes all of its neural nodes on every cycle. All populations are clock-driven
+	 * in clock-driven mode, and densely active populations are clock-driven in event-driven mode.
+	 * @param array - The neural node array of the population.
+	 * @return True if the population is clock-driven.
+	 * @throws IllegalArgumentException Thrown if array is not a population of this NeuralNetwork.
+	 */
+	public boolean isClockDriven(NeuralNodeArray array) {
+		Integer index = populationIndex.get(array);
+		
+		if (index == null)
+			throw new IllegalArgumentException("Error: NeuralNodeArray is not a population of this NeuralNetwork.");
+		
+		return populations.get(index).clocked;
+	}
+	
+	/**
+	 * Returns the number of spike events waiting to be delivered.
+	 * @return The number of pending spike events.
+	 */
+	public int pendingEvents() {
+		return queue.size();
+	}
+	
+	/**
+	 * Processes one cycle of this NeuralNetwork. The spike events due on this cycle are delivered, all populations are run, and the spikes
+	 * they fire are recorded and queued for delivery. The input current of each neural node is reset to 0 after it is processed, so input
+	 * added to a neural node before this method is called applies to this cycle only.
+	 */
+	public void process() {
+		if (dirty || resized() || neuralSystem.isDeterministic() != (nodeOffset != null))
+			index();
+		
+		queue.poll(cycle, deliver);
+		
+		if (nodeOffset != null)
+			deliverGathered();
+		
+		for (int p = 0; p < populations.size(); ++p)
+			populations.get(p).array.run();
+		
+		for (int p = 0; p < populations.size(); ++p)
+			fire(populations.get(p));
+		
+		cycle++;
+		
+		if (mode == ExecutionMode.EVENT_DRIVEN && cycle % CHECK_CYCLES == 0)
+			balance();
+	}
+	
+	/**
+	 * Processes the specified number of cycles of this NeuralNetwork. In event-driven mode, cycles in which every neural node is settled and
+	 * no spike event is due are skipped without processing, so state probes are not sampled on them.
+	 * @param cycles - The number of processing cycles.
+	 */
+	public void process(long cycles) {
+		long end = cycle + cycles;
+		
+		while (cycle < end) {
+			if (isIdle()) {
+				// Nothing changes until the next spike event, so jump ahead to it
+				long next = Math.min(end, queue.nextStep());
+				idleCycles += next - cycle;
+				cycle = next;
+				
+				if (cycle == end)
+					break;
+			}
+			
+			process();
+		}
+	}
+	
+	/**
+	 * Removes all pending spike events and resets the processing cycle to 0. The populations are not reset.
+	 */
+	public void reset() {
+		queue.clear();
+		cycle = 0L;
+		idleCycles = 0L;
+	}
+	
+	/**
+	 * Sets the execution mode of this NeuralNetwork. Switching to event-driven mode wakes all neural nodes, which then settle as they come to
+	 * rest.
+	 * @param mode - The execution mode.
+	 * @throws NullPointerException Thrown if mode is null.
+	 */
+	public void setExecutionMode(ExecutionMode mode) {
+		if (mode == null)
+			throw new NullPointerException("Error: Cannot set null ExecutionMode.");
+		
+		this.mode = mode;
+		
+		for (int p = 0; p < populations.size(); ++p)
+			setClocked(populations.get(p), mode == ExecutionMode.CLOCK_DRIVEN);
+	}
+	
+	/**
+	 * Sets the spike recorder that records the spikes fired by all populations.
+	 * @param recorder - The spike recorder, or null to stop recording.
+	 */
+	public void setSpikeRecorder(SpikeRecorder recorder) {
+		this.recorder = recorder;
+	}
+	
+	/**
+	 * Returns the number of synapses.
+	 * @return The number of synapses.
+	 */
+	public int synapses() {
+		return synapses;
+	}
+	
+	/**
+	 * Switches densely active event-driven populations to clock-driven processing, and sparsely active clock-driven populations back to
+	 * event-driven processing.
+	 */
+	private void balance() {
+		for (int p = 0; p < populations.size(); ++p) {
+			Population population = populations.get(p);
+			int nodes = population.array.nodes();
+			
+			if (nodes == 0)
+				continue;
+			
+			if (!population.clocked) {
+				if (nodes - population.tracker.settledNodes() > DENSE_FRACTION * nodes)
+					setClocked(population, true);
+			}
+			else {
+				int active = 0;
+				
+				for (long last : population.lastActive) {
+					if (cycle - last <= CHECK_CYCLES)
+						active++;
+				}
+				
+				if (active < SPARSE_FRACTION * population.lastActive.length)
+					setClocked(population, false);
+			}
+		}
+	}
+	
+	/**
+	 * Delivers the spike event of the specified synapse to its postsynaptic neural node.
+	 * @param synapse - The synapse index.
+	 */
+	private void deliver(int synapse) {
+		int p = synPostPopulation[synapse];
+		
+		// Skip synapses whose neural nodes were removed
+		if (p < 0)
+			return;
+		
+		Population population = populations.get(p);
+		population.array.addI(synPostIndex[synapse], synWeight[synapse]);
+		
+		if (population.clocked && mode == ExecutionMode.EVENT_DRIVEN)
+			population.lastActive[synPostIndex[synapse] / population.tracker.blockSize()] = cycle;
+	}
+	
+	/**
+	 * Delivers the spike events gathered on this cycle in deterministic mode. The synapses delivering to each neural node are sorted into the
+	 * order they were connected, and their weights are summed by {@link TreeSum}.
+	 */
+	private void deliverGathered() {
+		for (int t = 0; t < touchedCount; ++t) {
+			int node = touched[t];
+			int count = 0;
+			
+			for (int k = dueHead[node]; k >= 0; k = dueNext[k]) {
+				if (count == sorted.length) {
+					sorted = Arrays.copyOf(sorted, 2 * count);
+					weights = Arrays.copyOf(weights, 2 * count);
+				}
+				
+				sorted[count++] = due[k];
+			}
+			
+			dueHead[node] = -1;
+			
+			// Two weights add the same in either order
+			if (count > 2)
+				Arrays.sort(sorted, 0, count);
+			
+			for (int k = 0; k < count; ++k)
+				weights[k] = synWeight[sorted[k]];
+			
+			Population population = populations.get(synPostPopulation[sorted[0]]);
+			int index = synPostIndex[sorted[0]];
+			population.array.addI(index, TreeSum.combine(weights, count));
+			
+			if (population.clocked && mode == ExecutionMode.EVENT_DRIVEN)
+				population.lastActive[index / population.tracker.blockSize()] = cycle;
+		}
+		
+		dueCount = 0;
+		touchedCount = 0;
+	}
+	
+	/**
+	 * Records and queues the spikes fired by the specified population on this cycle, and resets the input current of its processed neural
+	 * nodes.
+	 * @param population - The population.
+	 */
+	private void fire(Population population) {
+		NeuralNodeArray array = population.array;
+		int nodes = array.nodes();
+		
+		if (population.clocked) {
+			for (int i = 0; i < nodes; ++i) {
+				if (array.spike(i) != 0.0f)
+					spike(population, i);
+			}
+			
+			array.resetI();
+			return;
+		}
+		
+		// Only awake neural nodes were processed, so only they can have spiked or received input
+		ActivityTracker tracker = population.tracker;
+		int blockSize = tracker.blockSize();
+		int i = tracker.nextAwake(0);
+		
+		while (i < nodes) {
+			int to = Math.min(nodes, i + blockSize);
+			
+			for (int j = i; j < to; ++j) {
+				if (array.spike(j) != 0.0f)
+					spike(population, j);
+			}
+			
+			array.resetI(i, to);
+			i = tracker.nextAwake(to);
+		}
+	}
+	
+	/**
+	 * Gathers the spike event of the specified synapse for delivery by {@link #deliverGathered()}, chaining it to the other synapses
+	 * delivering to the same neural node on this cycle.
+	 * @param synapse - The synapse index.
+	 */
+	private void gather(int synapse) {
+		int p = synPostPopulation[synapse];
+		
+		// Skip synapses whose neural nodes were removed
+		if (p < 0)
+			return;
+		
+		int node = nodeOffset[p] + synPostIndex[synapse];
+		
+		if (dueCount == due.length) {
+			due = Arrays.copyOf(due, 2 * dueCount);
+			dueNext = Arrays.copyOf(dueNext, 2 * dueCount);
+		}
+		
+		if (dueHead[node] < 0) {
+			if (touchedCount == touched.length)
+				touched = Arrays.copyOf(touched, 2 * touchedCount);
+			
+			touched[touchedCount++] = node;
+		}
+		
+		due[dueCount] = synapse;
+		dueNext[dueCount] = dueHead[node];
+		dueHead[node] = dueCount++;
+	}
+	
+	/**
+	 * Indexes the outgoing synapses of each neural node of each population, resolving the postsynaptic neural node of each synapse. Synapses
+	 * of removed neural nodes are dropped. When the NeuralSystem is deterministic the neural nodes of all populations are also numbered
+	 * consecutively for gathering spike events.
+	 */
+	private void index() {
+		int[] prePopulation = new int[synapses];
+		int[] preIndex = new int[synapses];
+		synPostIndex = new int[synapses];
+		synPostPopulation = new int[synapses];
+		
+		for (int s = 0; s < synapses; ++s) {
+			NodeData pre = neuralSystem.getNodeData(synPre[s]);
+			NodeData post = neuralSystem.getNodeData(synPost[s]);
+			Integer preArray = (pre == null) ? null : populationIndex.get(pre.getNeuralNodeArray());
+			Integer postArray = (post == null) ? null : populationIndex.get(post.getNeuralNodeArray());
+			
+			if (preArray == null || postArray == null) {
+				prePopulation[s] = -1;
+				synPostPopulation[s] = -1;
+				continue;
+			}
+			
+			prePopulation[s] = preArray;
+			preIndex[s] = pre.getIndex();
+			synPostPopulation[s] = postArray;
+			synPostIndex[s] = post.getIndex();
+		}
+		
+		// Build the outgoing synapse lists, keeping synapses in the order they were connected
+		for (int p = 0; p < populations.size(); ++p) {
+			Population population = populations.get(p);
+			population.nodes = population.array.nodes();
+			population.outStart = new int[population.nodes + 1];
+			
+			int blocks = (population.nodes + population.tracker.blockSize() - 1) / population.tracker.blockSize();
+			population.lastActive = new long[blocks];
+			Arrays.fill(population.lastActive, cycle);
+		}
+		
+		for (int s = 0; s < synapses; ++s) {
+			if (prePopulation[s] >= 0)
+				populations.get(prePopulation[s]).outStart[preIndex[s] + 1]++;
+		}
+		
+		for (int p = 0; p < populations.size(); ++p) {
+			Population population = populations.get(p);
+			
+			for (int i = 0; i < population.nodes; ++i)
+				population.outStart[i + 1] += population.outStart[i];
+			
+			population.out = new int[population.outStart[population.nodes]];
+		}
+		
+		int[][] fill = new int[populations.size()][];
+		
+		for (int p = 0; p < populations.size(); ++p)
+			fill[p] = Arrays.copyOf(populations.get(p).outStart, populations.get(p).nodes);
+		
+		for (int s = 0; s < synapses; ++s) {
+			if (prePopulation[s] >= 0)
+				populations.get(prePopulation[s]).out[fill[prePopulation[s]][preIndex[s]]++] = s;
+		}
+		
+		if (neuralSystem.isDeterministic()) {
+			nodeOffset = new int[populations.size() + 1];
+			
+			for (int p = 0; p < populations.size(); ++p)
+				nodeOffset[p + 1] = nodeOffset[p] + populations.get(p).nodes;
+			
+			dueHead = new int[nodeOffset[populations.size()]];
+			Arrays.fill(dueHead, -1);
+		}
+		else {
+			nodeOffset = null;
+			dueHead = new int[0];
+		}
+		
+		dirty = false;
+	}
+	
+	/**
+	 * Returns whether this NeuralNetwork is idle, with all populations event-driven and every neural node settled.
+	 * @return True if processing a cycle would change nothing.
+	 */
+	private boolean isIdle() {
+		if (mode != ExecutionMode.EVENT_DRIVEN || dirty || resized())
+			return false;
+		
+		for (int p = 0; p < populations.size(); ++p) {
+			Population population = populations.get(p);
+			
+			if (population.clocked || population.tracker.settledNodes() != population.array.nodes())
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Returns whether the neural node with the specified neural ID exists and is in a population of this NeuralNetwork.
+	 * @param id - The neural ID.
+	 * @return True if the neural node is in a population.
+	 */
+	private boolean isMember(long id) {
+		NodeData node = neuralSystem.getNodeData(id);
+		return node != null && populationIndex.containsKey(node.getNeuralNodeArray());
+	}
+	
+	/**
+	 * Returns whether a population gained or lost neural nodes since the synapses were last indexed.
+	 * @return True if a population was resized.
+	 */
+	private boolean resized() {
+		for (int p = 0; p < populations.size(); ++p) {
+			if (populations.get(p).nodes != populations.get(p).array.nodes())
+				return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Sets whether the specified population is clock-driven, removing or attaching its activity tracker.
+	 * @param population - The population.
+	 * @param clocked - True to process all neural nodes on every cycle.
+	 */
+	private void setClocked(Population population, boolean clocked) {
+		population.clocked = clocked;
+		population.array.setActivityTracker(clocked ? null : population.tracker);
+		Arrays.fill(population.lastActive, cycle);
+	}
+	
+	/**
+	 * Records the spike of the specified neural node of the specified population and queues a spike event for each of its outgoing synapses.
+	 * @param population - The population.
+	 * @param index - The index of the neural node that spiked.
+	 */
+	private void spike(Population population, int index) {
+		if (recorder != null)
+			recorder.record(cycle, population.array.id(index));
+		
+		if (population.clocked && mode == ExecutionMode.EVENT_DRIVEN)
+			population.lastActive[index / population.tracker.blockSize()] = cycle;
+		
+		for (int k = population.outStart[index]; k < population.outStart[index + 1]; ++k) {
+			int s = population.out[k];
+			queue.add(cycle + synDelay[s], s);
+		}
+	}
+}
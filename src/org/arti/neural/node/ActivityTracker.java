@@ -0,0 +1,314 @@
+package org.arti.neural.node;
+
+import java.util.Arrays;
+
+/**
+ * <p>public class <b>ActivityTracker</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>ActivityTracker class tracks which neural nodes of a {@link NeuralNodeArray} have settled, so the array can skip them while it processes.
+ * The neural nodes are tracked in blocks of one SIMD vector, with one bit per block. A block settles after {@value #QUIET_CYCLES} consecutive
+ * processing cycles in which none of its neural nodes received input or spiked and v and u of each changed by no more than the tolerance
+ * times the array's recovery rate a. A settled block is skipped until input is added to one of its neural nodes or the array wakes all
+ * neural nodes, for example on reset. ActivityTracker is not thread safe. Input must not be added while the array is processing.</p>
+ * 
+ * <p>Settling is an approximation of reaching rest. Near a stable resting state v and u decay toward it at about the rate a per ms, the
+ * slowest time scale of the model, so a change of at most tolerance * a per cycle puts them roughly within the tolerance of rest, however
+ * slowly they drift. The true decay rate is set by the model's equations at rest and only close to a, so a settled neural node may be
+ * frozen somewhat further from rest than the tolerance. The consecutive cycles keep a block from settling at the turning point of a damped
+ * oscillation, where v and u briefly change little. Arrays whose a is not within (0, 1], such as equation models without a recovery
+ * current, compare the changes with the unscaled tolerance.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class ActivityTracker {
+	/**
+	 * The default approximate largest distance of v and u from rest of a settled neural node.
+	 */
+	public static final float DEF_TOLERANCE = 1.0e-3f;
+	/**
+	 * The number of consecutive quiet processing cycles after which a block settles.
+	 */
+	public static final int QUIET_CYCLES = 8;
+	/**
+	 * The number of blocks in one word of the settled bit mask.
+	 */
+	private static final int WORD_BLOCKS = Long.SIZE;
+	
+	// The number of neural nodes in a block.
+	private final int blockSize;
+	// The number of neural nodes tracked.
+	private int nodes;
+	// The number of consecutive quiet processing cycles of each awake block.
+	private byte[] quiet;
+	// The settled bit mask, one bit per block.
+	private long[] settled;
+	// The approximate largest distance of v and u from rest of a settled neural node.
+	private final float tolerance;
+	// Recovery current values before the last processing cycle.
+	private float[] uPrev;
+	// Membrane potential values before the last processing cycle.
+	private float[] vPrev;
+	
+	/**
+	 * Default constructor. Creates an ActivityTracker with the default tolerance.
+	 */
+	public ActivityTracker() {
+		this(DEF_TOLERANCE);
+	}
+	
+	/**
+	 * Creates an ActivityTracker with the specified tolerance.
+	 * @param tolerance - The approximate largest distance of v and u from rest of a settled neural node.
+	 * @throws IllegalArgumentException Thrown if tolerance is negative or not a number.
+	 */
+	public ActivityTracker(float tolerance) {
+		// Check parameters
+		if (!(tolerance >= 0.0f))
+			throw new IllegalArgumentException("Error: ActivityTracker tolerance must be zero or greater.");
+		
+		// Initialize variables
+		blockSize = NeuralNodeArray.SPECIES.length();
+		nodes = 0;
+		quiet = new byte[0];
+		settled = new long[0];
+		this.tolerance = tolerance;
+		uPrev = new float[0];
+		vPrev = new float[0];
+	}
+	
+	/**
+	 * Returns the number of neural nodes in a block.
+	 * @return The block size.
+	 */
+	public int blockSize() {
+		return blockSize;
+	}
+	
+	/**
+	 * Returns whether the neural node at the specified index is settled.
+	 * @param index - The index of the neural node.
+	 * @return True if the neural node is settled, false if it is processed.
+	 * @throws IndexOutOfBoundsException Thrown if index is out of bounds.
+	 */
+	public boolean isSettled(int index) {
+		if (index < 0 || index >= nodes)
+			throw new IndexOutOfBoundsException("Error: Cannot get settled at " + index + ". Index out of bounds.");
+		
+		return isBlockSettled(index / blockSize);
+	}
+	
+	/**
+	 * Returns the number of settled neural nodes.
+	 * @return The number of settled neural nodes.
+	 */
+	public int settledNodes() {
+		int count = 0;
+		
+		for (long word : settled)
+			count += Long.bitCount(word);
+		
+		count *= blockSize;
+		
+		// The last block may be partial
+		if (nodes % blockSize != 0 && isBlockSettled(nodes / blockSize))
+			count -= blockSize - nodes % blockSize;
+		
+		return count;
+	}
+	
+	/**
+	 * Returns the approximate largest distance of v and u from rest of a settled neural node.
+	 * @return The tolerance.
+	 */
+	public float tolerance() {
+		return tolerance;
+	}
+	
+	/**
+	 * Wakes the block of the neural node at the specified index, so it is processed on the next processing cycle.
+	 * @param index - The index of the neural node.
+	 */
+	public void wake(int index) {
+		int block = index / blockSize;
+		settled[block / WORD_BLOCKS] &= ~(1L << block);
+		quiet[block] = 0;
+	}
+	
+	/**
+	 * Wakes the blocks of the neural nodes in the specified range, so they are processed on the next processing cycle.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	public void wake(int from, int to) {
+		for (int block = from / blockSize; block < (to + blockSize - 1) / blockSize; ++block) {
+			settled[block / WORD_BLOCKS] &= ~(1L << block);
+			quiet[block] = 0;
+		}
+	}
+	
+	/**
+	 * Wakes all neural nodes.
+	 */
+	public void wakeAll() {
+		Arrays.fill(settled, 0L);
+		Arrays.fill(quiet, (byte)0);
+	}
+	
+	/**
+	 * Returns the number of neural nodes a batch of neural nodes processed on its own thread must be a multiple of, so that threads never share
+	 * a word of the settled bit mask.
+	 * @return The batch alignment.
+	 */
+	int alignment() {
+		return blockSize * WORD_BLOCKS;
+	}
+	
+	/**
+	 * Returns the index of the first neural node at or after the specified index that is not settled.
+	 * @param index - The index to search from.
+	 * @return The index of the first awake neural node, or the number of neural nodes if all neural nodes from index on are settled.
+	 */
+	public int nextAwake(int index) {
+		if (index >= nodes)
+			return nodes;
+		
+		int blocks = (nodes + blockSize - 1) / blockSize;
+		int block = nextAwakeBlock(Math.max(index, 0) / blockSize, blocks);
+		return (block == blocks) ? nodes : Math.max(index, block * blockSize);
+	}
+	
+	/**
+	 * Processes one cycle of the neural nodes of the specified array in the specified range, skipping the settled blocks, and settles the
+	 * processed blocks that have been quiet for {@value #QUIET_CYCLES} cycles. The range must start on a block.
+	 * @param array - The neural node array.
+	 * @param simd - True to run the SIMD kernel, false to run the scalar kernel.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	void process(NeuralNodeArray array, boolean simd, int from, int to) {
+		int block = from / blockSize;
+		int end = (to + blockSize - 1) / blockSize;
+		// The largest change per cycle, scaled to the decay rate of the slowest drift toward rest
+		float limit = (array.a > 0.0f && array.a <= 1.0f) ? tolerance * array.a : tolerance;
+		
+		while ((block = nextAwakeBlock(block, end)) < end) {
+			// Process the run of awake blocks in one kernel call
+			int first = block;
+			
+			while (block < end && !isBlockSettled(block))
+				++block;
+			
+			int lo = first * blockSize;
+			int hi = Math.min(block * blockSize, to);
+			System.arraycopy(array.u, lo, uPrev, lo, hi - lo);
+			System.arraycopy(array.v, lo, vPrev, lo, hi - lo);
+			
+			if (simd)
+				array.stepSIMD(lo, hi);
+			else
+				array.step(lo, hi);
+			
+			for (int b = first; b < block; ++b) {
+				if (!isQuiet(array, limit, b * blockSize, Math.min((b + 1) * blockSize, to))) {
+					quiet[b] = 0;
+				}
+				else if (++quiet[b] >= QUIET_CYCLES) {
+					settled[b / WORD_BLOCKS] |= 1L << b;
+					quiet[b] = 0;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the first block at or after the specified block that is not settled, skipping whole words of settled blocks at a time.
+	 * @param block - The block index to search from.
+	 * @param end - The block index to stop searching at.
+	 * @return The index of the first awake block, or end if all blocks up to end are settled.
+	 */
+	private int nextAwakeBlock(int block, int end) {
+		while (block < end) {
+			int word = block / WORD_BLOCKS;
+			long awake = ~settled[word] & (-1L << block);
+			
+			if (awake != 0L)
+				return Math.min(end, word * WORD_BLOCKS + Long.numberOfTrailingZeros(awake));
+			
+			block = (word + 1) * WORD_BLOCKS;
+		}
+		
+		return end;
+	}
+	
+	/**
+	 * Resizes the tracker to the specified number of neural nodes, waking all neural nodes.
+	 * @param nodes - The number of neural nodes.
+	 */
+	void resize(int nodes) {
+		this.nodes = nodes;
+		quiet = new byte[(nodes + blockSize - 1) / blockSize];
+		settled = new long[((nodes + blockSize - 1) / blockSize + WORD_BLOCKS - 1) / WORD_BLOCKS];
+		uPrev = new float[nodes];
+		vPrev = new float[nodes];
+	}
+	
+	/**
+	 * Returns the number of consecutive quiet processing cycles of each block, so a {@link NeuralCheckpoint} can save it.
+	 * @return The quiet cycle counts, one per block.
+	 */
+	byte[] quietCycles() {
+		return quiet;
+	}
+	
+	/**
+	 * Restores a settled bit mask and quiet cycle counts saved by a {@link NeuralCheckpoint}. A mask or counts of another length are ignored,
+	 * leaving all neural nodes awake.
+	 * @param settled - The settled bit mask, one bit per block.
+	 * @param quiet - The quiet cycle counts, one per block.
+	 */
+	void restoreSettledMask(long[] settled, byte[] quiet) {
+		if (settled.length == this.settled.length && quiet.length == this.quiet.length) {
+			System.arraycopy(settled, 0, this.settled, 0, settled.length);
+			System.arraycopy(quiet, 0, this.quiet, 0, quiet.length);
+		}
+	}
+	
+	/**
+	 * Returns the settled bit mask, one bit per block, so a {@link NeuralCheckpoint} can save it.
+	 * @return The settled bit mask.
+	 */
+	long[] settledMask() {
+		return settled;
+	}
+	
+	/**
+	 * Returns whether the specified block is settled.
+	 * @param block - The block index.
+	 * @return True if the block is settled.
+	 */
+	private boolean isBlockSettled(int block) {
+		return (settled[block / WORD_BLOCKS] & (1L << block)) != 0L;
+	}
+	
+	/**
+	 * Returns whether all neural nodes of the array in the specified range were quiet in the last processing cycle, with no input, no spike
+	 * and no change of v or u larger than the specified limit.
+	 * @param array - The neural node array.
+	 * @param limit - The largest change of v and u.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 * @return True if all neural nodes in the range were quiet.
+	 */
+	private boolean isQuiet(NeuralNodeArray array, float limit, int from, int to) {
+		for (int i = from; i < to; ++i) {
+			if (array.I[i] != 0.0f || array.spike[i] != 0.0f || Math.abs(array.v[i] - vPrev[i]) > limit ||
+					Math.abs(array.u[i] - uPrev[i]) > limit)
+				return false;
+		}
+		
+		return true;
+	}
+}
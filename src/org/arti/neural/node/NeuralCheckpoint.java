@@ -0,0 +1,711 @@
+package org.arti.neural.node;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import org.arti.neural.NeuralSystem;
+import org.arti.neural.node.equation.EquationArray;
+import org.arti.neural.node.equation.EquationCompiler;
+import org.arti.neural.node.equation.EquationModel;
+
+/**
+ * <p>public class <b>NeuralCheckpoint</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>NeuralCheckpoint class saves and restores the full state of a running simulation. All NeuralNodeArray state (v, u, I, spike and
+ * parameters), the NeuralSystem neural IDs and names of their neural nodes, and all SynapseArray state are written to a single
+ * memory-mapped checkpoint file. The file starts with a header and a section table, followed by one section per array. Each section stores
+ * its values as raw little-endian arrays so a checkpoint is restored with bulk copies and no per-value parsing. {@link EquationArray}s,
+ * whose classes are generated at runtime, store the source of their equation model and are compiled again when restored. The integrator and
+ * activity tracker of each array are restored with it, so a resumed or forked run continues exactly as it was saved.</p>
+ * 
+ * <p>Restored neural nodes keep their saved neural IDs. If an ID is already in use, for example when a checkpoint is loaded a second time
+ * to fork a run, the restored neural node is given a new ID and all parent and child links are remapped. Links must lead to neural nodes
+ * saved in the same checkpoint. The file is memory-mapped as a whole, which limits a checkpoint to 2 GB.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class NeuralCheckpoint {
+	// Checkpoint file magic value ("ARTICKPT").
+	private static final long MAGIC = 0x54504B4349545241L;
+	// Checkpoint file format version.
+	private static final int VERSION = 2;
+	// Size of the file header in bytes.
+	private static final int HEADER_BYTES = 64;
+	// Size of a section table entry in bytes.
+	private static final int ENTRY_BYTES = 16;
+	// Alignment of sections in bytes.
+	private static final int SECTION_ALIGN = 64;
+	// Number of parameter values stored for each NeuralNodeArray.
+	private static final int PARAMETERS = 20;
+	// Mode flag of an array with an activity tracker.
+	private static final int MODE_TRACKER = 1;
+	// Neural ID value used for missing parent and child links.
+	private static final long NO_ID = -1L;
+	
+	// The restored neural node arrays.
+	private ArrayList<NeuralNodeArray> arrays;
+	// The restored synapse arrays.
+	private ArrayList<SynapseArray> synapses;
+	
+	/**
+	 * Creates a NeuralCheckpoint holding the specified restored arrays.
+	 * @param arrays - The restored neural node arrays.
+	 * @param synapses - The restored synapse arrays.
+	 */
+	private NeuralCheckpoint(ArrayList<NeuralNodeArray> arrays, ArrayList<SynapseArray> synapses) {
+		this.arrays = arrays;
+		this.synapses = synapses;
+	}
+	
+	/**
+	 * Returns the list of neural node arrays restored from the checkpoint, in the order they were saved.
+	 * @return The restored neural node arrays.
+	 */
+	public List<NeuralNodeArray> getArrays() {
+		return arrays;
+	}
+	
+	/**
+	 * Returns the list of synapse arrays restored from the checkpoint, in the order they were saved.
+	 * @return The restored synapse arrays.
+	 */
+	public List<SynapseArray> getSynapseArrays() {
+		return synapses;
+	}
+	
+	/**
+	 * Loads the checkpoint file at the specified path. New NeuralNodeArrays and SynapseArrays are created and restored from the file, and
+	 * their neural nodes are registered with the NeuralSystem, whose next neural ID is raised to the one saved. The whole file is read and
+	 * checked before any neural node is registered, and if registering fails the neural nodes registered so far are removed again, so a
+	 * failed load leaves the NeuralSystem unchanged.
+	 * @param file - The path of the checkpoint file.
+	 * @return The NeuralCheckpoint holding the restored arrays.
+	 * @throws IOException Thrown if the file cannot be read or is not a valid checkpoint file.
+	 */
+	public static NeuralCheckpoint load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// A single mapping and int positions address at most 2 GB, the limit save also enforces
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Error: Neural checkpoint file " + file + " is too large to be memory-mapped.");
+			
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			
+			// Read header
+			if (channel.size() < HEADER_BYTES || buffer.getLong(0) != MAGIC)
+				throw new IOException("Error: " + file + " is not a neural checkpoint file.");
+			
+			if (buffer.getInt(8) != VERSION)
+				throw new IOException("Error: Unsupported neural checkpoint version " + buffer.getInt(8) + ".");
+			
+			int arrayCount = buffer.getInt(12);
+			int synapseCount = buffer.getInt(16);
+			long nextID = buffer.getLong(24);
+			ArrayList<NeuralNodeArray> arrays = new ArrayList<NeuralNodeArray>(arrayCount);
+			ArrayList<SynapseArray> synapses = new ArrayList<SynapseArray>(synapseCount);
+			HashSet<Long> savedIds = new HashSet<Long>();
+			long[][] ids = new long[arrayCount][];
+			String[][] names = new String[arrayCount][];
+			long[][] links = new long[arrayCount][];
+			long[][] pre = new long[synapseCount][];
+			long[][] post = new long[synapseCount][];
+			EquationCompiler compiler = null;
+			
+			// Restore neural node arrays
+			for (int i = 0; i < arrayCount; ++i) {
+				buffer.position((int)buffer.getLong(HEADER_BYTES + i * ENTRY_BYTES));
+				String className = getString(buffer);
+				String modelName = getString(buffer);
+				String modelSource = getString(buffer);
+				NeuralNodeArray array;
+				
+				// Equation arrays are compiled at runtime, so they are compiled again from their model
+				if (modelSource.isEmpty())
+					array = (NeuralNodeArray)newInstance(className, NeuralNodeArray.class);
+				else {
+					if (compiler == null)
+						compiler = new EquationCompiler();
+					
+					array = newArray(compiler, modelName, modelSource);
+				}
+				
+				align(buffer, 8);
+				
+				array.a = buffer.getFloat();
+				array.b = buffer.getFloat();
+				array.b2 = buffer.getFloat();
+				array.ba = buffer.getFloat();
+				array.bv = buffer.getFloat();
+				array.c = buffer.getFloat();
+				array.C = buffer.getFloat();
+				array.cu = buffer.getFloat();
+				array.d = buffer.getFloat();
+				array.gc = buffer.getFloat();
+				array.gp = buffer.getFloat();
+				array.k = buffer.getFloat();
+				array.vr = buffer.getFloat();
+				array.vt = buffer.getFloat();
+				array.vp = buffer.getFloat();
+				array.vpu = buffer.getFloat();
+				array.umax = buffer.getFloat();
+				array.upow = buffer.getFloat();
+				array.uv = buffer.getFloat();
+				array.uvmin = buffer.getFloat();
+				
+				int nodes = buffer.getInt();
+				int modes = buffer.getInt();
+				int integrator = buffer.getInt();
+				int substeps = buffer.getInt();
+				float tolerance = buffer.getFloat();
+				buffer.getInt();
+				array.nodes = nodes;
+				array.v = getFloats(buffer, nodes);
+				array.u = getFloats(buffer, nodes);
+				array.I = getFloats(buffer, nodes);
+				array.spike = getFloats(buffer, nodes);
+				align(buffer, 8);
+				ids[i] = getLongs(buffer, nodes);
+				links[i] = getLongs(buffer, 3);
+				names[i] = new String[nodes];
+				
+				for (int j = 0; j < nodes; ++j) {
+					names[i][j] = getString(buffer);
+					
+					if (!savedIds.add(ids[i][j]))
+						throw new IOException("Error: Neural checkpoint file " + file + " holds neural ID " + ids[i][j] + " twice.");
+				}
+				
+				long[] settled = null;
+				byte[] quiet = null;
+				int blockSize = 0;
+				
+				if ((modes & MODE_TRACKER) != 0) {
+					align(buffer, 8);
+					blockSize = buffer.getInt();
+					settled = getLongs(buffer, buffer.getInt());
+					quiet = new byte[buffer.getInt()];
+					buffer.get(quiet);
+				}
+				
+				restoreModes(array, modes, NeuralNodeArray.Integrator.values()[integrator], substeps, tolerance, blockSize, settled, quiet);
+				arrays.add(array);
+			}
+			
+			// Restore synapse arrays
+			for (int i = 0; i < synapseCount; ++i) {
+				buffer.position((int)buffer.getLong(HEADER_BYTES + (arrayCount + i) * ENTRY_BYTES));
+				SynapseArray synapse = (SynapseArray)newInstance(getString(buffer), SynapseArray.class);
+				align(buffer, 8);
+				
+				int count = buffer.getInt();
+				buffer.getInt();
+				synapse.td = getFloats(buffer, count);
+				synapse.tf = getFloats(buffer, count);
+				synapse.u = getFloats(buffer, count);
+				synapse.U = getFloats(buffer, count);
+				synapse.x = getFloats(buffer, count);
+				align(buffer, 8);
+				
+				int preCount = buffer.getInt();
+				int postCount = buffer.getInt();
+				pre[i] = getLongs(buffer, preCount);
+				post[i] = getLongs(buffer, postCount);
+				synapses.add(synapse);
+			}
+			
+			// Every link must lead to a neural node of the checkpoint, as a saved neural ID means nothing outside it
+			for (int i = 0; i < arrayCount; ++i)
+				checkLinks(file, savedIds, links[i]);
+			
+			for (int i = 0; i < synapseCount; ++i) {
+				checkLinks(file, savedIds, pre[i]);
+				checkLinks(file, savedIds, post[i]);
+			}
+			
+			register(arrays, synapses, ids, names, links, pre, post, nextID);
+			return new NeuralCheckpoint(arrays, synapses);
+		}
+		catch (RuntimeException e) {
+			throw new IOException("Error: Neural checkpoint file " + file + " is corrupt.", e);
+		}
+	}
+	
+	/**
+	 * Saves the state of the specified neural node arrays and synapse arrays to a checkpoint file at the specified path. The checkpoint is
+	 * first written to a temporary file and then moved over the target file, so an existing checkpoint is never left half written.
+	 * @param file - The path of the checkpoint file.
+	 * @param arrays - The neural node arrays to save.
+	 * @param synapses - The synapse arrays to save. May be null.
+	 * @throws IOException Thrown if the checkpoint file cannot be written.
+	 * @throws NullPointerException Thrown if arrays is null.
+	 */
+	public static void save(Path file, List<NeuralNodeArray> arrays, List<SynapseArray> synapses) throws IOException {
+		if (arrays == null)
+			throw new NullPointerException("Error: Cannot save neural checkpoint. NeuralNodeArray list cannot be null.");
+		
+		if (synapses == null)
+			synapses = new ArrayList<SynapseArray>();
+		
+		NeuralSystem neuralSystem = NeuralSystem.getInstance();
+		int sections = arrays.size() + synapses.size();
+		long[] offset = new long[sections];
+		long[] length = new long[sections];
+		byte[][][] names = new byte[arrays.size()][][];
+		byte[][] modelNames = new byte[arrays.size()][];
+		byte[][] modelSources = new byte[arrays.size()][];
+		long size = align(HEADER_BYTES + (long)sections * ENTRY_BYTES, SECTION_ALIGN);
+		
+		// Lay out neural node array sections
+		for (int i = 0; i < arrays.size(); ++i) {
+			NeuralNodeArray array = arrays.get(i);
+			names[i] = new byte[array.nodes][];
+			modelNames[i] = utf8((array instanceof EquationArray) ? ((EquationArray)array).modelName() : null);
+			modelSources[i] = utf8((array instanceof EquationArray) ? ((EquationArray)array).modelSource() : null);
+			long bytes = align(12 + utf8(array.getClass().getName()).length + modelNames[i].length + modelSources[i].length, 8);
+			bytes += PARAMETERS * 4 + 24;
+			bytes = align(bytes + 16L * array.nodes, 8);
+			bytes += 8L * array.nodes + 24;
+			
+			for (int j = 0; j < array.nodes; ++j) {
+				names[i][j] = utf8(neuralSystem.getNodeName(array.id.get(j)));
+				bytes += 4 + names[i][j].length;
+			}
+			
+			if (array.activityTracker != null)
+				bytes = align(bytes, 8) + 12 + 8L * array.activityTracker.settledMask().length + array.activityTracker.quietCycles().length;
+			
+			offset[i] = size;
+			length[i] = bytes;
+			size = align(size + bytes, SECTION_ALIGN);
+		}
+		
+		// Lay out synapse array sections
+		for (int i = 0; i < synapses.size(); ++i) {
+			SynapseArray synapse = synapses.get(i);
+			long bytes = align(4 + utf8(synapse.getClass().getName()).length, 8);
+			bytes += 8 + 20L * length(synapse.td);
+			bytes = align(bytes, 8) + 8 + 8L * (size(synapse.pre) + size(synapse.post));
+			offset[arrays.size() + i] = size;
+			length[arrays.size() + i] = bytes;
+			size = align(size + bytes, SECTION_ALIGN);
+		}
+		
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("Error: Neural checkpoint is too large to be memory-mapped.");
+		
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			
+			// Write header and section table
+			buffer.putLong(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(arrays.size());
+			buffer.putInt(synapses.size());
+			buffer.putInt(0);
+			buffer.putLong(neuralSystem.getNextID());
+			buffer.position(HEADER_BYTES);
+			
+			for (int i = 0; i < sections; ++i) {
+				buffer.putLong(offset[i]);
+				buffer.putLong(length[i]);
+			}
+			
+			// Write neural node array sections
+			for (int i = 0; i < arrays.size(); ++i) {
+				NeuralNodeArray array = arrays.get(i);
+				buffer.position((int)offset[i]);
+				putString(buffer, utf8(array.getClass().getName()));
+				putString(buffer, modelNames[i]);
+				putString(buffer, modelSources[i]);
+				align(buffer, 8);
+				
+				buffer.putFloat(array.a);
+				buffer.putFloat(array.b);
+				buffer.putFloat(array.b2);
+				buffer.putFloat(array.ba);
+				buffer.putFloat(array.bv);
+				buffer.putFloat(array.c);
+				buffer.putFloat(array.C);
+				buffer.putFloat(array.cu);
+				buffer.putFloat(array.d);
+				buffer.putFloat(array.gc);
+				buffer.putFloat(array.gp);
+				buffer.putFloat(array.k);
+				buffer.putFloat(array.vr);
+				buffer.putFloat(array.vt);
+				buffer.putFloat(array.vp);
+				buffer.putFloat(array.vpu);
+				buffer.putFloat(array.umax);
+				buffer.putFloat(array.upow);
+				buffer.putFloat(array.uv);
+				buffer.putFloat(array.uvmin);
+				
+				buffer.putInt(array.nodes);
+				buffer.putInt(modes(array));
+				buffer.putInt(array.integrator.ordinal());
+				buffer.putInt(array.substeps);
+				buffer.putFloat((array.activityTracker != null) ? array.activityTracker.tolerance() : 0.0f);
+				buffer.putInt(0);
+				putFloats(buffer, array.v, array.nodes);
+				putFloats(buffer, array.u, array.nodes);
+				putFloats(buffer, array.I, array.nodes);
+				putFloats(buffer, array.spike, array.nodes);
+				align(buffer, 8);
+				
+				for (int j = 0; j < array.nodes; ++j)
+					buffer.putLong(array.id.get(j));
+				
+				buffer.putLong(id(array.parent));
+				buffer.putLong(id(array.childLeft));
+				buffer.putLong(id(array.childRight));
+				
+				for (int j = 0; j < array.nodes; ++j)
+					putString(buffer, names[i][j]);
+				
+				// Write the settled blocks and quiet cycle counts, so blocks settle as they would have when the run is resumed
+				if (array.activityTracker != null) {
+					long[] settled = array.activityTracker.settledMask();
+					byte[] quiet = array.activityTracker.quietCycles();
+					align(buffer, 8);
+					buffer.putInt(array.activityTracker.blockSize());
+					buffer.putInt(settled.length);
+					
+					for (long word : settled)
+						buffer.putLong(word);
+					
+					buffer.putInt(quiet.length);
+					buffer.put(quiet);
+				}
+			}
+			
+			// Write synapse array sections
+			for (int i = 0; i < synapses.size(); ++i) {
+				SynapseArray synapse = synapses.get(i);
+				int count = length(synapse.td);
+				buffer.position((int)offset[arrays.size() + i]);
+				putString(buffer, utf8(synapse.getClass().getName()));
+				align(buffer, 8);
+				
+				buffer.putInt(count);
+				buffer.putInt(0);
+				putFloats(buffer, synapse.td, count);
+				putFloats(buffer, synapse.tf, count);
+				putFloats(buffer, synapse.u, count);
+				putFloats(buffer, synapse.U, count);
+				putFloats(buffer, synapse.x, count);
+				align(buffer, 8);
+				
+				buffer.putInt(size(synapse.pre));
+				buffer.putInt(size(synapse.post));
+				
+				for (int j = 0; j < size(synapse.pre); ++j)
+					buffer.putLong(id(synapse.pre.get(j)));
+				
+				for (int j = 0; j < size(synapse.post); ++j)
+					buffer.putLong(id(synapse.post.get(j)));
+			}
+			
+			buffer.force();
+		}
+		
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Returns the specified value rounded up to a multiple of the specified alignment.
+	 * @param value - The value to align.
+	 * @param alignment - The alignment.
+	 * @return The aligned value.
+	 */
+	private static long align(long value, int alignment) {
+		return (value + alignment - 1) / alignment * alignment;
+	}
+	
+	/**
+	 * Moves the position of the specified buffer forward to the next multiple of the specified alignment.
+	 * @param buffer - The buffer.
+	 * @param alignment - The alignment.
+	 */
+	private static void align(ByteBuffer buffer, int alignment) {
+		buffer.position((int)align(buffer.position(), alignment));
+	}
+	
+	/**
+	 * Checks that every specified link leads to a neural node saved in the checkpoint.
+	 * @param file - The path of the checkpoint file.
+	 * @param savedIds - The saved neural IDs of the checkpoint.
+	 * @param links - The saved neural IDs of the links, NO_ID for a missing link.
+	 * @throws IOException Thrown if a link leads to a neural node that is not in the checkpoint.
+	 */
+	private static void checkLinks(Path file, HashSet<Long> savedIds, long[] links) throws IOException {
+		for (long id : links) {
+			if (id != NO_ID && !savedIds.contains(id))
+				throw new IOException("Error: Neural checkpoint file " + file + " links to neural node " + id + ", which it does not hold.");
+		}
+	}
+	
+	/**
+	 * Reads the specified number of float values from the buffer with a single bulk copy.
+	 * @param buffer - The buffer.
+	 * @param count - The number of values.
+	 * @return The float values.
+	 */
+	private static float[] getFloats(ByteBuffer buffer, int count) {
+		float[] values = new float[count];
+		buffer.asFloatBuffer().get(values);
+		buffer.position(buffer.position() + count * 4);
+		return values;
+	}
+	
+	/**
+	 * Reads the specified number of long values from the buffer with a single bulk copy.
+	 * @param buffer - The buffer.
+	 * @param count - The number of values.
+	 * @return The long values.
+	 */
+	private static long[] getLongs(ByteBuffer buffer, int count) {
+		long[] values = new long[count];
+		buffer.asLongBuffer().get(values);
+		buffer.position(buffer.position() + count * 8);
+		return values;
+	}
+	
+	/**
+	 * Reads a length-prefixed UTF-8 string from the buffer.
+	 * @param buffer - The buffer.
+	 * @return The string.
+	 */
+	private static String getString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Returns the neural ID of the neural node with the specified node data.
+	 * @param node - The node data. May be null.
+	 * @return The neural ID, or NO_ID if node is null.
+	 */
+	private static long id(NodeData node) {
+		return (node == null) ? NO_ID : node.getNeuralNodeArray().id.get(node.getIndex());
+	}
+	
+	/**
+	 * Returns the length of the specified array, treating a null array as empty.
+	 * @param values - The array.
+	 * @return The length of the array.
+	 */
+	private static int length(float[] values) {
+		return (values == null) ? 0 : values.length;
+	}
+	
+	/**
+	 * Compiles the equation model with the specified name and source and creates an empty array of it.
+	 * @param compiler - The equation compiler.
+	 * @param modelName - The model name.
+	 * @param modelSource - The model source.
+	 * @return The new EquationArray.
+	 * @throws IOException Thrown if the model cannot be compiled.
+	 */
+	private static EquationArray newArray(EquationCompiler compiler, String modelName, String modelSource) throws IOException {
+		try {
+			return compiler.newArray(EquationModel.parse(modelName, modelSource));
+		}
+		catch (RuntimeException e) {
+			throw new IOException("Error: Cannot compile equation model " + modelName + " from neural checkpoint.", e);
+		}
+	}
+	
+	/**
+	 * Creates a new instance of the class with the specified name using its default constructor.
+	 * @param className - The class name.
+	 * @param type - The type the class must extend.
+	 * @return The new instance.
+	 * @throws IOException Thrown if the class cannot be created.
+	 */
+	private static Object newInstance(String className, Class<?> type) throws IOException {
+		try {
+			Class<?> cls = Class.forName(className);
+			
+			if (!type.isAssignableFrom(cls))
+				throw new IOException("Error: " + className + " is not a " + type.getSimpleName() + ".");
+			
+			return cls.getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IOException("Error: Cannot restore " + className + " from neural checkpoint.", e);
+		}
+	}
+	
+	/**
+	 * Returns the mode flags of the specified array.
+	 * @param array - The neural node array.
+	 * @return The mode flags.
+	 */
+	private static int modes(NeuralNodeArray array) {
+		int modes = 0;
+		
+		if (array.activityTracker != null)
+			modes |= MODE_TRACKER;
+		
+		return modes;
+	}
+	
+	/**
+	 * Returns the node data of the restored neural node with the specified saved neural ID.
+	 * @param neuralSystem - The NeuralSystem.
+	 * @param idMap - Map of saved neural IDs to restored neural IDs, holding every ID checked by {@link #checkLinks}.
+	 * @param id - The saved neural ID.
+	 * @return The node data, or null if id is NO_ID.
+	 */
+	private static NodeData nodeData(NeuralSystem neuralSystem, HashMap<Long, Long> idMap, long id) {
+		if (id == NO_ID)
+			return null;
+		
+		return neuralSystem.getNodeData(idMap.get(id));
+	}
+	
+	/**
+	 * Writes the first count values of the specified array to the buffer with a single bulk copy. A null array is written as zeros.
+	 * @param buffer - The buffer.
+	 * @param values - The values. May be null.
+	 * @param count - The number of values.
+	 */
+	private static void putFloats(ByteBuffer buffer, float[] values, int count) {
+		if (values != null)
+			buffer.asFloatBuffer().put(values, 0, count);
+		
+		buffer.position(buffer.position() + count * 4);
+	}
+	
+	/**
+	 * Writes a length-prefixed UTF-8 string to the buffer.
+	 * @param buffer - The buffer.
+	 * @param bytes - The UTF-8 bytes of the string.
+	 */
+	private static void putString(ByteBuffer buffer, byte[] bytes) {
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+	
+	/**
+	 * Registers the neural nodes of the restored arrays with the NeuralSystem, raises its next neural ID to the saved one, and links the
+	 * arrays and synapses to the restored neural nodes. If registering fails, the neural nodes registered so far are removed again.
+	 * @param arrays - The restored neural node arrays.
+	 * @param synapses - The restored synapse arrays.
+	 * @param ids - The saved neural IDs of the neural nodes of each array.
+	 * @param names - The names of the neural nodes of each array.
+	 * @param links - The saved neural IDs of the parent, left child and right child of each array.
+	 * @param pre - The saved neural IDs of the presynaptic neural nodes of each synapse array.
+	 * @param post - The saved neural IDs of the postsynaptic neural nodes of each synapse array.
+	 * @param nextID - The saved next neural ID.
+	 */
+	private static void register(ArrayList<NeuralNodeArray> arrays, ArrayList<SynapseArray> synapses, long[][] ids, String[][] names,
+			long[][] links, long[][] pre, long[][] post, long nextID) {
+		NeuralSystem neuralSystem = NeuralSystem.getInstance();
+		HashMap<Long, Long> idMap = new HashMap<Long, Long>();
+		
+		try {
+			for (int i = 0; i < arrays.size(); ++i) {
+				for (int j = 0; j < ids[i].length; ++j) {
+					long id = neuralSystem.restoreNode(ids[i][j], arrays.get(i), j, names[i][j]);
+					idMap.put(ids[i][j], id);
+					arrays.get(i).id.put(j, id);
+				}
+			}
+		}
+		catch (RuntimeException e) {
+			for (long id : idMap.values())
+				neuralSystem.removeNode(id);
+			
+			throw e;
+		}
+		
+		neuralSystem.restoreNextID(nextID);
+		
+		// Restore parent and child links once all neural nodes are registered
+		for (int i = 0; i < arrays.size(); ++i) {
+			arrays.get(i).parent = nodeData(neuralSystem, idMap, links[i][0]);
+			arrays.get(i).childLeft = nodeData(neuralSystem, idMap, links[i][1]);
+			arrays.get(i).childRight = nodeData(neuralSystem, idMap, links[i][2]);
+		}
+		
+		for (int i = 0; i < synapses.size(); ++i) {
+			SynapseArray synapse = synapses.get(i);
+			synapse.neuralSystem = neuralSystem;
+			synapse.pre = new ArrayList<NodeData>(pre[i].length);
+			synapse.post = new ArrayList<NodeData>(post[i].length);
+			
+			for (long id : pre[i])
+				synapse.pre.add(nodeData(neuralSystem, idMap, id));
+			
+			for (long id : post[i])
+				synapse.post.add(nodeData(neuralSystem, idMap, id));
+		}
+	}
+	
+	/**
+	 * Restores the integrator and the activity tracker with its settled blocks of the specified array once its state is restored. The
+	 * integrator is only set if it differs from the array's own, as arrays such as EquationArrays have a fixed integrator.
+	 * @param array - The neural node array.
+	 * @param modes - The mode flags.
+	 * @param integrator - The integrator.
+	 * @param substeps - The number of integrator substeps.
+	 * @param tolerance - The tolerance of the activity tracker.
+	 * @param blockSize - The block size of the saved settled bit mask.
+	 * @param settled - The saved settled bit mask, or null if the array has no activity tracker.
+	 * @param quiet - The saved quiet cycle counts, or null if the array has no activity tracker.
+	 */
+	private static void restoreModes(NeuralNodeArray array, int modes, NeuralNodeArray.Integrator integrator, int substeps,
+			float tolerance, int blockSize, long[] settled, byte[] quiet) {
+		if (integrator != array.integrator || substeps != array.substeps)
+			array.setIntegrator(integrator, substeps);
+		
+		// The tracker is set last, as changing the integrator wakes all neural nodes
+		if ((modes & MODE_TRACKER) != 0) {
+			ActivityTracker activityTracker = new ActivityTracker(tolerance);
+			array.setActivityTracker(activityTracker);
+			
+			// A mask saved with another vector width has other blocks, so all neural nodes are left awake
+			if (blockSize == activityTracker.blockSize())
+				activityTracker.restoreSettledMask(settled, quiet);
+		}
+	}
+	
+	/**
+	 * Returns the size of the specified list, treating a null list as empty.
+	 * @param list - The list.
+	 * @return The size of the list.
+	 */
+	private static int size(List<?> list) {
+		return (list == null) ? 0 : list.size();
+	}
+	
+	/**
+	 * Returns the UTF-8 bytes of the specified string.
+	 * @param value - The string. May be null.
+	 * @return The UTF-8 bytes.
+	 */
+	private static byte[] utf8(String value) {
+		return ((value == null) ? "" : value).getBytes(StandardCharsets.UTF_8);
+	}
+}
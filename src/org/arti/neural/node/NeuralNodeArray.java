@@ -1,9 +1,18 @@
 package org.arti.neural.node;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.arti.neural.NeuralSystem;
+import org.arti.neural.TreeSum;
+import org.arti.neural.record.SpikeRecorder;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
 
 /**
  * <p>public abstract class <b>NeuralNode</b><br>
@@ -40,11 +49,59 @@ public abstract class NeuralNodeArray implements Runnable {
 	 * The default coefficient for u in the spike cutoff equation.
 	 */
 	public static final float DEF_VP_U = 0.0f;
+	/**
+	 * The largest estimated local error in mV of a single 1 ms step of the adaptive integrator.
+	 */
+	public static final float ADAPTIVE_TOLERANCE = 0.1f;
+	/**
+	 * The maximum number of substeps an integrator can take in one processing cycle.
+	 */
+	public static final int MAX_SUBSTEPS = 64;
+	/**
+	 * The vector species of the SIMD kernels.
+	 */
+	protected static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+	
+	/**
+	 * <p>public enum <b>Integrator</b></p>
+	 * 
+	 * <p>Integrator enum lists the numerical integrators a NeuralNodeArray can advance its neural nodes with over one 1 ms processing cycle.
+	 * Each integrator splits the cycle into substeps, and stops taking substeps for a neural node once its membrane potential passes the spike
+	 * cutoff, so the overshoot past the cutoff stays bounded with many substeps.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public enum Integrator {
+		/**
+		 * Forward Euler, advancing v in each substep and u once per cycle with the final v. Euler takes one more substep after v reaches the
+		 * cutoff, as the second half step of Izhikevich's two half step scheme does, so two substeps give the results of the original kernels.
+		 */
+		EULER,
+		/**
+		 * Second order Runge-Kutta (midpoint), advancing v and u together in each substep.
+		 */
+		RK2,
+		/**
+		 * Fourth order Runge-Kutta, advancing v and u together in each substep.
+		 */
+		RK4,
+		/**
+		 * Forward Euler that takes a single step for neural nodes whose estimated local error is within
+		 * {@link NeuralNodeArray#ADAPTIVE_TOLERANCE}, and the full number of substeps for neural nodes near threshold or spiking.
+		 */
+		ADAPTIVE
+	}
 	
 	/** 
 	 * The recovery time constant.
 	 */
 	protected float a;
+	/**
+	 * The activity tracker that skips settled neural nodes, or null to process all neural nodes.
+	 */
+	protected ActivityTracker activityTracker;
 	/**
 	 * The amplification/resonance control variable.
 	 */
@@ -101,6 +158,10 @@ public abstract class NeuralNodeArray implements Runnable {
 	 * Neural nodes' neural IDs.
 	 */
 	protected HashMap<Integer, Long> id;
+	/**
+	 * The numerical integrator.
+	 */
+	protected Integrator integrator;
 	/**
 	 * The NeuralSystem controlling the processing of neural nodes and networks.
 	 */
@@ -113,6 +174,10 @@ public abstract class NeuralNodeArray implements Runnable {
 	 * The parent neural node data.
 	 */
 	protected NodeData parent;
+	/**
+	 * The state probes sampling this NeuralNodeArray.
+	 */
+	protected ArrayList<StateProbe> probes;
 	/**
 	 * The coefficient of the square polynomial.
 	 */
@@ -121,6 +186,10 @@ public abstract class NeuralNodeArray implements Runnable {
 	 * Spike fired flag.
 	 */
 	protected float[] spike;
+	/**
+	 * The number of integrator substeps in one processing cycle.
+	 */
+	protected int substeps;
 	/**
 	 * The membrane resting potential value.
 	 */
@@ -197,6 +266,10 @@ public abstract class NeuralNodeArray implements Runnable {
 		childRight = null;
 		parent = null;
 		id = new HashMap<Integer, Long>();
+		probes = new ArrayList<StateProbe>();
+		activityTracker = null;
+		integrator = Integrator.EULER;
+		substeps = 1;
 	}
 	
 	/**
@@ -205,6 +278,14 @@ public abstract class NeuralNodeArray implements Runnable {
 	 */
 	public abstract float a();
 	
+	/**
+	 * Returns the activity tracker of this NeuralNodeArray.
+	 * @return The activity tracker, or null if all neural nodes are processed.
+	 */
+	public ActivityTracker activityTracker() {
+		return activityTracker;
+	}
+	
 	/**
 	 * Adds the specified input current to the total input current of the neural node at the specified index.
 	 * @param index - The index of the neural node.
@@ -216,6 +297,9 @@ public abstract class NeuralNodeArray implements Runnable {
 			throw new IndexOutOfBoundsException("Error: Cannot add to I at " + index + ". Index out of bounds.");
 		
 		this.I[index] += I;
+		
+		if (activityTracker != null && I != 0.0f)
+			activityTracker.wake(index);
 	}
 	
 	/**
@@ -252,9 +336,29 @@ public abstract class NeuralNodeArray implements Runnable {
 		v[nodes] = vInit();
 		spike[nodes] = 0.0f;
 		
-		id.put(nodes, neuralSystem.addNode(this, nodes, name));
-		
 		nodes++;
+		
+		if (activityTracker != null)
+			activityTracker.resize(nodes);
+		
+		id.put(nodes - 1, neuralSystem.addNode(this, nodes - 1, name));
+		
+		for (int i = 0; i < probes.size(); ++i)
+			probes.get(i).resolve(this);
+	}
+	
+	/**
+	 * Adds the specified state probe to this NeuralNodeArray. The probe samples its neural nodes after each processing cycle run by
+	 * {@link #run()} or {@link #sampleProbes()}.
+	 * @param probe - The state probe to add.
+	 * @throws NullPointerException Thrown if probe is null.
+	 */
+	public void addProbe(StateProbe probe) {
+		if (probe == null)
+			throw new NullPointerException("Error: Cannot add null StateProbe.");
+		
+		probe.resolve(this);
+		probes.add(probe);
 	}
 	
 	/**
@@ -330,6 +434,27 @@ public abstract class NeuralNodeArray implements Runnable {
 		return I[index];
 	}
 	
+	/**
+	 * Returns the neural ID of the neural node at the specified index.
+	 * @param index - The index of the neural node.
+	 * @return The neural ID at index.
+	 * @throws IndexOutOfBoundsException Thrown if index is out of bounds.
+	 */
+	public long id(int index) {
+		if (index < 0 || index >= nodes)
+			throw new IndexOutOfBoundsException("Error: Cannot get ID at " + index + ". Index out of bounds.");
+		
+		return id.get(index);
+	}
+	
+	/**
+	 * Returns the numerical integrator this NeuralNodeArray uses.
+	 * @return The integrator.
+	 */
+	public Integrator integrator() {
+		return integrator;
+	}
+	
 	/**
 	 * Returns the value of k that this NeuralNodeArray uses.
 	 * @return The value of k.
@@ -344,6 +469,18 @@ public abstract class NeuralNodeArray implements Runnable {
 		return childLeft;
 	}
 	
+	/**
+	 * Returns the mean membrane potential of the neural nodes, summed in the fixed order of {@link TreeSum} so it is the same on any number
+	 * of cores.
+	 * @return The mean membrane potential in mV, or 0 if there are no neural nodes.
+	 */
+	public float meanV() {
+		if (nodes == 0)
+			return 0.0f;
+		
+		return TreeSum.sum(v, 0, nodes) / nodes;
+	}
+	
 	/**
 	 * Returns the number of neural nodes in this neural node array.
 	 * @return The number of neural nodes.
@@ -380,6 +517,101 @@ public abstract class NeuralNodeArray implements Runnable {
 	 */
 	public abstract void processSIMD();
 	
+	/**
+	 * Processes one cycle of all neural nodes split into one batch per thread with {@link #processRange(boolean, int, int)}. The batches are
+	 * run on the common ForkJoinPool, except the last, which is run on the calling thread. When the NeuralSystem is deterministic the neural
+	 * nodes are split into fixed blocks instead with {@link #processBlocks(boolean)}.
+	 * @param simd - True to run the SIMD kernel, false to run the scalar kernel.
+	 */
+	protected void processBatches(boolean simd) {
+		if (neuralSystem.isDeterministic()) {
+			processBlocks(simd);
+			return;
+		}
+		
+		int threads = (int)Math.min(neuralSystem.getMaxThreads(), nodes / neuralSystem.getI2003NodesPerThread() + 1);
+		int batchSize = nodes / threads;
+		
+		// Batches hold whole words of tracked blocks, or whole vectors for SIMD, so only the last batch has a scalar tail
+		if (activityTracker != null)
+			batchSize -= batchSize % activityTracker.alignment();
+		else if (simd)
+			batchSize -= batchSize % SPECIES.length();
+		
+		ForkJoinTask<?>[] task = new ForkJoinTask<?>[threads - 1];
+		
+		for (int i = 0; i < threads - 1; ++i) {
+			int from = i * batchSize;
+			int to = from + batchSize;
+			task[i] = ForkJoinPool.commonPool().submit(() -> processRange(simd, from, to));
+		}
+		
+		// Process the last batch, holding the remainder of the nodes
+		processRange(simd, (threads - 1) * batchSize, nodes);
+		
+		for (ForkJoinTask<?> t : task)
+			t.join();
+	}
+	
+	/**
+	 * Processes one cycle of all neural nodes split into blocks of {@link NeuralSystem#DETERMINISTIC_BLOCK} neural nodes, rounded up to
+	 * whole words of tracked blocks. The blocks are the same on any number of cores. The threads claim the blocks in turn, so threads that
+	 * finish early, for example on settled blocks, take over the remaining blocks.
+	 * @param simd - True to run the SIMD kernel, false to run the scalar kernel.
+	 */
+	protected void processBlocks(boolean simd) {
+		int alignment = (activityTracker != null) ? activityTracker.alignment() : SPECIES.length();
+		int blockSize = (NeuralSystem.DETERMINISTIC_BLOCK + alignment - 1) / alignment * alignment;
+		int blocks = (nodes + blockSize - 1) / blockSize;
+		int threads = Math.min(neuralSystem.getMaxThreads(), blocks);
+		AtomicInteger next = new AtomicInteger();
+		
+		Runnable worker = () -> {
+			int block;
+			
+			while ((block = next.getAndIncrement()) < blocks)
+				processRange(simd, block * blockSize, Math.min(nodes, (block + 1) * blockSize));
+		};
+		
+		ForkJoinTask<?>[] task = new ForkJoinTask<?>[Math.max(threads - 1, 0)];
+		
+		for (int i = 0; i < task.length; ++i)
+			task[i] = ForkJoinPool.commonPool().submit(worker);
+		
+		worker.run();
+		
+		for (ForkJoinTask<?> t : task)
+			t.join();
+	}
+	
+	/**
+	 * Processes one cycle of the neural nodes in the specified range with {@link #step(int, int)} or {@link #stepSIMD(int, int)}, skipping
+	 * the neural nodes the activity tracker has settled.
+	 * @param simd - True to run the SIMD kernel, false to run the scalar kernel.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	protected void processRange(boolean simd, int from, int to) {
+		if (activityTracker != null)
+			activityTracker.process(this, simd, from, to);
+		else if (simd)
+			stepSIMD(from, to);
+		else
+			step(from, to);
+	}
+	
+	/**
+	 * Records a spike event for each neural node that spiked on the last processing cycle to the specified spike recorder.
+	 * @param recorder - The spike recorder.
+	 * @param step - The processing step of the last processing cycle.
+	 */
+	public void recordSpikes(SpikeRecorder recorder, long step) {
+		for (int i = 0; i < nodes; ++i) {
+			if (spike[i] != 0.0f)
+				recorder.record(step, id.get(i));
+		}
+	}
+	
 	@Override
 	public void run() {
 		switch (neuralSystem.getProcessingMode()) {
@@ -399,6 +631,8 @@ public abstract class NeuralNodeArray implements Runnable {
 			process();
 			break;
 		}
+		
+		sampleProbes();
 	}
 	
 	/**
@@ -449,6 +683,20 @@ public abstract class NeuralNodeArray implements Runnable {
 		id.remove(nodes);
 		
 		nodes--;
+		
+		if (activityTracker != null)
+			activityTracker.resize(nodes);
+		
+		for (int i = 0; i < probes.size(); ++i)
+			probes.get(i).resolve(this);
+	}
+	
+	/**
+	 * Removes the specified state probe from this NeuralNodeArray.
+	 * @param probe - The state probe to remove.
+	 */
+	public void removeProbe(StateProbe probe) {
+		probes.remove(probe);
 	}
 	
 	/**
@@ -470,7 +718,7 @@ public abstract class NeuralNodeArray implements Runnable {
 	}
 	
 	/**
-	 * Resets all values of all neural nodes to their initial values.
+	 * Resets all values of all neural nodes to their initial values. Implementations call {@link #wake()}.
 	 */
 	public abstract void reset();
 	
@@ -481,6 +729,19 @@ public abstract class NeuralNodeArray implements Runnable {
 		Arrays.fill(I, 0.0f);
 	}
 	
+	/**
+	 * Resets the I value of the neural nodes in the specified range to 0.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 * @throws IndexOutOfBoundsException Thrown if the range is out of bounds.
+	 */
+	public void resetI(int from, int to) {
+		if (from < 0 || to > nodes || from > to)
+			throw new IndexOutOfBoundsException("Error: Cannot reset I from " + from + " to " + to + ". Index out of bounds.");
+		
+		Arrays.fill(I, from, to, 0.0f);
+	}
+	
 	/**
 	 * Returns the node data for the right child neural node.
 	 * @return The right child node data.
@@ -489,6 +750,27 @@ public abstract class NeuralNodeArray implements Runnable {
 		return childRight;
 	}
 	
+	/**
+	 * Samples all state probes of this NeuralNodeArray. This is called by {@link #run()} after each processing cycle, and must be called after
+	 * each processing cycle when the process methods are called directly.
+	 */
+	public void sampleProbes() {
+		for (int i = 0; i < probes.size(); ++i)
+			probes.get(i).sample(this);
+	}
+	
+	/**
+	 * Sets the activity tracker that skips settled neural nodes while processing. The tracker starts with all neural nodes awake. GPU
+	 * processing does not skip neural nodes.
+	 * @param activityTracker - The activity tracker, or null to process all neural nodes.
+	 */
+	public void setActivityTracker(ActivityTracker activityTracker) {
+		if (activityTracker != null)
+			activityTracker.resize(nodes);
+		
+		this.activityTracker = activityTracker;
+	}
+	
 	/**
 	 * Sets the left child neural node to the specified node data.
 	 * @param node - The node data for the left child neural node.
@@ -537,6 +819,25 @@ public abstract class NeuralNodeArray implements Runnable {
 		childRight = (id == null) ? null : neuralSystem.getNodeData(id);
 	}
 	
+	/**
+	 * Sets the numerical integrator and the number of substeps it takes in one processing cycle.
+	 * @param integrator - The integrator.
+	 * @param substeps - The number of substeps, from 1 to {@link #MAX_SUBSTEPS}.
+	 * @throws IllegalArgumentException Thrown if substeps is out of range.
+	 * @throws NullPointerException Thrown if integrator is null.
+	 */
+	public void setIntegrator(Integrator integrator, int substeps) {
+		// Check parameters
+		if (integrator == null)
+			throw new NullPointerException("Error: Cannot set null Integrator.");
+		if (substeps < 1 || substeps > MAX_SUBSTEPS)
+			throw new IllegalArgumentException("Error: Integrator substeps must be from 1 to " + MAX_SUBSTEPS + ".");
+		
+		this.integrator = integrator;
+		this.substeps = substeps;
+		wake();
+	}
+	
 	/**
 	 * Returns the value of spike at the specified index.
 	 * @param index - The index of the neural node.
@@ -550,6 +851,35 @@ public abstract class NeuralNodeArray implements Runnable {
 		return spike[index];
 	}
 	
+	/**
+	 * Processes one cycle of the neural nodes in the specified range with scalar arithmetic. Subclasses that process in batches with
+	 * {@link #processBatches(boolean)} override this method.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 * @throws UnsupportedOperationException Thrown if the subclass does not process in batches.
+	 */
+	protected void step(int from, int to) {
+		throw new UnsupportedOperationException("Error: " + getClass().getSimpleName() + " does not process in batches.");
+	}
+	
+	/**
+	 * Processes one cycle of the neural nodes in the specified range with FloatVectors of {@link #SPECIES}. The default implementation runs
+	 * {@link #step(int, int)}.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	protected void stepSIMD(int from, int to) {
+		step(from, to);
+	}
+	
+	/**
+	 * Returns the number of integrator substeps this NeuralNodeArray takes in one processing cycle.
+	 * @return The number of substeps.
+	 */
+	public int substeps() {
+		return substeps;
+	}
+	
 	/**
 	 * Returns the value of u at the specified index.
 	 * @param index - The index of the neural node.
@@ -635,4 +965,13 @@ public abstract class NeuralNodeArray implements Runnable {
 	 * @return The value of vt.
 	 */
 	public abstract float vt();
+	
+	/**
+	 * Wakes all neural nodes settled by the activity tracker, so they are processed on the next processing cycle. Code that changes v or u
+	 * other than by processing calls this method.
+	 */
+	public void wake() {
+		if (activityTracker != null)
+			activityTracker.wakeAll();
+	}
 }
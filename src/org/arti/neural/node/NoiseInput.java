@@ -0,0 +1,73 @@
+package org.arti.neural.node;
+
+/**
+ * <p>public class <b>NoiseInput</b><br>
+ * extends {@link StochasticInput}</p>
+ * 
+ * <p>NoiseInput class adds a Gaussian noise current to every neural node on each processing cycle, with the specified mean and standard
+ * deviation. The noise of each neural node is independent of the other neural nodes and of the other processing cycles. Every neural node
+ * receives input, so applying a NoiseInput wakes the neural nodes it is applied to.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class NoiseInput extends StochasticInput {
+	// The mean of the noise current.
+	private float mean;
+	// The standard deviation of the noise current.
+	private float sigma;
+	
+	/**
+	 * Creates a NoiseInput.
+	 * @param seed - The seed of the random numbers.
+	 * @param stream - The stream number of the random numbers.
+	 * @param mean - The mean of the noise current.
+	 * @param sigma - The standard deviation of the noise current.
+	 * @throws IllegalArgumentException Thrown if stream is out of range or sigma is negative.
+	 */
+	public NoiseInput(long seed, int stream, float mean, float sigma) {
+		super(seed, stream);
+		
+		// Check parameters
+		if (!(sigma >= 0.0f))
+			throw new IllegalArgumentException("Error: NoiseInput standard deviation must be zero or greater.");
+		
+		// Initialize variables
+		this.mean = mean;
+		this.sigma = sigma;
+	}
+	
+	@Override
+	public void apply(NeuralNodeArray array, long step, int from, int to) {
+		checkRange(array, from, to);
+		float[] tile = new float[Math.min(to - from, TILE)];
+		
+		for (int base = from; base < to; base += TILE) {
+			int length = Math.min(TILE, to - base);
+			generator.gaussian(step, stream, base, tile, 0, length);
+			
+			for (int k = 0; k < length; ++k)
+				array.I[base + k] += mean + sigma * tile[k];
+		}
+		
+		if (array.activityTracker != null)
+			array.activityTracker.wake(from, to);
+	}
+	
+	/**
+	 * Returns the mean of the noise current.
+	 * @return The mean.
+	 */
+	public float mean() {
+		return mean;
+	}
+	
+	/**
+	 * Returns the standard deviation of the noise current.
+	 * @return The standard deviation.
+	 */
+	public float sigma() {
+		return sigma;
+	}
+}
@@ -0,0 +1,158 @@
+package org.arti.neural.node;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>public class <b>PoissonInput</b><br>
+ * extends {@link StochasticInput}</p>
+ * 
+ * <p>PoissonInput class models each neural node receiving synapses from the specified number of independent presynaptic sources, each
+ * firing as a Poisson process at the specified rate. On each 1 ms processing cycle a neural node receives a Poisson-distributed number of
+ * spikes, with a mean of sources * rate / 1000. Each spike adds the synapse weight to its input current. The count is drawn from one uniform
+ * number by inverting the cumulative distribution. No spike and one spike, the common counts, are added to whole vectors at once, and only
+ * the rare neural nodes receiving more spikes are counted one at a time. Only the neural nodes that receive a spike are woken.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class PoissonInput extends StochasticInput {
+	/**
+	 * The largest mean number of spikes a neural node can receive in one processing cycle.
+	 */
+	public static final float MAX_MEAN = 64.0f;
+	
+	// The vector species of the input currents.
+	private static final VectorSpecies<Float> SPECIES = NeuralNodeArray.SPECIES;
+	
+	// The mean number of spikes a neural node receives in one processing cycle.
+	private float lambda;
+	// The probability that a neural node receives no spike in one processing cycle.
+	private float p0;
+	// The probability that a neural node receives at most one spike in one processing cycle.
+	private float p1;
+	// The firing rate of each source in Hz.
+	private float rate;
+	// The number of sources of each neural node.
+	private int sources;
+	// The input current added per spike.
+	private float weight;
+	
+	/**
+	 * Creates a PoissonInput.
+	 * @param seed - The seed of the random numbers.
+	 * @param stream - The stream number of the random numbers.
+	 * @param rate - The firing rate of each source in Hz.
+	 * @param sources - The number of sources of each neural node.
+	 * @param weight - The input current added per spike.
+	 * @throws IllegalArgumentException Thrown if stream is out of range, rate is negative, sources is less than 1, or the mean number of
+	 * spikes per processing cycle is above {@link #MAX_MEAN}.
+	 */
+	public PoissonInput(long seed, int stream, float rate, int sources, float weight) {
+		super(seed, stream);
+		
+		// Check parameters
+		if (!(rate >= 0.0f))
+			throw new IllegalArgumentException("Error: PoissonInput rate must be zero or greater.");
+		if (sources < 1)
+			throw new IllegalArgumentException("Error: PoissonInput needs at least one source.");
+		if (rate * sources / 1000.0f > MAX_MEAN)
+			throw new IllegalArgumentException("Error: PoissonInput mean spikes per cycle cannot be above " + MAX_MEAN + ".");
+		
+		// Initialize variables
+		this.rate = rate;
+		this.sources = sources;
+		this.weight = weight;
+		lambda = rate * sources / 1000.0f;
+		p0 = (float)StrictMath.exp(-lambda);
+		p1 = p0 + p0 * lambda;
+	}
+	
+	@Override
+	public void apply(NeuralNodeArray array, long step, int from, int to) {
+		checkRange(array, from, to);
+		float[] tile = new float[Math.min(to - from, TILE)];
+		
+		for (int base = from; base < to; base += TILE) {
+			int length = Math.min(TILE, to - base);
+			generator.uniform(step, stream, base, tile, 0, length);
+			
+			int k = 0;
+			
+			// Add one spike to the lanes with at least one, and count the rare lanes with more in scalar
+			for (; k < SPECIES.loopBound(length); k += SPECIES.length()) {
+				FloatVector vu = FloatVector.fromArray(SPECIES, tile, k);
+				FloatVector vi = FloatVector.fromArray(SPECIES, array.I, base + k);
+				vi.add(FloatVector.zero(SPECIES).blend(weight, vu.compare(VectorOperators.GE, p0))).intoArray(array.I, base + k);
+				
+				if (vu.compare(VectorOperators.GE, p1).anyTrue()) {
+					for (int j = k; j < k + SPECIES.length(); ++j) {
+						if (tile[j] >= p1)
+							array.I[base + j] += (count(tile[j]) - 1) * weight;
+					}
+				}
+			}
+			
+			// The tail adds in the same order as the lanes, so the input does not depend on where the range starts
+			for (; k < length; ++k) {
+				array.I[base + k] += (tile[k] >= p0) ? weight : 0.0f;
+				
+				if (tile[k] >= p1)
+					array.I[base + k] += (count(tile[k]) - 1) * weight;
+			}
+			
+			if (array.activityTracker != null) {
+				for (k = 0; k < length; ++k) {
+					if (tile[k] >= p0)
+						array.activityTracker.wake(base + k);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of spikes of the specified uniform number, the smallest count whose cumulative probability is above it.
+	 * @param u - The uniform number, at least the probability of no spike.
+	 * @return The number of spikes.
+	 */
+	private int count(float u) {
+		int count = 1;
+		float term = p0 * lambda;
+		float cdf = p1;
+		
+		// Stop once the terms underflow, if rounding keeps the cumulative probability below u
+		while (u >= cdf && term > 0.0f) {
+			count++;
+			term *= lambda / count;
+			cdf += term;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Returns the firing rate of each source.
+	 * @return The firing rate in Hz.
+	 */
+	public float rate() {
+		return rate;
+	}
+	
+	/**
+	 * Returns the number of sources of each neural node.
+	 * @return The number of sources.
+	 */
+	public int sources() {
+		return sources;
+	}
+	
+	/**
+	 * Returns the input current added per spike.
+	 * @return The weight.
+	 */
+	public float weight() {
+		return weight;
+	}
+}
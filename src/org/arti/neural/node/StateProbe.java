@@ -0,0 +1,246 @@
+package org.arti.neural.node;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+import org.arti.neural.NeuralSystem;
+
+/**
+ * <p>public class <b>StateProbe</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>StateProbe class watches the v, u and I values of a selected set of neural nodes in a NeuralNodeArray. The probe gathers the values of
+ * its neural nodes every processing cycle into a min/max envelope, and every interval cycles stores the envelope as a frame in a
+ * preallocated ring buffer. A probe is written only by the thread processing its NeuralNodeArray and can be read from any other thread
+ * without blocking processing. Readers copy frames optimistically and discard any frames that were overwritten while they were copied.</p>
+ * 
+ * <p>Each frame stores {@link #VALUES} floats per channel: the minimum and maximum of v, u and I over the frame's interval.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class StateProbe {
+	/**
+	 * Offset of the minimum v value of a channel in a frame.
+	 */
+	public static final int V_MIN = 0;
+	/**
+	 * Offset of the maximum v value of a channel in a frame.
+	 */
+	public static final int V_MAX = 1;
+	/**
+	 * Offset of the minimum u value of a channel in a frame.
+	 */
+	public static final int U_MIN = 2;
+	/**
+	 * Offset of the maximum u value of a channel in a frame.
+	 */
+	public static final int U_MAX = 3;
+	/**
+	 * Offset of the minimum I value of a channel in a frame.
+	 */
+	public static final int I_MIN = 4;
+	/**
+	 * Offset of the maximum I value of a channel in a frame.
+	 */
+	public static final int I_MAX = 5;
+	/**
+	 * The number of values stored per channel in a frame.
+	 */
+	public static final int VALUES = 6;
+	
+	// The running min/max envelope of the current interval.
+	private float[] envelope;
+	// The number of frames the ring buffer holds.
+	private int capacity;
+	// The ring buffer of frame values.
+	private float[] data;
+	// The neural IDs of the probed neural nodes.
+	private long[] id;
+	// The indices of the probed neural nodes in their NeuralNodeArray, or -1 if a neural node no longer exists.
+	private int[] index;
+	// The number of processing cycles per frame.
+	private int interval;
+	// The number of processing cycles sampled in the current interval.
+	private int sampled;
+	// The number of processing cycles sampled in total.
+	private long step;
+	// The ring buffer of frame steps.
+	private long[] steps;
+	// The total number of frames written.
+	private volatile long written;
+	
+	/**
+	 * Creates a StateProbe for the neural nodes with the specified neural IDs.
+	 * @param id - The neural IDs of the neural nodes to probe.
+	 * @param interval - The number of processing cycles per frame.
+	 * @param capacity - The number of frames the ring buffer holds.
+	 * @throws IllegalArgumentException Thrown if interval is less than 1 or capacity is less than 2.
+	 * @throws NullPointerException Thrown if id is null.
+	 */
+	public StateProbe(long[] id, int interval, int capacity) {
+		// Check parameters
+		if (id == null)
+			throw new NullPointerException("Error: StateProbe's neural ID array cannot be null.");
+		
+		if (interval < 1)
+			throw new IllegalArgumentException("Error: StateProbe's interval must be at least 1.");
+		
+		if (capacity < 2)
+			throw new IllegalArgumentException("Error: StateProbe's capacity must be at least 2.");
+		
+		// Initialize variables
+		this.capacity = capacity;
+		this.id = id.clone();
+		this.interval = interval;
+		envelope = new float[id.length * VALUES];
+		data = new float[capacity * id.length * VALUES];
+		index = new int[id.length];
+		sampled = 0;
+		step = 0;
+		steps = new long[capacity];
+		written = 0;
+		Arrays.fill(index, -1);
+	}
+	
+	/**
+	 * Returns the number of frames the ring buffer holds.
+	 * @return The capacity in frames.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Returns the number of probed neural nodes.
+	 * @return The number of channels.
+	 */
+	public int channels() {
+		return id.length;
+	}
+	
+	/**
+	 * Returns the total number of frames written to the probe.
+	 * @return The number of frames written.
+	 */
+	public long frames() {
+		return written;
+	}
+	
+	/**
+	 * Returns the number of processing cycles per frame.
+	 * @return The interval.
+	 */
+	public int interval() {
+		return interval;
+	}
+	
+	/**
+	 * Returns the index of the oldest frame that can be read from the ring buffer. The slot after the newest frame is reserved for the frame
+	 * currently being written, so at most capacity - 1 frames can be read.
+	 * @return The index of the oldest frame.
+	 */
+	public long oldestFrame() {
+		return Math.max(0, written - capacity + 1);
+	}
+	
+	/**
+	 * Copies frames starting at the specified frame index into the specified arrays. If the specified frame has already been overwritten,
+	 * copying starts at the oldest frame still held. At most as many frames as fit in steps and data are copied. This never blocks the thread
+	 * processing the probed NeuralNodeArray.
+	 * @param fromFrame - The index of the first frame to copy.
+	 * @param steps - The array receiving the processing step at the end of each copied frame.
+	 * @param data - The array receiving channels() * VALUES values per copied frame.
+	 * @return The number of frames copied.
+	 */
+	public int read(long fromFrame, long[] steps, float[] data) {
+		int frameValues = id.length * VALUES;
+		int maxFrames = Math.min(steps.length, (frameValues == 0) ? steps.length : data.length / frameValues);
+		
+		while (true) {
+			long end = written;
+			long start = Math.max(fromFrame, Math.max(0, end - capacity + 1));
+			int frames = (int)Math.max(0, Math.min(maxFrames, end - start));
+			
+			for (int i = 0; i < frames; ++i) {
+				int slot = (int)((start + i) % capacity);
+				steps[i] = this.steps[slot];
+				System.arraycopy(this.data, slot * frameValues, data, i * frameValues, frameValues);
+			}
+			
+			// Retry if the writer overwrote any of the copied frames
+			VarHandle.acquireFence();
+			
+			if (written - capacity < start)
+				return frames;
+		}
+	}
+	
+	/**
+	 * Resolves the indices of the probed neural nodes in the specified NeuralNodeArray. Neural nodes that no longer exist, or belong to
+	 * another NeuralNodeArray, are skipped when sampling.
+	 * @param array - The NeuralNodeArray being probed.
+	 */
+	void resolve(NeuralNodeArray array) {
+		NeuralSystem neuralSystem = NeuralSystem.getInstance();
+		
+		for (int i = 0; i < id.length; ++i) {
+			NodeData node = neuralSystem.getNodeData(id[i]);
+			index[i] = (node != null && node.getNeuralNodeArray() == array) ? node.getIndex() : -1;
+		}
+	}
+	
+	/**
+	 * Samples the values of the probed neural nodes from the specified NeuralNodeArray after a processing cycle. Every interval samples,
+	 * the min/max envelope is written to the ring buffer as a new frame.
+	 * @param array - The NeuralNodeArray being probed.
+	 */
+	void sample(NeuralNodeArray array) {
+		float[] I = array.I;
+		
+		if (sampled == 0) {
+			for (int i = 0, j = 0; i < index.length; ++i, j += VALUES) {
+				int n = index[i];
+				
+				if (n < 0) {
+					Arrays.fill(envelope, j, j + VALUES, Float.NaN);
+					continue;
+				}
+				
+				envelope[j + V_MIN] = envelope[j + V_MAX] = array.v(n);
+				envelope[j + U_MIN] = envelope[j + U_MAX] = array.u(n);
+				envelope[j + I_MIN] = envelope[j + I_MAX] = I[n];
+			}
+		}
+		else {
+			for (int i = 0, j = 0; i < index.length; ++i, j += VALUES) {
+				int n = index[i];
+				
+				if (n < 0)
+					continue;
+				
+				float v = array.v(n);
+				float u = array.u(n);
+				envelope[j + V_MIN] = Math.min(envelope[j + V_MIN], v);
+				envelope[j + V_MAX] = Math.max(envelope[j + V_MAX], v);
+				envelope[j + U_MIN] = Math.min(envelope[j + U_MIN], u);
+				envelope[j + U_MAX] = Math.max(envelope[j + U_MAX], u);
+				envelope[j + I_MIN] = Math.min(envelope[j + I_MIN], I[n]);
+				envelope[j + I_MAX] = Math.max(envelope[j + I_MAX], I[n]);
+			}
+		}
+		
+		step++;
+		sampled++;
+		
+		// Write frame
+		if (sampled == interval) {
+			int slot = (int)(written % capacity);
+			System.arraycopy(envelope, 0, data, slot * envelope.length, envelope.length);
+			steps[slot] = step;
+			sampled = 0;
+			written = written + 1;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package org.arti.neural.node;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.arti.neural.NeuralSystem;
+import org.arti.neural.Philox;
+
+/**
+ * <p>public abstract class <b>StochasticInput</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>StochasticInput class is the base class of random input currents added to the neural nodes of a {@link NeuralNodeArray} on each
+ * processing cycle. The random numbers come from a {@link Philox} generator keyed by the seed, the index of the neural node and the
+ * processing step, so an input holds no state that changes as it is applied. The same seed, stream and step always add the same input
+ * current, whichever thread applies it and however the neural nodes are split between threads. Inputs with different streams and the same
+ * seed are independent.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public abstract class StochasticInput {
+	/**
+	 * The number of neural nodes generated at a time.
+	 */
+	protected static final int TILE = 1024;
+	
+	/**
+	 * The random number generator.
+	 */
+	protected final Philox generator;
+	/**
+	 * The stream number of the random numbers.
+	 */
+	protected final int stream;
+	
+	/**
+	 * Creates a StochasticInput with the specified seed and stream.
+	 * @param seed - The seed of the random numbers.
+	 * @param stream - The stream number of the random numbers, from 0 to {@link Philox#MAX_STREAM}.
+	 * @throws IllegalArgumentException Thrown if stream is out of range.
+	 */
+	protected StochasticInput(long seed, int stream) {
+		// Check parameters
+		if (stream < 0 || stream > Philox.MAX_STREAM)
+			throw new IllegalArgumentException("Error: StochasticInput stream must be from 0 to " + Philox.MAX_STREAM + ".");
+		
+		// Initialize variables
+		generator = new Philox(seed);
+		this.stream = stream;
+	}
+	
+	/**
+	 * Adds the input current of the specified processing step to all neural nodes of the specified array. The neural nodes are split into
+	 * blocks of {@link NeuralSystem#DETERMINISTIC_BLOCK} neural nodes that the threads of the common ForkJoinPool claim in turn.
+	 * @param array - The neural node array.
+	 * @param step - The processing step.
+	 */
+	public void apply(NeuralNodeArray array, long step) {
+		NeuralSystem neuralSystem = NeuralSystem.getInstance();
+		int nodes = array.nodes();
+		
+		// Blocks hold whole words of tracked blocks, so threads never wake the same word
+		int alignment = (array.activityTracker != null) ? array.activityTracker.alignment() : NeuralNodeArray.SPECIES.length();
+		int blockSize = (NeuralSystem.DETERMINISTIC_BLOCK + alignment - 1) / alignment * alignment;
+		int blocks = (nodes + blockSize - 1) / blockSize;
+		int threads = Math.min(neuralSystem.getMaxThreads(), blocks);
+		AtomicInteger next = new AtomicInteger();
+		
+		Runnable worker = () -> {
+			int block;
+			
+			while ((block = next.getAndIncrement()) < blocks)
+				apply(array, step, block * blockSize, Math.min(nodes, (block + 1) * blockSize));
+		};
+		
+		ForkJoinTask<?>[] task = new ForkJoinTask<?>[Math.max(threads - 1, 0)];
+		
+		for (int i = 0; i < task.length; ++i)
+			task[i] = ForkJoinPool.commonPool().submit(worker);
+		
+		worker.run();
+		
+		for (ForkJoinTask<?> t : task)
+			t.join();
+	}
+	
+	/**
+	 * Adds the input current of the specified processing step to the neural nodes of the specified array in the specified range. Ranges that
+	 * do not share a word of the activity tracker can be applied on different threads at once.
+	 * @param array - The neural node array.
+	 * @param step - The processing step.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 * @throws IndexOutOfBoundsException Thrown if the range is out of bounds.
+	 */
+	public abstract void apply(NeuralNodeArray array, long step, int from, int to);
+	
+	/**
+	 * Checks that the specified range of neural nodes is in the specified array.
+	 * @param array - The neural node array.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 * @throws IndexOutOfBoundsException Thrown if the range is out of bounds.
+	 */
+	protected static void checkRange(NeuralNodeArray array, int from, int to) {
+		if (from < 0 || to > array.nodes() || from > to)
+			throw new IndexOutOfBoundsException("Error: Cannot add input from " + from + " to " + to + ". Index out of bounds.");
+	}
+	
+	/**
+	 * Returns the seed of the random numbers.
+	 * @return The seed.
+	 */
+	public long seed() {
+		return generator.seed();
+	}
+	
+	/**
+	 * Returns the stream number of the random numbers.
+	 * @return The stream number.
+	 */
+	public int stream() {
+		return stream;
+	}
+}
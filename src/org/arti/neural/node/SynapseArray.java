@@ -48,7 +48,7 @@ public abstract class SynapseArray implements Runnable {
 	/**
 	 * Fraction of resources that remain available after neurotransmitter depletion.
 	 */
-	private float[] x;
+	protected float[] x;
 	
 	
 	
@@ -0,0 +1,100 @@
+package org.arti.neural.node.equation;
+
+import java.util.Arrays;
+
+import org.arti.neural.node.NeuralNodeArray;
+
+/**
+ * <p>public abstract class <b>EquationArray</b><br>
+ * extends {@link NeuralNodeArray}</p>
+ * 
+ * <p>EquationArray class is the base class of the neural node arrays the {@link EquationCompiler} generates from an {@link EquationModel}.
+ * A generated subclass holds the model's equations as compiled scalar and FloatVector kernels over a range of neural nodes, and this class
+ * runs the kernels on a single thread, split over the threads of the common ForkJoinPool, or split with SIMD. There is no CUDA kernel for
+ * an equation model, so GPU processing runs the SIMD kernels. The model's equations set its substeps, so the array has no selectable
+ * integrator.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public abstract class EquationArray extends NeuralNodeArray {
+	/**
+	 * Default constructor. Creates an empty EquationArray.
+	 */
+	protected EquationArray() {
+		// Call parent constructor
+		super();
+	}
+	
+	/**
+	 * Returns the name of the model the array was compiled from.
+	 * @return The model name.
+	 */
+	public abstract String modelName();
+	
+	/**
+	 * Returns the source of the model the array was compiled from, so the array can be compiled again when it is restored from a
+	 * {@link org.arti.neural.node.NeuralCheckpoint}.
+	 * @return The model source.
+	 */
+	public abstract String modelSource();
+	
+	@Override
+	public void process() {
+		processRange(false, 0, nodes);
+	}
+	
+	@Override
+	public void processGPU() {
+		processSIMD();
+	}
+	
+	@Override
+	public void processMT() {
+		processBatches(false);
+	}
+	
+	@Override
+	public void processSIMD() {
+		processBatches(true);
+	}
+	
+	@Override
+	public void reset() {
+		Arrays.fill(I, 0.0f);
+		Arrays.fill(u, uInit());
+		Arrays.fill(v, vInit());
+		Arrays.fill(spike, 0.0f);
+		
+		wake();
+	}
+	
+	/**
+	 * Sets the numerical integrator. Not supported, the substeps of an EquationArray are set by its model.
+	 * @param integrator - The integrator.
+	 * @param substeps - The number of substeps.
+	 * @throws UnsupportedOperationException Always thrown.
+	 */
+	@Override
+	public void setIntegrator(Integrator integrator, int substeps) {
+		throw new UnsupportedOperationException("Error: The substeps of " + modelName() + " are set by its equations.");
+	}
+	
+	/**
+	 * Processes one cycle of the neural nodes in the specified range with scalar arithmetic.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	@Override
+	protected abstract void step(int from, int to);
+	
+	/**
+	 * Processes one cycle of the neural nodes in the specified range with FloatVectors of {@link #SPECIES}, processing the tail of the range
+	 * that does not fill a vector with {@link #step(int, int)}.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	@Override
+	protected abstract void stepSIMD(int from, int to);
+}
@@ -0,0 +1,391 @@
+package org.arti.neural.node.equation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.arti.neural.node.NeuralNodeArray;
+
+/**
+ * <p>public class <b>EquationCompiler</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>EquationCompiler class compiles {@link EquationModel}s into {@link EquationArray} subclasses at runtime. The equations are generated
+ * as Java source, with parameters inlined as constants, into a scalar kernel and a FloatVector kernel, which are compiled in memory with the
+ * system Java compiler and loaded by their own class loader. The compiled kernels are JIT compiled like the built-in neural node arrays,
+ * rather than interpreted. Compiled classes are cached by their generated source, so compiling the same model again is free.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class EquationCompiler {
+	/**
+	 * The package of the generated classes.
+	 */
+	public static final String PACKAGE = "org.arti.neural.node.equation.generated";
+	
+	// The NeuralNodeArray parameters returned by the generated accessors.
+	private static final String[] ACCESSORS = {"a", "b", "b2", "ba", "bv", "c", "C", "cu", "d", "gc", "gp", "k", "umax", "upow", "uv", "uvmin",
+			"vp", "vpu", "vr", "vt"};
+	
+	// The compiled classes, indexed by generated source.
+	private HashMap<String, Class<? extends EquationArray>> compiled;
+	// The system Java compiler.
+	private JavaCompiler compiler;
+	
+	/**
+	 * Default constructor. Creates an EquationCompiler using the system Java compiler.
+	 * @throws IllegalStateException Thrown if the runtime has no Java compiler.
+	 */
+	public EquationCompiler() {
+		// Initialize variables
+		compiled = new HashMap<String, Class<? extends EquationArray>>();
+		compiler = ToolProvider.getSystemJavaCompiler();
+		
+		if (compiler == null)
+			throw new IllegalStateException("Error: EquationCompiler needs a Java runtime that includes the Java compiler.");
+	}
+	
+	/**
+	 * Returns the simple name of the class generated from the specified model, its name in upper camel case followed by Array.
+	 * @param model - The model.
+	 * @return The class name.
+	 */
+	public static String className(EquationModel model) {
+		StringBuilder name = new StringBuilder();
+		boolean upper = true;
+		
+		for (char c : model.name().toCharArray()) {
+			if (Character.isLetterOrDigit(c) && c < 128) {
+				name.append(upper ? Character.toUpperCase(c) : c);
+				upper = false;
+			} else {
+				upper = true;
+			}
+		}
+		
+		if (name.length() == 0 || !Character.isLetter(name.charAt(0)))
+			name.insert(0, "Model");
+		
+		return name.append("Array").toString();
+	}
+	
+	/**
+	 * Compiles the specified model, or returns its class if it is compiled already.
+	 * @param model - The model.
+	 * @return The generated EquationArray subclass.
+	 * @throws IllegalStateException Thrown if the generated source does not compile.
+	 */
+	public synchronized Class<? extends EquationArray> compile(EquationModel model) {
+		String source = generate(model);
+		Class<? extends EquationArray> type = compiled.get(source);
+		
+		if (type != null)
+			return type;
+		
+		String name = PACKAGE + "." + className(model);
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		List<String> options = List.of("--add-modules", "jdk.incubator.vector", "-classpath", System.getProperty("java.class.path"), "-nowarn",
+				"-proc:none");
+		JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+		
+		// Closing the file manager closes the standard file manager it forwards to
+		try (MemoryFileManager fileManager = new MemoryFileManager(compiler.getStandardFileManager(diagnostics, Locale.ROOT, null))) {
+			if (!compiler.getTask(null, fileManager, diagnostics, options, null, List.of(file)).call()) {
+				StringBuilder message = new StringBuilder("Error: EquationCompiler could not compile " + model.name() + ":");
+				
+				for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+					if (diagnostic.getKind() == Diagnostic.Kind.ERROR)
+						message.append('\n').append(diagnostic.getMessage(Locale.ROOT));
+				}
+				
+				throw new IllegalStateException(message.toString());
+			}
+			
+			type = new MemoryClassLoader(fileManager.classes).loadClass(name).asSubclass(EquationArray.class);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("Error: EquationCompiler could not load " + name + ".", e);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error: EquationCompiler could not close the file manager of " + name + ".", e);
+		}
+		
+		compiled.put(source, type);
+		return type;
+	}
+	
+	/**
+	 * Returns the Java source of the EquationArray subclass of the specified model.
+	 * @param model - The model.
+	 * @return The source.
+	 */
+	public String generate(EquationModel model) {
+		String name = className(model);
+		StringBuilder s = new StringBuilder();
+		s.append("package ").append(PACKAGE).append(";\n\n");
+		s.append("import org.arti.neural.node.equation.EquationArray;\n\n");
+		s.append("import jdk.incubator.vector.FloatVector;\n");
+		s.append("import jdk.incubator.vector.VectorMask;\n");
+		s.append("import jdk.incubator.vector.VectorOperators;\n\n");
+		s.append("/**\n * Generated from the ").append(model.name().replace("*/", "* /")).append(" equation model.\n */\n");
+		s.append("@SuppressWarnings(\"unused\")\n");
+		s.append("public final class ").append(name).append(" extends EquationArray {\n");
+		s.append("\tpublic ").append(name).append("() {\n\t\tsuper();\n\t}\n\n");
+		
+		// Parameter accessors
+		for (String accessor : ACCESSORS)
+			accessor(s, accessor, model.parameter(accessor, defaultValue(model, accessor)));
+		
+		accessor(s, "uInit", model.uInit());
+		accessor(s, "vInit", model.vInit());
+		s.append("\t@Override\n\tpublic String modelName() {\n\t\treturn \"").append(escape(model.name())).append("\";\n\t}\n\n");
+		s.append("\t@Override\n\tpublic String modelSource() {\n\t\treturn \"").append(escape(model.source())).append("\";\n\t}\n\n");
+		
+		String h = Expression.literal(1.0f / model.substeps());
+		Expression.Comparison condition = model.spikeCondition();
+		
+		// Scalar kernel
+		s.append("\t@Override\n\tprotected void step(int from, int to) {\n");
+		s.append("\t\tfor (int j = from; j < to; ++j) {\n");
+		s.append("\t\t\tfloat v = this.v[j];\n\t\t\tfloat u = this.u[j];\n\t\t\tfloat I = this.I[j];\n\n");
+		s.append(substeps(model, "\t\t\t")).append("v += ");
+		s.append((model.substeps() == 1) ? model.dv().scalar() : h + " * " + model.dv().scalar()).append(";\n");
+		s.append("\t\t\tu += ").append(model.du().scalar()).append(";\n\n");
+		
+		if (condition == null) {
+			s.append("\t\t\tspike[j] = 0.0f;\n");
+		} else {
+			s.append("\t\t\tif ").append(condition.scalar()).append(" {\n");
+			
+			if (model.vReset() != null)
+				s.append("\t\t\t\tfloat vNext = ").append(model.vReset().scalar()).append(";\n");
+			
+			if (model.uReset() != null)
+				s.append("\t\t\t\tfloat uNext = ").append(model.uReset().scalar()).append(";\n");
+			
+			if (model.vReset() != null)
+				s.append("\t\t\t\tv = vNext;\n");
+			
+			if (model.uReset() != null)
+				s.append("\t\t\t\tu = uNext;\n");
+			
+			s.append("\t\t\t\tspike[j] = 1.0f;\n\t\t\t} else {\n\t\t\t\tspike[j] = 0.0f;\n\t\t\t}\n");
+		}
+		
+		s.append("\n\t\t\tthis.v[j] = v;\n\t\t\tthis.u[j] = u;\n\t\t}\n\t}\n\n");
+		
+		// SIMD kernel
+		s.append("\t@Override\n\tprotected void stepSIMD(int from, int to) {\n\t\tint j = from;\n\n");
+		s.append("\t\tfor (int bound = from + SPECIES.loopBound(to - from); j < bound; j += SPECIES.length()) {\n");
+		s.append("\t\t\tFloatVector v = FloatVector.fromArray(SPECIES, this.v, j);\n");
+		s.append("\t\t\tFloatVector u = FloatVector.fromArray(SPECIES, this.u, j);\n");
+		s.append("\t\t\tFloatVector I = FloatVector.fromArray(SPECIES, this.I, j);\n\n");
+		s.append(substeps(model, "\t\t\t")).append("v = v.add(").append(Expression.vectorOf(model.dv()));
+		s.append((model.substeps() == 1) ? "" : ".mul(" + h + ")").append(");\n");
+		s.append("\t\t\tu = u.add(").append(Expression.vectorOf(model.du())).append(");\n\n");
+		
+		if (condition == null) {
+			s.append("\t\t\tFloatVector.zero(SPECIES).intoArray(spike, j);\n");
+		} else {
+			s.append("\t\t\tVectorMask<Float> fired = ").append(condition.vector()).append(";\n");
+			
+			if (model.vReset() != null)
+				s.append("\t\t\tFloatVector vNext = ").append(Expression.vectorOf(model.vReset())).append(";\n");
+			
+			if (model.uReset() != null)
+				s.append("\t\t\tFloatVector uNext = ").append(Expression.vectorOf(model.uReset())).append(";\n");
+			
+			if (model.vReset() != null)
+				s.append("\t\t\tv = v.blend(vNext, fired);\n");
+			
+			if (model.uReset() != null)
+				s.append("\t\t\tu = u.blend(uNext, fired);\n");
+			
+			s.append("\t\t\tFloatVector.zero(SPECIES).blend(1.0f, fired).intoArray(spike, j);\n");
+		}
+		
+		s.append("\t\t\tv.intoArray(this.v, j);\n\t\t\tu.intoArray(this.u, j);\n\t\t}\n\n");
+		s.append("\t\t// Process loop tail\n\t\tstep(j, to);\n\t}\n}\n");
+		return s.toString();
+	}
+	
+	/**
+	 * Compiles the specified model, or reuses its class if it is compiled already, and creates an empty array of it.
+	 * @param model - The model.
+	 * @return The new EquationArray.
+	 * @throws IllegalStateException Thrown if the generated source does not compile or the array cannot be created.
+	 */
+	public EquationArray newArray(EquationModel model) {
+		try {
+			return compile(model).getDeclaredConstructor().newInstance();
+		} catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+			throw new IllegalStateException("Error: EquationCompiler could not create an array of " + model.name() + ".", e);
+		}
+	}
+	
+	/**
+	 * Appends an accessor returning a constant to the specified source.
+	 * @param s - The source.
+	 * @param name - The accessor name.
+	 * @param value - The returned value.
+	 */
+	private static void accessor(StringBuilder s, String name, float value) {
+		s.append("\t@Override\n\tpublic float ").append(name).append("() {\n\t\treturn ").append(Expression.literal(value));
+		s.append(";\n\t}\n\n");
+	}
+	
+	/**
+	 * Returns the value of a NeuralNodeArray parameter the specified model does not define.
+	 * @param model - The model.
+	 * @param name - The parameter name.
+	 * @return The default value.
+	 */
+	private static float defaultValue(EquationModel model, String name) {
+		switch (name) {
+		case "ba":
+			return model.parameter("b", 0.0f);
+		case "cu":
+			return NeuralNodeArray.DEF_C_U;
+		case "umax":
+			return NeuralNodeArray.DEF_U_MAX;
+		case "upow":
+			return NeuralNodeArray.DEF_U_POW;
+		case "uvmin":
+			return NeuralNodeArray.DEF_UV_MIN;
+		case "vpu":
+			return NeuralNodeArray.DEF_VP_U;
+		default:
+			return 0.0f;
+		}
+	}
+	
+	/**
+	 * Escapes a string for a Java string literal. Control characters are written as octal escapes, as a Unicode escape of a line break
+	 * would end the literal.
+	 * @param text - The string.
+	 * @return The escaped string.
+	 */
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder();
+		
+		for (char c : text.toCharArray()) {
+			if (c == '"' || c == '\\')
+				escaped.append('\\').append(c);
+			else if (c < 32)
+				escaped.append(String.format("\\%03o", (int)c));
+			else if (c > 126)
+				escaped.append(String.format("\\u%04x", (int)c));
+			else
+				escaped.append(c);
+		}
+		
+		return escaped.toString();
+	}
+	
+	/**
+	 * Returns the loop header repeating the Euler step of v, or just the indent for a single step.
+	 * @param model - The model.
+	 * @param indent - The indent of the step.
+	 * @return The source preceding the step.
+	 */
+	private static String substeps(EquationModel model, String indent) {
+		if (model.substeps() == 1)
+			return indent;
+		
+		return indent + "for (int s = 0; s < " + model.substeps() + "; ++s)\n" + indent + "\t";
+	}
+	
+	/**
+	 * <p>private static final class <b>MemoryClassLoader</b><br>
+	 * extends {@link ClassLoader}</p>
+	 * 
+	 * <p>MemoryClassLoader class loads classes from the class files of a compilation held in memory.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	private static final class MemoryClassLoader extends ClassLoader {
+		// The class files, indexed by binary class name.
+		private HashMap<String, ByteArrayOutputStream> classes;
+		
+		/**
+		 * Creates a MemoryClassLoader of the specified class files, delegating to the class loader of EquationArray.
+		 * @param classes - The class files, indexed by binary class name.
+		 */
+		MemoryClassLoader(HashMap<String, ByteArrayOutputStream> classes) {
+			super(EquationArray.class.getClassLoader());
+			this.classes = classes;
+		}
+		
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			ByteArrayOutputStream bytes = classes.get(name);
+			
+			if (bytes == null)
+				throw new ClassNotFoundException(name);
+			
+			return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+		}
+	}
+	
+	/**
+	 * <p>private static final class <b>MemoryFileManager</b><br>
+	 * extends {@link ForwardingJavaFileManager}</p>
+	 * 
+	 * <p>MemoryFileManager class keeps the class files written by a compilation in memory.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+		// The class files, indexed by binary class name.
+		private HashMap<String, ByteArrayOutputStream> classes;
+		
+		/**
+		 * Creates a MemoryFileManager forwarding to the specified file manager.
+		 * @param fileManager - The standard file manager.
+		 */
+		MemoryFileManager(StandardJavaFileManager fileManager) {
+			super(fileManager);
+			classes = new HashMap<String, ByteArrayOutputStream>();
+		}
+		
+		@Override
+		public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className, JavaFileObject.Kind kind,
+				FileObject sibling) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			classes.put(className, bytes);
+			
+			return new SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/') + kind.extension), kind) {
+				@Override
+				public OutputStream openOutputStream() {
+					return bytes;
+				}
+			};
+		}
+	}
+}
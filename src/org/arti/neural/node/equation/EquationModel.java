@@ -0,0 +1,685 @@
+package org.arti.neural.node.equation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * <p>public class <b>EquationModel</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>EquationModel class is a neuron model defined by its equations, parsed from the source text a user enters in the neural model creator.
+ * The {@link EquationCompiler} compiles an EquationModel into an {@link EquationArray} subclass. The source holds one statement per line,
+ * and a # starts a comment:</p>
+ * 
+ * <pre>
+ * a = 0.02                    parameter, a constant expression of numbers and earlier parameters
+ * substeps = 2                number of Euler steps of v per 1 ms processing cycle, 1 to 16
+ * v(0) = -70                  initial membrane potential
+ * u(0) = b * v                initial membrane recovery, where v is the initial membrane potential
+ * dv/dt = 0.04*v^2 + 5*v + 140 - u + I
+ * du/dt = a*(b*v - u)
+ * when v &gt;= vp: v = c; u += d   spike condition and after-spike reset
+ * </pre>
+ * 
+ * <p>Equations combine numbers, parameters, v, u, the input current I, the operators + - * / ^ and the functions abs, exp, log, max,
+ * min, pow, sqrt and tanh. On each 1 ms processing cycle v is advanced in substeps Euler steps, u in one Euler step from the new v, and
+ * then the spike condition is tested; the reset assignments all read the values before the reset, as the built-in Izhikevich arrays do.
+ * Parameters named like the parameters of a NeuralNodeArray, such as a, b, c, d, k, C, vp, vr and vt, are also returned by its
+ * accessors.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class EquationModel {
+	/**
+	 * The largest number of Euler steps of v per processing cycle.
+	 */
+	public static final int MAX_SUBSTEPS = 16;
+	
+	// The initial membrane potential used when none is given.
+	private static final float DEF_V_INIT = -65.0f;
+	
+	// du/dt.
+	private Expression du;
+	// dv/dt.
+	private Expression dv;
+	// The model name.
+	private String name;
+	// The parameter values, in order of definition.
+	private LinkedHashMap<String, Float> parameters;
+	// The spike condition, or null if the model never spikes.
+	private Expression.Comparison spikeCondition;
+	// The source text.
+	private String source;
+	// The number of Euler steps of v per processing cycle.
+	private int substeps;
+	// The after-spike value of u, or null if u is not reset.
+	private Expression uReset;
+	// The initial membrane recovery.
+	private float uInit;
+	// The after-spike value of v, or null if v is not reset.
+	private Expression vReset;
+	// The initial membrane potential.
+	private float vInit;
+	
+	/**
+	 * Creates an EquationModel.
+	 */
+	private EquationModel() {
+		parameters = new LinkedHashMap<String, Float>();
+		substeps = 1;
+		uInit = 0.0f;
+		vInit = DEF_V_INIT;
+	}
+	
+	/**
+	 * Parses the specified model source.
+	 * @param name - The model name.
+	 * @param source - The model source.
+	 * @return The model.
+	 * @throws IllegalArgumentException Thrown if the name is blank or the source is not a valid model, with the line of the first error.
+	 */
+	public static EquationModel parse(String name, String source) {
+		if (name == null || name.isBlank())
+			throw new IllegalArgumentException("Error: EquationModel's name cannot be blank.");
+		
+		EquationModel model = new EquationModel();
+		model.name = name.trim();
+		model.source = source;
+		String[] line = source.split("\r?\n|\r", -1);
+		boolean substepsSet = false;
+		boolean vInitSet = false;
+		String uInitLine = null;
+		int uInitNumber = 0;
+		
+		for (int i = 0; i < line.length; ++i) {
+			String text = line[i];
+			int comment = text.indexOf('#');
+			
+			if (comment >= 0)
+				text = text.substring(0, comment);
+			
+			if (text.isBlank())
+				continue;
+			
+			Parser parser = new Parser(text, i + 1, model.parameters);
+			
+			if (parser.peekDerivative()) {
+				String variable = parser.derivative();
+				parser.expect("=");
+				Expression expression = parser.expressionToEnd();
+				
+				if (variable.equals("v")) {
+					if (model.dv != null)
+						throw parser.error("dv/dt is defined twice.");
+					
+					model.dv = expression;
+				} else {
+					if (model.du != null)
+						throw parser.error("du/dt is defined twice.");
+					
+					model.du = expression;
+				}
+			} else if (parser.peek("when")) {
+				if (model.spikeCondition != null)
+					throw parser.error("The spike condition is defined twice.");
+				
+				parser.next();
+				model.spikeCondition = parser.comparison();
+				parser.expect(":");
+				
+				do {
+					String variable = parser.state();
+					String operator = parser.next();
+					Expression value = parser.expression();
+					
+					if (operator.equals("+=") || operator.equals("-="))
+						value = Expression.Binary.of(operator.charAt(0), new Expression.Variable(variable), value);
+					else if (!operator.equals("="))
+						throw parser.error("Expected =, += or -= after " + variable + ".");
+					
+					if (variable.equals("v")) {
+						if (model.vReset != null)
+							throw parser.error("v is reset twice.");
+						
+						model.vReset = value;
+					} else {
+						if (model.uReset != null)
+							throw parser.error("u is reset twice.");
+						
+						model.uReset = value;
+					}
+				} while (parser.accept(";"));
+				
+				parser.expectEnd();
+			} else if (parser.peekInitial()) {
+				String variable = parser.initial();
+				
+				// u(0) may use the initial membrane potential, so it is parsed once v(0) is known
+				if (variable.equals("u")) {
+					if (uInitLine != null)
+						throw parser.error("u(0) is defined twice.");
+					
+					uInitLine = parser.rest();
+					uInitNumber = i + 1;
+				} else {
+					if (vInitSet)
+						throw parser.error("v(0) is defined twice.");
+					
+					model.vInit = parser.constantToEnd();
+					vInitSet = true;
+				}
+			} else {
+				String parameter = parser.identifier();
+				parser.expect("=");
+				float value = parser.constantToEnd();
+				
+				if (model.parameters.containsKey(parameter) || parameter.equals("substeps") && substepsSet)
+					throw parser.error("Parameter " + parameter + " is defined twice.");
+				
+				if (parameter.equals("substeps")) {
+					if (value != (int)value || value < 1.0f || value > MAX_SUBSTEPS)
+						throw parser.error("substeps must be a whole number from 1 to " + MAX_SUBSTEPS + ".");
+					
+					model.substeps = (int)value;
+					substepsSet = true;
+				} else {
+					model.parameters.put(parameter, value);
+				}
+			}
+		}
+		
+		if (model.dv == null)
+			throw new IllegalArgumentException("Error: The model must define dv/dt.");
+		
+		if (model.du == null)
+			model.du = new Expression.Constant(0.0f);
+		
+		if (uInitLine != null) {
+			LinkedHashMap<String, Float> scope = new LinkedHashMap<String, Float>(model.parameters);
+			scope.put("v", model.vInit);
+			model.uInit = new Parser(uInitLine, uInitNumber, scope).constantToEnd();
+		}
+		
+		return model;
+	}
+	
+	/**
+	 * Returns the model name.
+	 * @return The name.
+	 */
+	public String name() {
+		return name;
+	}
+	
+	/**
+	 * Returns the value of the specified parameter.
+	 * @param parameter - The parameter name.
+	 * @param defaultValue - The value returned if the parameter is not defined.
+	 * @return The parameter value.
+	 */
+	public float parameter(String parameter, float defaultValue) {
+		Float value = parameters.get(parameter);
+		return (value == null) ? defaultValue : value;
+	}
+	
+	/**
+	 * Returns the names of the parameters, in order of definition.
+	 * @return An unmodifiable list of the parameter names.
+	 */
+	public List<String> parameterNames() {
+		return Collections.unmodifiableList(new ArrayList<String>(parameters.keySet()));
+	}
+	
+	/**
+	 * Returns the model source.
+	 * @return The source text.
+	 */
+	public String source() {
+		return source;
+	}
+	
+	/**
+	 * Returns the number of Euler steps of v per processing cycle.
+	 * @return The number of substeps.
+	 */
+	public int substeps() {
+		return substeps;
+	}
+	
+	@Override
+	public String toString() {
+		return name;
+	}
+	
+	/**
+	 * Returns the initial membrane recovery.
+	 * @return The initial u value.
+	 */
+	public float uInit() {
+		return uInit;
+	}
+	
+	/**
+	 * Returns the initial membrane potential.
+	 * @return The initial v value.
+	 */
+	public float vInit() {
+		return vInit;
+	}
+	
+	/**
+	 * Returns du/dt.
+	 * @return The expression.
+	 */
+	Expression du() {
+		return du;
+	}
+	
+	/**
+	 * Returns dv/dt.
+	 * @return The expression.
+	 */
+	Expression dv() {
+		return dv;
+	}
+	
+	/**
+	 * Returns the spike condition.
+	 * @return The condition, or null if the model never spikes.
+	 */
+	Expression.Comparison spikeCondition() {
+		return spikeCondition;
+	}
+	
+	/**
+	 * Returns the after-spike value of u.
+	 * @return The expression, or null if u is not reset.
+	 */
+	Expression uReset() {
+		return uReset;
+	}
+	
+	/**
+	 * Returns the after-spike value of v.
+	 * @return The expression, or null if v is not reset.
+	 */
+	Expression vReset() {
+		return vReset;
+	}
+	
+	/**
+	 * <p>private static final class <b>Parser</b><br>
+	 * extends {@link Object}</p>
+	 * 
+	 * <p>Parser class is a recursive descent parser of one line of model source. Parameters in expressions are replaced by their values.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	private static final class Parser {
+		// The line number.
+		private int line;
+		// The parameter values in scope.
+		private LinkedHashMap<String, Float> scope;
+		// The line text.
+		private String text;
+		// The index of the next token.
+		private int token;
+		// The tokens of the line.
+		private ArrayList<String> tokens;
+		
+		/**
+		 * Creates a Parser of the specified line.
+		 * @param text - The line text, without comment.
+		 * @param line - The line number.
+		 * @param scope - The parameter values in scope.
+		 * @throws IllegalArgumentException Thrown if the line holds an invalid character.
+		 */
+		Parser(String text, int line, LinkedHashMap<String, Float> scope) {
+			this.text = text;
+			this.line = line;
+			this.scope = scope;
+			token = 0;
+			tokens = new ArrayList<String>();
+			
+			for (int i = 0; i < text.length();) {
+				char c = text.charAt(i);
+				
+				if (Character.isWhitespace(c)) {
+					i++;
+				} else if (Character.isLetter(c) || c == '_') {
+					int start = i;
+					
+					while (i < text.length() && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_'))
+						i++;
+					
+					tokens.add(text.substring(start, i));
+				} else if (Character.isDigit(c) || c == '.') {
+					int start = i;
+					
+					while (i < text.length() && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.'))
+						i++;
+					
+					// Exponent
+					if (i < text.length() && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+						int exponent = i + 1;
+						
+						if (exponent < text.length() && (text.charAt(exponent) == '+' || text.charAt(exponent) == '-'))
+							exponent++;
+						
+						if (exponent < text.length() && Character.isDigit(text.charAt(exponent))) {
+							i = exponent;
+							
+							while (i < text.length() && Character.isDigit(text.charAt(i)))
+								i++;
+						}
+					}
+					
+					tokens.add(text.substring(start, i));
+				} else if ((c == '>' || c == '<' || c == '+' || c == '-') && i + 1 < text.length() && text.charAt(i + 1) == '=') {
+					tokens.add(text.substring(i, i + 2));
+					i += 2;
+				} else if ("+-*/^(),:;=<>".indexOf(c) >= 0) {
+					tokens.add(String.valueOf(c));
+					i++;
+				} else {
+					throw error("Unexpected character '" + c + "'.");
+				}
+			}
+		}
+		
+		/**
+		 * Skips the next token if it is the specified token.
+		 * @param expected - The token.
+		 * @return True if the token was skipped.
+		 */
+		boolean accept(String expected) {
+			if (peek(expected)) {
+				token++;
+				return true;
+			}
+			
+			return false;
+		}
+		
+		/**
+		 * Parses a spike condition, two expressions compared with &gt;=, &gt;, &lt;= or &lt;.
+		 * @return The condition.
+		 */
+		Expression.Comparison comparison() {
+			Expression left = expression();
+			String operator = next();
+			
+			if (!operator.equals(">=") && !operator.equals(">") && !operator.equals("<=") && !operator.equals("<"))
+				throw error("Expected >=, >, <= or < in the spike condition.");
+			
+			Expression right = expression();
+			
+			if (left.isConstant() && right.isConstant())
+				throw error("The spike condition must depend on v, u or I.");
+			
+			return new Expression.Comparison(operator, left, right);
+		}
+		
+		/**
+		 * Parses a constant expression up to the end of the line.
+		 * @return The value.
+		 */
+		float constantToEnd() {
+			Expression expression = expressionToEnd();
+			
+			if (!expression.isConstant())
+				throw error("Expected a constant expression.");
+			
+			return expression.value();
+		}
+		
+		/**
+		 * Parses dv/dt or du/dt.
+		 * @return The state variable, v or u.
+		 */
+		String derivative() {
+			String variable = next().substring(1);
+			next();
+			next();
+			return variable;
+		}
+		
+		/**
+		 * Returns an exception for an error on the line.
+		 * @param message - The error message.
+		 * @return The exception.
+		 */
+		IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Error: Line " + line + ": " + message);
+		}
+		
+		/**
+		 * Skips the specified token.
+		 * @param expected - The token.
+		 */
+		void expect(String expected) {
+			if (!accept(expected))
+				throw error("Expected '" + expected + "'" + (token < tokens.size() ? " before '" + tokens.get(token) + "'." : "."));
+		}
+		
+		/**
+		 * Checks that the whole line is parsed.
+		 */
+		void expectEnd() {
+			if (token < tokens.size())
+				throw error("Unexpected '" + tokens.get(token) + "'.");
+		}
+		
+		/**
+		 * Parses a sum of terms.
+		 * @return The expression.
+		 */
+		Expression expression() {
+			Expression expression = term();
+			
+			while (peek("+") || peek("-"))
+				expression = Expression.Binary.of(next().charAt(0), expression, term());
+			
+			return expression;
+		}
+		
+		/**
+		 * Parses an expression up to the end of the line.
+		 * @return The expression.
+		 */
+		Expression expressionToEnd() {
+			Expression expression = expression();
+			expectEnd();
+			return expression;
+		}
+		
+		/**
+		 * Parses a new parameter name.
+		 * @return The name.
+		 */
+		String identifier() {
+			String name = next();
+			
+			if (!Character.isLetter(name.charAt(0)) && name.charAt(0) != '_')
+				throw error("Expected a parameter name instead of '" + name + "'.");
+			
+			if (name.equals("v") || name.equals("u") || name.equals("I") || name.equals("when") || Expression.Call.arguments(name) > 0)
+				throw error(name + " cannot be used as a parameter name.");
+			
+			return name;
+		}
+		
+		/**
+		 * Parses v(0) or u(0).
+		 * @return The state variable, v or u.
+		 */
+		String initial() {
+			String variable = next();
+			next();
+			next();
+			next();
+			expect("=");
+			return variable;
+		}
+		
+		/**
+		 * Returns and skips the next token.
+		 * @return The token.
+		 */
+		String next() {
+			if (token >= tokens.size())
+				throw error("Unexpected end of line.");
+			
+			return tokens.get(token++);
+		}
+		
+		/**
+		 * Returns whether the next token is the specified token.
+		 * @param expected - The token.
+		 * @return True if it is.
+		 */
+		boolean peek(String expected) {
+			return token < tokens.size() && tokens.get(token).equals(expected);
+		}
+		
+		/**
+		 * Returns whether the line starts with dv/dt or du/dt.
+		 * @return True if it does.
+		 */
+		boolean peekDerivative() {
+			return tokens.size() >= 3 && (tokens.get(0).equals("dv") || tokens.get(0).equals("du")) && tokens.get(1).equals("/") &&
+					tokens.get(2).equals("dt");
+		}
+		
+		/**
+		 * Returns whether the line starts with v(0) or u(0).
+		 * @return True if it does.
+		 */
+		boolean peekInitial() {
+			return tokens.size() >= 4 && (tokens.get(0).equals("v") || tokens.get(0).equals("u")) && tokens.get(1).equals("(") &&
+					tokens.get(2).equals("0") && tokens.get(3).equals(")");
+		}
+		
+		/**
+		 * Returns the text of the rest of the line.
+		 * @return The text after the tokens parsed so far.
+		 */
+		String rest() {
+			StringBuilder rest = new StringBuilder();
+			
+			for (int i = token; i < tokens.size(); ++i)
+				rest.append(tokens.get(i)).append(' ');
+			
+			token = tokens.size();
+			return rest.toString();
+		}
+		
+		/**
+		 * Parses the state variable assigned by a reset.
+		 * @return The state variable, v or u.
+		 */
+		String state() {
+			String variable = next();
+			
+			if (!variable.equals("v") && !variable.equals("u"))
+				throw error("Only v and u can be reset, not " + variable + ".");
+			
+			return variable;
+		}
+		
+		/**
+		 * Parses a product of factors.
+		 * @return The expression.
+		 */
+		private Expression term() {
+			Expression expression = unary();
+			
+			while (peek("*") || peek("/"))
+				expression = Expression.Binary.of(next().charAt(0), expression, unary());
+			
+			return expression;
+		}
+		
+		/**
+		 * Parses a negated or plain power.
+		 * @return The expression.
+		 */
+		private Expression unary() {
+			if (accept("-"))
+				return Expression.Negation.of(unary());
+			else if (accept("+"))
+				return unary();
+			
+			return power();
+		}
+		
+		/**
+		 * Parses a power, which is right associative and binds tighter than a unary minus.
+		 * @return The expression.
+		 */
+		private Expression power() {
+			Expression expression = primary();
+			
+			if (accept("^"))
+				return Expression.Binary.of('^', expression, unary());
+			
+			return expression;
+		}
+		
+		/**
+		 * Parses a number, variable, parameter, function call or parenthesized expression.
+		 * @return The expression.
+		 */
+		private Expression primary() {
+			String next = next();
+			
+			if (next.equals("(")) {
+				Expression expression = expression();
+				expect(")");
+				return expression;
+			}
+			
+			if (Character.isDigit(next.charAt(0)) || next.charAt(0) == '.') {
+				try {
+					return new Expression.Constant(Float.parseFloat(next));
+				} catch (NumberFormatException e) {
+					throw error("Invalid number '" + next + "'.");
+				}
+			}
+			
+			if (!Character.isLetter(next.charAt(0)) && next.charAt(0) != '_')
+				throw error("Unexpected '" + next + "'.");
+			
+			if (scope.containsKey(next))
+				return new Expression.Constant(scope.get(next));
+			
+			if (next.equals("v") || next.equals("u") || next.equals("I"))
+				return new Expression.Variable(next);
+			
+			int arguments = Expression.Call.arguments(next);
+			
+			if (arguments > 0) {
+				expect("(");
+				Expression[] argument = new Expression[arguments];
+				
+				for (int i = 0; i < arguments; ++i) {
+					if (i > 0)
+						expect(",");
+					
+					argument[i] = expression();
+				}
+				
+				expect(")");
+				return Expression.Call.of(next, argument);
+			}
+			
+			throw error("Unknown name '" + next + "'.");
+		}
+	}
+}
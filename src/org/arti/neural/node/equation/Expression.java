@@ -0,0 +1,572 @@
+package org.arti.neural.node.equation;
+
+import java.util.Collections;
+
+/**
+ * <p>abstract class <b>Expression</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>Expression class is a node of the syntax tree of an equation of an {@link EquationModel}. Model parameters are folded into constants
+ * when an equation is parsed, so the only variables are the membrane potential v, the membrane recovery u and the input current I. An
+ * Expression generates the Java source that evaluates it, either on scalar floats or on FloatVectors, for the {@link EquationCompiler}.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+abstract class Expression {
+	/**
+	 * Returns whether the expression is a constant.
+	 * @return True if the expression does not depend on v, u or I.
+	 */
+	abstract boolean isConstant();
+	
+	/**
+	 * Returns the Java source evaluating the expression on the float locals v, u and I.
+	 * @return The scalar source.
+	 */
+	abstract String scalar();
+	
+	/**
+	 * Returns the value of a constant expression.
+	 * @return The value.
+	 * @throws IllegalStateException Thrown if the expression is not constant.
+	 */
+	abstract float value();
+	
+	/**
+	 * Returns the Java source evaluating the expression on the FloatVector locals v, u and I. Must not be called on a constant.
+	 * @return The vector source.
+	 */
+	abstract String vector();
+	
+	/**
+	 * Returns the Java source of a float literal.
+	 * @param value - The value.
+	 * @return The literal source.
+	 */
+	static String literal(float value) {
+		if (Float.isNaN(value))
+			return "Float.NaN";
+		else if (value == Float.POSITIVE_INFINITY)
+			return "Float.POSITIVE_INFINITY";
+		else if (value == Float.NEGATIVE_INFINITY)
+			return "Float.NEGATIVE_INFINITY";
+		
+		return "(" + Float.toString(value) + "f)";
+	}
+	
+	/**
+	 * Returns the Java source evaluating the specified expression as a FloatVector, broadcasting a constant.
+	 * @param expression - The expression.
+	 * @return The vector source.
+	 */
+	static String vectorOf(Expression expression) {
+		if (expression.isConstant())
+			return "FloatVector.broadcast(SPECIES, " + literal(expression.value()) + ")";
+		
+		return expression.vector();
+	}
+	
+	/**
+	 * <p>static final class <b>Binary</b><br>
+	 * extends {@link Expression}</p>
+	 * 
+	 * <p>Binary class is an arithmetic operation on two expressions: +, -, *, / or ^.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	static final class Binary extends Expression {
+		// The left operand.
+		private Expression left;
+		// The operator.
+		private char operator;
+		// The right operand.
+		private Expression right;
+		
+		/**
+		 * Creates a Binary expression.
+		 * @param operator - The operator.
+		 * @param left - The left operand.
+		 * @param right - The right operand.
+		 */
+		private Binary(char operator, Expression left, Expression right) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+		
+		/**
+		 * Returns the specified operation, folded into a constant if both operands are constant.
+		 * @param operator - The operator.
+		 * @param left - The left operand.
+		 * @param right - The right operand.
+		 * @return The expression.
+		 */
+		static Expression of(char operator, Expression left, Expression right) {
+			Expression binary = new Binary(operator, left, right);
+			
+			if (left.isConstant() && right.isConstant())
+				return new Constant(binary.value());
+			
+			return binary;
+		}
+		
+		@Override
+		boolean isConstant() {
+			return false;
+		}
+		
+		@Override
+		String scalar() {
+			if (operator == '^') {
+				int power = integerPower();
+				
+				if (power > 0)
+					return "(" + String.join(" * ", Collections.nCopies(power, left.scalar())) + ")";
+				
+				return "((float)Math.pow(" + left.scalar() + ", " + right.scalar() + "))";
+			}
+			
+			return "(" + left.scalar() + " " + operator + " " + right.scalar() + ")";
+		}
+		
+		@Override
+		float value() {
+			float x = left.value();
+			float y = right.value();
+			
+			switch (operator) {
+			case '+':
+				return x + y;
+			case '-':
+				return x - y;
+			case '*':
+				return x * y;
+			case '/':
+				return x / y;
+			default:
+				return (float)Math.pow(x, y);
+			}
+		}
+		
+		@Override
+		String vector() {
+			String method;
+			
+			switch (operator) {
+			case '+':
+				method = "add";
+				break;
+			case '-':
+				method = "sub";
+				break;
+			case '*':
+				method = "mul";
+				break;
+			case '/':
+				method = "div";
+				break;
+			default:
+				int power = integerPower();
+				
+				if (power > 0) {
+					String base = left.vector();
+					StringBuilder product = new StringBuilder(base);
+					
+					for (int i = 1; i < power; ++i)
+						product.append(".mul(").append(base).append(")");
+					
+					return product.toString();
+				}
+				
+				method = "pow";
+				break;
+			}
+			
+			// A constant operand uses the scalar overload, and a constant left operand of a commutative operation is swapped
+			if (right.isConstant())
+				return left.vector() + "." + method + "(" + literal(right.value()) + ")";
+			else if (left.isConstant() && (operator == '+' || operator == '*'))
+				return right.vector() + "." + method + "(" + literal(left.value()) + ")";
+			else if (left.isConstant() && operator == '-')
+				return right.vector() + ".neg().add(" + literal(left.value()) + ")";
+			
+			return vectorOf(left) + "." + method + "(" + right.vector() + ")";
+		}
+		
+		/**
+		 * Returns the exponent of a power with a small positive integer exponent, which is expanded into products.
+		 * @return The exponent, or 0 if the power is not expanded.
+		 */
+		private int integerPower() {
+			if (operator != '^' || !right.isConstant() || left.isConstant())
+				return 0;
+			
+			float exponent = right.value();
+			return (exponent >= 1.0f && exponent <= 4.0f && exponent == (int)exponent) ? (int)exponent : 0;
+		}
+	}
+	
+	/**
+	 * <p>static final class <b>Call</b><br>
+	 * extends {@link Expression}</p>
+	 * 
+	 * <p>Call class is a call of a built-in function on one or two expressions.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	static final class Call extends Expression {
+		// The arguments.
+		private Expression[] argument;
+		// The function name.
+		private String function;
+		
+		/**
+		 * Creates a Call expression.
+		 * @param function - The function name.
+		 * @param argument - The arguments.
+		 */
+		private Call(String function, Expression[] argument) {
+			this.function = function;
+			this.argument = argument;
+		}
+		
+		/**
+		 * Returns the number of arguments of the specified built-in function.
+		 * @param function - The function name.
+		 * @return The number of arguments, or 0 if there is no such function.
+		 */
+		static int arguments(String function) {
+			switch (function) {
+			case "abs":
+			case "exp":
+			case "log":
+			case "sqrt":
+			case "tanh":
+				return 1;
+			case "max":
+			case "min":
+			case "pow":
+				return 2;
+			default:
+				return 0;
+			}
+		}
+		
+		/**
+		 * Returns the specified call, folded into a constant if all arguments are constant.
+		 * @param function - The function name.
+		 * @param argument - The arguments.
+		 * @return The expression.
+		 */
+		static Expression of(String function, Expression[] argument) {
+			Expression call = new Call(function, argument);
+			
+			for (Expression a : argument) {
+				if (!a.isConstant())
+					return call;
+			}
+			
+			return new Constant(call.value());
+		}
+		
+		@Override
+		boolean isConstant() {
+			return false;
+		}
+		
+		@Override
+		String scalar() {
+			if (argument.length == 1)
+				return "((float)Math." + function + "(" + argument[0].scalar() + "))";
+			
+			return "((float)Math." + function + "(" + argument[0].scalar() + ", " + argument[1].scalar() + "))";
+		}
+		
+		@Override
+		float value() {
+			double x = argument[0].value();
+			double y = (argument.length > 1) ? argument[1].value() : 0.0;
+			
+			switch (function) {
+			case "abs":
+				return (float)Math.abs(x);
+			case "exp":
+				return (float)Math.exp(x);
+			case "log":
+				return (float)Math.log(x);
+			case "max":
+				return (float)Math.max(x, y);
+			case "min":
+				return (float)Math.min(x, y);
+			case "pow":
+				return (float)Math.pow(x, y);
+			case "sqrt":
+				return (float)Math.sqrt(x);
+			default:
+				return (float)Math.tanh(x);
+			}
+		}
+		
+		@Override
+		String vector() {
+			switch (function) {
+			case "abs":
+				return argument[0].vector() + ".abs()";
+			case "sqrt":
+				return argument[0].vector() + ".sqrt()";
+			case "exp":
+			case "log":
+			case "tanh":
+				return argument[0].vector() + ".lanewise(VectorOperators." + function.toUpperCase() + ")";
+			default:
+				if (argument[1].isConstant())
+					return argument[0].vector() + "." + function + "(" + literal(argument[1].value()) + ")";
+				else if (argument[0].isConstant() && !function.equals("pow"))
+					return argument[1].vector() + "." + function + "(" + literal(argument[0].value()) + ")";
+				
+				return vectorOf(argument[0]) + "." + function + "(" + argument[1].vector() + ")";
+			}
+		}
+	}
+	
+	/**
+	 * <p>static final class <b>Comparison</b><br>
+	 * extends {@link Expression}</p>
+	 * 
+	 * <p>Comparison class is the spike condition of a model, a comparison of two expressions. It evaluates to a boolean, or to a
+	 * VectorMask on FloatVectors.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	static final class Comparison extends Expression {
+		// The left operand.
+		private Expression left;
+		// The operator: >=, >, <= or <.
+		private String operator;
+		// The right operand.
+		private Expression right;
+		
+		/**
+		 * Creates a Comparison.
+		 * @param operator - The operator: >=, >, <= or <.
+		 * @param left - The left operand.
+		 * @param right - The right operand.
+		 */
+		Comparison(String operator, Expression left, Expression right) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+		
+		@Override
+		boolean isConstant() {
+			return left.isConstant() && right.isConstant();
+		}
+		
+		@Override
+		String scalar() {
+			return "(" + left.scalar() + " " + operator + " " + right.scalar() + ")";
+		}
+		
+		@Override
+		float value() {
+			throw new IllegalStateException("Error: A Comparison has no float value.");
+		}
+		
+		@Override
+		String vector() {
+			// A constant left operand is swapped to the right, mirroring the operator
+			if (left.isConstant())
+				return right.vector() + ".compare(VectorOperators." + name(mirror(operator)) + ", " + literal(left.value()) + ")";
+			else if (right.isConstant())
+				return left.vector() + ".compare(VectorOperators." + name(operator) + ", " + literal(right.value()) + ")";
+			
+			return left.vector() + ".compare(VectorOperators." + name(operator) + ", " + right.vector() + ")";
+		}
+		
+		/**
+		 * Returns the operator with its operands swapped.
+		 * @param operator - The operator.
+		 * @return The mirrored operator.
+		 */
+		private static String mirror(String operator) {
+			switch (operator) {
+			case ">=":
+				return "<=";
+			case ">":
+				return "<";
+			case "<=":
+				return ">=";
+			default:
+				return ">";
+			}
+		}
+		
+		/**
+		 * Returns the VectorOperators comparison name of an operator.
+		 * @param operator - The operator.
+		 * @return The comparison name.
+		 */
+		private static String name(String operator) {
+			switch (operator) {
+			case ">=":
+				return "GE";
+			case ">":
+				return "GT";
+			case "<=":
+				return "LE";
+			default:
+				return "LT";
+			}
+		}
+	}
+	
+	/**
+	 * <p>static final class <b>Constant</b><br>
+	 * extends {@link Expression}</p>
+	 * 
+	 * <p>Constant class is a number or a folded model parameter.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	static final class Constant extends Expression {
+		// The value.
+		private float value;
+		
+		/**
+		 * Creates a Constant.
+		 * @param value - The value.
+		 */
+		Constant(float value) {
+			this.value = value;
+		}
+		
+		@Override
+		boolean isConstant() {
+			return true;
+		}
+		
+		@Override
+		String scalar() {
+			return literal(value);
+		}
+		
+		@Override
+		float value() {
+			return value;
+		}
+		
+		@Override
+		String vector() {
+			return vectorOf(this);
+		}
+	}
+	
+	/**
+	 * <p>static final class <b>Negation</b><br>
+	 * extends {@link Expression}</p>
+	 * 
+	 * <p>Negation class is the unary minus of an expression.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	static final class Negation extends Expression {
+		// The operand.
+		private Expression operand;
+		
+		/**
+		 * Creates a Negation.
+		 * @param operand - The operand.
+		 */
+		private Negation(Expression operand) {
+			this.operand = operand;
+		}
+		
+		/**
+		 * Returns the negation of the specified expression, folded into a constant if it is constant.
+		 * @param operand - The operand.
+		 * @return The expression.
+		 */
+		static Expression of(Expression operand) {
+			if (operand.isConstant())
+				return new Constant(-operand.value());
+			
+			return new Negation(operand);
+		}
+		
+		@Override
+		boolean isConstant() {
+			return false;
+		}
+		
+		@Override
+		String scalar() {
+			return "(-" + operand.scalar() + ")";
+		}
+		
+		@Override
+		float value() {
+			return -operand.value();
+		}
+		
+		@Override
+		String vector() {
+			return operand.vector() + ".neg()";
+		}
+	}
+	
+	/**
+	 * <p>static final class <b>Variable</b><br>
+	 * extends {@link Expression}</p>
+	 * 
+	 * <p>Variable class is one of the state variables v and u or the input current I.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	static final class Variable extends Expression {
+		// The variable name.
+		private String name;
+		
+		/**
+		 * Creates a Variable.
+		 * @param name - The variable name: v, u or I.
+		 */
+		Variable(String name) {
+			this.name = name;
+		}
+		
+		@Override
+		boolean isConstant() {
+			return false;
+		}
+		
+		@Override
+		String scalar() {
+			return name;
+		}
+		
+		@Override
+		float value() {
+			throw new IllegalStateException("Error: Variable " + name + " has no constant value.");
+		}
+		
+		@Override
+		String vector() {
+			return name;
+		}
+	}
+}
@@ -1,17 +1,17 @@
 package org.arti.neural.node.soma;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-
 import org.arti.neural.node.NeuralNodeArray;
 
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+
 /**
  * <p>public class <b>RegularSpikingPyramidalArray</b><br>
  * extends {@link NeuralNodeArray}</p>
  * 
  * <p>RegularSpikingPyramidalArray class represents an array of neural nodes that use the regular spiking pyramidal neuron Izhikevich spiking 
- * model.</p>
+ * model. The model is integrated with the selected {@link NeuralNodeArray.Integrator}, by default a single 1 ms Euler step.</p>
  * 
  * @author Monroe Gordon
  * @version 1.0.0
@@ -88,91 +88,27 @@ public class RegularSpikingPyramidalArray extends NeuralNodeArray {
 
 	@Override
 	public void process() {
-		for (int i = 0; i < nodes; ++i) {
-			v[i] += (k * (v[i] - vr) * (v[i] - vt) - u[i] + I[i]) / C;
-			u[i] += a * ((((v[i] >= bv) ? b : ba) * (float)Math.max(uvmin, Math.pow((v[i] - uv), upow)) + b2 * (float)Math.max(uvmin, v[i] - uv)) - u[i]);
-			
-			if (v[i] >= vp + vpu * u[i]) {
-				spike[i] = 1.0f;
-				v[i] = c + cu * u[i];
-				u[i] = (float)Math.min(u[i] + d, umax);
-			}
-			else {
-				spike[i] = 0.0f;
-			}
-		}
+		processRange(false, 0, nodes);
 	}
-
+	
+	/**
+	 * Processes the array of neural nodes on a GPU. There is no CUDA kernel for the general form, so this runs the SIMD kernels.
+	 */
 	@Override
 	public void processGPU() {
-		// TODO Auto-generated method stub
-		
+		processSIMD();
 	}
-
+	
 	@Override
 	public void processMT() {
-		int threads = Math.min(neuralSystem.getMaxThreads(), (int)(nodes / neuralSystem.getI2003NodesPerThread() + 1));
-		int batchSize = nodes / threads;
-		int remainder = nodes - (threads * batchSize);
-		ExecutorService executorService = Executors.newFixedThreadPool(threads);
-		Runnable[] task = new Runnable[threads];
-		
-		// Process threads
-		for (int i = 0; i < threads; ++i) {
-			int index = i;
-			
-			task[i] = () -> {
-				for (int j = (index * batchSize); j < (index * batchSize) + batchSize; ++j) {
-					v[j] += (k * (v[j] - vr) * (v[j] - vt) - u[j] + I[j]) / C;
-					u[j] += a * ((((v[j] >= bv) ? b : ba) * (float)Math.max(uvmin, Math.pow((v[j] - uv), upow)) + b2 * (float)Math.max(uvmin, v[j] - uv)) - 
-							u[j]);
-					
-					if (v[j] >= vp + vpu * u[j]) {
-						spike[j] = 1.0f;
-						v[j] = c + cu * u[j];
-						u[j] = (float)Math.min(u[j] + d, umax);
-					}
-					else {
-						spike[j] = 0.0f;
-					}
-				}
-			};
-			
-			executorService.execute(task[i]);
-		}
-		
-		// Process remainder of nodes
-		for (int j = nodes - remainder; j < nodes; ++j) {
-			v[j] += (k * (v[j] - vr) * (v[j] - vt) - u[j] + I[j]) / C;
-			u[j] += a * ((((v[j] >= bv) ? b : ba) * (float)Math.max(uvmin, Math.pow((v[j] - uv), upow)) + b2 * (float)Math.max(uvmin, v[j] - uv)) - u[j]);
-			
-			if (v[j] >= vp + vpu * u[j]) {
-				spike[j] = 1.0f;
-				v[j] = c + cu * u[j];
-				u[j] = (float)Math.min(u[j] + d, umax);
-			}
-			else {
-				spike[j] = 0.0f;
-			}
-		}
-		
-		// Shutdown executor service
-		executorService.shutdown();
-		try {
-		    if (!executorService.awaitTermination(800, TimeUnit.MILLISECONDS)) {
-		        executorService.shutdownNow();
-		    } 
-		} catch (InterruptedException e) {
-		    executorService.shutdownNow();
-		}
+		processBatches(false);
 	}
-
+	
 	@Override
 	public void processSIMD() {
-		// TODO Auto-generated method stub
-		
+		processBatches(true);
 	}
-
+	
 	@Override
 	public void reset() {
 		for (int i = 0; i < nodes; ++i) {
@@ -180,6 +116,8 @@ public class RegularSpikingPyramidalArray extends NeuralNodeArray {
 			u[i] = uInit();
 			v[i] = vInit();
 		}
+		
+		wake();
 	}
 
 	@Override
@@ -231,4 +169,346 @@ public class RegularSpikingPyramidalArray extends NeuralNodeArray {
 	public float vt() {
 		return -40.0f;
 	}
+	
+	@Override
+	protected void step(int from, int to) {
+		switch (integrator) {
+		case ADAPTIVE:
+			stepAdaptive(from, to);
+			break;
+		case RK2:
+			stepRK2(from, to);
+			break;
+		case RK4:
+			stepRK4(from, to);
+			break;
+		default:
+			stepEuler(from, to);
+			break;
+		}
+	}
+	
+	@Override
+	protected void stepSIMD(int from, int to) {
+		int j = from;
+		int bound = from + SPECIES.loopBound(to - from);
+		
+		switch (integrator) {
+		case ADAPTIVE:
+			for (; j < bound; j += SPECIES.length())
+				vectorAdaptive(j);
+			break;
+		case RK2:
+			for (; j < bound; j += SPECIES.length())
+				vectorRK2(j);
+			break;
+		case RK4:
+			for (; j < bound; j += SPECIES.length())
+				vectorRK4(j);
+			break;
+		default:
+			for (; j < bound; j += SPECIES.length())
+				vectorEuler(j);
+			break;
+		}
+		
+		// Process loop tail
+		step(j, to);
+	}
+	
+	/**
+	 * Returns du/dt.
+	 * @param v - The membrane potential.
+	 * @param u - The recovery current.
+	 * @return The value of du/dt.
+	 */
+	private float du(float v, float u) {
+		return a * ((((v >= bv) ? b : ba) * (float)Math.max(uvmin, Math.pow((v - uv), upow)) + b2 * (float)Math.max(uvmin, v - uv)) - u);
+	}
+	
+	/**
+	 * Returns du/dt for a vector of neural nodes.
+	 * @param v - The membrane potentials.
+	 * @param u - The recovery currents.
+	 * @return The values of du/dt.
+	 */
+	private FloatVector du(FloatVector v, FloatVector u) {
+		FloatVector dv = v.sub(uv);
+		FloatVector bs = FloatVector.broadcast(SPECIES, ba).blend(b, v.compare(VectorOperators.GE, bv));
+		FloatVector p = (upow == 1.0f) ? dv : dv.pow(upow);
+		return bs.mul(p.max(uvmin)).add(dv.max(uvmin).mul(b2)).sub(u).mul(a);
+	}
+	
+	/**
+	 * Returns dv/dt.
+	 * @param v - The membrane potential.
+	 * @param u - The recovery current.
+	 * @param I - The input current.
+	 * @return The value of dv/dt.
+	 */
+	private float dv(float v, float u, float I) {
+		return (k * (v - vr) * (v - vt) - u + I) / C;
+	}
+	
+	/**
+	 * Returns dv/dt for a vector of neural nodes.
+	 * @param v - The membrane potentials.
+	 * @param u - The recovery currents.
+	 * @param I - The input currents.
+	 * @return The values of dv/dt.
+	 */
+	private FloatVector dv(FloatVector v, FloatVector u, FloatVector I) {
+		return v.sub(vr).mul(k).mul(v.sub(vt)).sub(u).add(I).div(C);
+	}
+	
+	/**
+	 * Stores the integrated state of the neural node at the specified index, resetting it if it spiked.
+	 * @param i - The index of the neural node.
+	 * @param vi - The integrated membrane potential.
+	 * @param ui - The integrated recovery current.
+	 */
+	private void fire(int i, float vi, float ui) {
+		if (vi >= vp + vpu * ui) {
+			spike[i] = 1.0f;
+			v[i] = c + cu * ui;
+			u[i] = (float)Math.min(ui + d, umax);
+		}
+		else {
+			spike[i] = 0.0f;
+			v[i] = vi;
+			u[i] = ui;
+		}
+	}
+	
+	/**
+	 * Stores the integrated state of a vector of neural nodes starting at the specified index, resetting the neural nodes that spiked.
+	 * @param j - The index of the first neural node.
+	 * @param vv - The integrated membrane potentials.
+	 * @param vu - The integrated recovery currents.
+	 */
+	private void fire(int j, FloatVector vv, FloatVector vu) {
+		VectorMask<Float> fired = vv.compare(VectorOperators.GE, vu.mul(vpu).add(vp));
+		vv.blend(vu.mul(cu).add(c), fired).intoArray(v, j);
+		vu.blend(vu.add(d).min(umax), fired).intoArray(u, j);
+		FloatVector.zero(SPECIES).blend(1.0f, fired).intoArray(spike, j);
+	}
+	
+	/**
+	 * Processes the neural nodes in the specified range with the adaptive integrator.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	private void stepAdaptive(int from, int to) {
+		float h = 1.0f / substeps;
+		
+		for (int i = from; i < to; ++i) {
+			float vi = v[i];
+			float ui = u[i];
+			float f = dv(vi, ui, I[i]);
+			
+			// The local error of a 1 ms Euler step is about 1/2 |d(dv/dt)/dv * dv/dt|
+			if (0.5f * Math.abs(k * (2.0f * vi - vr - vt) / C * f) <= ADAPTIVE_TOLERANCE) {
+				vi += f;
+			}
+			else {
+				boolean below = true;
+				
+				for (int s = 0; s < substeps && below; ++s) {
+					below = vi < vp + vpu * ui;
+					vi += h * dv(vi, ui, I[i]);
+				}
+			}
+			
+			ui += du(vi, ui);
+			fire(i, vi, ui);
+		}
+	}
+	
+	/**
+	 * Processes the neural nodes in the specified range with the Euler integrator.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	private void stepEuler(int from, int to) {
+		float h = 1.0f / substeps;
+		
+		for (int i = from; i < to; ++i) {
+			float vi = v[i];
+			float ui = u[i];
+			boolean below = true;
+			
+			for (int s = 0; s < substeps && below; ++s) {
+				below = vi < vp + vpu * ui;
+				vi += h * dv(vi, ui, I[i]);
+			}
+			
+			ui += du(vi, ui);
+			fire(i, vi, ui);
+		}
+	}
+	
+	/**
+	 * Processes the neural nodes in the specified range with the RK2 integrator.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	private void stepRK2(int from, int to) {
+		float h = 1.0f / substeps;
+		float h2 = 0.5f * h;
+		
+		for (int i = from; i < to; ++i) {
+			float vi = v[i];
+			float ui = u[i];
+			
+			for (int s = 0; s < substeps && vi < vp + vpu * ui; ++s) {
+				float vm = vi + h2 * dv(vi, ui, I[i]);
+				float um = ui + h2 * du(vi, ui);
+				vi += h * dv(vm, um, I[i]);
+				ui += h * du(vm, um);
+			}
+			
+			fire(i, vi, ui);
+		}
+	}
+	
+	/**
+	 * Processes the neural nodes in the specified range with the RK4 integrator.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	private void stepRK4(int from, int to) {
+		float h = 1.0f / substeps;
+		float h2 = 0.5f * h;
+		float h6 = h / 6.0f;
+		
+		for (int i = from; i < to; ++i) {
+			float vi = v[i];
+			float ui = u[i];
+			
+			for (int s = 0; s < substeps && vi < vp + vpu * ui; ++s) {
+				float k1v = dv(vi, ui, I[i]);
+				float k1u = du(vi, ui);
+				float k2v = dv(vi + h2 * k1v, ui + h2 * k1u, I[i]);
+				float k2u = du(vi + h2 * k1v, ui + h2 * k1u);
+				float k3v = dv(vi + h2 * k2v, ui + h2 * k2u, I[i]);
+				float k3u = du(vi + h2 * k2v, ui + h2 * k2u);
+				float k4v = dv(vi + h * k3v, ui + h * k3u, I[i]);
+				float k4u = du(vi + h * k3v, ui + h * k3u);
+				vi += h6 * (k1v + 2.0f * (k2v + k3v) + k4v);
+				ui += h6 * (k1u + 2.0f * (k2u + k3u) + k4u);
+			}
+			
+			fire(i, vi, ui);
+		}
+	}
+	
+	/**
+	 * Processes a vector of neural nodes starting at the specified index with the adaptive integrator.
+	 * @param j - The index of the first neural node.
+	 */
+	private void vectorAdaptive(int j) {
+		float h = 1.0f / substeps;
+		FloatVector vI = FloatVector.fromArray(SPECIES, I, j);
+		FloatVector vu = FloatVector.fromArray(SPECIES, u, j);
+		FloatVector vv = FloatVector.fromArray(SPECIES, v, j);
+		FloatVector f = dv(vv, vu, vI);
+		VectorMask<Float> fine = vv.mul(2.0f).sub(vr).sub(vt).mul(k).div(C).mul(f).abs().mul(0.5f).compare(VectorOperators.GT, 
+				ADAPTIVE_TOLERANCE);
+		FloatVector coarse = vv.add(f);
+		
+		// Substep only when a neural node of the vector needs it
+		if (fine.anyTrue()) {
+			FloatVector cutoff = vu.mul(vpu).add(vp);
+			VectorMask<Float> active = SPECIES.maskAll(true);
+			
+			for (int s = 0; s < substeps && active.anyTrue(); ++s) {
+				VectorMask<Float> below = vv.compare(VectorOperators.LT, cutoff);
+				vv = vv.blend(vv.add(dv(vv, vu, vI).mul(h)), active);
+				active = active.and(below);
+			}
+			
+			vv = coarse.blend(vv, fine);
+		}
+		else {
+			vv = coarse;
+		}
+		
+		vu = vu.add(du(vv, vu));
+		fire(j, vv, vu);
+	}
+	
+	/**
+	 * Processes a vector of neural nodes starting at the specified index with the Euler integrator.
+	 * @param j - The index of the first neural node.
+	 */
+	private void vectorEuler(int j) {
+		float h = 1.0f / substeps;
+		FloatVector vI = FloatVector.fromArray(SPECIES, I, j);
+		FloatVector vu = FloatVector.fromArray(SPECIES, u, j);
+		FloatVector vv = FloatVector.fromArray(SPECIES, v, j);
+		FloatVector cutoff = vu.mul(vpu).add(vp);
+		VectorMask<Float> active = SPECIES.maskAll(true);
+		
+		for (int s = 0; s < substeps && active.anyTrue(); ++s) {
+			VectorMask<Float> below = vv.compare(VectorOperators.LT, cutoff);
+			vv = vv.blend(vv.add(dv(vv, vu, vI).mul(h)), active);
+			active = active.and(below);
+		}
+		
+		vu = vu.add(du(vv, vu));
+		fire(j, vv, vu);
+	}
+	
+	/**
+	 * Processes a vector of neural nodes starting at the specified index with the RK2 integrator.
+	 * @param j - The index of the first neural node.
+	 */
+	private void vectorRK2(int j) {
+		float h = 1.0f / substeps;
+		float h2 = 0.5f * h;
+		FloatVector vI = FloatVector.fromArray(SPECIES, I, j);
+		FloatVector vu = FloatVector.fromArray(SPECIES, u, j);
+		FloatVector vv = FloatVector.fromArray(SPECIES, v, j);
+		VectorMask<Float> below = vv.compare(VectorOperators.LT, vu.mul(vpu).add(vp));
+		
+		for (int s = 0; s < substeps && below.anyTrue(); ++s) {
+			FloatVector vm = vv.add(dv(vv, vu, vI).mul(h2));
+			FloatVector um = vu.add(du(vv, vu).mul(h2));
+			vv = vv.blend(vv.add(dv(vm, um, vI).mul(h)), below);
+			vu = vu.blend(vu.add(du(vm, um).mul(h)), below);
+			below = vv.compare(VectorOperators.LT, vu.mul(vpu).add(vp));
+		}
+		
+		fire(j, vv, vu);
+	}
+	
+	/**
+	 * Processes a vector of neural nodes starting at the specified index with the RK4 integrator.
+	 * @param j - The index of the first neural node.
+	 */
+	private void vectorRK4(int j) {
+		float h = 1.0f / substeps;
+		float h2 = 0.5f * h;
+		float h6 = h / 6.0f;
+		FloatVector vI = FloatVector.fromArray(SPECIES, I, j);
+		FloatVector vu = FloatVector.fromArray(SPECIES, u, j);
+		FloatVector vv = FloatVector.fromArray(SPECIES, v, j);
+		VectorMask<Float> below = vv.compare(VectorOperators.LT, vu.mul(vpu).add(vp));
+		
+		for (int s = 0; s < substeps && below.anyTrue(); ++s) {
+			FloatVector k1v = dv(vv, vu, vI);
+			FloatVector k1u = du(vv, vu);
+			FloatVector k2v = dv(vv.add(k1v.mul(h2)), vu.add(k1u.mul(h2)), vI);
+			FloatVector k2u = du(vv.add(k1v.mul(h2)), vu.add(k1u.mul(h2)));
+			FloatVector k3v = dv(vv.add(k2v.mul(h2)), vu.add(k2u.mul(h2)), vI);
+			FloatVector k3u = du(vv.add(k2v.mul(h2)), vu.add(k2u.mul(h2)));
+			FloatVector k4v = dv(vv.add(k3v.mul(h)), vu.add(k3u.mul(h)), vI);
+			FloatVector k4u = du(vv.add(k3v.mul(h)), vu.add(k3u.mul(h)));
+			vv = vv.blend(vv.add(k2v.add(k3v).mul(2.0f).add(k1v).add(k4v).mul(h6)), below);
+			vu = vu.blend(vu.add(k2u.add(k3u).mul(2.0f).add(k1u).add(k4u).mul(h6)), below);
+			below = vv.compare(VectorOperators.LT, vu.mul(vpu).add(vp));
+		}
+		
+		fire(j, vv, vu);
+	}
 }
@@ -0,0 +1,471 @@
+package org.arti.neural.node.spiking;
+
+import static jcuda.driver.JCudaDriver.cuCtxSynchronize;
+import static jcuda.driver.JCudaDriver.cuLaunchKernel;
+import static jcuda.driver.JCudaDriver.cuMemAlloc;
+import static jcuda.driver.JCudaDriver.cuMemFree;
+import static jcuda.driver.JCudaDriver.cuMemcpyDtoH;
+import static jcuda.driver.JCudaDriver.cuMemcpyHtoD;
+import static jcuda.driver.JCudaDriver.cuModuleGetFunction;
+
+import org.arti.neural.node.NeuralNodeArray;
+
+import jcuda.Pointer;
+import jcuda.Sizeof;
+import jcuda.driver.CUdeviceptr;
+import jcuda.driver.CUfunction;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+
+/**
+ * <p>public abstract class <b>SpikingArray</b><br>
+ * extends {@link NeuralNodeArray}</p>
+ * 
+ * <p>SpikingArray class is the base class of the neural node arrays that use the simple form Izhikevich (2003) spiking model,
+ * dv/dt = 0.04v^2 + 5v + 140 - u + I and du/dt = a(bv - u). Subclasses set the model parameters, and this class integrates the model
+ * with the selected {@link NeuralNodeArray.Integrator} in scalar, multi-threaded and SIMD kernels. The default is Euler with two 0.5 ms
+ * substeps for v.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public abstract class SpikingArray extends NeuralNodeArray {
+	/**
+	 * The default number of substeps.
+	 */
+	public static final int DEF_SUBSTEPS = 2;
+	
+	/**
+	 * Default constructor. Creates an empty SpikingArray.
+	 */
+	protected SpikingArray() {
+		// Call parent constructor
+		super();
+		
+		// Initialize variables
+		substeps = DEF_SUBSTEPS;
+	}
+	
+	@Override
+	public void process() {
+		processRange(false, 0, nodes);
+	}
+	
+	/**
+	 * Processes the array of neural nodes on a GPU. The CUDA kernel implements the default integrator, Euler with two substeps, so the
+	 * other integrators run the SIMD kernels.
+	 */
+	@Override
+	public void processGPU() {
+		if (integrator != Integrator.EULER || substeps != DEF_SUBSTEPS) {
+			processSIMD();
+			return;
+		}
+		
+		// Load kernel function
+		CUfunction function = new CUfunction();
+		cuModuleGetFunction(function, neuralSystem.getCudaModule(), "i2003");
+		
+		// Allocate device memory
+		CUdeviceptr dI = new CUdeviceptr();
+		cuMemAlloc(dI, nodes * Sizeof.FLOAT);
+		cuMemcpyHtoD(dI, Pointer.to(I), nodes * Sizeof.FLOAT);
+		
+		CUdeviceptr du = new CUdeviceptr();
+		cuMemAlloc(du, nodes * Sizeof.FLOAT);
+		cuMemcpyHtoD(du, Pointer.to(u), nodes * Sizeof.FLOAT);
+		
+		CUdeviceptr dv = new CUdeviceptr();
+		cuMemAlloc(dv, nodes * Sizeof.FLOAT);
+		cuMemcpyHtoD(dv, Pointer.to(v), nodes * Sizeof.FLOAT);
+		
+		CUdeviceptr dspike = new CUdeviceptr();
+		cuMemAlloc(dspike, nodes * Sizeof.FLOAT);
+		cuMemcpyHtoD(dspike, Pointer.to(spike), nodes * Sizeof.FLOAT);
+		
+		// Collect kernel parameters
+		Pointer kernelParameters = Pointer.to(
+				Pointer.to(new int[] {nodes}),
+				Pointer.to(new float[] {a}),
+				Pointer.to(new float[] {b}),
+				Pointer.to(new float[] {c}),
+				Pointer.to(new float[] {d}),
+				Pointer.to(dI),
+				Pointer.to(du),
+				Pointer.to(dv),
+				Pointer.to(new float[] {vp}),
+				Pointer.to(dspike));
+		
+		// Launch kernel
+		int blockSizeX = 256;
+		int gridSizeX = (int)Math.ceil((double)nodes / blockSizeX);
+		
+		cuLaunchKernel(function,
+				gridSizeX, 1, 1,
+				blockSizeX, 1, 1,
+				0, null,
+				kernelParameters, null);
+		
+		// Wait for all threads to complete
+		cuCtxSynchronize();
+		
+		// Copy device outputs to host memory
+		cuMemcpyDtoH(Pointer.to(u), du, nodes * Sizeof.FLOAT);
+		cuMemcpyDtoH(Pointer.to(v), dv, nodes * Sizeof.FLOAT);
+		cuMemcpyDtoH(Pointer.to(spike), dspike, nodes * Sizeof.FLOAT);
+		
+		// Free device memory
+		cuMemFree(dI);
+		cuMemFree(du);
+		cuMemFree(dv);
+		cuMemFree(dspike);
+	}
+	
+	@Override
+	public void processMT() {
+		processBatches(false);
+	}
+	
+	@Override
+	public void processSIMD() {
+		processBatches(true);
+	}
+	
+	@Override
+	protected void step(int from, int to) {
+		switch (integrator) {
+		case ADAPTIVE:
+			stepAdaptive(from, to);
+			break;
+		case RK2:
+			stepRK2(from, to);
+			break;
+		case RK4:
+			stepRK4(from, to);
+			break;
+		default:
+			stepEuler(from, to);
+			break;
+		}
+	}
+	
+	@Override
+	protected void stepSIMD(int from, int to) {
+		int j = from;
+		int bound = from + SPECIES.loopBound(to - from);
+		
+		switch (integrator) {
+		case ADAPTIVE:
+			for (; j < bound; j += SPECIES.length())
+				vectorAdaptive(j);
+			break;
+		case RK2:
+			for (; j < bound; j += SPECIES.length())
+				vectorRK2(j);
+			break;
+		case RK4:
+			for (; j < bound; j += SPECIES.length())
+				vectorRK4(j);
+			break;
+		default:
+			for (; j < bound; j += SPECIES.length())
+				vectorEuler(j);
+			break;
+		}
+		
+		// Process loop tail
+		step(j, to);
+	}
+	
+	/**
+	 * Returns du/dt.
+	 * @param v - The membrane potential.
+	 * @param u - The recovery current.
+	 * @return The value of du/dt.
+	 */
+	private float du(float v, float u) {
+		return a * (b * v - u);
+	}
+	
+	/**
+	 * Returns du/dt for a vector of neural nodes.
+	 * @param v - The membrane potentials.
+	 * @param u - The recovery currents.
+	 * @return The values of du/dt.
+	 */
+	private FloatVector du(FloatVector v, FloatVector u) {
+		return v.mul(b).sub(u).mul(a);
+	}
+	
+	/**
+	 * Returns dv/dt.
+	 * @param v - The membrane potential.
+	 * @param u - The recovery current.
+	 * @param I - The input current.
+	 * @return The value of dv/dt.
+	 */
+	private static float dv(float v, float u, float I) {
+		return 0.04f * v * v + 5.0f * v + 140.0f - u + I;
+	}
+	
+	/**
+	 * Returns dv/dt for a vector of neural nodes.
+	 * @param v - The membrane potentials.
+	 * @param u - The recovery currents.
+	 * @param I - The input currents.
+	 * @return The values of dv/dt.
+	 */
+	private static FloatVector dv(FloatVector v, FloatVector u, FloatVector I) {
+		return v.mul(0.04f).mul(v).add(v.mul(5.0f)).add(140.0f).sub(u).add(I);
+	}
+	
+	/**
+	 * Stores the integrated state of the neural node at the specified index, resetting it if it spiked.
+	 * @param i - The index of the neural node.
+	 * @param vi - The integrated membrane potential.
+	 * @param ui - The integrated recovery current.
+	 */
+	private void fire(int i, float vi, float ui) {
+		if (vi >= vp) {
+			spike[i] = 1.0f;
+			v[i] = c;
+			u[i] = ui + d;
+		}
+		else {
+			spike[i] = 0.0f;
+			v[i] = vi;
+			u[i] = ui;
+		}
+	}
+	
+	/**
+	 * Stores the integrated state of a vector of neural nodes starting at the specified index, resetting the neural nodes that spiked.
+	 * @param j - The index of the first neural node.
+	 * @param vv - The integrated membrane potentials.
+	 * @param vu - The integrated recovery currents.
+	 */
+	private void fire(int j, FloatVector vv, FloatVector vu) {
+		VectorMask<Float> fired = vv.compare(VectorOperators.GE, vp);
+		vv.blend(c, fired).intoArray(v, j);
+		vu.blend(vu.add(d), fired).intoArray(u, j);
+		FloatVector.zero(SPECIES).blend(1.0f, fired).intoArray(spike, j);
+	}
+	
+	/**
+	 * Processes the neural nodes in the specified range with the adaptive integrator.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	private void stepAdaptive(int from, int to) {
+		float h = 1.0f / substeps;
+		
+		for (int i = from; i < to; ++i) {
+			float vi = v[i];
+			float ui = u[i];
+			float f = dv(vi, ui, I[i]);
+			
+			// The local error of a 1 ms Euler step is about 1/2 |d(dv/dt)/dv * dv/dt|
+			if (0.5f * Math.abs((0.08f * vi + 5.0f) * f) <= ADAPTIVE_TOLERANCE) {
+				vi += f;
+			}
+			else {
+				boolean below = true;
+				
+				for (int s = 0; s < substeps && below; ++s) {
+					below = vi < vp;
+					vi += h * dv(vi, ui, I[i]);
+				}
+			}
+			
+			ui += du(vi, ui);
+			fire(i, vi, ui);
+		}
+	}
+	
+	/**
+	 * Processes the neural nodes in the specified range with the Euler integrator.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	private void stepEuler(int from, int to) {
+		float h = 1.0f / substeps;
+		
+		for (int i = from; i < to; ++i) {
+			float vi = v[i];
+			float ui = u[i];
+			boolean below = true;
+			
+			for (int s = 0; s < substeps && below; ++s) {
+				below = vi < vp;
+				vi += h * dv(vi, ui, I[i]);
+			}
+			
+			ui += du(vi, ui);
+			fire(i, vi, ui);
+		}
+	}
+	
+	/**
+	 * Processes the neural nodes in the specified range with the RK2 integrator.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	private void stepRK2(int from, int to) {
+		float h = 1.0f / substeps;
+		float h2 = 0.5f * h;
+		
+		for (int i = from; i < to; ++i) {
+			float vi = v[i];
+			float ui = u[i];
+			
+			for (int s = 0; s < substeps && vi < vp; ++s) {
+				float vm = vi + h2 * dv(vi, ui, I[i]);
+				float um = ui + h2 * du(vi, ui);
+				vi += h * dv(vm, um, I[i]);
+				ui += h * du(vm, um);
+			}
+			
+			fire(i, vi, ui);
+		}
+	}
+	
+	/**
+	 * Processes the neural nodes in the specified range with the RK4 integrator.
+	 * @param from - The index of the first neural node.
+	 * @param to - The index after the last neural node.
+	 */
+	private void stepRK4(int from, int to) {
+		float h = 1.0f / substeps;
+		float h2 = 0.5f * h;
+		float h6 = h / 6.0f;
+		
+		for (int i = from; i < to; ++i) {
+			float vi = v[i];
+			float ui = u[i];
+			
+			for (int s = 0; s < substeps && vi < vp; ++s) {
+				float k1v = dv(vi, ui, I[i]);
+				float k1u = du(vi, ui);
+				float k2v = dv(vi + h2 * k1v, ui + h2 * k1u, I[i]);
+				float k2u = du(vi + h2 * k1v, ui + h2 * k1u);
+				float k3v = dv(vi + h2 * k2v, ui + h2 * k2u, I[i]);
+				float k3u = du(vi + h2 * k2v, ui + h2 * k2u);
+				float k4v = dv(vi + h * k3v, ui + h * k3u, I[i]);
+				float k4u = du(vi + h * k3v, ui + h * k3u);
+				vi += h6 * (k1v + 2.0f * (k2v + k3v) + k4v);
+				ui += h6 * (k1u + 2.0f * (k2u + k3u) + k4u);
+			}
+			
+			fire(i, vi, ui);
+		}
+	}
+	
+	/**
+	 * Processes a vector of neural nodes starting at the specified index with the adaptive integrator.
+	 * @param j - The index of the first neural node.
+	 */
+	private void vectorAdaptive(int j) {
+		float h = 1.0f / substeps;
+		FloatVector vI = FloatVector.fromArray(SPECIES, I, j);
+		FloatVector vu = FloatVector.fromArray(SPECIES, u, j);
+		FloatVector vv = FloatVector.fromArray(SPECIES, v, j);
+		FloatVector f = dv(vv, vu, vI);
+		VectorMask<Float> fine = vv.mul(0.08f).add(5.0f).mul(f).abs().mul(0.5f).compare(VectorOperators.GT, ADAPTIVE_TOLERANCE);
+		FloatVector coarse = vv.add(f);
+		
+		// Substep only when a neural node of the vector needs it
+		if (fine.anyTrue()) {
+			VectorMask<Float> active = SPECIES.maskAll(true);
+			
+			for (int s = 0; s < substeps && active.anyTrue(); ++s) {
+				VectorMask<Float> below = vv.compare(VectorOperators.LT, vp);
+				vv = vv.blend(vv.add(dv(vv, vu, vI).mul(h)), active);
+				active = active.and(below);
+			}
+			
+			vv = coarse.blend(vv, fine);
+		}
+		else {
+			vv = coarse;
+		}
+		
+		vu = vu.add(du(vv, vu));
+		fire(j, vv, vu);
+	}
+	
+	/**
+	 * Processes a vector of neural nodes starting at the specified index with the Euler integrator.
+	 * @param j - The index of the first neural node.
+	 */
+	private void vectorEuler(int j) {
+		float h = 1.0f / substeps;
+		FloatVector vI = FloatVector.fromArray(SPECIES, I, j);
+		FloatVector vu = FloatVector.fromArray(SPECIES, u, j);
+		FloatVector vv = FloatVector.fromArray(SPECIES, v, j);
+		VectorMask<Float> active = SPECIES.maskAll(true);
+		
+		for (int s = 0; s < substeps && active.anyTrue(); ++s) {
+			VectorMask<Float> below = vv.compare(VectorOperators.LT, vp);
+			vv = vv.blend(vv.add(dv(vv, vu, vI).mul(h)), active);
+			active = active.and(below);
+		}
+		
+		vu = vu.add(du(vv, vu));
+		fire(j, vv, vu);
+	}
+	
+	/**
+	 * Processes a vector of neural nodes starting at the specified index with the RK2 integrator.
+	 * @param j - The index of the first neural node.
+	 */
+	private void vectorRK2(int j) {
+		float h = 1.0f / substeps;
+		float h2 = 0.5f * h;
+		FloatVector vI = FloatVector.fromArray(SPECIES, I, j);
+		FloatVector vu = FloatVector.fromArray(SPECIES, u, j);
+		FloatVector vv = FloatVector.fromArray(SPECIES, v, j);
+		VectorMask<Float> below = vv.compare(VectorOperators.LT, vp);
+		
+		for (int s = 0; s < substeps && below.anyTrue(); ++s) {
+			FloatVector vm = vv.add(dv(vv, vu, vI).mul(h2));
+			FloatVector um = vu.add(du(vv, vu).mul(h2));
+			vv = vv.blend(vv.add(dv(vm, um, vI).mul(h)), below);
+			vu = vu.blend(vu.add(du(vm, um).mul(h)), below);
+			below = vv.compare(VectorOperators.LT, vp);
+		}
+		
+		fire(j, vv, vu);
+	}
+	
+	/**
+	 * Processes a vector of neural nodes starting at the specified index with the RK4 integrator.
+	 * @param j - The index of the first neural node.
+	 */
+	private void vectorRK4(int j) {
+		float h = 1.0f / substeps;
+		float h2 = 0.5f * h;
+		float h6 = h / 6.0f;
+		FloatVector vI = FloatVector.fromArray(SPECIES, I, j);
+		FloatVector vu = FloatVector.fromArray(SPECIES, u, j);
+		FloatVector vv = FloatVector.fromArray(SPECIES, v, j);
+		VectorMask<Float> below = vv.compare(VectorOperators.LT, vp);
+		
+		for (int s = 0; s < substeps && below.anyTrue(); ++s) {
+			FloatVector k1v = dv(vv, vu, vI);
+			FloatVector k1u = du(vv, vu);
+			FloatVector k2v = dv(vv.add(k1v.mul(h2)), vu.add(k1u.mul(h2)), vI);
+			FloatVector k2u = du(vv.add(k1v.mul(h2)), vu.add(k1u.mul(h2)));
+			FloatVector k3v = dv(vv.add(k2v.mul(h2)), vu.add(k2u.mul(h2)), vI);
+			FloatVector k3u = du(vv.add(k2v.mul(h2)), vu.add(k2u.mul(h2)));
+			FloatVector k4v = dv(vv.add(k3v.mul(h)), vu.add(k3u.mul(h)), vI);
+			FloatVector k4u = du(vv.add(k3v.mul(h)), vu.add(k3u.mul(h)));
+			vv = vv.blend(vv.add(k2v.add(k3v).mul(2.0f).add(k1v).add(k4v).mul(h6)), below);
+			vu = vu.blend(vu.add(k2u.add(k3u).mul(2.0f).add(k1u).add(k4u).mul(h6)), below);
+			below = vv.compare(VectorOperators.LT, vp);
+		}
+		
+		fire(j, vv, vu);
+	}
+}
@@ -0,0 +1,353 @@
+package org.arti.neural.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>public class <b>RunHistory</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>RunHistory class keeps the traces of a fixed number of past runs for comparison, together with a name and the parameters of each run.
+ * Once the history is full, adding a run replaces the oldest run. Each channel of a run is compressed in chunks with XOR float compression,
+ * and min/max envelopes are computed when the run is added. Bucket sizes start at 4 samples and grow by a factor of 4 for each level.
+ * {@link #envelope} renders any range of a stored run with the finest level that fits the requested number of points. It decodes the raw
+ * samples when they fit, and never allocates, so redrawing history overlays is cheap.</p>
+ * 
+ * <p>RunHistory is not thread safe.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class RunHistory {
+	// Number of samples per compressed chunk.
+	private static final int CHUNK_SAMPLES = 1024;
+	// Number of samples per bucket of the finest envelope level.
+	private static final int ENVELOPE_BASE = 4;
+	// Bucket size ratio between consecutive envelope levels.
+	private static final int ENVELOPE_FACTOR = 4;
+	
+	/**
+	 * <p>public static final class <b>Run</b><br>
+	 * extends {@link Object}</p>
+	 * 
+	 * <p>Run class holds the compressed trace and the envelopes of a single past run.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public static final class Run {
+		// The byte offset of each chunk of each channel.
+		private int[][] chunkOffset;
+		// The compressed samples of each channel.
+		private ByteBuffer[] data;
+		// The envelope levels of each channel, holding the minimum and maximum of each bucket.
+		private float[][][] envelope;
+		// The name of the run.
+		private String name;
+		// The parameters of the run.
+		private float[] parameters;
+		// The number of samples of each channel.
+		private int samples;
+		
+		/**
+		 * Creates an empty Run.
+		 * @param name - The name of the run.
+		 * @param parameters - The parameters of the run.
+		 * @param channels - The number of channels.
+		 * @param samples - The number of samples of each channel.
+		 */
+		private Run(String name, float[] parameters, int channels, int samples) {
+			this.name = name;
+			this.parameters = parameters;
+			this.samples = samples;
+			chunkOffset = new int[channels][(samples + CHUNK_SAMPLES - 1) / CHUNK_SAMPLES + 1];
+			data = new ByteBuffer[channels];
+			envelope = new float[channels][][];
+		}
+		
+		/**
+		 * Returns the name of the run.
+		 * @return The name.
+		 */
+		public String name() { return name; }
+		
+		/**
+		 * Returns the specified parameter of the run.
+		 * @param index - The index of the parameter.
+		 * @return The parameter value.
+		 * @throws IndexOutOfBoundsException Thrown if index is out of bounds.
+		 */
+		public float parameter(int index) { return parameters[index]; }
+		
+		/**
+		 * Returns the number of parameters of the run.
+		 * @return The number of parameters.
+		 */
+		public int parameters() { return parameters.length; }
+		
+		/**
+		 * Returns the number of samples of each channel of the run.
+		 * @return The number of samples.
+		 */
+		public int samples() { return samples; }
+	}
+	
+	// The chunk held by the decode buffer, or -1.
+	private int cachedChunk;
+	// The channel held by the decode buffer, or -1.
+	private int cachedChannel;
+	// The run held by the decode buffer, or null.
+	private Run cachedRun;
+	// The number of channels of each run.
+	private int channels;
+	// The codec compressing the chunks of added runs.
+	private XorFloatCodec codec;
+	// The decoded samples of one chunk.
+	private float[] decoded;
+	// The maximum number of samples kept per run.
+	private int maxSamples;
+	// The slot receiving the next run.
+	private int next;
+	// The stored runs, null for empty slots.
+	private Run[] runs;
+	
+	/**
+	 * Creates an empty RunHistory.
+	 * @param channels - The number of channels of each run.
+	 * @param capacity - The maximum number of runs kept.
+	 * @param maxSamples - The maximum number of samples kept per run. Longer runs keep their first maxSamples samples.
+	 * @throws IllegalArgumentException Thrown if channels, capacity or maxSamples is less than 1.
+	 */
+	public RunHistory(int channels, int capacity, int maxSamples) {
+		// Check parameters
+		if (channels < 1)
+			throw new IllegalArgumentException("Error: RunHistory must have at least one channel.");
+		
+		if (capacity < 1)
+			throw new IllegalArgumentException("Error: RunHistory must keep at least one run.");
+		
+		if (maxSamples < 1)
+			throw new IllegalArgumentException("Error: RunHistory must keep at least one sample per run.");
+		
+		// Initialize variables
+		this.channels = channels;
+		this.maxSamples = maxSamples;
+		cachedChunk = -1;
+		cachedChannel = -1;
+		cachedRun = null;
+		codec = new XorFloatCodec();
+		decoded = new float[CHUNK_SAMPLES];
+		next = 0;
+		runs = new Run[capacity];
+	}
+	
+	/**
+	 * Adds a run read from the specified trace store, replacing the oldest run if the history is full.
+	 * @param name - The name of the run.
+	 * @param parameters - The parameters of the run, which are copied.
+	 * @param trace - The trace store holding the run.
+	 * @return The slot of the added run.
+	 * @throws IllegalArgumentException Thrown if the trace store does not have the same number of channels.
+	 * @throws IOException Thrown if the trace store cannot be read.
+	 */
+	public int add(String name, float[] parameters, TraceStore trace) throws IOException {
+		if (trace.channels() != channels)
+			throw new IllegalArgumentException("Error: RunHistory run must have " + channels + " channels.");
+		
+		int samples = (int)Math.min(maxSamples, trace.samples());
+		Run run = new Run(name, (parameters == null) ? new float[0] : parameters.clone(), channels, samples);
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SAMPLES * 9 + 8);
+		float[] values = new float[CHUNK_SAMPLES];
+		
+		for (int i = 0; i < channels; ++i) {
+			byte[] bytes = new byte[CHUNK_SAMPLES];
+			int size = 0;
+			float[] base = new float[2 * ((samples + ENVELOPE_BASE - 1) / ENVELOPE_BASE)];
+			
+			for (int chunk = 0; chunk * CHUNK_SAMPLES < samples; ++chunk) {
+				int count = trace.read(i, (long)chunk * CHUNK_SAMPLES, values, 0, Math.min(CHUNK_SAMPLES, samples - chunk * CHUNK_SAMPLES));
+				
+				// Compress the chunk
+				buffer.clear();
+				codec.encode(values, 0, count, buffer);
+				
+				if (size + buffer.position() > bytes.length)
+					bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + buffer.position()));
+				
+				System.arraycopy(buffer.array(), 0, bytes, size, buffer.position());
+				size += buffer.position();
+				run.chunkOffset[i][chunk + 1] = size;
+				
+				// Add the chunk to the finest envelope level
+				for (int j = 0; j < count; ++j) {
+					int bucket = (chunk * CHUNK_SAMPLES + j) / ENVELOPE_BASE;
+					
+					if ((chunk * CHUNK_SAMPLES + j) % ENVELOPE_BASE == 0) {
+						base[2 * bucket] = values[j];
+						base[2 * bucket + 1] = values[j];
+					}
+					else {
+						base[2 * bucket] = Math.min(base[2 * bucket], values[j]);
+						base[2 * bucket + 1] = Math.max(base[2 * bucket + 1], values[j]);
+					}
+				}
+			}
+			
+			run.data[i] = ByteBuffer.wrap(Arrays.copyOf(bytes, size));
+			run.envelope[i] = envelopeLevels(base);
+		}
+		
+		// Replace the oldest run
+		int slot = next;
+		runs[slot] = run;
+		next = (next + 1) % runs.length;
+		cachedRun = null;
+		
+		return slot;
+	}
+	
+	/**
+	 * Returns the maximum number of runs kept.
+	 * @return The capacity.
+	 */
+	public int capacity() {
+		return runs.length;
+	}
+	
+	/**
+	 * Removes all runs.
+	 */
+	public void clear() {
+		Arrays.fill(runs, null);
+		next = 0;
+		cachedRun = null;
+	}
+	
+	/**
+	 * Writes the points drawing the specified channel of the specified run between the specified samples into the specified arrays. If the
+	 * samples fit in maxPoints points they are written as they are; otherwise the minimum and maximum of each bucket of the finest envelope
+	 * level that fits are written, so spikes are never lost however far the range is zoomed out. Never allocates.
+	 * @param slot - The slot of the run.
+	 * @param channel - The channel.
+	 * @param from - The first sample of the range.
+	 * @param to - The sample after the last sample of the range.
+	 * @param maxPoints - The maximum number of points, limited to the length of x and y.
+	 * @param x - The array receiving the sample index of each point.
+	 * @param y - The array receiving the value of each point.
+	 * @return The number of points written, 0 if the slot is empty or the range holds no samples of the run.
+	 * @throws IndexOutOfBoundsException Thrown if slot or channel is out of bounds.
+	 */
+	public int envelope(int slot, int channel, long from, long to, int maxPoints, float[] x, float[] y) {
+		Run run = runs[slot];
+		
+		if (channel < 0 || channel >= channels)
+			throw new IndexOutOfBoundsException("Error: RunHistory channel index " + channel + " is out of bounds.");
+		
+		if (run == null)
+			return 0;
+		
+		from = Math.max(0, from);
+		to = Math.min(run.samples, to);
+		maxPoints = Math.min(maxPoints, Math.min(x.length, y.length));
+		
+		if (from >= to || maxPoints < 2)
+			return 0;
+		
+		// Write raw samples if they fit
+		if (to - from <= maxPoints) {
+			int points = 0;
+			
+			for (int i = (int)from; i < to; ++i) {
+				int chunk = i / CHUNK_SAMPLES;
+				
+				if (cachedRun != run || cachedChannel != channel || cachedChunk != chunk) {
+					int count = Math.min(CHUNK_SAMPLES, run.samples - chunk * CHUNK_SAMPLES);
+					XorFloatCodec.decode(run.data[channel], run.chunkOffset[channel][chunk], decoded, count);
+					cachedRun = run;
+					cachedChannel = channel;
+					cachedChunk = chunk;
+				}
+				
+				x[points] = i;
+				y[points++] = decoded[i % CHUNK_SAMPLES];
+			}
+			
+			return points;
+		}
+		
+		// Find the finest envelope level that fits
+		float[][] levels = run.envelope[channel];
+		int level = 0;
+		long bucket = ENVELOPE_BASE;
+		
+		while (level < levels.length - 1 && 2 * ((to - 1) / bucket - from / bucket + 1) > maxPoints) {
+			level++;
+			bucket *= ENVELOPE_FACTOR;
+		}
+		
+		float[] envelope = levels[level];
+		int last = (int)Math.min((to - 1) / bucket, envelope.length / 2 - 1);
+		int points = 0;
+		
+		for (int i = (int)(from / bucket); i <= last && points + 2 <= maxPoints; ++i) {
+			x[points] = i * bucket;
+			y[points++] = envelope[2 * i];
+			x[points] = i * bucket + bucket / 2;
+			y[points++] = envelope[2 * i + 1];
+		}
+		
+		return points;
+	}
+	
+	/**
+	 * Returns the run in the specified slot.
+	 * @param slot - The slot.
+	 * @return The run, or null if the slot is empty.
+	 * @throws IndexOutOfBoundsException Thrown if slot is out of bounds.
+	 */
+	public Run run(int slot) {
+		return runs[slot];
+	}
+	
+	/**
+	 * Builds the envelope levels from the specified finest level. Each level merges ENVELOPE_FACTOR buckets of the previous level, down to
+	 * a single bucket.
+	 * @param base - The finest level.
+	 * @return The envelope levels, from finest to coarsest.
+	 */
+	private static float[][] envelopeLevels(float[] base) {
+		int count = 1;
+		
+		for (int buckets = base.length / 2; buckets > 1; buckets = (buckets + ENVELOPE_FACTOR - 1) / ENVELOPE_FACTOR)
+			count++;
+		
+		float[][] levels = new float[count][];
+		levels[0] = base;
+		
+		for (int level = 1; level < count; ++level) {
+			float[] previous = levels[level - 1];
+			int buckets = (previous.length / 2 + ENVELOPE_FACTOR - 1) / ENVELOPE_FACTOR;
+			float[] current = new float[2 * buckets];
+			
+			for (int i = 0; i < buckets; ++i) {
+				float min = Float.POSITIVE_INFINITY;
+				float max = Float.NEGATIVE_INFINITY;
+				
+				for (int j = i * ENVELOPE_FACTOR; j < Math.min((i + 1) * ENVELOPE_FACTOR, previous.length / 2); ++j) {
+					min = Math.min(min, previous[2 * j]);
+					max = Math.max(max, previous[2 * j + 1]);
+				}
+				
+				current[2 * i] = min;
+				current[2 * i + 1] = max;
+			}
+			
+			levels[level] = current;
+		}
+		
+		return levels;
+	}
+}
@@ -0,0 +1,354 @@
+package org.arti.neural.record;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>public class <b>SpikeRaster</b><br>
+ * extends {@link Object}<br>
+ * implements {@link AutoCloseable}</p>
+ * 
+ * <p>SpikeRaster class reads spike raster files written by a {@link SpikeRecorder}. The block index at the end of the file is used to
+ * decode only the blocks that overlap a requested range of steps. A file whose recorder was never closed has no index, so its blocks are
+ * scanned once when it is opened, up to the last intact block. The file is memory-mapped in windows of up to {@value #WINDOW_BYTES} bytes
+ * at long offsets, so raster files larger than 2 GB can be read.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class SpikeRaster implements AutoCloseable {
+	/**
+	 * <p>public interface <b>SpikeVisitor</b></p>
+	 * 
+	 * <p>SpikeVisitor interface receives the spike events read from a spike raster file.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public interface SpikeVisitor {
+		/**
+		 * Handles a single spike event.
+		 * @param step - The processing step of the spike.
+		 * @param id - The neural ID of the neural node that spiked.
+		 */
+		public void spike(long step, long id);
+	}
+	
+	// The largest number of bytes mapped at once.
+	private static final int WINDOW_BYTES = 1 << 30;
+	
+	// The file channel of the spike raster file.
+	private FileChannel channel;
+	// The first step of each block.
+	private long[] firstStep;
+	// The last step of each block.
+	private long[] lastStep;
+	// The file offset of the block index, after the last block.
+	private long indexOffset;
+	// The file offset of each block.
+	private long[] offset;
+	// The total number of spike events.
+	private long spikes;
+	
+	/**
+	 * Opens the spike raster file at the specified path.
+	 * @param file - The path of the spike raster file.
+	 * @throws IOException Thrown if the file cannot be read or is not a spike raster file.
+	 */
+	public SpikeRaster(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		
+		try {
+			long size = channel.size();
+			
+			if (size < SpikeRecorder.HEADER_BYTES)
+				throw new IOException("Error: " + file + " is not a spike raster file.");
+			
+			// Check header
+			ByteBuffer header = map(0, SpikeRecorder.HEADER_BYTES);
+			
+			if (header.getLong(0) != SpikeRecorder.MAGIC)
+				throw new IOException("Error: " + file + " is not a spike raster file.");
+			
+			if (header.getInt(8) != SpikeRecorder.VERSION)
+				throw new IOException("Error: Unsupported spike raster version " + header.getInt(8) + ".");
+			
+			// A file whose recorder was never closed has no trailer, so its index is rebuilt from the blocks
+			ByteBuffer trailer = (size >= SpikeRecorder.HEADER_BYTES + SpikeRecorder.TRAILER_BYTES) ?
+					map(size - SpikeRecorder.TRAILER_BYTES, SpikeRecorder.TRAILER_BYTES) : null;
+			
+			if (trailer != null && trailer.getLong(16) == SpikeRecorder.MAGIC)
+				readIndex(file, size, trailer);
+			else
+				scanBlocks(size);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Returns the number of blocks in the spike raster file.
+	 * @return The number of blocks.
+	 */
+	public int blocks() {
+		return offset.length;
+	}
+	
+	/**
+	 * Closes the spike raster file.
+	 * @throws IOException Thrown if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/**
+	 * Returns the number of spike events on steps from the specified first step up to, but not including, the specified last step.
+	 * @param fromStep - The first step, inclusive.
+	 * @param toStep - The last step, exclusive.
+	 * @return The number of spike events in the step range.
+	 * @throws IOException Thrown if the spike raster file cannot be read.
+	 */
+	public long count(long fromStep, long toStep) throws IOException {
+		long[] count = { 0 };
+		read(fromStep, toStep, (step, id) -> count[0]++);
+		return count[0];
+	}
+	
+	/**
+	 * Reads all spike events on steps from the specified first step up to, but not including, the specified last step, and passes them to
+	 * the specified visitor. Spike events recorded by different threads are visited block by block, so they are only in step order within a
+	 * block.
+	 * @param fromStep - The first step, inclusive.
+	 * @param toStep - The last step, exclusive.
+	 * @param visitor - The visitor receiving the spike events.
+	 * @throws IOException Thrown if the spike raster file cannot be read.
+	 */
+	public void read(long fromStep, long toStep, SpikeVisitor visitor) throws IOException {
+		ByteBuffer window = null;
+		long windowStart = 0;
+		
+		for (int i = 0; i < offset.length; ++i) {
+			// Skip blocks outside the step range
+			if (lastStep[i] < fromStep || firstStep[i] >= toStep)
+				continue;
+			
+			// Map a new window when the block is outside the current one
+			if (window == null || !contains(window, windowStart, offset[i])) {
+				windowStart = offset[i];
+				window = map(windowStart, (int)Math.min(WINDOW_BYTES, indexOffset - windowStart));
+			}
+			
+			// Decode block
+			ByteBuffer block = window;
+			block.position((int)(offset[i] - windowStart));
+			int events = block.getInt();
+			block.getInt();
+			long step = block.getLong();
+			block.getLong();
+			long id = 0;
+			
+			for (int j = 0; j < events; ++j) {
+				step += getVarLong(block);
+				long zigzag = getVarLong(block);
+				id += (zigzag >>> 1) ^ -(zigzag & 1);
+				
+				if (step >= toStep)
+					break;
+				
+				if (step >= fromStep)
+					visitor.spike(step, id);
+			}
+		}
+	}
+	
+	/**
+	 * Returns true if the block at the specified file offset lies entirely in the specified window.
+	 * @param window - The mapped window.
+	 * @param windowStart - The file offset of the window.
+	 * @param blockOffset - The file offset of the block.
+	 * @return True if the block is in the window, false otherwise.
+	 */
+	private static boolean contains(ByteBuffer window, long windowStart, long blockOffset) {
+		long start = blockOffset - windowStart;
+		
+		if (start < 0 || start + SpikeRecorder.BLOCK_HEADER_BYTES > window.capacity())
+			return false;
+		
+		return start + SpikeRecorder.BLOCK_HEADER_BYTES + window.getInt((int)start + 4) <= window.capacity();
+	}
+	
+	/**
+	 * Returns true if the block at the specified position decodes to exactly its encoded length and to the step range in its header.
+	 * @param window - The mapped window holding the whole block.
+	 * @param start - The position of the block in the window.
+	 * @param events - The number of events in the block header.
+	 * @param length - The encoded length in the block header.
+	 * @return True if the block is intact, false if it is torn or is not a block.
+	 */
+	private static boolean isIntact(ByteBuffer window, int start, int events, int length) {
+		long first = window.getLong(start + 8);
+		long last = window.getLong(start + 16);
+		long step = first;
+		int end = start + SpikeRecorder.BLOCK_HEADER_BYTES + length;
+		window.position(start + SpikeRecorder.BLOCK_HEADER_BYTES);
+		
+		try {
+			for (int i = 0; i < events && window.position() < end; ++i) {
+				step += getVarLong(window);
+				getVarLong(window);
+			}
+		} catch (BufferUnderflowException e) {
+			return false;
+		}
+		
+		return window.position() == end && step == last && first <= last;
+	}
+	
+	/**
+	 * Maps the specified region of the spike raster file.
+	 * @param position - The file offset of the region.
+	 * @param bytes - The number of bytes in the region.
+	 * @return The little-endian mapped region.
+	 * @throws IOException Thrown if the region cannot be mapped.
+	 */
+	private ByteBuffer map(long position, int bytes) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	/**
+	 * Reads the block index written when the recorder was closed.
+	 * @param file - The path of the spike raster file.
+	 * @param size - The size of the file.
+	 * @param trailer - The mapped trailer.
+	 * @throws IOException Thrown if the file cannot be read or the index is corrupt.
+	 */
+	private void readIndex(Path file, long size, ByteBuffer trailer) throws IOException {
+		indexOffset = trailer.getLong(0);
+		long blocks = trailer.getLong(8);
+		
+		if (blocks < 0 || indexOffset + blocks * SpikeRecorder.INDEX_ENTRY_BYTES != size - SpikeRecorder.TRAILER_BYTES)
+			throw new IOException("Error: " + file + " has a corrupt block index.");
+		if (blocks > Integer.MAX_VALUE / SpikeRecorder.INDEX_ENTRY_BYTES)
+			throw new IOException("Error: " + file + " has too many blocks to be indexed.");
+		
+		ByteBuffer index = map(indexOffset, (int)blocks * SpikeRecorder.INDEX_ENTRY_BYTES);
+		firstStep = new long[(int)blocks];
+		lastStep = new long[(int)blocks];
+		offset = new long[(int)blocks];
+		spikes = 0;
+		ByteBuffer window = null;
+		long windowStart = 0;
+		
+		for (int i = 0; i < blocks; ++i) {
+			firstStep[i] = index.getLong(i * SpikeRecorder.INDEX_ENTRY_BYTES);
+			lastStep[i] = index.getLong(i * SpikeRecorder.INDEX_ENTRY_BYTES + 8);
+			offset[i] = index.getLong(i * SpikeRecorder.INDEX_ENTRY_BYTES + 16);
+			
+			if (offset[i] < SpikeRecorder.HEADER_BYTES || offset[i] > indexOffset - SpikeRecorder.BLOCK_HEADER_BYTES)
+				throw new IOException("Error: " + file + " has a corrupt block index.");
+			
+			// Map a new window when the block header is outside the current one
+			if (window == null || offset[i] + SpikeRecorder.BLOCK_HEADER_BYTES > windowStart + window.capacity()) {
+				windowStart = offset[i];
+				window = map(windowStart, (int)Math.min(WINDOW_BYTES, indexOffset - windowStart));
+			}
+			
+			spikes += window.getInt((int)(offset[i] - windowStart));
+		}
+	}
+	
+	/**
+	 * Rebuilds the block index of a file whose recorder was never closed, such as after a crash, by walking the blocks from the header. The
+	 * walk stops at the first block that is incomplete or does not decode to the step range in its header, which is where writing stopped.
+	 * @param size - The size of the file.
+	 * @throws IOException Thrown if the file cannot be read.
+	 */
+	private void scanBlocks(long size) throws IOException {
+		int blocks = 0;
+		long position = SpikeRecorder.HEADER_BYTES;
+		firstStep = new long[16];
+		lastStep = new long[16];
+		offset = new long[16];
+		spikes = 0;
+		ByteBuffer window = null;
+		long windowStart = 0;
+		
+		while (position + SpikeRecorder.BLOCK_HEADER_BYTES <= size && blocks < Integer.MAX_VALUE / SpikeRecorder.INDEX_ENTRY_BYTES) {
+			// Map a new window when the block header is outside the current one
+			if (window == null || position + SpikeRecorder.BLOCK_HEADER_BYTES > windowStart + window.capacity()) {
+				windowStart = position;
+				window = map(windowStart, (int)Math.min(WINDOW_BYTES, size - windowStart));
+			}
+			
+			int events = window.getInt((int)(position - windowStart));
+			int length = window.getInt((int)(position - windowStart) + 4);
+			
+			if (events < 1 || length < 2L * events || position + SpikeRecorder.BLOCK_HEADER_BYTES + length > size)
+				break;
+			
+			if (!contains(window, windowStart, position)) {
+				windowStart = position;
+				window = map(windowStart, (int)Math.min(WINDOW_BYTES, size - windowStart));
+			}
+			
+			if (!isIntact(window, (int)(position - windowStart), events, length))
+				break;
+			
+			if (blocks == offset.length) {
+				firstStep = Arrays.copyOf(firstStep, blocks * 2);
+				lastStep = Arrays.copyOf(lastStep, blocks * 2);
+				offset = Arrays.copyOf(offset, blocks * 2);
+			}
+			
+			firstStep[blocks] = window.getLong((int)(position - windowStart) + 8);
+			lastStep[blocks] = window.getLong((int)(position - windowStart) + 16);
+			offset[blocks] = position;
+			blocks++;
+			spikes += events;
+			position += SpikeRecorder.BLOCK_HEADER_BYTES + length;
+		}
+		
+		firstStep = Arrays.copyOf(firstStep, blocks);
+		lastStep = Arrays.copyOf(lastStep, blocks);
+		offset = Arrays.copyOf(offset, blocks);
+		indexOffset = position;
+	}
+	
+	/**
+	 * Returns the total number of spike events in the spike raster file.
+	 * @return The number of spike events.
+	 */
+	public long spikes() {
+		return spikes;
+	}
+	
+	/**
+	 * Reads an unsigned variable-length integer.
+	 * @param buffer - The buffer.
+	 * @return The value.
+	 */
+	private static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		
+		do {
+			b = buffer.get();
+			value |= (long)(b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		
+		return value;
+	}
+}
@@ -0,0 +1,449 @@
+package org.arti.neural.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>public class <b>SpikeRecorder</b><br>
+ * extends {@link Object}<br>
+ * implements {@link AutoCloseable}</p>
+ * 
+ * <p>SpikeRecorder class records spike events as (step, neural ID) pairs into a compact binary spike raster file. Each recording thread
+ * appends events to its own buffer without locking. Full buffers are handed to a background writer thread, which delta-encodes them into
+ * blocks and writes them through a FileChannel, and returns them to a pool for reuse, so recording spikes never waits on disk I/O. The
+ * number of buffers is bounded: if the disk falls so far behind that every buffer is waiting to be written, further events are dropped and
+ * counted ({@link #dropped}) rather than held in memory. When the recorder is closed, a time index of all blocks is written to the end of
+ * the file so a {@link SpikeRaster} can read any range of steps without decoding the whole file. Each block header holds its step range, so
+ * the index of a file that was never closed is rebuilt by scanning the blocks.</p>
+ * 
+ * <p>File layout: a 16 byte header, followed by blocks, followed by the block index and a trailer. Each block has a header containing its
+ * event count, encoded length, first step and last step, followed by its events encoded as variable-length step deltas and zigzag
+ * variable-length neural ID deltas.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class SpikeRecorder implements AutoCloseable {
+	/**
+	 * Spike raster file magic value ("ARTISPKR").
+	 */
+	static final long MAGIC = 0x524B505349545241L;
+	/**
+	 * Spike raster file format version.
+	 */
+	static final int VERSION = 1;
+	/**
+	 * Size of the file header in bytes.
+	 */
+	static final int HEADER_BYTES = 16;
+	/**
+	 * Size of a block header in bytes.
+	 */
+	static final int BLOCK_HEADER_BYTES = 24;
+	/**
+	 * Size of a block index entry in bytes.
+	 */
+	static final int INDEX_ENTRY_BYTES = 24;
+	/**
+	 * Size of the file trailer in bytes.
+	 */
+	static final int TRAILER_BYTES = 24;
+	
+	// Default number of events per buffer.
+	private static final int DEF_BUFFER_EVENTS = 16384;
+	// Default maximum number of buffers.
+	private static final int DEF_MAX_BUFFERS = 64;
+	// Maximum number of bytes a single encoded event can use.
+	private static final int MAX_EVENT_BYTES = 20;
+	
+	/**
+	 * <p>private static final class <b>Buffer</b><br>
+	 * extends {@link Object}</p>
+	 * 
+	 * <p>Buffer class holds the spike events recorded by a single thread.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	private static final class Buffer {
+		// The neural IDs of the recorded events.
+		private long[] id;
+		// The thread currently appending to this buffer.
+		private volatile Thread owner;
+		// The number of recorded events.
+		private int size;
+		// The steps of the recorded events.
+		private long[] step;
+		
+		/**
+		 * Creates an empty Buffer with the specified capacity.
+		 * @param capacity - The maximum number of events.
+		 */
+		private Buffer(int capacity) {
+			id = new long[capacity];
+			owner = null;
+			size = 0;
+			step = new long[capacity];
+		}
+	}
+	
+	// The buffer capacity in events.
+	private int bufferEvents;
+	// The number of buffers created.
+	private AtomicInteger buffers;
+	// The file channel of the spike raster file.
+	private FileChannel channel;
+	// The end of the written blocks in the file.
+	private long end;
+	// The block index entries as (first step, last step, offset) triples.
+	private ArrayList<long[]> index;
+	// Closed flag.
+	private volatile boolean closed;
+	// The number of events dropped because no buffer was free.
+	private AtomicLong dropped;
+	// The buffer of the calling thread.
+	private ThreadLocal<Buffer> local;
+	// The maximum number of buffers.
+	private int maxBuffers;
+	// Pool of empty buffers ready for reuse.
+	private ConcurrentLinkedQueue<Buffer> pool;
+	// Queue of full buffers waiting to be written.
+	private LinkedBlockingQueue<Buffer> queue;
+	// Buffers currently owned by recording threads.
+	private ConcurrentLinkedQueue<Buffer> registered;
+	// The total number of recorded events.
+	private long spikes;
+	// The background writer thread.
+	private Thread writer;
+	// The first I/O error raised by the writer thread, if any.
+	private volatile IOException writeError;
+	
+	/**
+	 * Creates a SpikeRecorder writing to the spike raster file at the specified path with the specified number of events per thread
+	 * buffer and the specified maximum number of buffers. An existing file is overwritten. The writer thread is started by
+	 * {@link #open(Path, int, int)} once the recorder is fully constructed.
+	 * @param file - The path of the spike raster file.
+	 * @param bufferEvents - The number of events per thread buffer.
+	 * @param maxBuffers - The maximum number of buffers, which bounds the memory of events waiting to be written.
+	 * @throws IllegalArgumentException Thrown if bufferEvents or maxBuffers is less than 1.
+	 * @throws IOException Thrown if the file cannot be created.
+	 */
+	private SpikeRecorder(Path file, int bufferEvents, int maxBuffers) throws IOException {
+		// Check parameters
+		if (bufferEvents < 1)
+			throw new IllegalArgumentException("Error: SpikeRecorder's buffer must hold at least one event.");
+		
+		if (maxBuffers < 1)
+			throw new IllegalArgumentException("Error: SpikeRecorder needs at least one buffer.");
+		
+		// Initialize variables
+		this.bufferEvents = bufferEvents;
+		this.maxBuffers = maxBuffers;
+		buffers = new AtomicInteger();
+		dropped = new AtomicLong();
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		end = HEADER_BYTES;
+		index = new ArrayList<long[]>();
+		closed = false;
+		local = new ThreadLocal<Buffer>();
+		pool = new ConcurrentLinkedQueue<Buffer>();
+		// Every buffer plus the end marker fits, so handing a buffer to the writer never blocks
+		queue = new LinkedBlockingQueue<Buffer>(maxBuffers + 1);
+		registered = new ConcurrentLinkedQueue<Buffer>();
+		spikes = 0;
+		writeError = null;
+		
+		// Write header
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putLong(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(0);
+		header.flip();
+		channel.write(header, 0);
+	}
+	
+	/**
+	 * Flushes all recorded events, waits for the writer thread to finish, and writes the block index. The recorder cannot be used after it
+	 * is closed.
+	 * @throws IOException Thrown if the spike raster file could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		
+		flush();
+		closed = true;
+		
+		try {
+			queue.put(new Buffer(0));
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		try {
+			if (writeError != null)
+				throw writeError;
+			
+			// Write block index and trailer
+			ByteBuffer trailer = ByteBuffer.allocate(index.size() * INDEX_ENTRY_BYTES + TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			
+			for (long[] entry : index) {
+				trailer.putLong(entry[0]);
+				trailer.putLong(entry[1]);
+				trailer.putLong(entry[2]);
+			}
+			
+			trailer.putLong(end);
+			trailer.putLong(index.size());
+			trailer.putLong(MAGIC);
+			trailer.flip();
+			
+			while (trailer.hasRemaining())
+				end += channel.write(trailer, end);
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Returns the number of spike events dropped because every buffer was waiting to be written.
+	 * @return The number of dropped spike events.
+	 */
+	public long dropped() {
+		return dropped.get();
+	}
+	
+	/**
+	 * Hands all partially filled buffers to the writer thread. This must only be called when no other thread is recording, such as between
+	 * processing cycles.
+	 * @throws IOException Thrown if the writer thread failed to write to the spike raster file.
+	 */
+	public void flush() throws IOException {
+		if (writeError != null)
+			throw writeError;
+		
+		Buffer buffer;
+		
+		while ((buffer = registered.poll()) != null) {
+			buffer.owner = null;
+			
+			if (buffer.size > 0)
+				queue.add(buffer);
+			else
+				pool.add(buffer);
+		}
+	}
+	
+	/**
+	 * Opens a SpikeRecorder writing to the spike raster file at the specified path. An existing file is overwritten.
+	 * @param file - The path of the spike raster file.
+	 * @return The recorder, with its writer thread running.
+	 * @throws IOException Thrown if the file cannot be created.
+	 */
+	public static SpikeRecorder open(Path file) throws IOException {
+		return open(file, DEF_BUFFER_EVENTS, DEF_MAX_BUFFERS);
+	}
+	
+	/**
+	 * Opens a SpikeRecorder writing to the spike raster file at the specified path with the specified number of events per thread buffer.
+	 * An existing file is overwritten.
+	 * @param file - The path of the spike raster file.
+	 * @param bufferEvents - The number of events per thread buffer.
+	 * @return The recorder, with its writer thread running.
+	 * @throws IllegalArgumentException Thrown if bufferEvents is less than 1.
+	 * @throws IOException Thrown if the file cannot be created.
+	 */
+	public static SpikeRecorder open(Path file, int bufferEvents) throws IOException {
+		return open(file, bufferEvents, DEF_MAX_BUFFERS);
+	}
+	
+	/**
+	 * Opens a SpikeRecorder writing to the spike raster file at the specified path with the specified number of events per thread buffer
+	 * and the specified maximum number of buffers. Each recording thread holds one buffer, so maxBuffers should exceed the number of
+	 * recording threads by enough spare buffers to cover the writer's latency. An existing file is overwritten.
+	 * @param file - The path of the spike raster file.
+	 * @param bufferEvents - The number of events per thread buffer.
+	 * @param maxBuffers - The maximum number of buffers, which bounds the memory of events waiting to be written.
+	 * @return The recorder, with its writer thread running.
+	 * @throws IllegalArgumentException Thrown if bufferEvents or maxBuffers is less than 1.
+	 * @throws IOException Thrown if the file cannot be created.
+	 */
+	public static SpikeRecorder open(Path file, int bufferEvents, int maxBuffers) throws IOException {
+		SpikeRecorder recorder = new SpikeRecorder(file, bufferEvents, maxBuffers);
+		recorder.start();
+		return recorder;
+	}
+	
+	/**
+	 * Records a spike of the neural node with the specified neural ID on the specified step. Events recorded by one thread must be recorded
+	 * in step order. If no buffer is free, the event is dropped and counted.
+	 * @param step - The processing step of the spike.
+	 * @param id - The neural ID of the neural node that spiked.
+	 * @throws IllegalStateException Thrown if the recorder is closed.
+	 */
+	public void record(long step, long id) {
+		Buffer buffer = local.get();
+		
+		if (buffer == null || buffer.owner != Thread.currentThread())
+			buffer = acquire();
+		
+		if (buffer == null) {
+			dropped.incrementAndGet();
+			return;
+		}
+		
+		buffer.step[buffer.size] = step;
+		buffer.id[buffer.size] = id;
+		buffer.size++;
+		
+		if (buffer.size == buffer.step.length) {
+			registered.remove(buffer);
+			buffer.owner = null;
+			queue.add(buffer);
+			local.remove();
+		}
+	}
+	
+	/**
+	 * Returns the number of spike events written to the file so far.
+	 * @return The number of written spike events.
+	 */
+	public synchronized long spikes() {
+		return spikes;
+	}
+	
+	/**
+	 * Returns an empty buffer owned by the calling thread, creating one if the pool is empty and fewer than the maximum number of buffers
+	 * exist.
+	 * @return The buffer, or null if every buffer is in use.
+	 */
+	private Buffer acquire() {
+		if (closed)
+			throw new IllegalStateException("Error: Cannot record spike. SpikeRecorder is closed.");
+		
+		Buffer buffer = pool.poll();
+		
+		if (buffer == null) {
+			if (buffers.getAndIncrement() >= maxBuffers) {
+				buffers.decrementAndGet();
+				return null;
+			}
+			
+			buffer = new Buffer(bufferEvents);
+		}
+		
+		buffer.size = 0;
+		buffer.owner = Thread.currentThread();
+		registered.add(buffer);
+		local.set(buffer);
+		return buffer;
+	}
+	
+	/**
+	 * Starts the writer thread.
+	 */
+	private void start() {
+		writer = new Thread(this::write, "SpikeRecorder Writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Writes full buffers to the spike raster file until the recorder is closed. Runs on the writer thread.
+	 */
+	private void write() {
+		ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_HEADER_BYTES + bufferEvents * MAX_EVENT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		
+		while (true) {
+			Buffer buffer;
+			
+			try {
+				buffer = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			
+			// Stop on the empty end marker
+			if (buffer.step.length == 0)
+				return;
+			
+			if (writeError == null) {
+				try {
+					// Encode block
+					block.clear();
+					block.position(BLOCK_HEADER_BYTES);
+					long step = buffer.step[0];
+					long id = 0;
+					
+					for (int i = 0; i < buffer.size; ++i) {
+						putVarLong(block, buffer.step[i] - step);
+						putVarLong(block, zigzag(buffer.id[i] - id));
+						step = buffer.step[i];
+						id = buffer.id[i];
+					}
+					
+					block.putInt(0, buffer.size);
+					block.putInt(4, block.position() - BLOCK_HEADER_BYTES);
+					block.putLong(8, buffer.step[0]);
+					block.putLong(16, buffer.step[buffer.size - 1]);
+					block.flip();
+					
+					// Write block
+					long offset = end;
+					
+					while (block.hasRemaining())
+						end += channel.write(block, end);
+					
+					index.add(new long[] { buffer.step[0], buffer.step[buffer.size - 1], offset });
+					
+					synchronized (this) {
+						spikes += buffer.size;
+					}
+				} catch (IOException e) {
+					writeError = e;
+				}
+			}
+			
+			// Return buffer to pool
+			buffer.size = 0;
+			pool.add(buffer);
+		}
+	}
+	
+	/**
+	 * Writes the specified value as an unsigned variable-length integer.
+	 * @param buffer - The buffer.
+	 * @param value - The value.
+	 */
+	private static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		
+		buffer.put((byte)value);
+	}
+	
+	/**
+	 * Returns the zigzag encoding of the specified signed value.
+	 * @param value - The signed value.
+	 * @return The zigzag encoded value.
+	 */
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+}
@@ -0,0 +1,541 @@
+package org.arti.neural.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>public class <b>StepRecordExporter</b><br>
+ * extends {@link Object}<br>
+ * implements {@link AutoCloseable}</p>
+ * 
+ * <p>StepRecordExporter class streams the per-step records of a single neuron simulation, its time, v, u and I values and spike flag, to a
+ * file as they are produced. Records are placed in a preallocated ring buffer by the simulating thread and are formatted and written through
+ * a buffered FileChannel by a background writer thread, so a run of any length never builds its log in memory and never waits on disk I/O
+ * unless the ring buffer is full.</p>
+ * 
+ * <p>Records can be written as a text log, as CSV, or in a compact binary format. A binary file can later be converted to either of the
+ * other formats with {@link #convert(Path, Path, Format)}.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class StepRecordExporter implements AutoCloseable {
+	/**
+	 * <p>public enum <b>Format</b><br>
+	 * extends {@link Enum}</p>
+	 * 
+	 * <p>Format enum lists the file formats a StepRecordExporter can write.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public enum Format {
+		/**
+		 * Little-endian binary records.
+		 */
+		BINARY,
+		/**
+		 * Comma-separated values with a header row.
+		 */
+		CSV,
+		/**
+		 * Human readable text log, one line per step.
+		 */
+		TEXT;
+	}
+	
+	/**
+	 * Binary step record file magic value ("ARTISTEP").
+	 */
+	static final long MAGIC = 0x5045545349545241L;
+	/**
+	 * Binary step record file format version.
+	 */
+	static final int VERSION = 1;
+	/**
+	 * Size of the binary file header in bytes.
+	 */
+	static final int HEADER_BYTES = 16;
+	
+	// Default number of records in the ring buffer.
+	private static final int DEF_CAPACITY = 8192;
+	// Size of the output buffer in bytes.
+	private static final int OUTPUT_BYTES = 65536;
+	// Record type of a step.
+	private static final byte STEP = 0;
+	// Record type of a step with a spike.
+	private static final byte SPIKE = 1;
+	// Record type of a note.
+	private static final byte NOTE = 2;
+	// Record type of a flush request.
+	private static final byte FLUSH = 3;
+	
+	// The number of records the ring buffer holds.
+	private int capacity;
+	// The file channel of the output file.
+	private FileChannel channel;
+	// Closed flag.
+	private volatile boolean closed;
+	// The number of flush requests completed by the writer thread.
+	private volatile long flushed;
+	// The number of flush requests made.
+	private long flushes;
+	// The format of the output file.
+	private Format format;
+	// The number of records published by the producer.
+	private volatile long head;
+	// The note text of each ring slot.
+	private String[] notes;
+	// The output buffer.
+	private ByteBuffer output;
+	// The thread waiting for the writer thread, if any.
+	private volatile Thread producer;
+	// The number of records consumed by the writer thread.
+	private volatile long tail;
+	// The record type of each ring slot.
+	private byte[] type;
+	// The t, v, u and I values of each ring slot.
+	private float[] values;
+	// The background writer thread.
+	private Thread writer;
+	// The first I/O error raised by the writer thread, if any.
+	private volatile IOException writeError;
+	
+	/**
+	 * Creates a StepRecordExporter writing to the file at the specified path in the specified format with the specified ring buffer
+	 * capacity. An existing file is overwritten. The writer thread is started by {@link #open(Path, Format, int)} once the exporter is fully
+	 * constructed.
+	 * @param file - The path of the output file.
+	 * @param format - The output format.
+	 * @param capacity - The number of records the ring buffer holds.
+	 * @throws IllegalArgumentException Thrown if capacity is less than 1.
+	 * @throws IOException Thrown if the file cannot be created.
+	 * @throws NullPointerException Thrown if format is null.
+	 */
+	private StepRecordExporter(Path file, Format format, int capacity) throws IOException {
+		// Check parameters
+		if (format == null)
+			throw new NullPointerException("Error: StepRecordExporter's format cannot be null.");
+		
+		if (capacity < 1)
+			throw new IllegalArgumentException("Error: StepRecordExporter's capacity must be at least 1.");
+		
+		// Initialize variables
+		this.capacity = capacity;
+		this.format = format;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		closed = false;
+		flushed = 0;
+		flushes = 0;
+		head = 0;
+		notes = new String[capacity];
+		output = ByteBuffer.allocateDirect(OUTPUT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		producer = null;
+		tail = 0;
+		type = new byte[capacity];
+		values = new float[capacity * 4];
+		writeError = null;
+		
+		// Write header
+		if (format == Format.BINARY) {
+			output.putLong(MAGIC);
+			output.putInt(VERSION);
+			output.putInt(0);
+		}
+		else if (format == Format.CSV) {
+			put("t,v,u,I,spike\n");
+		}
+	}
+	
+	/**
+	 * Writes all queued records, waits for the writer thread to finish, and closes the output file. The exporter cannot be used after it is
+	 * closed.
+	 * @throws IOException Thrown if the output file could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		
+		closed = true;
+		LockSupport.unpark(writer);
+		
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		try {
+			if (writeError != null)
+				throw writeError;
+			
+			drain();
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Converts the binary step record file at the specified path to a new file in the specified format.
+	 * @param binary - The path of the binary step record file.
+	 * @param file - The path of the output file.
+	 * @param format - The output format.
+	 * @throws IOException Thrown if the binary file cannot be read or the output file cannot be written.
+	 */
+	public static void convert(Path binary, Path file, Format format) throws IOException {
+		try (FileChannel input = FileChannel.open(binary, StandardOpenOption.READ);
+				StepRecordExporter exporter = open(file, format)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(OUTPUT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.flip();
+			
+			// Check header
+			if (!fill(input, buffer, HEADER_BYTES) || buffer.getLong() != MAGIC)
+				throw new IOException("Error: " + binary + " is not a binary step record file.");
+			
+			if (buffer.getInt() != VERSION)
+				throw new IOException("Error: Unsupported step record file version.");
+			
+			buffer.getInt();
+			
+			// Copy records
+			while (fill(input, buffer, 1)) {
+				byte type = buffer.get();
+				
+				if (type == NOTE) {
+					if (!fill(input, buffer, 2))
+						break;
+					
+					byte[] text = new byte[buffer.getShort() & 0xFFFF];
+					
+					if (!fill(input, buffer, text.length))
+						break;
+					
+					buffer.get(text);
+					exporter.note(new String(text, StandardCharsets.UTF_8));
+				}
+				else {
+					if (!fill(input, buffer, 16))
+						break;
+					
+					exporter.record(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), type == SPIKE);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Waits until every record queued so far has been written to the output file. Like the other producer methods, this must only be called
+	 * by one thread at a time.
+	 * @throws IOException Thrown if the output file could not be written.
+	 */
+	public void flush() throws IOException {
+		long ticket = ++flushes;
+		publish(FLUSH, 0.0f, 0.0f, 0.0f, 0.0f, null);
+		
+		while (flushed < ticket && writeError == null && writer.isAlive()) {
+			producer = Thread.currentThread();
+			
+			if (flushed < ticket)
+				LockSupport.parkNanos(this, 1000000L);
+		}
+		
+		producer = null;
+		
+		if (writeError != null)
+			throw writeError;
+	}
+	
+	/**
+	 * Returns the output format.
+	 * @return The format.
+	 */
+	public Format format() {
+		return format;
+	}
+	
+	/**
+	 * Queues a line of text, such as a run summary. Text logs write the line as is, CSV files write it as a comment line starting with #,
+	 * and binary files store it so it can be reproduced when converted. Binary files keep the first 65533 bytes of the UTF-8 text.
+	 * @param text - The line of text.
+	 * @throws IOException Thrown if the output file could not be written.
+	 */
+	public void note(String text) throws IOException {
+		publish(NOTE, 0.0f, 0.0f, 0.0f, 0.0f, text);
+	}
+	
+	/**
+	 * Opens a StepRecordExporter writing to the file at the specified path in the specified format. An existing file is overwritten.
+	 * @param file - The path of the output file.
+	 * @param format - The output format.
+	 * @return The exporter, with its writer thread running.
+	 * @throws IOException Thrown if the file cannot be created.
+	 * @throws NullPointerException Thrown if format is null.
+	 */
+	public static StepRecordExporter open(Path file, Format format) throws IOException {
+		return open(file, format, DEF_CAPACITY);
+	}
+	
+	/**
+	 * Opens a StepRecordExporter writing to the file at the specified path in the specified format with the specified ring buffer capacity.
+	 * An existing file is overwritten.
+	 * @param file - The path of the output file.
+	 * @param format - The output format.
+	 * @param capacity - The number of records the ring buffer holds.
+	 * @return The exporter, with its writer thread running.
+	 * @throws IllegalArgumentException Thrown if capacity is less than 1.
+	 * @throws IOException Thrown if the file cannot be created.
+	 * @throws NullPointerException Thrown if format is null.
+	 */
+	public static StepRecordExporter open(Path file, Format format, int capacity) throws IOException {
+		StepRecordExporter exporter = new StepRecordExporter(file, format, capacity);
+		exporter.start();
+		return exporter;
+	}
+	
+	/**
+	 * Queues the record of a single step. Records must be queued by one thread at a time.
+	 * @param t - The simulation time after the step.
+	 * @param v - The value of v.
+	 * @param u - The value of u.
+	 * @param I - The input current.
+	 * @param spike - True if the neuron spiked on the step.
+	 * @throws IOException Thrown if the output file could not be written.
+	 */
+	public void record(float t, float v, float u, float I, boolean spike) throws IOException {
+		publish(spike ? SPIKE : STEP, t, v, u, I, null);
+	}
+	
+	/**
+	 * Writes the output buffer to the output file.
+	 * @throws IOException Thrown if the output file could not be written.
+	 */
+	private void drain() throws IOException {
+		output.flip();
+		
+		while (output.hasRemaining())
+			channel.write(output);
+		
+		output.clear();
+	}
+	
+	/**
+	 * Ensures the specified buffer holds at least the specified number of unread bytes, reading more from the specified channel if needed.
+	 * @param input - The channel to read from.
+	 * @param buffer - The buffer.
+	 * @param bytes - The number of bytes needed.
+	 * @return True if the bytes are available, false if the end of the channel was reached first.
+	 * @throws IOException Thrown if the channel cannot be read.
+	 */
+	private static boolean fill(FileChannel input, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() >= bytes)
+			return true;
+		
+		buffer.compact();
+		
+		while (buffer.position() < bytes) {
+			if (input.read(buffer) < 0)
+				break;
+		}
+		
+		buffer.flip();
+		return buffer.remaining() >= bytes;
+	}
+	
+	/**
+	 * Publishes a record to the ring buffer, waiting for the writer thread if the ring buffer is full.
+	 * @param type - The record type.
+	 * @param t - The simulation time.
+	 * @param v - The value of v.
+	 * @param u - The value of u.
+	 * @param I - The input current.
+	 * @param note - The note text, or null.
+	 * @throws IllegalStateException Thrown if the exporter is closed.
+	 * @throws IOException Thrown if the output file could not be written.
+	 */
+	private void publish(byte type, float t, float v, float u, float I, String note) throws IOException {
+		if (closed)
+			throw new IllegalStateException("Error: Cannot export step record. StepRecordExporter is closed.");
+		
+		if (writeError != null)
+			throw writeError;
+		
+		long h = head;
+		
+		// Wait for space
+		while (h - tail >= capacity) {
+			if (writeError != null)
+				throw writeError;
+			
+			if (!writer.isAlive())
+				throw new IOException("Error: Cannot export step record. The writer thread has stopped.");
+			
+			producer = Thread.currentThread();
+			
+			if (h - tail >= capacity)
+				LockSupport.parkNanos(this, 100000L);
+		}
+		
+		producer = null;
+		
+		int slot = (int)(h % capacity);
+		this.type[slot] = type;
+		values[slot * 4] = t;
+		values[slot * 4 + 1] = v;
+		values[slot * 4 + 2] = u;
+		values[slot * 4 + 3] = I;
+		notes[slot] = note;
+		head = h + 1;
+		
+		// Wake writer if it was idle
+		if (h == tail)
+			LockSupport.unpark(writer);
+	}
+	
+	/**
+	 * Appends the specified ASCII text to the output buffer, writing the buffer to the output file first if it is full.
+	 * @param text - The text.
+	 * @throws IOException Thrown if the output file could not be written.
+	 */
+	private void put(String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		
+		if (output.remaining() < bytes.length)
+			drain();
+		
+		// Text longer than the output buffer is written in chunks
+		for (int offset = 0; offset < bytes.length; ) {
+			if (!output.hasRemaining())
+				drain();
+			
+			int length = Math.min(bytes.length - offset, output.remaining());
+			output.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+	
+	/**
+	 * Starts the writer thread.
+	 */
+	private void start() {
+		writer = new Thread(this::write, "StepRecordExporter Writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Formats queued records and writes them to the output file until the exporter is closed. Runs on the writer thread.
+	 */
+	private void write() {
+		while (true) {
+			long t = tail;
+			long h = head;
+			
+			if (t == h) {
+				if (closed && head == t)
+					return;
+				
+				LockSupport.parkNanos(this, 10000000L);
+				continue;
+			}
+			
+			try {
+				for (; t < h; ++t) {
+					int slot = (int)(t % capacity);
+					writeRecord(type[slot], values, slot * 4, notes[slot]);
+					notes[slot] = null;
+					
+					// Release the slot
+					tail = t + 1;
+				}
+			} catch (IOException e) {
+				writeError = e;
+				tail = h;
+			} catch (RuntimeException e) {
+				writeError = new IOException("Error: StepRecordExporter writer thread failed.", e);
+				tail = h;
+			}
+			
+			Thread waiting = producer;
+			
+			if (waiting != null)
+				LockSupport.unpark(waiting);
+		}
+	}
+	
+	/**
+	 * Formats a single record into the output buffer. Runs on the writer thread.
+	 * @param type - The record type.
+	 * @param values - The array holding the t, v, u and I values.
+	 * @param offset - The index of the t value.
+	 * @param note - The note text, or null.
+	 * @throws IOException Thrown if the output file could not be written.
+	 */
+	private void writeRecord(byte type, float[] values, int offset, String note) throws IOException {
+		if (type == FLUSH) {
+			drain();
+			flushed = flushed + 1;
+			return;
+		}
+		
+		if (writeError != null)
+			return;
+		
+		if (type == NOTE) {
+			switch (format) {
+			case BINARY:
+				byte[] text = note.getBytes(StandardCharsets.UTF_8);
+				int length = Math.min(text.length, OUTPUT_BYTES - 3);
+				
+				if (output.remaining() < 3 + length)
+					drain();
+				
+				output.put(NOTE);
+				output.putShort((short)length);
+				output.put(text, 0, length);
+				break;
+			case CSV:
+				put("# " + note + "\n");
+				break;
+			case TEXT:
+				put(note + "\n");
+				break;
+			}
+			
+			return;
+		}
+		
+		float t = values[offset];
+		float v = values[offset + 1];
+		float u = values[offset + 2];
+		float I = values[offset + 3];
+		
+		switch (format) {
+		case BINARY:
+			if (output.remaining() < 17)
+				drain();
+			
+			output.put(type);
+			output.putFloat(t);
+			output.putFloat(v);
+			output.putFloat(u);
+			output.putFloat(I);
+			break;
+		case CSV:
+			put(t + "," + v + "," + u + "," + I + "," + ((type == SPIKE) ? "1\n" : "0\n"));
+			break;
+		case TEXT:
+			put(String.format("t: %6.1f - v: %7.3f; u: %7.3f; I: %8.3f", t, v, u, I) + ((type == SPIKE) ? "*\n" : "\n"));
+			break;
+		}
+	}
+}
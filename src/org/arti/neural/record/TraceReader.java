@@ -0,0 +1,354 @@
+package org.arti.neural.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>public class <b>TraceReader</b><br>
+ * extends {@link Object}<br>
+ * implements {@link AutoCloseable}</p>
+ * 
+ * <p>TraceReader class reads trace files written by a {@link TraceWriter}. The chunk index is used to locate the chunks overlapping a
+ * requested range of samples, and only the compressed streams of the requested channels are read and decoded, so a short range of a few
+ * channels can be read from a very large trace file without loading the rest of it. Long ranges can be streamed chunk by chunk with a
+ * {@link ChunkVisitor} to keep memory use bounded.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class TraceReader implements AutoCloseable {
+	/**
+	 * <p>public interface <b>ChunkVisitor</b></p>
+	 * 
+	 * <p>ChunkVisitor interface receives the decoded samples of a trace file one chunk at a time.</p>
+	 * 
+	 * @author Monroe Gordon
+	 * @version 1.0.0
+	 * @since JDK 22
+	 */
+	public interface ChunkVisitor {
+		/**
+		 * Handles the decoded samples of a single chunk. The arrays are reused for the next chunk and must not be kept.
+		 * @param firstSample - The sample index of values[c][offset].
+		 * @param offset - The index of the first sample in each array.
+		 * @param length - The number of samples in each array.
+		 * @param values - The decoded samples, one array per requested channel.
+		 */
+		public void chunk(long firstSample, int offset, int length, float[][] values);
+	}
+	
+	// The byte offset of each chunk.
+	private long[] chunkOffset;
+	// The number of samples per chunk.
+	private int chunkSamples;
+	// The buffer holding the chunk being decoded.
+	private ByteBuffer buffer;
+	// The file channel of the trace file.
+	private FileChannel file;
+	// The end of the last chunk in the file.
+	private long indexOffset;
+	// The time between samples in milliseconds.
+	private float interval;
+	// The names of the channels.
+	private String[] names;
+	// The total number of samples.
+	private long samples;
+	
+	/**
+	 * Opens the trace file at the specified path.
+	 * @param file - The path of the trace file.
+	 * @throws IOException Thrown if the file cannot be read or is not a complete trace file.
+	 */
+	public TraceReader(Path file) throws IOException {
+		this.file = FileChannel.open(file, StandardOpenOption.READ);
+		
+		try {
+			long size = this.file.size();
+			
+			if (size < 24 + TraceWriter.TRAILER_BYTES)
+				throw new IOException("Error: " + file + " is not a trace file.");
+			
+			// Check header and trailer
+			ByteBuffer header = read(0, 24);
+			ByteBuffer trailer = read(size - TraceWriter.TRAILER_BYTES, TraceWriter.TRAILER_BYTES);
+			
+			if (header.getLong(0) != TraceWriter.MAGIC || trailer.getLong(24) != TraceWriter.MAGIC)
+				throw new IOException("Error: " + file + " is not a complete trace file.");
+			
+			if (header.getInt(8) != TraceWriter.VERSION)
+				throw new IOException("Error: Unsupported trace file version " + header.getInt(8) + ".");
+			
+			if (header.getInt(12) < 1 || header.getInt(16) < 1)
+				throw new IOException("Error: " + file + " is corrupt.");
+			
+			// Read channel names
+			names = new String[header.getInt(12)];
+			chunkSamples = header.getInt(16);
+			interval = header.getFloat(20);
+			long position = 24;
+			
+			for (int i = 0; i < names.length; ++i) {
+				int length = read(position, 4).getInt(0);
+				ByteBuffer name = read(position + 4, length);
+				names[i] = new String(name.array(), 0, length, StandardCharsets.UTF_8);
+				position += 4 + length;
+			}
+			
+			// Read chunk index, which ends at the trailer and whose chunks must lie in order between the header and the index
+			indexOffset = trailer.getLong(0);
+			long chunks = trailer.getLong(8);
+			long indexBytes = size - TraceWriter.TRAILER_BYTES - indexOffset;
+			samples = trailer.getLong(16);
+			
+			if (indexOffset < position || indexBytes % TraceWriter.INDEX_ENTRY_BYTES != 0 ||
+					chunks != indexBytes / TraceWriter.INDEX_ENTRY_BYTES || samples < 0 || samples > chunks * chunkSamples ||
+					samples <= (chunks - 1) * chunkSamples)
+				throw new IOException("Error: " + file + " has a corrupt chunk index.");
+			
+			ByteBuffer index = read(indexOffset, (int)chunks * TraceWriter.INDEX_ENTRY_BYTES);
+			chunkOffset = new long[(int)chunks];
+			
+			for (int i = 0; i < chunks; ++i) {
+				chunkOffset[i] = index.getLong(i * TraceWriter.INDEX_ENTRY_BYTES + 8);
+				
+				if (chunkOffset[i] < ((i == 0) ? position : chunkOffset[i - 1] + TraceWriter.CHUNK_HEADER_BYTES) ||
+						chunkOffset[i] + TraceWriter.CHUNK_HEADER_BYTES > indexOffset)
+					throw new IOException("Error: " + file + " has a corrupt chunk index.");
+			}
+			
+			buffer = ByteBuffer.allocateDirect(TraceWriter.CHUNK_HEADER_BYTES + names.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+		} catch (IOException | RuntimeException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Returns the number of channels in the trace file.
+	 * @return The number of channels.
+	 */
+	public int channels() {
+		return names.length;
+	}
+	
+	/**
+	 * Returns the number of samples per chunk.
+	 * @return The number of samples per chunk.
+	 */
+	public int chunkSamples() {
+		return chunkSamples;
+	}
+	
+	/**
+	 * Returns the number of chunks in the trace file.
+	 * @return The number of chunks.
+	 */
+	public int chunks() {
+		return chunkOffset.length;
+	}
+	
+	/**
+	 * Closes the trace file.
+	 * @throws IOException Thrown if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+	
+	/**
+	 * Returns the index of the channel with the specified name.
+	 * @param name - The name of the channel.
+	 * @return The index of the channel, or -1 if there is no channel with the specified name.
+	 */
+	public int indexOf(String name) {
+		for (int i = 0; i < names.length; ++i) {
+			if (names[i].equals(name))
+				return i;
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Returns the time between samples in milliseconds.
+	 * @return The sample interval.
+	 */
+	public float interval() {
+		return interval;
+	}
+	
+	/**
+	 * Returns the name of the channel at the specified index.
+	 * @param channel - The index of the channel.
+	 * @return The name of the channel.
+	 * @throws IndexOutOfBoundsException Thrown if channel is out of bounds.
+	 */
+	public String name(int channel) {
+		if (channel < 0 || channel >= names.length)
+			throw new IndexOutOfBoundsException("Error: Trace channel index " + channel + " is out of bounds.");
+		
+		return names[channel];
+	}
+	
+	/**
+	 * Reads samples of the specified channel starting at the specified sample index into the specified array.
+	 * @param channel - The index of the channel.
+	 * @param fromSample - The index of the first sample.
+	 * @param dest - The array receiving the samples.
+	 * @return The number of samples read, which is less than dest.length if the end of the trace is reached.
+	 * @throws IOException Thrown if the trace file cannot be read.
+	 */
+	public int read(int channel, long fromSample, float[] dest) throws IOException {
+		return read(new int[] { channel }, fromSample, new float[][] { dest });
+	}
+	
+	/**
+	 * Reads samples of the specified channels starting at the specified sample index into the specified arrays.
+	 * @param channels - The indices of the channels.
+	 * @param fromSample - The index of the first sample.
+	 * @param dest - The arrays receiving the samples, one per channel, all of the same length.
+	 * @return The number of samples read per channel, which is less than the array length if the end of the trace is reached.
+	 * @throws IOException Thrown if the trace file cannot be read.
+	 */
+	public int read(int[] channels, long fromSample, float[][] dest) throws IOException {
+		int length = (dest.length == 0) ? 0 : dest[0].length;
+		long toSample = Math.min(samples, fromSample + length);
+		
+		stream(channels, fromSample, toSample, (first, offset, count, values) -> {
+			for (int i = 0; i < values.length; ++i)
+				System.arraycopy(values[i], offset, dest[i], (int)(first - fromSample), count);
+		});
+		
+		return (int)Math.max(0, toSample - fromSample);
+	}
+	
+	/**
+	 * Returns the index of the sample taken at the specified time.
+	 * @param time - The time in milliseconds.
+	 * @return The sample index.
+	 */
+	public long sampleAt(float time) {
+		return Math.max(0, (long)Math.floor(time / interval));
+	}
+	
+	/**
+	 * Returns the total number of samples in the trace file.
+	 * @return The number of samples.
+	 */
+	public long samples() {
+		return samples;
+	}
+	
+	/**
+	 * Decodes the samples of the specified channels from the specified first sample up to, but not including, the specified last sample, and
+	 * passes them to the specified visitor one chunk at a time.
+	 * @param channels - The indices of the channels.
+	 * @param fromSample - The first sample, inclusive.
+	 * @param toSample - The last sample, exclusive.
+	 * @param visitor - The visitor receiving the decoded samples.
+	 * @throws IndexOutOfBoundsException Thrown if a channel index is out of bounds.
+	 * @throws IOException Thrown if the trace file cannot be read.
+	 */
+	public void stream(int[] channels, long fromSample, long toSample, ChunkVisitor visitor) throws IOException {
+		for (int channel : channels) {
+			if (channel < 0 || channel >= names.length)
+				throw new IndexOutOfBoundsException("Error: Trace channel index " + channel + " is out of bounds.");
+		}
+		
+		fromSample = Math.max(0, fromSample);
+		toSample = Math.min(samples, toSample);
+		
+		if (fromSample >= toSample)
+			return;
+		
+		float[][] values = new float[channels.length][chunkSamples];
+		int tableBytes = TraceWriter.CHUNK_HEADER_BYTES + names.length * 4;
+		
+		for (int i = (int)(fromSample / chunkSamples); i < chunkOffset.length && (long)i * chunkSamples < toSample; ++i) {
+			long chunkStart = chunkOffset[i];
+			long chunkEnd = (i + 1 < chunkOffset.length) ? chunkOffset[i + 1] : indexOffset;
+			
+			// Read the whole chunk when most channels are requested and it fits the buffer limit, otherwise only the requested streams
+			boolean whole = channels.length * 4 >= names.length &&
+					chunkEnd - chunkStart <= Math.max(TraceWriter.MAX_BUFFER_BYTES, tableBytes);
+			ByteBuffer chunk = ensure((int)(whole ? chunkEnd - chunkStart : tableBytes));
+			fill(chunk, chunkStart);
+			long first = chunk.getLong(0);
+			int count = chunk.getInt(8);
+			int chunkBytes = chunk.getInt(12);
+			
+			if (first != (long)i * chunkSamples || count < 1 || count > chunkSamples || chunkBytes != chunkEnd - chunkStart)
+				throw new IOException("Error: Trace file chunk " + i + " is corrupt.");
+			
+			for (int j = 0; j < channels.length; ++j) {
+				int start = chunk.getInt(TraceWriter.CHUNK_HEADER_BYTES + channels[j] * 4);
+				int end = (channels[j] + 1 < names.length) ? chunk.getInt(TraceWriter.CHUNK_HEADER_BYTES + (channels[j] + 1) * 4) : chunkBytes;
+				
+				if (whole) {
+					XorFloatCodec.decode(chunk, start, values[j], count);
+				}
+				else {
+					ByteBuffer stream = read(chunkStart + start, end - start);
+					XorFloatCodec.decode(stream, 0, values[j], count);
+				}
+			}
+			
+			int offset = (int)Math.max(0, fromSample - first);
+			int length = (int)(Math.min(toSample, first + count) - first) - offset;
+			visitor.chunk(first + offset, offset, length, values);
+		}
+	}
+	
+	/**
+	 * Returns the reusable chunk buffer with at least the specified capacity, cleared and limited to the specified number of bytes.
+	 * @param bytes - The number of bytes needed.
+	 * @return The buffer.
+	 */
+	private ByteBuffer ensure(int bytes) {
+		if (buffer.capacity() < bytes)
+			buffer = ByteBuffer.allocateDirect(Math.max(bytes, buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+		
+		buffer.clear();
+		buffer.limit(bytes);
+		return buffer;
+	}
+	
+	/**
+	 * Fills the specified buffer with bytes read from the trace file at the specified position.
+	 * @param buffer - The buffer to fill.
+	 * @param position - The file position.
+	 * @throws IOException Thrown if the file cannot be read or ends early.
+	 */
+	private void fill(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = file.read(buffer, position);
+			
+			if (read < 0)
+				throw new IOException("Error: Trace file ended unexpectedly.");
+			
+			position += read;
+		}
+		
+		buffer.flip();
+	}
+	
+	/**
+	 * Reads the specified number of bytes from the trace file at the specified position into a new heap buffer.
+	 * @param position - The file position.
+	 * @param bytes - The number of bytes.
+	 * @return The buffer.
+	 * @throws IOException Thrown if the file cannot be read or ends early.
+	 */
+	private ByteBuffer read(long position, int bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[bytes]).order(ByteOrder.LITTLE_ENDIAN);
+		fill(buffer, position);
+		return buffer;
+	}
+}
@@ -0,0 +1,261 @@
+package org.arti.neural.record;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>public class <b>TraceStore</b><br>
+ * extends {@link Object}<br>
+ * implements {@link AutoCloseable}</p>
+ * 
+ * <p>TraceStore class holds an unbounded multi-channel trace, such as the v, u and I values of a simulation that runs for minutes, in
+ * bounded memory. Samples are stored in fixed size chunks. Only the most recent chunks are kept in memory; older chunks are spilled to a
+ * temporary file and read back on demand, so any part of the trace can still be read.</p>
+ * 
+ * <p>A single thread appends samples while another thread reads them without blocking the appending thread. Readers copy in-memory chunks
+ * optimistically and read a chunk from the file instead if it was recycled while it was being copied.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class TraceStore implements AutoCloseable {
+	// Default number of samples per chunk.
+	private static final int DEF_CHUNK_SAMPLES = 4096;
+	// Default number of chunks kept in memory.
+	private static final int DEF_MEMORY_CHUNKS = 16;
+	
+	// The chunk most recently read from the file.
+	private long cachedChunk;
+	// The values of the chunk most recently read from the file.
+	private float[] cache;
+	// The number of channels.
+	private int channels;
+	// The number of samples per chunk.
+	private int chunkSamples;
+	// The in-memory chunks, stored channel by channel.
+	private float[][] chunks;
+	// The file holding the spilled chunks, or null if no chunk was spilled yet.
+	private FileChannel file;
+	// The buffer used to write spilled chunks.
+	private ByteBuffer io;
+	// The buffer used to read spilled chunks.
+	private ByteBuffer in;
+	// The number of samples appended.
+	private volatile long samples;
+	// The chunk held by each in-memory slot, or -1 if the slot is empty.
+	private AtomicLongArray slotChunk;
+	
+	/**
+	 * Creates an empty TraceStore with the specified number of channels.
+	 * @param channels - The number of channels.
+	 */
+	public TraceStore(int channels) {
+		this(channels, DEF_CHUNK_SAMPLES, DEF_MEMORY_CHUNKS);
+	}
+	
+	/**
+	 * Creates an empty TraceStore with the specified number of channels, samples per chunk and chunks kept in memory.
+	 * @param channels - The number of channels.
+	 * @param chunkSamples - The number of samples per chunk.
+	 * @param memoryChunks - The number of chunks kept in memory.
+	 * @throws IllegalArgumentException Thrown if channels or chunkSamples is less than 1, or memoryChunks is less than 2.
+	 */
+	public TraceStore(int channels, int chunkSamples, int memoryChunks) {
+		// Check parameters
+		if (channels < 1)
+			throw new IllegalArgumentException("Error: TraceStore must have at least one channel.");
+		
+		if (chunkSamples < 1)
+			throw new IllegalArgumentException("Error: TraceStore's chunk must hold at least one sample.");
+		
+		if (memoryChunks < 2)
+			throw new IllegalArgumentException("Error: TraceStore must keep at least two chunks in memory.");
+		
+		// Initialize variables
+		this.channels = channels;
+		this.chunkSamples = chunkSamples;
+		cachedChunk = -1;
+		cache = new float[channels * chunkSamples];
+		chunks = new float[memoryChunks][channels * chunkSamples];
+		file = null;
+		io = ByteBuffer.allocateDirect(channels * chunkSamples * 4).order(ByteOrder.LITTLE_ENDIAN);
+		in = ByteBuffer.allocateDirect(channels * chunkSamples * 4).order(ByteOrder.LITTLE_ENDIAN);
+		samples = 0;
+		slotChunk = new AtomicLongArray(memoryChunks);
+		
+		for (int i = 0; i < memoryChunks; ++i)
+			slotChunk.set(i, -1);
+	}
+	
+	/**
+	 * Appends one sample of every channel. Only one thread may append samples.
+	 * @param values - The values of the sample, one per channel.
+	 * @throws IllegalArgumentException Thrown if values does not have one value per channel.
+	 * @throws IOException Thrown if an old chunk cannot be spilled to the temporary file.
+	 */
+	public void append(float[] values) throws IOException {
+		if (values.length != channels)
+			throw new IllegalArgumentException("Error: TraceStore sample must have " + channels + " values.");
+		
+		long index = samples;
+		long chunk = index / chunkSamples;
+		int offset = (int)(index % chunkSamples);
+		int slot = (int)(chunk % chunks.length);
+		
+		// Start a new chunk, spilling the chunk that held the slot
+		if (offset == 0) {
+			long old = slotChunk.get(slot);
+			
+			if (old >= 0)
+				spill(old, chunks[slot]);
+			
+			slotChunk.set(slot, chunk);
+			VarHandle.releaseFence();
+		}
+		
+		float[] data = chunks[slot];
+		
+		for (int i = 0; i < channels; ++i)
+			data[i * chunkSamples + offset] = values[i];
+		
+		samples = index + 1;
+	}
+	
+	/**
+	 * Returns the number of channels.
+	 * @return The number of channels.
+	 */
+	public int channels() {
+		return channels;
+	}
+	
+	/**
+	 * Removes all samples and truncates the temporary file. This must not be called while another thread appends or reads samples.
+	 * @throws IOException Thrown if the temporary file cannot be truncated.
+	 */
+	public void clear() throws IOException {
+		samples = 0;
+		cachedChunk = -1;
+		
+		for (int i = 0; i < chunks.length; ++i)
+			slotChunk.set(i, -1);
+		
+		if (file != null)
+			file.truncate(0);
+	}
+	
+	/**
+	 * Closes and deletes the temporary file. The store cannot be used after it is closed.
+	 * @throws IOException Thrown if the temporary file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (file != null)
+			file.close();
+	}
+	
+	/**
+	 * Copies samples of the specified channel into the specified array, starting at the specified sample index. Reads are synchronized with
+	 * each other but never block the appending thread.
+	 * @param channel - The index of the channel.
+	 * @param from - The index of the first sample.
+	 * @param dest - The array receiving the samples.
+	 * @param offset - The index in dest of the first sample.
+	 * @param length - The maximum number of samples to copy.
+	 * @return The number of samples copied, which is less than length if the end of the trace is reached.
+	 * @throws IndexOutOfBoundsException Thrown if channel is out of bounds.
+	 * @throws IOException Thrown if a spilled chunk cannot be read.
+	 */
+	public synchronized int read(int channel, long from, float[] dest, int offset, int length) throws IOException {
+		if (channel < 0 || channel >= channels)
+			throw new IndexOutOfBoundsException("Error: TraceStore channel index " + channel + " is out of bounds.");
+		
+		from = Math.max(0, from);
+		int count = (int)Math.max(0, Math.min(length, samples - from));
+		int copied = 0;
+		
+		while (copied < count) {
+			long index = from + copied;
+			long chunk = index / chunkSamples;
+			int start = (int)(index % chunkSamples);
+			int n = Math.min(count - copied, chunkSamples - start);
+			int slot = (int)(chunk % chunks.length);
+			int src = channel * chunkSamples + start;
+			
+			// Copy from memory, then check that the chunk was not recycled meanwhile
+			if (slotChunk.get(slot) == chunk) {
+				System.arraycopy(chunks[slot], src, dest, offset + copied, n);
+				VarHandle.acquireFence();
+				
+				if (slotChunk.get(slot) == chunk) {
+					copied += n;
+					continue;
+				}
+			}
+			
+			// Read the spilled chunk from the file
+			if (cachedChunk != chunk)
+				load(chunk);
+			
+			System.arraycopy(cache, src, dest, offset + copied, n);
+			copied += n;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Returns the number of samples appended.
+	 * @return The number of samples.
+	 */
+	public long samples() {
+		return samples;
+	}
+	
+	/**
+	 * Reads the specified spilled chunk from the temporary file into the cache.
+	 * @param chunk - The chunk.
+	 * @throws IOException Thrown if the chunk cannot be read.
+	 */
+	private void load(long chunk) throws IOException {
+		long position = chunk * cache.length * 4L;
+		in.clear();
+		
+		while (in.hasRemaining()) {
+			if (file == null || file.read(in, position + in.position()) < 0)
+				throw new IOException("Error: TraceStore chunk " + chunk + " is missing from the temporary file.");
+		}
+		
+		in.flip();
+		in.asFloatBuffer().get(cache);
+		cachedChunk = chunk;
+	}
+	
+	/**
+	 * Writes the specified chunk to the temporary file, creating the file if needed. Runs on the appending thread.
+	 * @param chunk - The chunk.
+	 * @param data - The values of the chunk.
+	 * @throws IOException Thrown if the chunk cannot be written.
+	 */
+	private void spill(long chunk, float[] data) throws IOException {
+		if (file == null) {
+			Path path = Files.createTempFile("artislab", ".trace");
+			file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+		}
+		
+		io.clear();
+		io.asFloatBuffer().put(data);
+		long position = chunk * data.length * 4L;
+		
+		while (io.hasRemaining())
+			position += file.write(io, position);
+	}
+}
@@ -0,0 +1,301 @@
+package org.arti.neural.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>public class <b>TraceWriter</b><br>
+ * extends {@link Object}<br>
+ * implements {@link AutoCloseable}</p>
+ * 
+ * <p>TraceWriter class writes uniformly sampled traces, such as the membrane potentials gathered by a StateProbe, to a compressed columnar
+ * trace file. Samples are collected into chunks. Each channel of a chunk is compressed on its own with Gorilla-style XOR float compression,
+ * which stores only the changed bits between consecutive values, so slowly changing traces take a few bits per sample. A chunk index at the
+ * end of the file allows a {@link TraceReader} to decode any range of samples of any set of channels without reading the rest of the
+ * file.</p>
+ * 
+ * <p>File layout: a header holding the channel names, sample interval and chunk size, followed by chunks, followed by the chunk index and
+ * a trailer. Each chunk has a header with its first sample, sample count and byte length, a table of per-channel byte offsets, and the
+ * compressed bit stream of each channel.</p>
+ * 
+ * <p>A chunk is compressed into a direct buffer of at most {@value #MAX_BUFFER_BYTES} bytes, or the worst case of one channel if that is
+ * larger. The channels are written out in groups whenever the buffer may not hold the next channel, and the chunk header and offset table
+ * are written last in front of them, so the buffer does not grow with the number of channels.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class TraceWriter implements AutoCloseable {
+	/**
+	 * Trace file magic value ("ARTITRCE").
+	 */
+	static final long MAGIC = 0x4543525449545241L;
+	/**
+	 * Trace file format version.
+	 */
+	static final int VERSION = 1;
+	/**
+	 * Size of a chunk header in bytes.
+	 */
+	static final int CHUNK_HEADER_BYTES = 16;
+	/**
+	 * Size of a chunk index entry in bytes.
+	 */
+	static final int INDEX_ENTRY_BYTES = 16;
+	/**
+	 * Size of the file trailer in bytes.
+	 */
+	static final int TRAILER_BYTES = 32;
+	/**
+	 * Largest size of the direct buffers of a TraceWriter and TraceReader in bytes, unless a single channel of a chunk needs more.
+	 */
+	static final int MAX_BUFFER_BYTES = 1 << 20;
+	
+	// Default number of samples per chunk.
+	private static final int DEF_CHUNK_SAMPLES = 1024;
+	
+	// The compressed streams of the current group of channels.
+	private ByteBuffer chunk;
+	// The file offset of each written chunk.
+	private long[] chunkOffset;
+	// The number of samples per chunk.
+	private int chunkSamples;
+	// The number of written chunks.
+	private int chunks;
+	// The number of channels.
+	private int channels;
+	// The codec compressing each channel of a chunk.
+	private XorFloatCodec codec;
+	// The file channel of the trace file.
+	private FileChannel file;
+	// The end of the written data in the file.
+	private long end;
+	// The values of the current chunk, stored channel by channel.
+	private float[] values;
+	// The number of samples in the current chunk.
+	private int pending;
+	// The total number of samples appended.
+	private long samples;
+	// The chunk header and the table of per-channel byte offsets.
+	private ByteBuffer table;
+	
+	/**
+	 * Creates a TraceWriter writing to the trace file at the specified path. An existing file is overwritten.
+	 * @param file - The path of the trace file.
+	 * @param names - The names of the channels.
+	 * @param interval - The time between samples in milliseconds.
+	 * @throws IOException Thrown if the file cannot be created.
+	 */
+	public TraceWriter(Path file, String[] names, float interval) throws IOException {
+		this(file, names, interval, DEF_CHUNK_SAMPLES);
+	}
+	
+	/**
+	 * Creates a TraceWriter writing to the trace file at the specified path with the specified number of samples per chunk. An existing file
+	 * is overwritten.
+	 * @param file - The path of the trace file.
+	 * @param names - The names of the channels.
+	 * @param interval - The time between samples in milliseconds.
+	 * @param chunkSamples - The number of samples per chunk.
+	 * @throws IllegalArgumentException Thrown if names is empty, interval is not positive or chunkSamples is less than 1.
+	 * @throws IOException Thrown if the file cannot be created.
+	 * @throws NullPointerException Thrown if names is null.
+	 */
+	public TraceWriter(Path file, String[] names, float interval, int chunkSamples) throws IOException {
+		// Check parameters
+		if (names == null)
+			throw new NullPointerException("Error: TraceWriter's channel names cannot be null.");
+		
+		if (names.length == 0)
+			throw new IllegalArgumentException("Error: TraceWriter must have at least one channel.");
+		
+		if (!(interval > 0.0f))
+			throw new IllegalArgumentException("Error: TraceWriter's sample interval must be positive.");
+		
+		if (chunkSamples < 1)
+			throw new IllegalArgumentException("Error: TraceWriter's chunk must hold at least one sample.");
+		
+		// Initialize variables
+		this.chunkSamples = chunkSamples;
+		channels = names.length;
+		chunk = ByteBuffer.allocateDirect(Math.max(MAX_BUFFER_BYTES, chunkSamples * 9 + 16)).order(ByteOrder.LITTLE_ENDIAN);
+		chunkOffset = new long[16];
+		chunks = 0;
+		codec = new XorFloatCodec();
+		values = new float[channels * chunkSamples];
+		pending = 0;
+		samples = 0;
+		table = ByteBuffer.allocate(CHUNK_HEADER_BYTES + channels * 4).order(ByteOrder.LITTLE_ENDIAN);
+		this.file = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		
+		// Write header
+		byte[][] name = new byte[channels][];
+		int headerBytes = 24;
+		
+		for (int i = 0; i < channels; ++i) {
+			name[i] = ((names[i] == null) ? "" : names[i]).getBytes(StandardCharsets.UTF_8);
+			headerBytes += 4 + name[i].length;
+		}
+		
+		ByteBuffer header = ByteBuffer.allocate(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+		header.putLong(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(channels);
+		header.putInt(chunkSamples);
+		header.putFloat(interval);
+		
+		for (int i = 0; i < channels; ++i) {
+			header.putInt(name[i].length);
+			header.put(name[i]);
+		}
+		
+		header.flip();
+		end = 0;
+		
+		while (header.hasRemaining())
+			end += this.file.write(header, end);
+	}
+	
+	/**
+	 * Appends one sample of every channel to the trace.
+	 * @param sample - The values of the sample, one per channel.
+	 * @throws IllegalArgumentException Thrown if sample does not have one value per channel.
+	 * @throws IOException Thrown if a full chunk cannot be written.
+	 */
+	public void append(float[] sample) throws IOException {
+		if (sample.length != channels)
+			throw new IllegalArgumentException("Error: Trace sample must have " + channels + " values.");
+		
+		for (int i = 0; i < channels; ++i)
+			values[i * chunkSamples + pending] = sample[i];
+		
+		pending++;
+		samples++;
+		
+		if (pending == chunkSamples)
+			writeChunk();
+	}
+	
+	/**
+	 * Appends one sample of every channel, taken from the specified channel of each value group in the specified array. This appends the
+	 * values data[offset], data[offset + stride], data[offset + 2 * stride], and so on, such as one column of the frames copied from a
+	 * StateProbe.
+	 * @param data - The array holding the sample values.
+	 * @param offset - The index of the first channel's value.
+	 * @param stride - The distance between the values of consecutive channels.
+	 * @throws IOException Thrown if a full chunk cannot be written.
+	 */
+	public void append(float[] data, int offset, int stride) throws IOException {
+		for (int i = 0; i < channels; ++i)
+			values[i * chunkSamples + pending] = data[offset + i * stride];
+		
+		pending++;
+		samples++;
+		
+		if (pending == chunkSamples)
+			writeChunk();
+	}
+	
+	/**
+	 * Writes any partially filled chunk, the chunk index and the trailer, and closes the trace file.
+	 * @throws IOException Thrown if the trace file cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!file.isOpen())
+			return;
+		
+		try {
+			if (pending > 0)
+				writeChunk();
+			
+			// Write chunk index and trailer
+			ByteBuffer trailer = ByteBuffer.allocate(chunks * INDEX_ENTRY_BYTES + TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			
+			for (int i = 0; i < chunks; ++i) {
+				trailer.putLong((long)i * chunkSamples);
+				trailer.putLong(chunkOffset[i]);
+			}
+			
+			trailer.putLong(end);
+			trailer.putLong(chunks);
+			trailer.putLong(samples);
+			trailer.putLong(MAGIC);
+			trailer.flip();
+			
+			while (trailer.hasRemaining())
+				end += file.write(trailer, end);
+		}
+		finally {
+			file.close();
+		}
+	}
+	
+	/**
+	 * Writes the compressed streams in the chunk buffer to the trace file at the specified position and clears the buffer.
+	 * @param position - The file position.
+	 * @return The number of bytes written.
+	 * @throws IOException Thrown if the streams cannot be written.
+	 */
+	private int flush(long position) throws IOException {
+		chunk.flip();
+		int bytes = chunk.remaining();
+		
+		while (chunk.hasRemaining())
+			position += file.write(chunk, position);
+		
+		chunk.clear();
+		return bytes;
+	}
+	
+	/**
+	 * Returns the number of samples appended to the trace.
+	 * @return The number of samples.
+	 */
+	public long samples() {
+		return samples;
+	}
+	
+	/**
+	 * Compresses the pending samples of all channels into a chunk and writes it to the trace file.
+	 * @throws IOException Thrown if the chunk cannot be written.
+	 */
+	private void writeChunk() throws IOException {
+		long position = end + table.capacity();
+		chunk.clear();
+		
+		// Write the streams out in groups of channels whenever the next channel may not fit
+		for (int i = 0; i < channels; ++i) {
+			if (chunk.remaining() < pending * 9 + 16)
+				position += flush(position);
+			
+			table.putInt(CHUNK_HEADER_BYTES + i * 4, (int)(position - end) + chunk.position());
+			codec.encode(values, i * chunkSamples, pending, chunk);
+		}
+		
+		position += flush(position);
+		
+		// Write the chunk header and offset table in front of the streams
+		table.clear();
+		table.putLong(0, samples - pending);
+		table.putInt(8, pending);
+		table.putInt(12, (int)(position - end));
+		
+		while (table.hasRemaining())
+			file.write(table, end + table.position());
+		
+		if (chunks == chunkOffset.length)
+			chunkOffset = Arrays.copyOf(chunkOffset, chunks * 2);
+		
+		chunkOffset[chunks++] = end;
+		end = position;
+		pending = 0;
+	}
+}
@@ -0,0 +1,165 @@
+package org.arti.neural.record;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>public class <b>XorFloatCodec</b><br>
+ * extends {@link Object}</p>
+ * 
+ * <p>XorFloatCodec class compresses runs of float values with Gorilla-style XOR float compression. Each value is XORed with the previous
+ * value and only the changed bits are stored: control bit 0 for an unchanged value, control bits 10 followed by the changed bits when they
+ * fit in the previous window, or control bits 11 followed by a 5 bit leading zero count, a 5 bit length minus one and the changed bits. The
+ * first value is stored in full. Used by {@link TraceWriter}, {@link TraceReader}, {@link RunHistory} and the model response cache.</p>
+ * 
+ * @author Monroe Gordon
+ * @version 1.0.0
+ * @since JDK 22
+ */
+public class XorFloatCodec {
+	// The bit stream being written.
+	private long bits;
+	// The number of valid bits in the bit stream.
+	private int bitCount;
+	// The buffer receiving the compressed bytes.
+	private ByteBuffer out;
+	
+	/**
+	 * Creates an XorFloatCodec.
+	 */
+	public XorFloatCodec() {
+		bits = 0;
+		bitCount = 0;
+		out = null;
+	}
+	
+	/**
+	 * Decodes the specified number of XOR compressed float values starting at the specified position of the specified buffer.
+	 * @param buffer - The buffer holding the compressed stream.
+	 * @param position - The position of the stream.
+	 * @param dest - The array receiving the values.
+	 * @param count - The number of values.
+	 */
+	public static void decode(ByteBuffer buffer, int position, float[] dest, int count) {
+		long bits = 0;
+		int bitCount = 0;
+		int previous = 0;
+		int leading = 0;
+		int trailing = 0;
+		
+		for (int i = 0; i < count; ++i) {
+			// Refill bits, at most 44 are needed per value
+			while (bitCount <= 56 && position < buffer.limit()) {
+				bits |= (buffer.get(position++) & 0xFFL) << (56 - bitCount);
+				bitCount += 8;
+			}
+			
+			if (i == 0) {
+				previous = (int)(bits >>> 32);
+				bits <<= 32;
+				bitCount -= 32;
+			}
+			else if (bits >= 0) {
+				// Control bit 0, same value as the previous sample
+				bits <<= 1;
+				bitCount -= 1;
+			}
+			else {
+				if ((bits & 0x4000000000000000L) != 0) {
+					// Control bits 11, new window
+					leading = (int)((bits >>> 57) & 0x1F);
+					int length = (int)((bits >>> 52) & 0x1F) + 1;
+					trailing = 32 - leading - length;
+					bits <<= 12;
+					bitCount -= 12;
+				}
+				else {
+					// Control bits 10, previous window
+					bits <<= 2;
+					bitCount -= 2;
+				}
+				
+				int length = 32 - leading - trailing;
+				previous ^= (int)(bits >>> (64 - length)) << trailing;
+				bits <<= length;
+				bitCount -= length;
+			}
+			
+			dest[i] = Float.intBitsToFloat(previous);
+		}
+	}
+	
+	/**
+	 * Compresses the specified values and appends them to the specified buffer, which must have room for 9 bytes per value plus 8 bytes.
+	 * @param values - The array holding the values.
+	 * @param offset - The index of the first value.
+	 * @param count - The number of values.
+	 * @param buffer - The buffer receiving the compressed stream.
+	 */
+	public void encode(float[] values, int offset, int count, ByteBuffer buffer) {
+		out = buffer;
+		int previous = Float.floatToRawIntBits(values[offset]);
+		int previousLeading = -1;
+		int previousTrailing = 0;
+		putBits(previous & 0xFFFFFFFFL, 32);
+		
+		for (int i = 1; i < count; ++i) {
+			int current = Float.floatToRawIntBits(values[offset + i]);
+			int xor = current ^ previous;
+			
+			if (xor == 0) {
+				// Same value as the previous sample
+				putBits(0, 1);
+			}
+			else {
+				int leading = Math.min(31, Integer.numberOfLeadingZeros(xor));
+				int trailing = Integer.numberOfTrailingZeros(xor);
+				
+				if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+					// Changed bits fit in the previous window
+					int length = 32 - previousLeading - previousTrailing;
+					putBits(0b10, 2);
+					putBits((xor >>> previousTrailing) & ((1L << length) - 1), length);
+				}
+				else {
+					// Store a new window
+					int length = 32 - leading - trailing;
+					putBits(0b11, 2);
+					putBits(leading, 5);
+					putBits(length - 1, 5);
+					putBits((xor >>> trailing) & ((1L << length) - 1), length);
+					previousLeading = leading;
+					previousTrailing = trailing;
+				}
+			}
+			
+			previous = current;
+		}
+		
+		// Flush remaining bits
+		while (bitCount > 0) {
+			out.put((byte)(bits >>> 56));
+			bits <<= 8;
+			bitCount -= 8;
+		}
+		
+		bits = 0;
+		bitCount = 0;
+		out = null;
+	}
+	
+	/**
+	 * Appends the specified number of low bits of the specified value to the bit stream.
+	 * @param value - The bits to append.
+	 * @param count - The number of bits, at most 32.
+	 */
+	private void putBits(long value, int count) {
+		bits |= value << (64 - bitCount - count);
+		bitCount += count;
+		
+		while (bitCount >= 8) {
+			out.put((byte)(bits >>> 56));
+			bits <<= 8;
+			bitCount -= 8;
+		}
+	}
+}